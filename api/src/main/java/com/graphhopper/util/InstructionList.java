@@ -46,6 +46,10 @@ public class InstructionList extends AbstractList<Instruction> {
         this.tr = tr;
     }
 
+    public Translation getTr() {
+        return tr;
+    }
+
     @Override
     public int size() {
         return instructions.size();
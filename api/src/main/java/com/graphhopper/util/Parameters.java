@@ -209,5 +209,17 @@ public class Parameters {
         public static final String MAX_WALK_DISTANCE_PER_LEG = "pt.max_walk_distance_per_leg";
         public static final String LIMIT_SOLUTIONS = "pt.limit_solutions";
         public static final String BLOCKED_ROUTE_TYPES = "pt.blocked_route_types";
+        /**
+         * in seconds, for one-to-all searches
+         */
+        public static final String TIME_LIMIT = "pt.time_limit";
+        /**
+         * in seconds, the one-to-all search is repeated for departures within this window
+         */
+        public static final String DEPARTURE_WINDOW = "pt.departure_window";
+        /**
+         * in seconds, the distance between the departures of the window
+         */
+        public static final String DEPARTURE_STEP = "pt.departure_step";
     }
 }
@@ -24,12 +24,14 @@ import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopperAPI;
 import com.graphhopper.PathWrapper;
+import com.graphhopper.http.BinaryRouteFormat;
 import com.graphhopper.http.WebHelper;
 import com.graphhopper.jackson.Jackson;
 import com.graphhopper.util.*;
 import com.graphhopper.util.details.PathDetail;
 import com.graphhopper.util.exceptions.*;
 import com.graphhopper.util.shapes.GHPoint;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.ResponseBody;
@@ -354,6 +356,19 @@ public class GraphHopperWeb implements GraphHopperAPI {
         try {
             Request okRequest = createRequest(request);
             ResponseBody rspBody = getClientForRequest(request).newCall(okRequest).execute().body();
+            boolean tmpElevation = request.getHints().getBool("elevation", elevation);
+            boolean tmpTurnDescription = request.getHints().getBool("turn_description", true);
+
+            // with type=binary the paths come in the compact format, but errors are still sent as JSON
+            MediaType contentType = rspBody.contentType();
+            if (contentType != null && BinaryRouteFormat.MEDIA_TYPE.equals(contentType.type() + "/" + contentType.subtype())) {
+                try {
+                    return BinaryRouteFormat.read(rspBody.byteStream(), tmpTurnDescription);
+                } finally {
+                    rspBody.close();
+                }
+            }
+
             JsonNode json = objectMapper.reader().readTree(rspBody.byteStream());
             rspBody.close();
 
@@ -364,9 +379,6 @@ public class GraphHopperWeb implements GraphHopperAPI {
 
             JsonNode paths = json.get("paths");
 
-            boolean tmpElevation = request.getHints().getBool("elevation", elevation);
-            boolean tmpTurnDescription = request.getHints().getBool("turn_description", true);
-
             for (JsonNode path : paths) {
                 PathWrapper altRsp = createPathWrapper(path, tmpElevation, tmpTurnDescription);
                 res.add(altRsp);
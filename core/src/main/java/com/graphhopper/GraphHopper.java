@@ -94,6 +94,8 @@ public class GraphHopper implements GraphHopperAPI {
     private int maxVisitedNodes = Integer.MAX_VALUE;
 
     private int nonChMaxWaypointDistance = Integer.MAX_VALUE;
+    private RouteCache routeCache;
+    private RoutingStats.Listener routingStatsListener;
     // for index
     private LocationIndex locationIndex;
     private int preciseIndexResolution = 300;
@@ -101,6 +103,7 @@ public class GraphHopper implements GraphHopperAPI {
     // for prepare
     private int minNetworkSize = 200;
     private int minOneWayNetworkSize = 0;
+    private int subnetworkThreads = 1;
 
     // for LM prepare
     private final LMAlgoFactoryDecorator lmFactoryDecorator = new LMAlgoFactoryDecorator();
@@ -108,10 +111,23 @@ public class GraphHopper implements GraphHopperAPI {
     // for CH prepare
     private final CHAlgoFactoryDecorator chFactoryDecorator = new CHAlgoFactoryDecorator();
 
+    // for precomputed edge weights
+    private final List<String> edgeWeightingsAsStrings = new ArrayList<>();
+    private final List<EdgeWeightStorage> edgeWeightStorages = new ArrayList<>();
+    // the compiled rules of the custom weighting, most requests use one of a few models
+    private final Map<String, CustomModel> customModels = Collections.synchronizedMap(
+            new LinkedHashMap<String, CustomModel>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CustomModel> eldest) {
+                    return size() > 100;
+                }
+            });
+
     // for data reader
     private String dataReaderFile;
     private double dataReaderWayPointMaxDistance = 1;
     private int dataReaderWorkerThreads = 2;
+    private int elevationThreads = 1;
     private boolean calcPoints = true;
     private ElevationProvider eleProvider = ElevationProvider.NOOP;
     private FlagEncoderFactory flagEncoderFactory = FlagEncoderFactory.DEFAULT;
@@ -134,6 +150,7 @@ public class GraphHopper implements GraphHopperAPI {
         this.ghStorage = g;
         fullyLoaded = true;
         initLocationIndex();
+        loadOrCreateEdgeWeights();
         return this;
     }
 
@@ -184,6 +201,13 @@ public class GraphHopper implements GraphHopperAPI {
         return dataReaderWorkerThreads;
     }
 
+    /**
+     * Threads to fetch the elevation while reading the data.
+     */
+    protected int getElevationThreads() {
+        return elevationThreads;
+    }
+
     /**
      * Return maximum distance (in meter) to reduce points via douglas peucker while OSM import.
      */
@@ -265,6 +289,14 @@ public class GraphHopper implements GraphHopperAPI {
         return this;
     }
 
+    /**
+     * This method changes the number of threads used to find the subnetworks of the vehicles. Default is 1.
+     */
+    public GraphHopper setSubnetworkThreads(int subnetworkThreads) {
+        this.subnetworkThreads = subnetworkThreads;
+        return this;
+    }
+
     /**
      * This method call results in an in-memory graph.
      */
@@ -575,6 +607,12 @@ public class GraphHopper implements GraphHopperAPI {
         removeTempElevationFiles = args.getBool("graph.elevation.clear", removeTempElevationFiles);
 
         DAType elevationDAType = DAType.fromString(args.get("graph.elevation.dataaccess", "MMAP"));
+        int maxCachedTiles = args.getInt("graph.elevation.max_cached_tiles", 0);
+        String interpolateStr = args.get("graph.elevation.interpolate", "none");
+        if (!"bilinear".equals(interpolateStr) && !"none".equals(interpolateStr))
+            throw new IllegalArgumentException("graph.elevation.interpolate must be bilinear or none but was " + interpolateStr);
+        boolean interpolate = "bilinear".equals(interpolateStr);
+        elevationThreads = args.getInt("graph.elevation.threads", elevationThreads);
         ElevationProvider tmpProvider = ElevationProvider.NOOP;
         if (eleProviderStr.equalsIgnoreCase("srtm")) {
             tmpProvider = new SRTMProvider(cacheDirStr);
@@ -590,20 +628,27 @@ public class GraphHopper implements GraphHopperAPI {
 
         tmpProvider.setAutoRemoveTemporaryFiles(removeTempElevationFiles);
         tmpProvider.setCalcMean(eleCalcMean);
+        tmpProvider.setInterpolate(interpolate);
         if (!baseURL.isEmpty())
             tmpProvider.setBaseURL(baseURL);
         tmpProvider.setDAType(elevationDAType);
+        tmpProvider.setMaxCachedTiles(maxCachedTiles);
         setElevationProvider(tmpProvider);
 
         // optimizable prepare
         minNetworkSize = args.getInt("prepare.min_network_size", minNetworkSize);
         minOneWayNetworkSize = args.getInt("prepare.min_one_way_network_size", minOneWayNetworkSize);
+        subnetworkThreads = args.getInt("prepare.subnetworks.threads", subnetworkThreads);
 
         // prepare CH, LM, ...
         for (RoutingAlgorithmFactoryDecorator decorator : algoDecorators) {
             decorator.init(args);
         }
 
+        String edgeWeightingsStr = args.get("prepare.edge_weights.weightings", "");
+        if (!edgeWeightingsStr.isEmpty() && !edgeWeightingsStr.equalsIgnoreCase("no"))
+            setEdgeWeightings(Arrays.asList(edgeWeightingsStr.split(",")));
+
         // osm import
         dataReaderWayPointMaxDistance = args.getDouble(Routing.INIT_WAY_POINT_MAX_DISTANCE, dataReaderWayPointMaxDistance);
 
@@ -619,6 +664,9 @@ public class GraphHopper implements GraphHopperAPI {
         maxVisitedNodes = args.getInt(Routing.INIT_MAX_VISITED_NODES, Integer.MAX_VALUE);
         maxRoundTripRetries = args.getInt(RoundTrip.INIT_MAX_RETRIES, maxRoundTripRetries);
         nonChMaxWaypointDistance = args.getInt(Parameters.NON_CH.MAX_NON_CH_POINT_DISTANCE, Integer.MAX_VALUE);
+        int routeCacheSize = args.getInt("routing.cache.size", 0);
+        if (routeCacheSize > 0)
+            setRouteCache(new RouteCache(routeCacheSize, args.getLong("routing.cache.ttl_seconds", 600) * 1000));
 
         return this;
     }
@@ -871,6 +919,83 @@ public class GraphHopper implements GraphHopperAPI {
         if (lmFactoryDecorator.isEnabled())
             lmFactoryDecorator.createPreparations(ghStorage, locationIndex);
         loadOrPrepareLM();
+
+        loadOrCreateEdgeWeights();
+    }
+
+    /**
+     * Specifies the weightings, e.g. fastest or shortest, for which the weight and time of every edge is calculated
+     * after the import and stored for every vehicle. Flexible and LM requests with one of these weightings read
+     * the stored values instead of calculating them from the flags, which is faster. Requests with parameters
+     * which change the weight of an edge, like the limits of the generic weighting, do not use them. Weightings
+     * which a vehicle does not support, e.g. curvature for car, are skipped for this vehicle.
+     */
+    public GraphHopper setEdgeWeightings(List<String> weightingList) {
+        ensureNotLoaded();
+        edgeWeightingsAsStrings.clear();
+        for (String weightingStr : weightingList) {
+            edgeWeightingsAsStrings.add(toLowerCase(weightingStr.trim()));
+        }
+        return this;
+    }
+
+    public List<EdgeWeightStorage> getEdgeWeightStorages() {
+        return edgeWeightStorages;
+    }
+
+    private void loadOrCreateEdgeWeights() {
+        for (EdgeWeightStorage storage : edgeWeightStorages) {
+            storage.close();
+        }
+        edgeWeightStorages.clear();
+        for (FlagEncoder encoder : encodingManager.fetchEdgeEncoders()) {
+            for (String weightingStr : edgeWeightingsAsStrings) {
+                Weighting weighting;
+                try {
+                    weighting = createWeighting(new HintsMap(weightingStr), encoder, null);
+                } catch (IllegalArgumentException ex) {
+                    logger.info("skipping edge weights of " + weightingStr + " for " + encoder + ": " + ex.getMessage());
+                    continue;
+                }
+                // e.g. the generic weighting ignores the weighting string and would be stored twice
+                if (findEdgeWeightStorage(weighting) != null)
+                    continue;
+
+                EdgeWeightStorage storage = new EdgeWeightStorage(ghStorage, ghStorage.getDirectory(), weighting);
+                if (!storage.loadExisting()) {
+                    ensureWriteAccess();
+                    StopWatch sw = new StopWatch().start();
+                    storage.create(1000);
+                    storage.flush();
+                    logger.info("calculated " + storage + ", took: " + sw.stop().getSeconds() + "s, " + getMemInfo());
+                }
+                edgeWeightStorages.add(storage);
+            }
+        }
+    }
+
+    /**
+     * Wraps the specified weighting into a PrecomputedWeighting if the weights of its edges are stored.
+     */
+    private Weighting wrapPrecomputedWeighting(Weighting weighting, HintsMap hintsMap) {
+        // these parameters change the weights of the edges compared to the stored ones
+        if (hintsMap.has(GenericWeighting.HEIGHT_LIMIT) || hintsMap.has(GenericWeighting.WEIGHT_LIMIT)
+                || hintsMap.has(GenericWeighting.WIDTH_LIMIT) || hintsMap.has(ShortFastestWeighting.TIME_FACTOR)
+                || hintsMap.has(ShortFastestWeighting.DISTANCE_FACTOR)
+                || weighting instanceof GenericWeighting && ((DataFlagEncoder) weighting.getFlagEncoder()).hasSpeeds(hintsMap)
+                || weighting instanceof CustomWeighting && !((CustomWeighting) weighting).getModel().isEmpty())
+            return weighting;
+
+        EdgeWeightStorage storage = findEdgeWeightStorage(weighting);
+        return storage == null ? weighting : new PrecomputedWeighting(weighting, storage);
+    }
+
+    private EdgeWeightStorage findEdgeWeightStorage(Weighting weighting) {
+        for (EdgeWeightStorage storage : edgeWeightStorages) {
+            if (storage.getWeighting().toString().equals(weighting.toString()))
+                return storage;
+        }
+        return null;
     }
 
     private void interpolateBridgesAndOrTunnels() {
@@ -910,7 +1035,11 @@ public class GraphHopper implements GraphHopperAPI {
         Weighting weighting = null;
 
         if (encoder.supports(GenericWeighting.class)) {
-            weighting = new GenericWeighting((DataFlagEncoder) encoder, hintsMap);
+            if ("custom".equalsIgnoreCase(weightingStr))
+                weighting = new CustomWeighting((DataFlagEncoder) encoder, hintsMap,
+                        getCustomModel((DataFlagEncoder) encoder, hintsMap), graph == null ? null : graph.getNodeAccess());
+            else
+                weighting = new GenericWeighting((DataFlagEncoder) encoder, hintsMap);
         } else if ("shortest".equalsIgnoreCase(weightingStr)) {
             weighting = new ShortestWeighting(encoder);
         } else if ("fastest".equalsIgnoreCase(weightingStr) || weightingStr.isEmpty()) {
@@ -929,6 +1058,9 @@ public class GraphHopper implements GraphHopperAPI {
         if (weighting == null)
             throw new IllegalArgumentException("weighting " + weightingStr + " not supported");
 
+        if (graph != null)
+            weighting = wrapPrecomputedWeighting(weighting, hintsMap);
+
         if (hintsMap.has(Routing.BLOCK_AREA)) {
             String blockAreaStr = hintsMap.get(Parameters.Routing.BLOCK_AREA, "");
             GraphEdgeIdFinder.BlockArea blockArea = new GraphEdgeIdFinder(graph, locationIndex).
@@ -939,6 +1071,19 @@ public class GraphHopper implements GraphHopperAPI {
         return weighting;
     }
 
+    /**
+     * Returns the compiled rules of the custom weighting, equal rules are compiled only once.
+     */
+    private CustomModel getCustomModel(DataFlagEncoder encoder, HintsMap hintsMap) {
+        String key = encoder + CustomModel.createKey(hintsMap);
+        CustomModel model = customModels.get(key);
+        if (model == null) {
+            model = CustomModel.create(encoder, hintsMap);
+            customModels.put(key, model);
+        }
+        return model;
+    }
+
     /**
      * Potentially wraps the specified weighting into a TurnWeighting instance.
      */
@@ -949,17 +1094,50 @@ public class GraphHopper implements GraphHopperAPI {
         return weighting;
     }
 
+    /**
+     * Caches the responses of {@link #route(GHRequest)} for the same snapped points and request parameters. The
+     * cache is cleared in {@link #changeGraph(Collection)}. Default is null, i.e. no cache.
+     */
+    public GraphHopper setRouteCache(RouteCache routeCache) {
+        this.routeCache = routeCache;
+        return this;
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * The specified listener receives the timings of the stages and the visited nodes of every successfully
+     * calculated route, responses from the route cache are not included. Default is null.
+     */
+    public GraphHopper setRoutingStatsListener(RoutingStats.Listener routingStatsListener) {
+        this.routingStatsListener = routingStatsListener;
+        return this;
+    }
+
     @Override
     public GHResponse route(GHRequest request) {
         GHResponse response = new GHResponse();
-        calcPaths(request, response);
+        calcPaths(request, response, true);
         return response;
     }
 
     /**
-     * This method calculates the alternative path list using the low level Path objects.
+     * This method calculates the alternative path list using the low level Path objects. Unlike route it neither
+     * uses the route cache nor reports to the routing stats listener, e.g. for the synthetic requests of the
+     * EngineWarmUp.
      */
     public List<Path> calcPaths(GHRequest request, GHResponse ghRsp) {
+        return calcPaths(request, ghRsp, false);
+    }
+
+    /**
+     * @param route if true the paths are taken from the route cache if possible, in which case the returned list is
+     *              empty and only the specified response is filled, and the calculation is reported to the routing
+     *              stats listener
+     */
+    private List<Path> calcPaths(GHRequest request, GHResponse ghRsp, boolean route) {
         if (ghStorage == null || !fullyLoaded)
             throw new IllegalStateException("Do a successful call to load or importOrLoad before routing");
 
@@ -1011,6 +1189,10 @@ public class GraphHopper implements GraphHopperAPI {
                 routingTemplate = new AlternativeRoutingTemplate(request, ghRsp, locationIndex);
             else
                 routingTemplate = new ViaRoutingTemplate(request, ghRsp, locationIndex);
+            // the other templates calculate random or multiple routes
+            boolean useCache = route && routeCache != null && routingTemplate instanceof ViaRoutingTemplate;
+            String cacheKey = null;
+            RoutingStats stats = new RoutingStats(algoStr, vehicle);
 
             List<Path> altPaths = null;
             int maxRetries = routingTemplate.getMaxRetries();
@@ -1020,9 +1202,23 @@ public class GraphHopper implements GraphHopperAPI {
                 StopWatch sw = new StopWatch().start();
                 List<QueryResult> qResults = routingTemplate.lookup(points, encoder);
                 ghRsp.addDebugInfo("idLookup:" + sw.stop().getSeconds() + "s");
+                stats.add(RoutingStats.Stage.LOOKUP, sw.getNanos());
                 if (ghRsp.hasErrors())
                     return Collections.emptyList();
 
+                if (useCache) {
+                    cacheKey = RouteCache.createKey(request, qResults);
+                    GHResponse cached = routeCache.get(cacheKey);
+                    if (cached != null) {
+                        for (PathWrapper path : cached.getAll()) {
+                            ghRsp.add(path);
+                        }
+                        ghRsp.getHints().put(cached.getHints());
+                        ghRsp.addDebugInfo("route cache hit");
+                        return Collections.emptyList();
+                    }
+                }
+
                 RoutingAlgorithmFactory tmpAlgoFactory = getAlgorithmFactory(hints);
                 Weighting weighting;
                 QueryGraph queryGraph;
@@ -1043,12 +1239,16 @@ public class GraphHopper implements GraphHopperAPI {
                         throw new IllegalStateException("Although CH was enabled a non-CH algorithm factory was returned " + tmpAlgoFactory);
 
                     tMode = getCHFactoryDecorator().getNodeBase();
+                    sw = new StopWatch().start();
                     queryGraph = new QueryGraph(ghStorage.getGraph(CHGraph.class, weighting));
                     queryGraph.lookup(qResults);
+                    stats.add(RoutingStats.Stage.QUERY_GRAPH, sw.stop().getNanos());
                 } else {
                     checkNonChMaxWaypointDistance(points);
+                    sw = new StopWatch().start();
                     queryGraph = new QueryGraph(ghStorage);
                     queryGraph.lookup(qResults);
+                    stats.add(RoutingStats.Stage.QUERY_GRAPH, sw.stop().getNanos());
                     weighting = createWeighting(hints, encoder, queryGraph);
                     ghRsp.addDebugInfo("tmode:" + tMode.toString());
                 }
@@ -1066,7 +1266,14 @@ public class GraphHopper implements GraphHopperAPI {
                         build();
 
                 // do the actual route calculation !
+                sw = new StopWatch().start();
                 altPaths = routingTemplate.calcPaths(queryGraph, tmpAlgoFactory, algoOpts);
+                long extractNanos = 0;
+                for (Path path : altPaths) {
+                    extractNanos += path.getExtractTime();
+                }
+                stats.add(RoutingStats.Stage.SEARCH, sw.stop().getNanos() - extractNanos);
+                stats.add(RoutingStats.Stage.EXTRACTION, extractNanos);
 
                 boolean tmpEnableInstructions = hints.getBool(Routing.INSTRUCTIONS, enableInstructions);
                 boolean tmpCalcPoints = hints.getBool(Routing.CALC_POINTS, calcPoints);
@@ -1083,10 +1290,20 @@ public class GraphHopper implements GraphHopperAPI {
                 if (request.hasFavoredHeading(0))
                     pathMerger.setFavoredHeading(request.getFavoredHeading(0));
 
-                if (routingTemplate.isReady(pathMerger, tr))
+                sw = new StopWatch().start();
+                boolean ready = routingTemplate.isReady(pathMerger, tr);
+                stats.add(RoutingStats.Stage.MERGE, sw.stop().getNanos());
+                if (ready)
                     break;
             }
 
+            if (route && routingStatsListener != null && !ghRsp.hasErrors())
+                routingStatsListener.onRoute(stats.setVisitedNodes(ghRsp.getHints().getLong("visited_nodes.sum", 0)));
+
+            // the read lock guarantees that the graph did not change since the lookup
+            if (cacheKey != null)
+                routeCache.put(cacheKey, ghRsp);
+
             return altPaths;
 
         } catch (IllegalArgumentException ex) {
@@ -1112,6 +1329,11 @@ public class GraphHopper implements GraphHopperAPI {
         try {
             ChangeGraphHelper overlay = createChangeGraphHelper(ghStorage, locationIndex);
             long updateCount = overlay.applyChanges(encodingManager, collection);
+            for (EdgeWeightStorage storage : edgeWeightStorages) {
+                storage.update();
+            }
+            if (routeCache != null)
+                routeCache.clear();
             return new ChangeGraphResponse(updateCount);
         } finally {
             writeLock.unlock();
@@ -1217,6 +1439,7 @@ public class GraphHopper implements GraphHopperAPI {
         PrepareRoutingSubnetworks preparation = new PrepareRoutingSubnetworks(ghStorage, encodingManager.fetchEdgeEncoders());
         preparation.setMinNetworkSize(minNetworkSize);
         preparation.setMinOneWayNetworkSize(minOneWayNetworkSize);
+        preparation.setThreads(subnetworkThreads);
         preparation.doWork();
         int currNodeCount = ghStorage.getNodes();
         logger.info("edges: " + Helper.nf(ghStorage.getAllEdges().length()) + ", nodes " + Helper.nf(currNodeCount)
@@ -1238,6 +1461,11 @@ public class GraphHopper implements GraphHopperAPI {
      * remove the files created in graphhopperLocation you have to call clean().
      */
     public void close() {
+        for (EdgeWeightStorage storage : edgeWeightStorages) {
+            storage.close();
+        }
+        edgeWeightStorages.clear();
+
         if (ghStorage != null)
             ghStorage.close();
 
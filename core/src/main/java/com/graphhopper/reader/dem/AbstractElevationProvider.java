@@ -26,9 +26,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Provides basic methods that are usually used in an ElevationProvider.
+ * <p>
+ * The loaded tiles are guarded by a read write lock: looking up the elevation of a loaded tile only needs the read
+ * lock, loading and closing tiles needs the write lock. This way several threads can query the elevation, see
+ * ElevationLookup, and no tile is closed while it is read.
  *
  * @author Robin Boldt
  */
@@ -40,8 +47,15 @@ public abstract class AbstractElevationProvider implements ElevationProvider {
     Directory dir;
     DAType daType = DAType.MMAP;
     boolean calcMean = false;
+    boolean interpolate = false;
     boolean autoRemoveTemporary = true;
     long sleep = 2000;
+    int maxCachedTiles = 0;
+    private final ReadWriteLock tileLock = new ReentrantReadWriteLock();
+    final Lock readLock = tileLock.readLock();
+    final Lock writeLock = tileLock.writeLock();
+    // incremented for every loaded tile, the tile with the smallest count of its last usage is closed first
+    private volatile long loadCount;
 
     protected AbstractElevationProvider(String cacheDirString) {
         File cacheDir = new File(cacheDirString);
@@ -59,6 +73,12 @@ public abstract class AbstractElevationProvider implements ElevationProvider {
         calcMean = eleCalcMean;
     }
 
+    @Override
+    public ElevationProvider setInterpolate(boolean interpolate) {
+        this.interpolate = interpolate;
+        return this;
+    }
+
     void setSleep(long sleep) {
         this.sleep = sleep;
     }
@@ -76,6 +96,14 @@ public abstract class AbstractElevationProvider implements ElevationProvider {
         return cacheDir;
     }
 
+    @Override
+    public ElevationProvider setMaxCachedTiles(int maxCachedTiles) {
+        if (maxCachedTiles < 0)
+            throw new IllegalArgumentException("The maximum number of cached tiles must not be negative but was " + maxCachedTiles);
+        this.maxCachedTiles = maxCachedTiles;
+        return this;
+    }
+
     @Override
     public ElevationProvider setBaseURL(String baseUrl) {
         if (baseUrl == null || baseUrl.isEmpty())
@@ -97,10 +125,38 @@ public abstract class AbstractElevationProvider implements ElevationProvider {
             return dir;
 
         logger.info(this.toString() + " Elevation Provider, from: " + baseUrl + ", to: " + cacheDir + ", as: " + daType +
-                " using calcmean: " + calcMean);
+                " using calcmean: " + calcMean + ", interpolate: " + interpolate);
         return dir = new GHDirectory(cacheDir.getAbsolutePath(), daType);
     }
 
+    /**
+     * Marks the tile as used and returns the height of it. Requires at least the read lock.
+     */
+    double getHeight(HeightTile tile, double lat, double lon) {
+        tile.setLastUsed(loadCount);
+        if (tile.isSeaLevel())
+            return 0;
+
+        return tile.getHeight(lat, lon);
+    }
+
+    /**
+     * Has to be called with the write lock before a new tile is added.
+     *
+     * @return true if the limit of cached tiles is reached and one tile has to be closed
+     */
+    boolean beforeLoad(int cachedTiles) {
+        loadCount++;
+        return maxCachedTiles > 0 && cachedTiles >= maxCachedTiles;
+    }
+
+    /**
+     * Closes the tile but keeps its files so that it can be loaded again. Requires the write lock.
+     */
+    void closeTile(HeightTile tile) {
+        getDirectory().close(tile.getHeights());
+    }
+
     /**
      * Return the local file name without file ending, has to be lower case, because DataAccess only supports lower case names.
      */
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.reader.dem;
 
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.storage.DataAccess;
 import com.graphhopper.util.BitUtil;
@@ -59,11 +60,16 @@ public abstract class AbstractSRTMElevationProvider extends AbstractElevationPro
 
     @Override
     public void release() {
-        cacheData.clear();
+        writeLock.lock();
+        try {
+            cacheData.clear();
 
-        // for memory mapped type we create temporary unpacked files which should be removed
-        if (autoRemoveTemporary && dir != null)
-            dir.clear();
+            // for memory mapped type we create temporary unpacked files which should be removed
+            if (autoRemoveTemporary && dir != null)
+                dir.clear();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -91,55 +97,91 @@ public abstract class AbstractSRTMElevationProvider extends AbstractElevationPro
         lat = (int) (lat * precision) / precision;
         lon = (int) (lon * precision) / precision;
         int intKey = calcIntKey(lat, lon);
-        HeightTile demProvider = cacheData.get(intKey);
-        if (demProvider == null) {
-            if (!cacheDir.exists())
-                cacheDir.mkdirs();
+        readLock.lock();
+        try {
+            HeightTile demProvider = cacheData.get(intKey);
+            if (demProvider != null)
+                return getHeight(demProvider, lat, lon);
+        } finally {
+            readLock.unlock();
+        }
 
-            int minLat = down(lat);
-            int minLon = down(lon);
+        writeLock.lock();
+        try {
+            // another thread could have loaded the tile in the meantime
+            HeightTile demProvider = cacheData.get(intKey);
+            if (demProvider == null) {
+                demProvider = loadTile(intKey, lat, lon);
+                if (demProvider == null)
+                    return 0;
+            }
+            return getHeight(demProvider, lat, lon);
+        } finally {
+            writeLock.unlock();
+        }
+    }
 
-            String fileName = getFileName(lat, lon);
-            if (fileName == null)
-                return 0;
+    private HeightTile loadTile(int intKey, double lat, double lon) {
+        if (!cacheDir.exists())
+            cacheDir.mkdirs();
 
-            DataAccess heights = getDirectory().find("dem" + intKey);
-            boolean loadExisting = false;
-            try {
-                loadExisting = heights.loadExisting();
-            } catch (Exception ex) {
-                logger.warn("cannot load dem" + intKey + ", error:" + ex.getMessage());
-            }
+        int minLat = down(lat);
+        int minLon = down(lon);
 
-            if (!loadExisting) {
-                try {
-                    updateHeightsFromFile(lat, lon, heights);
-                } catch (FileNotFoundException ex) {
-                    demProvider = new HeightTile(minLat, minLon, DEFAULT_WIDTH, DEFAULT_WIDTH, precision, DEGREE, DEGREE);
-                    cacheData.put(intKey, demProvider);
-                    demProvider.setHeights(heights);
-                    demProvider.setSeaLevel(true);
-                    // use small size on disc and in-memory
-                    heights.setSegmentSize(100).create(10).
-                            flush();
-                    return 0;
-                }
-            }
+        String fileName = getFileName(lat, lon);
+        if (fileName == null)
+            return null;
 
-            int width = (int) (Math.sqrt(heights.getHeader(WIDTH_BYTE_INDEX)) + 0.5);
-            if (width == 0)
-                width = DEFAULT_WIDTH;
+        if (beforeLoad(cacheData.size()))
+            closeLeastRecentlyUsedTile();
 
-            demProvider = new HeightTile(minLat, minLon, width, width, precision, DEGREE, DEGREE);
-            cacheData.put(intKey, demProvider);
-            demProvider.setCalcMean(calcMean);
-            demProvider.setHeights(heights);
+        DataAccess heights = getDirectory().find("dem" + intKey);
+        boolean loadExisting = false;
+        try {
+            loadExisting = heights.loadExisting();
+        } catch (Exception ex) {
+            logger.warn("cannot load dem" + intKey + ", error:" + ex.getMessage());
         }
 
-        if (demProvider.isSeaLevel())
-            return 0;
+        HeightTile demProvider;
+        if (!loadExisting) {
+            try {
+                updateHeightsFromFile(lat, lon, heights);
+            } catch (FileNotFoundException ex) {
+                demProvider = new HeightTile(minLat, minLon, DEFAULT_WIDTH, DEFAULT_WIDTH, precision, DEGREE, DEGREE);
+                cacheData.put(intKey, demProvider);
+                demProvider.setHeights(heights);
+                demProvider.setSeaLevel(true);
+                // use small size on disc and in-memory
+                heights.setSegmentSize(100).create(10).
+                        flush();
+                return demProvider;
+            }
+        }
+
+        int width = (int) (Math.sqrt(heights.getHeader(WIDTH_BYTE_INDEX)) + 0.5);
+        if (width == 0)
+            width = DEFAULT_WIDTH;
+
+        demProvider = new HeightTile(minLat, minLon, width, width, precision, DEGREE, DEGREE);
+        cacheData.put(intKey, demProvider);
+        demProvider.setCalcMean(calcMean);
+        demProvider.setInterpolate(interpolate);
+        demProvider.setHeights(heights);
+        return demProvider;
+    }
 
-        return demProvider.getHeight(lat, lon);
+    private void closeLeastRecentlyUsedTile() {
+        int lruKey = -1;
+        long lruCount = Long.MAX_VALUE;
+        for (IntObjectCursor<HeightTile> cursor : cacheData) {
+            if (cursor.value.getLastUsed() < lruCount) {
+                lruCount = cursor.value.getLastUsed();
+                lruKey = cursor.key;
+            }
+        }
+        if (lruKey >= 0)
+            closeTile(cacheData.remove(lruKey));
     }
 
     private void updateHeightsFromFile(double lat, double lon, DataAccess heights) throws FileNotFoundException {
@@ -176,7 +218,7 @@ public abstract class AbstractSRTMElevationProvider extends AbstractElevationPro
                     break;
                 } catch (SocketTimeoutException ex) {
                     // just try again after a little nap
-                    Thread.sleep(2000);
+                    Thread.sleep(sleep);
                 } catch (FileNotFoundException ex) {
                     if (zippedURL.contains(".hgt.zip")) {
                         zippedURL = zippedURL.replace(".hgt.zip", "hgt.zip");
@@ -17,6 +17,8 @@
  */
 package com.graphhopper.reader.dem;
 
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.storage.DataAccess;
 import com.graphhopper.util.Downloader;
 
@@ -24,8 +26,6 @@ import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Provides basic methods that are usually used in an ElevationProvider that reads tiff files.
@@ -33,7 +33,8 @@ import java.util.Map;
  * @author Robin Boldt
  */
 public abstract class AbstractTiffElevationProvider extends AbstractElevationProvider {
-    private final Map<String, HeightTile> cacheData = new HashMap<>();
+    // use int key instead of the file name to avoid creating a string for every lookup
+    private final GHIntObjectHashMap<HeightTile> cacheData = new GHIntObjectHashMap<>();
     final double precision = 1e7;
 
     private final int WIDTH;
@@ -56,11 +57,16 @@ public abstract class AbstractTiffElevationProvider extends AbstractElevationPro
 
     @Override
     public void release() {
-        cacheData.clear();
+        writeLock.lock();
+        try {
+            cacheData.clear();
 
-        // for memory mapped type we create temporary unpacked files which should be removed
-        if (autoRemoveTemporary && dir != null)
-            dir.clear();
+            // for memory mapped type we create temporary unpacked files which should be removed
+            if (autoRemoveTemporary && dir != null)
+                dir.clear();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -91,55 +97,88 @@ public abstract class AbstractTiffElevationProvider extends AbstractElevationPro
 
         lat = (int) (lat * precision) / precision;
         lon = (int) (lon * precision) / precision;
+        int minLat = getMinLatForTile(lat);
+        int minLon = getMinLonForTile(lon);
+        int intKey = (minLat + 90) * 1000 + minLon + 180;
+        readLock.lock();
+        try {
+            HeightTile demProvider = cacheData.get(intKey);
+            if (demProvider != null)
+                return getHeight(demProvider, lat, lon);
+        } finally {
+            readLock.unlock();
+        }
+
+        writeLock.lock();
+        try {
+            // another thread could have loaded the tile in the meantime
+            HeightTile demProvider = cacheData.get(intKey);
+            if (demProvider == null)
+                demProvider = loadTile(intKey, minLat, minLon, lat, lon);
+            return getHeight(demProvider, lat, lon);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private HeightTile loadTile(int intKey, int minLat, int minLon, double lat, double lon) {
+        if (!cacheDir.exists())
+            cacheDir.mkdirs();
+
+        if (beforeLoad(cacheData.size()))
+            closeLeastRecentlyUsedTile();
+
         String name = getFileName(lat, lon);
-        HeightTile demProvider = cacheData.get(name);
-        if (demProvider == null) {
-            if (!cacheDir.exists())
-                cacheDir.mkdirs();
-
-            int minLat = getMinLatForTile(lat);
-            int minLon = getMinLonForTile(lon);
-            // less restrictive against boundary checking
-            demProvider = new HeightTile(minLat, minLon, WIDTH, HEIGHT, LON_DEGREE * precision, LON_DEGREE, LAT_DEGREE);
-            demProvider.setCalcMean(calcMean);
-
-            cacheData.put(name, demProvider);
-            DataAccess heights = getDirectory().find(name + ".gh");
-            demProvider.setHeights(heights);
-            boolean loadExisting = false;
+        // less restrictive against boundary checking
+        HeightTile demProvider = new HeightTile(minLat, minLon, WIDTH, HEIGHT, LON_DEGREE * precision, LON_DEGREE, LAT_DEGREE);
+        demProvider.setCalcMean(calcMean);
+        demProvider.setInterpolate(interpolate);
+
+        cacheData.put(intKey, demProvider);
+        DataAccess heights = getDirectory().find(name + ".gh");
+        demProvider.setHeights(heights);
+        boolean loadExisting = false;
+        try {
+            loadExisting = heights.loadExisting();
+        } catch (Exception ex) {
+            logger.warn("cannot load " + name + ", error: " + ex.getMessage());
+        }
+
+        if (!loadExisting) {
+            String zippedURL = getDownloadURL(lat, lon);
+            File file = new File(cacheDir, new File(getFileNameOfLocalFile(lat, lon)).getName());
+
             try {
-                loadExisting = heights.loadExisting();
-            } catch (Exception ex) {
-                logger.warn("cannot load " + name + ", error: " + ex.getMessage());
+                downloadFile(file, zippedURL);
+            } catch (IOException e) {
+                demProvider.setSeaLevel(true);
+                // use small size on disc and in-memory
+                heights.setSegmentSize(100).create(10).
+                        flush();
+                return demProvider;
             }
 
-            if (!loadExisting) {
-                String zippedURL = getDownloadURL(lat, lon);
-                File file = new File(cacheDir, new File(getFileNameOfLocalFile(lat, lon)).getName());
-
-                try {
-                    downloadFile(file, zippedURL);
-                } catch (IOException e) {
-                    demProvider.setSeaLevel(true);
-                    // use small size on disc and in-memory
-                    heights.setSegmentSize(100).create(10).
-                            flush();
-                    return 0;
-                }
+            // short == 2 bytes
+            heights.create(2 * WIDTH * HEIGHT);
 
-                // short == 2 bytes
-                heights.create(2 * WIDTH * HEIGHT);
+            Raster raster = generateRasterFromFile(file, name + ".tif");
+            fillDataAccessWithElevationData(raster, heights, WIDTH);
 
-                Raster raster = generateRasterFromFile(file, name + ".tif");
-                fillDataAccessWithElevationData(raster, heights, WIDTH);
+        } // loadExisting
+        return demProvider;
+    }
 
-            } // loadExisting
+    private void closeLeastRecentlyUsedTile() {
+        int lruKey = -1;
+        long lruCount = Long.MAX_VALUE;
+        for (IntObjectCursor<HeightTile> cursor : cacheData) {
+            if (cursor.value.getLastUsed() < lruCount) {
+                lruCount = cursor.value.getLastUsed();
+                lruKey = cursor.key;
+            }
         }
-
-        if (demProvider.isSeaLevel())
-            return 0;
-
-        return demProvider.getHeight(lat, lon);
+        if (lruKey >= 0)
+            closeTile(cacheData.remove(lruKey));
     }
 
     abstract Raster generateRasterFromFile(File file, String tifName);
@@ -0,0 +1,122 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.reader.dem;
+
+import com.graphhopper.util.PointList;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Fetches the elevation of many points with several threads. The points are sorted by the one degree cell they
+ * are in, so that every thread works on a few tiles only and the tiles are read one after the other. Works with
+ * every ElevationProvider as all of them are thread safe.
+ *
+ * @see ElevationProvider#setMaxCachedTiles(int)
+ */
+public class ElevationLookup implements Closeable {
+    // below this number of points per thread it is faster to do the lookups in the calling thread
+    private static final int MIN_POINTS_PER_THREAD = 1000;
+    private final ElevationProvider provider;
+    private final int threads;
+    private final ExecutorService executorService;
+
+    public ElevationLookup(ElevationProvider provider, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is necessary but was " + threads);
+
+        this.provider = provider;
+        this.threads = threads;
+        this.executorService = threads == 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int counter;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "elevation-" + counter++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Sets the elevation of all points of the specified 3D list.
+     */
+    public void fill(final PointList points) {
+        if (!points.is3D())
+            throw new IllegalArgumentException("The point list has to be 3D to store the elevation");
+
+        final int size = points.size();
+        if (size == 0)
+            return;
+
+        // the upper bits are the cell, the lower bits the index of the point
+        final long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            long cell = (long) (Math.floor(points.getLat(i)) + 90) * 360 + (long) (Math.floor(points.getLon(i)) + 180);
+            order[i] = cell << 32 | i;
+        }
+        Arrays.sort(order);
+
+        int chunks = Math.min(threads, Math.max(1, size / MIN_POINTS_PER_THREAD));
+        if (chunks == 1) {
+            fill(points, order, 0, size);
+            return;
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int from = (int) ((long) size * chunk / chunks);
+            final int to = (int) ((long) size * (chunk + 1) / chunks);
+            tasks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    fill(points, order, from, to);
+                    return null;
+                }
+            });
+        }
+
+        try {
+            for (Future<Object> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Cannot fetch the elevation", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching the elevation", ex);
+        }
+    }
+
+    private void fill(PointList points, long[] order, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int index = (int) order[i];
+            points.setElevation(index, provider.getEle(points.getLat(index), points.getLon(index)));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executorService != null)
+            executorService.shutdownNow();
+    }
+}
@@ -50,9 +50,21 @@ public interface ElevationProvider {
         @Override
         public void setCalcMean(boolean eleCalcMean) {
         }
+
+        @Override
+        public ElevationProvider setMaxCachedTiles(int maxCachedTiles) {
+            return this;
+        }
+
+        @Override
+        public ElevationProvider setInterpolate(boolean interpolate) {
+            return this;
+        }
     };
 
     /**
+     * Implementations have to be thread safe, see ElevationLookup.
+     *
      * @return returns the height in meters or Double.NaN if invalid
      */
     double getEle(double lat, double lon);
@@ -74,6 +86,18 @@ public interface ElevationProvider {
      */
     void setCalcMean(boolean calcMean);
 
+    /**
+     * Configuration option to interpolate the elevation bilinear from the four surrounding values of the elevation
+     * data. Has only an effect if called before the first getEle call. Turned off by default.
+     */
+    ElevationProvider setInterpolate(boolean interpolate);
+
+    /**
+     * Limits the number of tiles which are kept open. If more tiles are necessary the least recently used ones are
+     * closed, but their decoded data stays in the cache directory. Default is 0, i.e. no limit.
+     */
+    ElevationProvider setMaxCachedTiles(int maxCachedTiles);
+
     /**
      * Release resources.
      */
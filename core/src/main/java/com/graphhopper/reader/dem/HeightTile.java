@@ -24,7 +24,6 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * One rectangle of height data from Shuttle Radar Topography Mission.
@@ -44,6 +43,9 @@ public class HeightTile {
     private final double latHigherBound;
     private DataAccess heights;
     private boolean calcMean;
+    private boolean interpolate;
+    // the load count of the provider when this tile was used the last time, see AbstractElevationProvider
+    private volatile long lastUsed;
 
     public HeightTile(int minLat, int minLon, int width, int height, double precision, int horizontalDegree, int verticalDegree) {
         this.minLat = minLat;
@@ -64,6 +66,15 @@ public class HeightTile {
         return this;
     }
 
+    /**
+     * If true the height is interpolated bilinear from the four surrounding values instead of using the value of
+     * the cell the point is in. Takes precedence over calcMean.
+     */
+    public HeightTile setInterpolate(boolean interpolate) {
+        this.interpolate = interpolate;
+        return this;
+    }
+
     public boolean isSeaLevel() {
         return heights.getHeader(0) == 1;
     }
@@ -77,6 +88,20 @@ public class HeightTile {
         this.heights = da;
     }
 
+    DataAccess getHeights() {
+        return heights;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void setLastUsed(long lastUsed) {
+        // avoid the write if possible as the tile is shared between the threads
+        if (this.lastUsed != lastUsed)
+            this.lastUsed = lastUsed;
+    }
+
     public double getHeight(double lat, double lon) {
         double deltaLat = Math.abs(lat - minLat);
         double deltaLon = Math.abs(lon - minLon);
@@ -85,6 +110,9 @@ public class HeightTile {
         if (deltaLon > lonHigherBound || deltaLon < lowerBound)
             throw new IllegalStateException("longitude not in boundary of this file:" + lat + "," + lon + ", this:" + this.toString());
 
+        if (interpolate)
+            return getInterpolatedHeight(deltaLat, deltaLon);
+
         // first row in the file is the northernmost one
         // http://gis.stackexchange.com/a/43756/9006
         int lonSimilar = (int) (width / horizontalDegree * deltaLon);
@@ -98,34 +126,80 @@ public class HeightTile {
         // always keep in mind factor 2 because of short value
         int daPointer = 2 * (latSimilar * width + lonSimilar);
         int value = heights.getShort(daPointer);
-        AtomicInteger counter = new AtomicInteger(1);
         if (value == Short.MIN_VALUE)
             return Double.NaN;
 
-        if (calcMean) {
-            if (lonSimilar > 0)
-                value += includePoint(daPointer - 2, counter);
+        if (!calcMean)
+            return value;
 
-            if (lonSimilar < width - 1)
-                value += includePoint(daPointer + 2, counter);
+        int counter = 1;
+        short neighbour;
+        if (lonSimilar > 0 && (neighbour = heights.getShort(daPointer - 2)) != Short.MIN_VALUE) {
+            value += neighbour;
+            counter++;
+        }
+        if (lonSimilar < width - 1 && (neighbour = heights.getShort(daPointer + 2)) != Short.MIN_VALUE) {
+            value += neighbour;
+            counter++;
+        }
+        if (latSimilar > 0 && (neighbour = heights.getShort(daPointer - 2 * width)) != Short.MIN_VALUE) {
+            value += neighbour;
+            counter++;
+        }
+        if (latSimilar < height - 1 && (neighbour = heights.getShort(daPointer + 2 * width)) != Short.MIN_VALUE) {
+            value += neighbour;
+            counter++;
+        }
+        return (double) value / counter;
+    }
 
-            if (latSimilar > 0)
-                value += includePoint(daPointer - 2 * width, counter);
+    private double getInterpolatedHeight(double deltaLat, double deltaLon) {
+        // the value of a cell is located in its center, y is counted from the south
+        double x = clamp((double) width / horizontalDegree * deltaLon - 0.5, width - 1);
+        double y = clamp((double) height / verticalDegree * deltaLat - 0.5, height - 1);
+        int x0 = Math.min((int) x, Math.max(width - 2, 0));
+        int y0 = Math.min((int) y, Math.max(height - 2, 0));
+        double fx = x - x0;
+        double fy = y - y0;
+        int x1 = Math.min(x0 + 1, width - 1);
+        int y1 = Math.min(y0 + 1, height - 1);
 
-            if (latSimilar < height - 1)
-                value += includePoint(daPointer + 2 * width, counter);
+        // first row in the file is the northernmost one
+        int southRow = height - 1 - y0;
+        int northRow = height - 1 - y1;
+        double sum = 0, weights = 0;
+        double weight = (1 - fx) * (1 - fy);
+        short value = heights.getShort(2 * (southRow * width + x0));
+        if (value != Short.MIN_VALUE) {
+            sum += weight * value;
+            weights += weight;
         }
-
-        return (double) value / counter.get();
+        weight = fx * (1 - fy);
+        value = heights.getShort(2 * (southRow * width + x1));
+        if (value != Short.MIN_VALUE) {
+            sum += weight * value;
+            weights += weight;
+        }
+        weight = (1 - fx) * fy;
+        value = heights.getShort(2 * (northRow * width + x0));
+        if (value != Short.MIN_VALUE) {
+            sum += weight * value;
+            weights += weight;
+        }
+        weight = fx * fy;
+        value = heights.getShort(2 * (northRow * width + x1));
+        if (value != Short.MIN_VALUE) {
+            sum += weight * value;
+            weights += weight;
+        }
+        // missing values are skipped, only if all are missing the height is unknown
+        if (weights == 0)
+            return Double.NaN;
+        return sum / weights;
     }
 
-    private double includePoint(int pointer, AtomicInteger counter) {
-        short value = heights.getShort(pointer);
-        if (value == Short.MIN_VALUE)
-            return 0;
-
-        counter.incrementAndGet();
-        return value;
+    private static double clamp(double value, double max) {
+        return value < 0 ? 0 : value > max ? max : value;
     }
 
     public void toImage(String imageFile) throws IOException {
@@ -82,6 +82,20 @@ public class MultiSourceElevationProvider implements ElevationProvider {
         globalProvider.setCalcMean(calcMean);
     }
 
+    @Override
+    public ElevationProvider setInterpolate(boolean interpolate) {
+        srtmProvider.setInterpolate(interpolate);
+        globalProvider.setInterpolate(interpolate);
+        return this;
+    }
+
+    @Override
+    public ElevationProvider setMaxCachedTiles(int maxCachedTiles) {
+        srtmProvider.setMaxCachedTiles(maxCachedTiles);
+        globalProvider.setMaxCachedTiles(maxCachedTiles);
+        return this;
+    }
+
     @Override
     public void release() {
         srtmProvider.release();
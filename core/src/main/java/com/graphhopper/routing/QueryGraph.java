@@ -28,6 +28,7 @@ import com.graphhopper.routing.util.DefaultEdgeFilter;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.NodeAccess;
 import com.graphhopper.storage.TurnCostExtension;
 import com.graphhopper.storage.index.QueryResult;
@@ -161,15 +162,21 @@ public class QueryGraph implements Graph {
         else
             wrappedExtension = mainGraph.getExtension();
 
-        // create very lightweight QueryGraph which uses variables from this QueryGraph (same virtual edges)
-        baseGraph = new QueryGraph(graph.getBaseGraph(), this) {
-            // override method to avoid stackoverflow
-            @Override
-            public QueryGraph setUseEdgeExplorerCache(boolean useEECache) {
-                baseGraph.useEdgeExplorerCache = useEECache;
-                return baseGraph;
-            }
-        };
+        if (graph.getBaseGraph() == graph || graph instanceof GraphHopperStorage) {
+            // no need for a second QueryGraph if the graph is already the base graph e.g. for LM or flexible requests.
+            // GraphHopperStorage only delegates to the BaseGraph it returns from getBaseGraph.
+            baseGraph = this;
+        } else {
+            // create very lightweight QueryGraph which uses variables from this QueryGraph (same virtual edges)
+            baseGraph = new QueryGraph(graph.getBaseGraph(), this) {
+                // override method to avoid stackoverflow
+                @Override
+                public QueryGraph setUseEdgeExplorerCache(boolean useEECache) {
+                    baseGraph.useEdgeExplorerCache = useEECache;
+                    return baseGraph;
+                }
+            };
+        }
     }
 
     /**
@@ -277,27 +284,28 @@ public class QueryGraph implements Graph {
                 final PointList fullPL = closestEdge.fetchWayGeometry(3);
                 int baseNode = closestEdge.getBaseNode();
                 // sort results on the same edge by the wayIndex and if equal by distance to pillar node
-                Collections.sort(results, new Comparator<QueryResult>() {
-                    @Override
-                    public int compare(QueryResult o1, QueryResult o2) {
-                        int diff = o1.getWayIndex() - o2.getWayIndex();
-                        if (diff == 0) {
-                            // sort by distance from snappedPoint to fullPL.get(wayIndex) if wayIndex is identical
-                            GHPoint p1 = o1.getSnappedPoint();
-                            GHPoint p2 = o2.getSnappedPoint();
-                            if (p1.equals(p2))
-                                return 0;
-
-                            double fromLat = fullPL.getLatitude(o1.getWayIndex());
-                            double fromLon = fullPL.getLongitude(o1.getWayIndex());
-                            if (Helper.DIST_PLANE.calcNormalizedDist(fromLat, fromLon, p1.lat, p1.lon)
-                                    > Helper.DIST_PLANE.calcNormalizedDist(fromLat, fromLon, p2.lat, p2.lon))
-                                return 1;
-                            return -1;
+                if (results.size() > 1)
+                    Collections.sort(results, new Comparator<QueryResult>() {
+                        @Override
+                        public int compare(QueryResult o1, QueryResult o2) {
+                            int diff = o1.getWayIndex() - o2.getWayIndex();
+                            if (diff == 0) {
+                                // sort by distance from snappedPoint to fullPL.get(wayIndex) if wayIndex is identical
+                                GHPoint p1 = o1.getSnappedPoint();
+                                GHPoint p2 = o2.getSnappedPoint();
+                                if (p1.equals(p2))
+                                    return 0;
+
+                                double fromLat = fullPL.getLatitude(o1.getWayIndex());
+                                double fromLon = fullPL.getLongitude(o1.getWayIndex());
+                                if (Helper.DIST_PLANE.calcNormalizedDist(fromLat, fromLon, p1.lat, p1.lon)
+                                        > Helper.DIST_PLANE.calcNormalizedDist(fromLat, fromLon, p2.lat, p2.lon))
+                                    return 1;
+                                return -1;
+                            }
+                            return diff;
                         }
-                        return diff;
-                    }
-                });
+                    });
 
                 GHPoint3D prevPoint = fullPL.toGHPoint(0);
                 int adjNode = closestEdge.getAdjNode();
@@ -389,7 +397,8 @@ public class QueryGraph implements Graph {
      */
     public QueryGraph setUseEdgeExplorerCache(boolean useEECache) {
         this.useEdgeExplorerCache = useEECache;
-        this.baseGraph.setUseEdgeExplorerCache(useEECache);
+        if (baseGraph != this)
+            this.baseGraph.setUseEdgeExplorerCache(useEECache);
         return this;
     }
 
@@ -406,17 +415,18 @@ public class QueryGraph implements Graph {
         }
         basePoints.add(currSnapped.lat, currSnapped.lon, currSnapped.ele);
 
-        PointList baseReversePoints = basePoints.clone(true);
         double baseDistance = basePoints.calcDistance(Helper.DIST_PLANE);
         int virtEdgeId = mainEdges + virtualEdges.size();
 
-        // edges between base and snapped point
+        // edges between base and snapped point, the reverse edge shares the points and reverses them when fetched
         VirtualEdgeIteratorState baseEdge = new VirtualEdgeIteratorState(origTraversalKey,
                 virtEdgeId, prevNodeId, nodeId, baseDistance, closestEdge.getFlags(), closestEdge.getName(), basePoints);
         VirtualEdgeIteratorState baseReverseEdge = new VirtualEdgeIteratorState(origRevTraversalKey,
-                virtEdgeId, nodeId, prevNodeId, baseDistance, reverseFlags, closestEdge.getName(), baseReversePoints);
+                virtEdgeId, nodeId, prevNodeId, baseDistance, reverseFlags, closestEdge.getName(), basePoints, true);
         baseEdge.setReverseEdge(baseReverseEdge);
         baseReverseEdge.setReverseEdge(baseEdge);
+        baseEdge.setOriginalEdge(closestEdge);
+        baseReverseEdge.setOriginalEdge(closestEdge);
         virtualEdges.add(baseEdge);
         virtualEdges.add(baseReverseEdge);
     }
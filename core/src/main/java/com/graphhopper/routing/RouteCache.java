@@ -0,0 +1,177 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.storage.index.QueryResult;
+
+import java.util.*;
+
+/**
+ * A least recently used cache for route responses. The key is built from the snapped positions of the points and
+ * from everything else of the request which influences the route, so requests with different query points which
+ * snap to the same positions share one entry. Entries are removed if the cache is full or if they are older than
+ * the configured time to live.
+ * <p>
+ * The cached responses must not be modified. The cache has to be cleared when the graph changes, see
+ * GraphHopper.changeGraph. This class is thread safe.
+ *
+ * @see com.graphhopper.GraphHopper#setRouteCache(RouteCache)
+ */
+public class RouteCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry> map;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize   the maximum number of cached responses
+     * @param ttlMillis the time in milliseconds after which an entry is no longer used, 0 means forever
+     */
+    public RouteCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("The size of the route cache has to be positive but was " + maxSize);
+        if (ttlMillis < 0)
+            throw new IllegalArgumentException("The time to live of the route cache must not be negative but was " + ttlMillis);
+
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<String, Entry>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= RouteCache.this.maxSize)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the cached response or null if there is no entry for the key or if it is expired
+     */
+    public synchronized GHResponse get(String key) {
+        Entry entry = map.get(key);
+        if (entry != null && ttlMillis > 0 && now() - entry.created >= ttlMillis) {
+            map.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.response;
+    }
+
+    /**
+     * Stores a copy of the paths and hints of the specified response. Erroneous responses are not cached.
+     */
+    public void put(String key, GHResponse response) {
+        if (response.hasErrors())
+            return;
+
+        GHResponse copy = new GHResponse();
+        for (PathWrapper path : response.getAll()) {
+            copy.add(path);
+        }
+        copy.getHints().put(response.getHints());
+        synchronized (this) {
+            map.put(key, new Entry(copy, now()));
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Creates the key for the specified request and its snapped points. Points which are snapped to a junction
+     * are identified by the node only, all others by the edge and the position on it.
+     */
+    public static String createKey(GHRequest request, List<QueryResult> queryResults) {
+        StringBuilder sb = new StringBuilder(128);
+        for (int i = 0; i < queryResults.size(); i++) {
+            QueryResult qr = queryResults.get(i);
+            if (qr.getSnappedPosition() == QueryResult.Position.TOWER) {
+                sb.append('n').append(qr.getClosestNode());
+            } else {
+                sb.append('e').append(qr.getClosestEdge().getEdge()).
+                        append(':').append(qr.getWayIndex()).
+                        append(':').append(qr.getSnappedPosition().ordinal()).
+                        append(':').append(qr.getSnappedPoint().getLat()).
+                        append(':').append(qr.getSnappedPoint().getLon());
+            }
+            if (request.hasFavoredHeading(i))
+                sb.append('h').append(request.getFavoredHeading(i));
+            sb.append('|');
+        }
+        sb.append(request.getAlgorithm()).append('|').
+                append(request.getLocale()).append('|').
+                append(request.getPathDetails()).append('|').
+                append(request.getPointHints()).append('|');
+        // contains the vehicle and the weighting, sorted to make the key independent of the insertion order
+        sb.append(new TreeMap<>(request.getHints().toMap()));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "route cache, size: " + size() + "/" + maxSize + ", hits: " + getHits() + ", misses: " + getMisses()
+                + ", evictions: " + getEvictions();
+    }
+
+    private static class Entry {
+        final GHResponse response;
+        final long created;
+
+        Entry(GHResponse response, long created) {
+            this.response = response;
+            this.created = created;
+        }
+    }
+}
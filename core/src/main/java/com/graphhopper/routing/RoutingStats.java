@@ -0,0 +1,106 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import java.util.Arrays;
+
+/**
+ * The time spent in the stages of one route calculation and the number of visited nodes. An instance is created
+ * for every successful calculation and passed to the {@link Listener} of GraphHopper.
+ *
+ * @see com.graphhopper.GraphHopper#setRoutingStatsListener(Listener)
+ */
+public class RoutingStats {
+
+    public enum Stage {
+        /**
+         * Finding the closest edges of the points
+         */
+        LOOKUP,
+        /**
+         * Creating the QueryGraph with the virtual nodes and edges of the snapped points
+         */
+        QUERY_GRAPH,
+        /**
+         * The search of the routing algorithm, including its initialization
+         */
+        SEARCH,
+        /**
+         * Extracting the Path from the search tree
+         */
+        EXTRACTION,
+        /**
+         * Merging the paths and calculating the instructions and path details
+         */
+        MERGE
+    }
+
+    /**
+     * Receives the statistics of the routes. It is called from the routing threads and has to be thread safe.
+     */
+    public interface Listener {
+        void onRoute(RoutingStats stats);
+    }
+
+    private final String algorithm;
+    private final String vehicle;
+    private final long[] nanos = new long[Stage.values().length];
+    private long visitedNodes;
+
+    public RoutingStats(String algorithm, String vehicle) {
+        this.algorithm = algorithm;
+        this.vehicle = vehicle;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getVehicle() {
+        return vehicle;
+    }
+
+    /**
+     * Adds the specified time to the stage, stages are visited several times e.g. for round trips.
+     */
+    public RoutingStats add(Stage stage, long nanos) {
+        this.nanos[stage.ordinal()] += nanos;
+        return this;
+    }
+
+    /**
+     * @return the time spent in the specified stage in nano (!) seconds
+     */
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public RoutingStats setVisitedNodes(long visitedNodes) {
+        this.visitedNodes = visitedNodes;
+        return this;
+    }
+
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + ", " + vehicle + ", visited nodes: " + visitedNodes + ", nanos: " + Arrays.toString(nanos);
+    }
+}
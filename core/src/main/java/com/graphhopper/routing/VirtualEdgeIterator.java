@@ -139,6 +139,16 @@ class VirtualEdgeIterator implements EdgeIterator, CHEdgeIteratorState {
         return edges.get(current).setAdditionalField(value);
     }
 
+    @Override
+    public int getExtraFlags(int index) {
+        return edges.get(current).getExtraFlags(index);
+    }
+
+    @Override
+    public EdgeIteratorState setExtraFlags(int index, int value) {
+        return edges.get(current).setExtraFlags(index, value);
+    }
+
     @Override
     public EdgeIteratorState copyPropertiesTo(EdgeIteratorState edge) {
         return edges.get(current).copyPropertiesTo(edge);
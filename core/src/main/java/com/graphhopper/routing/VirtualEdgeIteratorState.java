@@ -31,6 +31,8 @@ import com.graphhopper.util.PointList;
  */
 public class VirtualEdgeIteratorState implements EdgeIteratorState, CHEdgeIteratorState {
     private final PointList pointList;
+    // if true the point list is shared with the reverse edge and is used in reverse order
+    private final boolean reverseGeometry;
     private final int edgeId;
     private final int baseNode;
     private final int adjNode;
@@ -41,8 +43,19 @@ public class VirtualEdgeIteratorState implements EdgeIteratorState, CHEdgeIterat
     // indication if edges are dispreferred as start/stop edge 
     private boolean unfavored;
     private EdgeIteratorState reverseEdge;
+    // the extra flags do not depend on the direction and are read from the original edge
+    private EdgeIteratorState originalEdge;
 
     public VirtualEdgeIteratorState(int originalTraversalKey, int edgeId, int baseNode, int adjNode, double distance, long flags, String name, PointList pointList) {
+        this(originalTraversalKey, edgeId, baseNode, adjNode, distance, flags, name, pointList, false);
+    }
+
+    /**
+     * @param reverseGeometry true if the pointList is ordered from the adjNode to the baseNode. This avoids a
+     *                        reversed copy of the point list for the reverse edge of a virtual edge.
+     */
+    public VirtualEdgeIteratorState(int originalTraversalKey, int edgeId, int baseNode, int adjNode, double distance, long flags, String name, PointList pointList, boolean reverseGeometry) {
+        this.reverseGeometry = reverseGeometry;
         this.originalTraversalKey = originalTraversalKey;
         this.edgeId = edgeId;
         this.baseNode = baseNode;
@@ -81,21 +94,28 @@ public class VirtualEdgeIteratorState implements EdgeIteratorState, CHEdgeIterat
 
     @Override
     public PointList fetchWayGeometry(int mode) {
-        if (pointList.getSize() == 0)
+        int size = pointList.getSize();
+        if (size == 0)
             return PointList.EMPTY;
         // due to API we need to create a new instance per call!
+        PointList result;
         if (mode == 3)
-            return pointList.clone(false);
+            return pointList.clone(reverseGeometry);
         else if (mode == 1)
-            return pointList.copy(0, pointList.getSize() - 1);
+            // include the base node, which is the last point for a reverse geometry
+            result = reverseGeometry ? pointList.copy(1, size) : pointList.copy(0, size - 1);
         else if (mode == 2)
-            return pointList.copy(1, pointList.getSize());
+            result = reverseGeometry ? pointList.copy(0, size - 1) : pointList.copy(1, size);
         else if (mode == 0) {
-            if (pointList.getSize() == 1)
+            if (size == 1)
                 return PointList.EMPTY;
-            return pointList.copy(1, pointList.getSize() - 1);
-        }
-        throw new UnsupportedOperationException("Illegal mode:" + mode);
+            result = pointList.copy(1, size - 1);
+        } else
+            throw new UnsupportedOperationException("Illegal mode:" + mode);
+
+        if (reverseGeometry)
+            result.reverse();
+        return result;
     }
 
     @Override
@@ -214,6 +234,19 @@ public class VirtualEdgeIteratorState implements EdgeIteratorState, CHEdgeIterat
         throw new UnsupportedOperationException("Not supported.");
     }
 
+    @Override
+    public int getExtraFlags(int index) {
+        // e.g. the transit edges of reader-gtfs are not part of a real edge and have the default of a new edge
+        if (originalEdge == null)
+            return 0;
+        return originalEdge.getExtraFlags(index);
+    }
+
+    @Override
+    public EdgeIteratorState setExtraFlags(int index, int value) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
     @Override
     public EdgeIteratorState copyPropertiesTo(EdgeIteratorState edge) {
         throw new UnsupportedOperationException("Not supported.");
@@ -233,4 +266,11 @@ public class VirtualEdgeIteratorState implements EdgeIteratorState, CHEdgeIterat
         this.reverseEdge = reverseEdge;
     }
 
+    /**
+     * Sets the edge of the graph this virtual edge is a part of, which provides the extra flags.
+     */
+    public void setOriginalEdge(EdgeIteratorState originalEdge) {
+        this.originalEdge = originalEdge;
+    }
+
 }
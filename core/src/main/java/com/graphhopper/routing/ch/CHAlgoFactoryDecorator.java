@@ -235,7 +235,7 @@ public class CHAlgoFactoryDecorator implements RoutingAlgorithmFactoryDecorator
         return this;
     }
 
-    private String getDefaultWeighting() {
+    public String getDefaultWeighting() {
         return weightingsAsStrings.isEmpty() ? "fastest" : weightingsAsStrings.iterator().next();
     }
 
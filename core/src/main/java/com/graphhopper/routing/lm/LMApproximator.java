@@ -48,6 +48,9 @@ public class LMApproximator implements WeightApproximator {
     // store weights as int
     private int[] activeFromIntWeights;
     private int[] activeToIntWeights;
+    // the weights of the active landmarks for the current node
+    private final int[] tmpFromIntWeights;
+    private final int[] tmpToIntWeights;
     private double epsilon = 1;
     private int to = -1;
     // do activate landmark recalculation
@@ -73,6 +76,8 @@ public class LMApproximator implements WeightApproximator {
         Arrays.fill(activeLandmarks, -1);
         activeFromIntWeights = new int[activeCount];
         activeToIntWeights = new int[activeCount];
+        tmpFromIntWeights = new int[activeCount];
+        tmpToIntWeights = new int[activeCount];
 
         this.graph = graph;
         this.fallBackApproximation = new BeelineWeightApproximator(graph.getNodeAccess(), lms.getWeighting());
@@ -156,40 +161,31 @@ public class LMApproximator implements WeightApproximator {
     }
 
     int getMaxWeight(int node, int virtEdgeWeightInt, int[] activeLandmarks, int[] activeFromIntWeights, int[] activeToIntWeights) {
+        // the weights of all landmarks of a node are stored in one row, read the active ones at once
+        lms.readWeights(node, activeLandmarks, tmpFromIntWeights, tmpToIntWeights);
+
+        // 1. assume route from a to b: a--->v--->b and a landmark LM.
+        //    From this we get two inequality formulas where v is the start (or current node) and b is the 'to' node:
+        //    LMv + vb >= LMb therefor vb >= LMb - LMv => 'getFromWeight'
+        //    vb + bLM >= vLM therefor vb >= vLM - bLM => 'getToWeight'
+        // 2. for the case a->v the sign is reverse as we need to know the vector av not va => if(reverse) "-weight"
+        // 3. as weight is the full edge weight for now (and not the precise weight to the virt node) we can only add it to the subtrahend
+        //    to avoid overestimating (keep the result strictly lower)
+        // The direction is checked outside of the loops, which leaves plain int arithmetic on arrays inside.
         int maxWeightInt = -1;
-        for (int activeLMIdx = 0; activeLMIdx < activeLandmarks.length; activeLMIdx++) {
-            int landmarkIndex = activeLandmarks[activeLMIdx];
-
-            // 1. assume route from a to b: a--->v--->b and a landmark LM.
-            //    From this we get two inequality formulas where v is the start (or current node) and b is the 'to' node:
-            //    LMv + vb >= LMb therefor vb >= LMb - LMv => 'getFromWeight'
-            //    vb + bLM >= vLM therefor vb >= vLM - bLM => 'getToWeight'
-            // 2. for the case a->v the sign is reverse as we need to know the vector av not va => if(reverse) "-weight"
-            // 3. as weight is the full edge weight for now (and not the precise weight to the virt node) we can only add it to the subtrahend
-            //    to avoid overestimating (keep the result strictly lower)
-            int fromWeightInt = activeFromIntWeights[activeLMIdx] - (lms.getFromWeight(landmarkIndex, node) + virtEdgeWeightInt);
-            int toWeightInt = lms.getToWeight(landmarkIndex, node) - activeToIntWeights[activeLMIdx];
-            if (reverse) {
-                fromWeightInt = -fromWeightInt;
+        if (reverse) {
+            for (int activeLMIdx = 0; activeLMIdx < activeLandmarks.length; activeLMIdx++) {
+                int fromWeightInt = tmpFromIntWeights[activeLMIdx] + virtEdgeWeightInt - activeFromIntWeights[activeLMIdx];
                 // we need virtEntryWeight for the minuend
-                toWeightInt = -toWeightInt - virtEdgeWeightInt;
-            } else {
-                toWeightInt -= virtEdgeWeightInt;
+                int toWeightInt = activeToIntWeights[activeLMIdx] - tmpToIntWeights[activeLMIdx] - virtEdgeWeightInt;
+                maxWeightInt = Math.max(maxWeightInt, Math.max(fromWeightInt, toWeightInt));
+            }
+        } else {
+            for (int activeLMIdx = 0; activeLMIdx < activeLandmarks.length; activeLMIdx++) {
+                int fromWeightInt = activeFromIntWeights[activeLMIdx] - tmpFromIntWeights[activeLMIdx] - virtEdgeWeightInt;
+                int toWeightInt = tmpToIntWeights[activeLMIdx] - activeToIntWeights[activeLMIdx] - virtEdgeWeightInt;
+                maxWeightInt = Math.max(maxWeightInt, Math.max(fromWeightInt, toWeightInt));
             }
-
-            int tmpMaxWeightInt = Math.max(fromWeightInt, toWeightInt);
-//                if (tmpMaxWeightInt < 0)
-//                {
-//                    int lm = lms.getLandmarks()[landmarkIndex];
-//                    throw new IllegalStateException("At least one weight should be positive but wasn't. "
-//                            + "activeFromWeight:" + activeFromIntWeights[activeLMIdx] + ", lms.getFromWeight:" + lms.getFromWeight(landmarkIndex, node)
-//                            + "lms.getToWeight:" + lms.getToWeight(landmarkIndex, node) + ", activeToWeight:" + activeToIntWeights[activeLMIdx]
-//                            + ", virtEdgeWeight:" + virtEdgeWeightInt
-//                            + ", lm:" + lm + " (" + getCoord(lm) + ")"
-//                            + ", queryNode:" + queryNode + " , node:" + node + " (" + getCoord(node) + "), reverse:" + reverse);
-//                }
-            if (tmpMaxWeightInt > maxWeightInt)
-                maxWeightInt = tmpMaxWeightInt;
         }
         return maxWeightInt;
     }
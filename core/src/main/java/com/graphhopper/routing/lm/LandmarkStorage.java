@@ -41,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -79,6 +80,7 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
     private List<LandmarkSuggestion> landmarkSuggestions = Collections.emptyList();
     private SpatialRuleLookup ruleLookup;
     private boolean logDetails = false;
+    private int threads = 1;
     /**
      * 'to' and 'from' fit into 32 bit => 16 bit for each of them => 65536
      */
@@ -148,6 +150,17 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
         this.logDetails = logDetails;
     }
 
+    /**
+     * This method changes the number of threads which calculate the weights of the landmarks of one subnetwork in
+     * parallel. Default is 1. Every thread needs the memory of two shortest path trees of the subnetwork.
+     */
+    public LandmarkStorage setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is necessary but was " + threads);
+        this.threads = threads;
+        return this;
+    }
+
     /**
      * This method forces the landmark preparation to skip the landmark search and uses the specified landmark list instead.
      * Useful for manual tuning of larger areas to safe import time or improve quality.
@@ -269,30 +282,38 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
 
         EdgeExplorer tmpExplorer = graph.createEdgeExplorer(new RequireBothDirectionsEdgeFilter(encoder));
 
+        // one pool for all subnetworks, there can be many small ones
+        ExecutorService threadPool = threads > 1 && landmarks > 2
+                ? Executors.newFixedThreadPool(Math.min(threads, landmarks - 1)) : null;
         int nodes = 0;
-        for (IntArrayList subnetworkIds : graphComponents) {
-            nodes += subnetworkIds.size();
-            if (subnetworkIds.size() < minimumNodes)
-                continue;
-
-            int index = subnetworkIds.size() - 1;
-            // ensure start node is reachable from both sides and no subnetwork is associated
-            for (; index >= 0; index--) {
-                int nextStartNode = subnetworkIds.get(index);
-                if (subnetworks[nextStartNode] == UNSET_SUBNETWORK
-                        && GHUtility.count(tmpExplorer.setBaseNode(nextStartNode)) > 0) {
-
-                    GHPoint p = createPoint(graph, nextStartNode);
-                    if (logDetails)
-                        LOGGER.info("start node: " + nextStartNode + " (" + p + ") subnetwork size: " + subnetworkIds.size()
-                                + ", " + Helper.getMemInfo() + ((ruleLookup == null) ? "" : " area:" + ruleLookup.lookupRule(p).getId()));
-
-                    if (createLandmarksForSubnetwork(nextStartNode, subnetworks, blockedEdges))
-                        break;
+        try {
+            for (IntArrayList subnetworkIds : graphComponents) {
+                nodes += subnetworkIds.size();
+                if (subnetworkIds.size() < minimumNodes)
+                    continue;
+
+                int index = subnetworkIds.size() - 1;
+                // ensure start node is reachable from both sides and no subnetwork is associated
+                for (; index >= 0; index--) {
+                    int nextStartNode = subnetworkIds.get(index);
+                    if (subnetworks[nextStartNode] == UNSET_SUBNETWORK
+                            && GHUtility.count(tmpExplorer.setBaseNode(nextStartNode)) > 0) {
+
+                        GHPoint p = createPoint(graph, nextStartNode);
+                        if (logDetails)
+                            LOGGER.info("start node: " + nextStartNode + " (" + p + ") subnetwork size: " + subnetworkIds.size()
+                                    + ", " + Helper.getMemInfo() + ((ruleLookup == null) ? "" : " area:" + ruleLookup.lookupRule(p).getId()));
+
+                        if (createLandmarksForSubnetwork(nextStartNode, subnetworks, blockedEdges, threadPool))
+                            break;
+                    }
                 }
+                if (index < 0)
+                    LOGGER.warn("next start node not found in big enough network of size " + subnetworkIds.size() + ", first element is " + subnetworkIds.get(0) + ", " + createPoint(graph, subnetworkIds.get(0)));
             }
-            if (index < 0)
-                LOGGER.warn("next start node not found in big enough network of size " + subnetworkIds.size() + ", first element is " + subnetworkIds.get(0) + ", " + createPoint(graph, subnetworkIds.get(0)));
+        } finally {
+            if (threadPool != null)
+                threadPool.shutdownNow();
         }
 
         int subnetworkCount = landmarkIDs.size();
@@ -329,9 +350,11 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
     /**
      * This method creates landmarks for the specified subnetwork (integer list)
      *
+     * @param threadPool calculates the weights of the landmarks in parallel, or null to calculate them one by one
      * @return landmark mapping
      */
-    private boolean createLandmarksForSubnetwork(final int startNode, final byte[] subnetworks, IntHashSet blockedEdges) {
+    private boolean createLandmarksForSubnetwork(final int startNode, final byte[] subnetworks, IntHashSet blockedEdges,
+                                                 ExecutorService threadPool) {
         final int subnetworkId = landmarkIDs.size();
         int[] tmpLandmarkNodeIds = new int[landmarks];
         int logOffset = Math.max(1, tmpLandmarkNodeIds.length / 2);
@@ -400,37 +423,43 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
         }
 
         // 2) calculate weights for all landmarks -> 'from' and 'to' weight
-        for (int lmIdx = 0; lmIdx < tmpLandmarkNodeIds.length; lmIdx++) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new RuntimeException("Thread was interrupted");
-            }
-            int lmNodeId = tmpLandmarkNodeIds[lmIdx];
-            LandmarkExplorer explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, true);
-            explorer.setStartNode(lmNodeId);
-            explorer.setFilter(blockedEdges, false, true);
-            explorer.runAlgo();
-            explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, FROM_OFFSET);
-
-            // set subnetwork id to all explored nodes, but do this only for the first landmark
-            if (lmIdx == 0) {
-                if (explorer.setSubnetworks(subnetworks, subnetworkId))
-                    return false;
+        // the first landmark determines the subnetwork of the nodes and is calculated before the others
+        if (!calcLandmarkWeights(0, tmpLandmarkNodeIds[0], blockedEdges, subnetworks, subnetworkId))
+            return false;
+        logWeightsProgress(0, tmpLandmarkNodeIds.length, logOffset);
+
+        if (threadPool != null) {
+            try {
+                List<Callable<Boolean>> tasks = new ArrayList<>(tmpLandmarkNodeIds.length - 1);
+                for (int lmIdx = 1; lmIdx < tmpLandmarkNodeIds.length; lmIdx++) {
+                    final int tmpLmIdx = lmIdx;
+                    final int lmNodeId = tmpLandmarkNodeIds[lmIdx];
+                    final IntHashSet tmpBlockedEdges = blockedEdges;
+                    tasks.add(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            return calcLandmarkWeights(tmpLmIdx, lmNodeId, tmpBlockedEdges, subnetworks, subnetworkId);
+                        }
+                    });
+                }
+                List<Future<Boolean>> futures = threadPool.invokeAll(tasks);
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).get();
+                    logWeightsProgress(i + 1, tmpLandmarkNodeIds.length, logOffset);
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) ex.getCause();
+                throw new RuntimeException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Thread was interrupted", ex);
             }
-
-            explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, false);
-            explorer.setStartNode(lmNodeId);
-            explorer.setFilter(blockedEdges, true, false);
-            explorer.runAlgo();
-            explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, TO_OFFSET);
-
-            if (lmIdx == 0) {
-                if (explorer.setSubnetworks(subnetworks, subnetworkId))
-                    return false;
+        } else {
+            for (int lmIdx = 1; lmIdx < tmpLandmarkNodeIds.length; lmIdx++) {
+                calcLandmarkWeights(lmIdx, tmpLandmarkNodeIds[lmIdx], blockedEdges, subnetworks, subnetworkId);
+                logWeightsProgress(lmIdx, tmpLandmarkNodeIds.length, logOffset);
             }
-
-            if (logDetails && lmIdx % logOffset == 0)
-                LOGGER.info("Set landmarks weights [" + weighting + "]. "
-                        + "Progress " + (int) (100.0 * lmIdx / tmpLandmarkNodeIds.length) + "%");
         }
 
         // TODO set weight to SHORT_MAX if entry has either no 'from' or no 'to' entry
@@ -438,6 +467,48 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
         return true;
     }
 
+    /**
+     * Calculates the 'from' and 'to' weights of the specified landmark. Every landmark writes its own column of the
+     * landmark rows and so this method can be called for several landmarks of a subnetwork in parallel, but only
+     * for the first landmark (lmIdx == 0) the subnetwork of the explored nodes is set.
+     *
+     * @return false if the subnetwork of an explored node was already set to another one
+     */
+    private boolean calcLandmarkWeights(int lmIdx, int lmNodeId, IntHashSet blockedEdges, byte[] subnetworks, int subnetworkId) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("Thread was interrupted");
+        }
+        LandmarkExplorer explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, true);
+        explorer.setStartNode(lmNodeId);
+        explorer.setFilter(blockedEdges, false, true);
+        explorer.runAlgo();
+        explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, FROM_OFFSET);
+
+        // set subnetwork id to all explored nodes, but do this only for the first landmark
+        if (lmIdx == 0) {
+            if (explorer.setSubnetworks(subnetworks, subnetworkId))
+                return false;
+        }
+
+        explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, false);
+        explorer.setStartNode(lmNodeId);
+        explorer.setFilter(blockedEdges, true, false);
+        explorer.runAlgo();
+        explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, TO_OFFSET);
+
+        if (lmIdx == 0) {
+            if (explorer.setSubnetworks(subnetworks, subnetworkId))
+                return false;
+        }
+        return true;
+    }
+
+    private void logWeightsProgress(int lmIdx, int landmarkCount, int logOffset) {
+        if (logDetails && lmIdx % logOffset == 0)
+            LOGGER.info("Set landmarks weights [" + weighting + "]. "
+                    + "Progress " + (int) (100.0 * lmIdx / landmarkCount) + "%");
+    }
+
     /**
      * This method specifies the polygons which should be used to split the world wide area to improve performance and
      * quality in this scenario.
@@ -507,6 +578,22 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
         return res;
     }
 
+    /**
+     * Reads the 'from' and 'to' weights of the specified landmarks for one node, see getFromWeight and getToWeight.
+     * All weights of a node are stored in one row and so they are read with one row pointer and mostly from the same
+     * cache line.
+     */
+    void readWeights(int node, int[] landmarkIndices, int[] fromWeights, int[] toWeights) {
+        long rowPointer = (long) node * LM_ROW_LENGTH;
+        for (int i = 0; i < landmarkIndices.length; i++) {
+            long pointer = rowPointer + landmarkIndices[i] * 4;
+            int from = (int) landmarkWeightDA.getShort(pointer + FROM_OFFSET) & 0x0000FFFF;
+            int to = (int) landmarkWeightDA.getShort(pointer + TO_OFFSET) & 0x0000FFFF;
+            fromWeights[i] = from == SHORT_INFINITY ? SHORT_MAX : from;
+            toWeights[i] = to == SHORT_INFINITY ? SHORT_MAX : to;
+        }
+    }
+
     // Short.MAX_VALUE = 2^15-1 but we have unsigned short so we need 2^16-1
     private static final int SHORT_INFINITY = Short.MAX_VALUE * 2 + 1;
     // We have large values that do not fit into a short, use a specific maximum value
@@ -554,18 +641,20 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
 
         int[] tmpIDs = landmarkIDs.get(subnetworkFrom);
 
-        // kind of code duplication to approximate
-        List<Map.Entry<Integer, Integer>> list = new ArrayList<>(tmpIDs.length);
+        // kind of code duplication to approximate. Sort by weight and let maximum weight come first, to pick best
+        // active landmarks, and the landmark index in the lower bits keeps the order of equal weights.
+        long[] sortedLandmarks = new long[tmpIDs.length];
         for (int lmIndex = 0; lmIndex < tmpIDs.length; lmIndex++) {
             int fromWeight = getFromWeight(lmIndex, toNode) - getFromWeight(lmIndex, fromNode);
             int toWeight = getToWeight(lmIndex, fromNode) - getToWeight(lmIndex, toNode);
 
-            list.add(new MapEntry<>(reverse
+            int weight = reverse
                     ? Math.max(-fromWeight, -toWeight)
-                    : Math.max(fromWeight, toWeight), lmIndex));
+                    : Math.max(fromWeight, toWeight);
+            sortedLandmarks[lmIndex] = (long) -weight << 32 | lmIndex;
         }
 
-        Collections.sort(list, SORT_BY_WEIGHT);
+        Arrays.sort(sortedLandmarks);
 
         if (activeLandmarkIndices[0] >= 0) {
             IntHashSet set = new IntHashSet(activeLandmarkIndices.length);
@@ -577,7 +666,7 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
                     // keep at least two of the previous landmarks (pick the best)
                     break;
                 } else {
-                    activeLandmarkIndices[i] = list.get(i).getValue();
+                    activeLandmarkIndices[i] = (int) sortedLandmarks[i];
                     if (set.contains(activeLandmarkIndices[i]))
                         existingLandmarkCounter++;
                 }
@@ -585,7 +674,7 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
 
         } else {
             for (int i = 0; i < activeLandmarkIndices.length; i++) {
-                activeLandmarkIndices[i] = list.get(i).getValue();
+                activeLandmarkIndices[i] = (int) sortedLandmarks[i];
             }
         }
 
@@ -810,15 +899,19 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
             final AtomicInteger maxedout = new AtomicInteger(0);
             final Map.Entry<Double, Double> finalMaxWeight = new MapEntry<>(0d, 0d);
 
-            map.forEach(new IntObjectProcedure<SPTEntry>() {
-                @Override
-                public void apply(int nodeId, SPTEntry b) {
-                    if (!lms.setWeight(nodeId * rowSize + lmIdx * 4 + offset, b.weight)) {
-                        maxedout.incrementAndGet();
-                        finalMaxWeight.setValue(Math.max(b.weight, finalMaxWeight.getValue()));
+            // the landmarks of a subnetwork can be calculated in parallel and some DataAccess implementations
+            // do not write a short independently of its neighbours
+            synchronized (lms.landmarkWeightDA) {
+                map.forEach(new IntObjectProcedure<SPTEntry>() {
+                    @Override
+                    public void apply(int nodeId, SPTEntry b) {
+                        if (!lms.setWeight(nodeId * rowSize + lmIdx * 4 + offset, b.weight)) {
+                            maxedout.incrementAndGet();
+                            finalMaxWeight.setValue(Math.max(b.weight, finalMaxWeight.getValue()));
+                        }
                     }
-                }
-            });
+                });
+            }
 
             if ((double) maxedout.get() / map.size() > 0.1) {
                 LOGGER.warn("landmark " + lmIdx + " (" + nodeAccess.getLatitude(lmNodeId) + "," + nodeAccess.getLongitude(lmNodeId) + "): " +
@@ -828,16 +921,6 @@ public class LandmarkStorage implements Storable<LandmarkStorage> {
         }
     }
 
-    /**
-     * Sort landmark by weight and let maximum weight come first, to pick best active landmarks.
-     */
-    final static Comparator<Map.Entry<Integer, Integer>> SORT_BY_WEIGHT = new Comparator<Map.Entry<Integer, Integer>>() {
-        @Override
-        public int compare(Map.Entry<Integer, Integer> o1, Map.Entry<Integer, Integer> o2) {
-            return Integer.compare(o2.getKey(), o1.getKey());
-        }
-    };
-
     static GHPoint createPoint(Graph graph, int nodeId) {
         return new GHPoint(graph.getNodeAccess().getLatitude(nodeId), graph.getNodeAccess().getLongitude(nodeId));
     }
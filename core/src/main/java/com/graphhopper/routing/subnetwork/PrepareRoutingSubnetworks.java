@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -38,6 +39,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * also small subnetworks which could be bugs in OSM data or indicate otherwise disconnected areas
  * e.g. via barriers or one way problems - see #86.
  * <p>
+ * Every FlagEncoder only changes its own access bits, so the encoders can be processed in parallel, see setThreads.
+ * The flags of an edge are still written in one piece and so these writes are synchronized.
+ * <p>
  *
  * @author Peter Karich
  */
@@ -49,6 +53,7 @@ public class PrepareRoutingSubnetworks {
     private int minNetworkSize = 200;
     private int minOneWayNetworkSize = 0;
     private int subnetworks = -1;
+    private int threads = 1;
 
     public PrepareRoutingSubnetworks(GraphHopperStorage ghStorage, List<FlagEncoder> encoders) {
         this.ghStorage = ghStorage;
@@ -65,22 +70,59 @@ public class PrepareRoutingSubnetworks {
         return this;
     }
 
+    /**
+     * This method changes the number of threads which process the FlagEncoders. Default is 1. Every thread needs
+     * a few int arrays with one entry per node.
+     */
+    public PrepareRoutingSubnetworks setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is necessary but was " + threads);
+        this.threads = threads;
+        return this;
+    }
+
     public void doWork() {
         if (minNetworkSize <= 0 && minOneWayNetworkSize <= 0)
             return;
 
-        logger.info("start finding subnetworks (min:" + minNetworkSize + ", min one way:" + minOneWayNetworkSize + ") " + Helper.getMemInfo());
+        logger.info("start finding subnetworks (min:" + minNetworkSize + ", min one way:" + minOneWayNetworkSize
+                + ", threads:" + threads + ") " + Helper.getMemInfo());
+        List<Callable<int[]>> tasks = new ArrayList<>(encoders.size());
+        for (final FlagEncoder encoder : encoders) {
+            tasks.add(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return doWork(encoder);
+                }
+            });
+        }
+
         int unvisitedDeadEnds = 0;
-        for (FlagEncoder encoder : encoders) {
-            // mark edges for one vehicle as inaccessible
-            PrepEdgeFilter filter = new PrepEdgeFilter(encoder);
-            if (minOneWayNetworkSize > 0)
-                unvisitedDeadEnds += removeDeadEndUnvisitedNetworks(filter);
-
-            List<IntArrayList> components = findSubnetworks(filter);
-            keepLargeNetworks(filter, components);
-            subnetworks = Math.max(components.size(), subnetworks);
-            logger.info(components.size() + " subnetworks found for " + encoder + ", " + Helper.getMemInfo());
+        int poolSize = Math.min(threads, encoders.size());
+        if (poolSize <= 1) {
+            for (FlagEncoder encoder : encoders) {
+                int[] result = doWork(encoder);
+                unvisitedDeadEnds += result[0];
+                subnetworks = Math.max(result[1], subnetworks);
+            }
+        } else {
+            ExecutorService threadPool = Executors.newFixedThreadPool(poolSize);
+            try {
+                for (Future<int[]> future : threadPool.invokeAll(tasks)) {
+                    int[] result = future.get();
+                    unvisitedDeadEnds += result[0];
+                    subnetworks = Math.max(result[1], subnetworks);
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) ex.getCause();
+                throw new RuntimeException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while finding subnetworks", ex);
+            } finally {
+                threadPool.shutdownNow();
+            }
         }
 
         markNodesRemovedIfUnreachable();
@@ -91,6 +133,26 @@ public class PrepareRoutingSubnetworks {
         ghStorage.optimize();
     }
 
+    /**
+     * Marks the edges of the small networks of the specified encoder as inaccessible.
+     *
+     * @return the number of edges removed as unvisited dead ends and the number of subnetworks
+     */
+    private int[] doWork(FlagEncoder encoder) {
+        StopWatch sw = new StopWatch().start();
+        // mark edges for one vehicle as inaccessible
+        PrepEdgeFilter filter = new PrepEdgeFilter(encoder);
+        int unvisitedDeadEnds = 0;
+        if (minOneWayNetworkSize > 0)
+            unvisitedDeadEnds = removeDeadEndUnvisitedNetworks(filter);
+
+        List<IntArrayList> components = findSubnetworks(filter);
+        keepLargeNetworks(filter, components);
+        logger.info(components.size() + " subnetworks found for " + encoder + " in " + sw.stop().getSeconds() + "s, "
+                + Helper.getMemInfo());
+        return new int[]{unvisitedDeadEnds, components.size()};
+    }
+
     public int getMaxSubnetworks() {
         return subnetworks;
     }
@@ -239,7 +301,15 @@ public class PrepareRoutingSubnetworks {
             for (int i = 0; i < component.size(); i++) {
                 EdgeIterator edge = explorer.setBaseNode(component.get(i));
                 while (edge.next()) {
-                    edge.setFlags(encoder.setAccess(edge.getFlags(), false, false));
+                    if (threads > 1) {
+                        // the iterator caches the flags, which could have been changed concurrently by another encoder
+                        synchronized (ghStorage) {
+                            EdgeIteratorState fresh = ghStorage.getEdgeIteratorState(edge.getEdge(), edge.getAdjNode());
+                            fresh.setFlags(encoder.setAccess(fresh.getFlags(), false, false));
+                        }
+                    } else {
+                        edge.setFlags(encoder.setAccess(edge.getFlags(), false, false));
+                    }
                     removedEdges++;
                 }
             }
@@ -28,13 +28,15 @@ import com.graphhopper.util.EdgeIterator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * Implementation of Tarjan's algorithm using an explicit stack. The traditional recursive approach
  * runs into stack overflow pretty quickly. The algorithm is used within GraphHopper to find
  * strongly connected components to detect dead-ends leading to routes not found.
  * <p>
+ * An instance is not thread safe but several instances can run in parallel on the same graph, e.g. one per
+ * FlagEncoder, as the graph is only read. The memory is bounded by a few int arrays with one entry per node.
+ * <p>
  * See http://en.wikipedia.org/wiki/Tarjan's_strongly_connected_components_algorithm. See
  * http://www.timl.id.au/?p=327 and http://homepages.ecs.vuw.ac.nz/~djp/files/P05.pdf
  */
@@ -47,7 +49,10 @@ public class TarjansSCCAlgorithm {
     private final GHBitSet ignoreSet;
     private final int[] nodeIndex;
     private final int[] nodeLowLink;
-    private final EdgeFilter edgeFilter;
+    private final EdgeExplorer explorer;
+    // the state of the depth first search: the node and the number of its already traversed edges, -1 for a new node
+    private final IntArrayList dfsNodes = new IntArrayList();
+    private final IntArrayList dfsEdgeCounts = new IntArrayList();
     private int index = 1;
 
     public TarjansSCCAlgorithm(GraphHopperStorage ghStorage, final EdgeFilter edgeFilter, boolean ignoreSingleEntries) {
@@ -56,13 +61,12 @@ public class TarjansSCCAlgorithm {
         this.onStack = new GHBitSetImpl(ghStorage.getNodes());
         this.nodeIndex = new int[ghStorage.getNodes()];
         this.nodeLowLink = new int[ghStorage.getNodes()];
-        this.edgeFilter = edgeFilter;
+        this.explorer = ghStorage.createEdgeExplorer(edgeFilter);
 
         if (ignoreSingleEntries) {
             // Very important case to boost performance - see #520. Exclude single entry components as we don't need them! 
             // But they'll be created a lot for multiple vehicles because many nodes e.g. for foot are not accessible at all for car.
             // We can ignore these single entry components as they are already set 'not accessible'
-            EdgeExplorer explorer = ghStorage.createEdgeExplorer(edgeFilter);
             int nodes = ghStorage.getNodes();
             ignoreSet = new GHBitSetImpl(ghStorage.getNodes());
             for (int start = 0; start < nodes; start++) {
@@ -99,34 +103,41 @@ public class TarjansSCCAlgorithm {
     /**
      * Find all components reachable from firstNode, add them to 'components'
      * <p>
+     * The depth first search is done with two primitive stacks instead of recursion: the node and the number of its
+     * edges which were already traversed. When resuming a node the edges are iterated again and this number is
+     * skipped, which is cheap for the small degrees of road networks and avoids an EdgeIterator per visited node.
      *
      * @param firstNode start search of SCC at this node
      */
     private void strongConnect(int firstNode) {
-        final Stack<TarjanState> stateStack = new Stack<>();
-        stateStack.push(TarjanState.startState(firstNode));
+        dfsNodes.add(firstNode);
+        dfsEdgeCounts.add(-1);
 
         // nextState label is equivalent to the function entry point in the recursive Tarjan's algorithm.
         nextState:
 
-        while (!stateStack.empty()) {
-            TarjanState state = stateStack.pop();
-            final int start = state.start;
-            final EdgeIterator iter;
+        while (!dfsNodes.isEmpty()) {
+            int last = dfsNodes.size() - 1;
+            final int start = dfsNodes.get(last);
+            int edgeCount = dfsEdgeCounts.get(last);
+            dfsNodes.elementsCount = last;
+            dfsEdgeCounts.elementsCount = last;
+            final EdgeIterator iter = explorer.setBaseNode(start);
 
-            if (state.isStart()) {
+            if (edgeCount < 0) {
                 // We're traversing a new node 'start'.  Set the depth index for this node to the smallest unused index.
                 nodeIndex[start] = index;
                 nodeLowLink[start] = index;
                 index++;
                 nodeStack.addLast(start);
                 onStack.add(start);
-
-                iter = graph.createEdgeExplorer(edgeFilter).setBaseNode(start);
+                edgeCount = 0;
 
             } else {
                 // We're resuming iteration over the next child of 'start', set lowLink as appropriate.
-                iter = state.iter;
+                for (int i = 0; i < edgeCount; i++) {
+                    iter.next();
+                }
 
                 int prevConnectedId = iter.getAdjNode();
                 nodeLowLink[start] = Math.min(nodeLowLink[start], nodeLowLink[prevConnectedId]);
@@ -135,6 +146,7 @@ public class TarjansSCCAlgorithm {
             // Each element (excluding the first) in the current component should be able to find
             // a successor with a lower nodeLowLink.
             while (iter.next()) {
+                edgeCount++;
                 int connectedId = iter.getAdjNode();
                 if (ignoreSet.contains(start))
                     continue;
@@ -142,8 +154,8 @@ public class TarjansSCCAlgorithm {
                 if (nodeIndex[connectedId] == 0) {
                     // Push resume and start states onto state stack to continue our DFS through the graph after the jump.
                     // Ideally we'd just call strongConnectIterative(connectedId);
-                    stateStack.push(TarjanState.resumeState(start, iter));
-                    stateStack.push(TarjanState.startState(connectedId));
+                    dfsNodes.add(start, connectedId);
+                    dfsEdgeCounts.add(edgeCount, -1);
                     continue nextState;
                 } else if (onStack.contains(connectedId)) {
                     nodeLowLink[start] = Math.min(nodeLowLink[start], nodeIndex[connectedId]);
@@ -166,32 +178,4 @@ public class TarjansSCCAlgorithm {
             }
         }
     }
-
-    /**
-     * Internal stack state of algorithm, used to avoid recursive function calls and hitting stack
-     * overflow exceptions. State is either 'start' for new nodes or 'resume' for partially
-     * traversed nodes.
-     */
-    private static class TarjanState {
-        final int start;
-        final EdgeIterator iter;
-
-        private TarjanState(final int start, final EdgeIterator iter) {
-            this.start = start;
-            this.iter = iter;
-        }
-
-        public static TarjanState startState(int start) {
-            return new TarjanState(start, null);
-        }
-
-        public static TarjanState resumeState(int start, EdgeIterator iter) {
-            return new TarjanState(start, iter);
-        }
-
-        // Iterator only present in 'resume' state.
-        boolean isStart() {
-            return iter == null;
-        }
-    }
 }
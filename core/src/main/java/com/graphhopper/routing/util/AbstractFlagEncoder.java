@@ -430,6 +430,13 @@ public abstract class AbstractFlagEncoder implements FlagEncoder, TurnCostEncode
         }
     }
 
+    /**
+     * Defines the values this encoder stores in the extra flags of the edges, which are not limited to the bits of
+     * the long flags. Called once when the encoder is registered. Set the values in applyWayTags.
+     */
+    protected void createEncodedValues(List<IntEncodedValue> encodedValues) {
+    }
+
     /**
      * Second parsing step. Invoked after splitting the edges. Currently used to offer a hook to
      * calculate precise speed values based on elevation data stored in the specified edge.
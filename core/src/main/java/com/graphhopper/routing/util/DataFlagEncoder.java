@@ -87,6 +87,8 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
     private boolean storeHeight = false;
     private boolean storeWeight = false;
     private boolean storeWidth = false;
+    private boolean storeToll = false;
+    private IntEncodedValue tollEncoder;
     private EncodedValue spatialEncoder;
     private SpatialRuleLookup spatialRuleLookup = SpatialRuleLookup.EMPTY;
 
@@ -102,6 +104,7 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         this.setStoreHeight(properties.getBool("store_height", false));
         this.setStoreWeight(properties.getBool("store_weight", false));
         this.setStoreWidth(properties.getBool("store_width", false));
+        this.setStoreToll(properties.getBool("store_toll", false));
     }
 
     public DataFlagEncoder(int speedBits, double speedFactor, int maxTurnCosts) {
@@ -406,11 +409,8 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
 
             flags = accessEncoder.setValue(flags, getAccessValue(way));
 
-            GHPoint estimatedCenter = way.getTag("estimated_center", null);
-            if (estimatedCenter != null) {
-                SpatialRule rule = spatialRuleLookup.lookupRule(estimatedCenter);
-                flags = spatialEncoder.setValue(flags, spatialRuleLookup.getSpatialId(rule));
-            }
+            if (way.getTag("estimated_center", null) != null)
+                flags = spatialEncoder.setValue(flags, spatialRuleLookup.getSpatialId(getSpatialRule(way)));
 
             return flags;
         } catch (Exception ex) {
@@ -419,11 +419,18 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
     }
 
     private SpatialRule getSpatialRule(ReaderWay way) {
+        // the rule is needed several times per way, so look it up only once
+        SpatialRule rule = way.getTag("spatial_rule", null);
+        if (rule != null)
+            return rule;
+
         GHPoint estmCentre = way.getTag("estimated_center", null);
-        if (estmCentre != null) {
-            return spatialRuleLookup.lookupRule(estmCentre);
-        }
-        return SpatialRule.EMPTY;
+        if (estmCentre == null)
+            return SpatialRule.EMPTY;
+
+        rule = spatialRuleLookup.lookupRule(estmCentre);
+        way.setTag("spatial_rule", rule);
+        return rule;
     }
 
     private long extractMeter(ReaderWay way, long flags, EncodedDoubleValue valueEncoder, List<String> keys) {
@@ -520,6 +527,28 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         }
     }
 
+    @Override
+    protected void createEncodedValues(List<IntEncodedValue> encodedValues) {
+        // the long flags are nearly full, so further attributes are stored in the extra flags
+        if (storeToll) {
+            tollEncoder = new IntEncodedValue(toString() + ".toll", 1);
+            encodedValues.add(tollEncoder);
+        }
+    }
+
+    @Override
+    public void applyWayTags(ReaderWay way, EdgeIteratorState edge) {
+        if (storeToll)
+            tollEncoder.setBool(edge, way.hasTag("toll", "yes") || way.hasTag("toll:motorcar", "yes"));
+    }
+
+    /**
+     * @return true if the edge is a toll road for motor vehicles, always false if store_toll is not enabled
+     */
+    public boolean isToll(EdgeIteratorState edge) {
+        return storeToll && tollEncoder.getBool(edge);
+    }
+
     /**
      * This method returns the spatialId stored in the specified flags or -1 if not enabled for this encoder.
      */
@@ -530,6 +559,17 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         return (int) spatialEncoder.getValue(flags);
     }
 
+    /**
+     * Returns the spatial rule of the specified edge like the country, which was determined at import. This is
+     * an array read without a polygon check and can be used at query time.
+     */
+    public SpatialRule getSpatialRule(EdgeIteratorState edge) {
+        if (spatialEncoder == null)
+            return SpatialRule.EMPTY;
+
+        return spatialRuleLookup.getSpatialRule((int) spatialEncoder.getValue(edge.getFlags()));
+    }
+
     /**
      * This method set the spatial ID (e.g. country ID) of the specified flags to the specified id. Fetch the unique
      * spatial ID via spatialRuleLookup.lookup().getSpatialId
@@ -572,18 +612,15 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         if (map == null)
             throw new IllegalArgumentException("Map cannot be null when calling getHighwaySpeedMap");
 
-        double[] res = new double[highwayMap.size()];
-        for (Entry<String, Double> e : map.entrySet()) {
-            Integer integ = highwayMap.get(e.getKey());
-            if (integ == null)
-                throw new IllegalArgumentException("Graph not prepared for highway=" + e.getKey());
-
-            if (e.getValue() < 0)
-                throw new IllegalArgumentException("Negative speed " + e.getValue() + " not allowed. highway=" + e.getKey());
+        return toArray(highwayMap, map, 0, "highway");
+    }
 
-            res[integ] = e.getValue();
-        }
-        return res;
+    /**
+     * Returns the values of the specified map at the index of the highway, see getHighway. Highways not contained
+     * in the map get the default value.
+     */
+    public double[] getHighwayMap(Map<String, Double> map, double defaultValue) {
+        return toArray(highwayMap, map, defaultValue, "highway");
     }
 
     public int getSurface(EdgeIteratorState edge) {
@@ -625,14 +662,35 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
     }
 
     public double[] getTransportModeMap(Map<String, Double> map) {
-        double[] res = new double[transportModeMap.size()];
+        return toArray(transportModeMap, map, 0, "transport_mode");
+    }
+
+    /**
+     * Returns the values of the specified map at the index of the transport mode, see getTransportMode. Transport
+     * modes not contained in the map get the default value.
+     */
+    public double[] getTransportModeMap(Map<String, Double> map, double defaultValue) {
+        return toArray(transportModeMap, map, defaultValue, "transport_mode");
+    }
+
+    /**
+     * Returns the values of the specified map at the index of the surface, see getSurface. Surfaces not contained
+     * in the map get the default value.
+     */
+    public double[] getSurfaceMap(Map<String, Double> map, double defaultValue) {
+        return toArray(surfaceMap, map, defaultValue, "surface");
+    }
+
+    private static double[] toArray(Map<String, Integer> indexMap, Map<String, Double> map, double defaultValue, String tag) {
+        double[] res = new double[indexMap.size()];
+        Arrays.fill(res, defaultValue);
         for (Entry<String, Double> e : map.entrySet()) {
-            Integer integ = transportModeMap.get(e.getKey());
+            Integer integ = indexMap.get(e.getKey());
             if (integ == null)
-                throw new IllegalArgumentException("Graph not prepared for transport_mode=" + e.getKey());
+                throw new IllegalArgumentException("Graph not prepared for " + tag + "=" + e.getKey());
 
             if (e.getValue() < 0)
-                throw new IllegalArgumentException("Negative speed " + e.getValue() + " not allowed. transport_mode=" + e.getKey());
+                throw new IllegalArgumentException("Negative value " + e.getValue() + " not allowed. " + tag + "=" + e.getKey());
 
             res[integ] = e.getValue();
         }
@@ -811,6 +869,17 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         return storeWidth;
     }
 
+    public DataFlagEncoder setStoreToll(boolean storeToll) {
+        if (isRegistered())
+            throw new IllegalStateException("Cannot change store_toll after the encoder was registered");
+        this.storeToll = storeToll;
+        return this;
+    }
+
+    public boolean isStoreToll() {
+        return storeToll;
+    }
+
 
     public DataFlagEncoder setSpatialRuleLookup(SpatialRuleLookup spatialRuleLookup) {
         this.spatialRuleLookup = spatialRuleLookup;
@@ -832,7 +901,8 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         return super.getPropertiesString() +
                 "|store_height=" + storeHeight +
                 "|store_weight=" + storeWeight +
-                "|store_width=" + storeWidth;
+                "|store_width=" + storeWidth +
+                "|store_toll=" + storeToll;
     }
 
     @Override
@@ -858,6 +928,18 @@ public class DataFlagEncoder extends AbstractFlagEncoder {
         return new WeightingConfig(getHighwaySpeedMap(map));
     }
 
+    /**
+     * @return true if the map specifies the speed of at least one highway type, i.e. if the
+     * WeightingConfig created from it differs from the default one.
+     */
+    public boolean hasSpeeds(PMap pMap) {
+        for (String highway : DEFAULT_SPEEDS.keySet()) {
+            if (pMap.has(highway))
+                return true;
+        }
+        return false;
+    }
+
     public class WeightingConfig {
         private final double[] speedArray;
 
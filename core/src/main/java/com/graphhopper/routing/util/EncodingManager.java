@@ -29,6 +29,7 @@ import com.graphhopper.util.PMap;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -48,6 +49,9 @@ public class EncodingManager {
     private final List<AbstractFlagEncoder> edgeEncoders = new ArrayList<>();
     private final int bitsForEdgeFlags;
     private final int bitsForTurnFlags = 8 * 4;
+    private final List<IntEncodedValue> encodedValues = new ArrayList<>();
+    private int intsForExtraFlags = 0;
+    private int nextExtraBit = 32;
     private int nextWayBit = 0;
     private int nextNodeBit = 0;
     private int nextRelBit = 0;
@@ -175,6 +179,33 @@ public class EncodingManager {
         return bitsForEdgeFlags / 8;
     }
 
+    /**
+     * @return the number of ints necessary to store the IntEncodedValues of all encoders for every edge
+     */
+    public int getIntsForExtraFlags() {
+        return intsForExtraFlags;
+    }
+
+    public List<IntEncodedValue> getEncodedValues() {
+        return Collections.unmodifiableList(encodedValues);
+    }
+
+    public boolean hasEncodedValue(String name) {
+        for (IntEncodedValue value : encodedValues) {
+            if (value.getName().equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    public IntEncodedValue getEncodedValue(String name) {
+        for (IntEncodedValue value : encodedValues) {
+            if (value.getName().equals(name))
+                return value;
+        }
+        throw new IllegalArgumentException("Encoded value " + name + " not found. Existing: " + encodedValues);
+    }
+
     private void registerEncoder(AbstractFlagEncoder encoder) {
         if (encoder.isRegistered())
             throw new IllegalStateException("You must not register a FlagEncoder (" + encoder.toString() + ") twice!");
@@ -211,6 +242,22 @@ public class EncodingManager {
             throw new IllegalArgumentException(String.format(Locale.ROOT, ERR, usedBits, bitsForTurnFlags, "turn"));
         nextTurnBit = usedBits;
 
+        // the extra flags grow with the values, so there is no limit except the memory
+        List<IntEncodedValue> values = new ArrayList<>();
+        encoder.createEncodedValues(values);
+        for (IntEncodedValue value : values) {
+            if (hasEncodedValue(value.getName()))
+                throw new IllegalArgumentException("Cannot register encoded value. Name already exists: " + value.getName());
+
+            if (nextExtraBit + value.getBits() > 32) {
+                intsForExtraFlags++;
+                nextExtraBit = 0;
+            }
+            value.init(intsForExtraFlags - 1, nextExtraBit);
+            nextExtraBit += value.getBits();
+            encodedValues.add(value);
+        }
+
         edgeEncoders.add(encoder);
     }
 
@@ -0,0 +1,116 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.util;
+
+import com.graphhopper.util.EdgeIteratorState;
+
+/**
+ * Encapsulates a bit-encoded value stored in the extra flags of an edge. Other than the EncodedValue, which works
+ * on the long flags and is limited to their 64 bits, the extra flags of an edge grow with the registered values.
+ * The EncodingManager packs all values of its encoders into as many ints as necessary, a value never spans two
+ * ints. The value does not depend on the direction of the edge, use two values if this is necessary.
+ *
+ * @see AbstractFlagEncoder#createEncodedValues(java.util.List)
+ * @see EdgeIteratorState#getExtraFlags(int)
+ */
+public class IntEncodedValue {
+    private final String name;
+    private final int bits;
+    private final int maxValue;
+    private int index = -1;
+    private int shift;
+    private int mask;
+
+    /**
+     * @param name unique name of the value
+     * @param bits number of bits reserved, at most 31
+     */
+    public IntEncodedValue(String name, int bits) {
+        if (bits <= 0 || bits > 31)
+            throw new IllegalArgumentException(name + " -> bits have to be in [1, 31] but was " + bits);
+
+        this.name = name;
+        this.bits = bits;
+        this.maxValue = (1 << bits) - 1;
+    }
+
+    /**
+     * Called from the EncodingManager to place this value in the extra flags.
+     *
+     * @param index the index of the int in the extra flags
+     * @param shift the bit index of this value in the int
+     */
+    void init(int index, int shift) {
+        if (this.index >= 0)
+            throw new IllegalStateException(name + " is already initialized");
+        if (shift + bits > 32)
+            throw new IllegalArgumentException(name + " -> " + bits + " bits do not fit at shift " + shift);
+
+        this.index = index;
+        this.shift = shift;
+        this.mask = maxValue << shift;
+    }
+
+    public boolean isInitialized() {
+        return index >= 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public int getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @return the index of the int in the extra flags
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public int getInt(EdgeIteratorState edge) {
+        return (edge.getExtraFlags(index) & mask) >>> shift;
+    }
+
+    public void setInt(EdgeIteratorState edge, int value) {
+        if (value < 0 || value > maxValue)
+            throw new IllegalArgumentException(name + " value " + value + " not in [0, " + maxValue + "]");
+
+        int flags = edge.getExtraFlags(index);
+        edge.setExtraFlags(index, flags & ~mask | value << shift);
+    }
+
+    public boolean getBool(EdgeIteratorState edge) {
+        return getInt(edge) != 0;
+    }
+
+    public void setBool(EdgeIteratorState edge, boolean value) {
+        setInt(edge, value ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return name + "|bits=" + bits + "|index=" + index + "|shift=" + shift;
+    }
+}
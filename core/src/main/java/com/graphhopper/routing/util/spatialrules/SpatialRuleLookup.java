@@ -49,6 +49,13 @@ public interface SpatialRuleLookup {
      */
     int getSpatialId(SpatialRule rule);
 
+    /**
+     * Returns the rule for the specified identification number, which is the reverse of getSpatialId. This is
+     * cheap and can be used at query time with the spatial id stored for every edge, see
+     * DataFlagEncoder.getSpatialRule.
+     */
+    SpatialRule getSpatialRule(int spatialId);
+
     /**
      * @return the number of rules added to this lookup.
      */
@@ -75,6 +82,11 @@ public interface SpatialRuleLookup {
             return 0;
         }
 
+        @Override
+        public SpatialRule getSpatialRule(int spatialId) {
+            return SpatialRule.EMPTY;
+        }
+
         @Override
         public int size() {
             return 1;
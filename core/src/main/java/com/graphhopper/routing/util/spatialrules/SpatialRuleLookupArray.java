@@ -17,6 +17,7 @@
  */
 package com.graphhopper.routing.util.spatialrules;
 
+import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
 import com.graphhopper.util.shapes.Polygon;
@@ -26,6 +27,10 @@ import java.util.*;
 /**
  * SpatialRuleLookup implementation using an array as data structure. Currently limited to 255 ruleContainers
  * The covered area is indexed as tiles, with every tile being "quadratic" having the same degree length on every side.
+ * <p>
+ * Tiles at a border or with overlapping rules are split into SUB_TILES x SUB_TILES sub tiles which store the rule of
+ * their center, so that most lookups are two array reads. Only sub tiles at a border need a polygon check and only
+ * if the lookup is exact.
  *
  * @author Robin Boldt
  */
@@ -38,8 +43,15 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
     private final BBox bounds;
     private final boolean exact;
     private final int EMPTY_RULE_INDEX = 0;
+    // marks a tile in the lookupArray which is split into sub tiles
+    private static final int SUB_TILES_INDEX = 255;
+    // marks a sub tile which needs a polygon check
+    private static final int BORDER_INDEX = 255;
+    private static final int SUB_TILES = 8;
 
     private final byte[][] lookupArray;
+    // the rule index of every sub tile followed by the rule container index of the tile
+    private final GHIntObjectHashMap<byte[]> subTiles = new GHIntObjectHashMap<>();
     private final List<SpatialRuleContainer> ruleContainers = new ArrayList<>();
     private final Map<SpatialRule, Integer> singleRulesIndices = new HashMap<>();
     private final List<SpatialRule> singleRules = new ArrayList<>();
@@ -48,8 +60,8 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
      * @param spatialRules the spatial rules
      * @param resolution   of the array in decimal degrees, see: https://en.wikipedia.org/wiki/Decimal_degrees
      *                     The downside of using decimal degrees is that this is not fixed to a certain m range as
-     * @param exact        if exact it will also perform a polygon contains for border tiles, might fail for small holes
-     *                     in the Polygon that are not represented in the tile array.
+     * @param exact        if exact it will also perform a polygon contains for border sub tiles, might fail for small
+     *                     holes in the Polygon that are not represented in the tile array.
      * @param bounds       create the SpatialRuleLookup for the given BBox
      */
     public SpatialRuleLookupArray(List<SpatialRule> spatialRules, double resolution, boolean exact, BBox bounds) {
@@ -85,6 +97,7 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
         for (SpatialRule spatialRule : spatialRules) {
             addRuleInternal(spatialRule);
         }
+        createSubTiles();
     }
 
     private int getNumberOfYGrids() {
@@ -103,12 +116,20 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
         int xIndex = getXIndexForLon(lon);
         int yIndex = getYIndexForLat(lat);
         int ruleIndex = getRuleContainerIndex(xIndex, yIndex);
-        SpatialRuleContainer ruleContainer = ruleContainers.get(ruleIndex);
-        if (ruleContainer.size() == 1) {
-            if (!exact || !isBorderTile(xIndex, yIndex, ruleIndex))
-                return ruleContainer.first();
-        }
+        if (ruleIndex != SUB_TILES_INDEX)
+            return ruleContainers.get(ruleIndex).first();
+
+        byte[] tiles = subTiles.get(getTileKey(xIndex, yIndex));
+        int subX = getSubIndex(lon - bounds.minLon, xIndex);
+        int subY = getSubIndex(lat - bounds.minLat, yIndex);
+        int subRuleIndex = castByteToInt(tiles[subY * SUB_TILES + subX]);
+        if (subRuleIndex != BORDER_INDEX)
+            return singleRules.get(subRuleIndex);
 
+        return findRule(ruleContainers.get(castByteToInt(tiles[SUB_TILES * SUB_TILES])), lat, lon);
+    }
+
+    private SpatialRule findRule(SpatialRuleContainer ruleContainer, double lat, double lon) {
         for (SpatialRule rule : ruleContainer.getRules()) {
             if (rule.equals(SpatialRule.EMPTY))
                 continue;
@@ -123,6 +144,15 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
         return SpatialRule.EMPTY;
     }
 
+    private int getTileKey(int xIndex, int yIndex) {
+        return xIndex * lookupArray[0].length + yIndex;
+    }
+
+    private int getSubIndex(double degreeDelta, int tileIndex) {
+        int subIndex = (int) Math.floor(degreeDelta / resolution * SUB_TILES) - tileIndex * SUB_TILES;
+        return Math.max(0, Math.min(SUB_TILES - 1, subIndex));
+    }
+
     private int getRuleContainerIndex(int xIndex, int yIndex) {
         if (xIndex < 0 || xIndex >= lookupArray.length) {
             return EMPTY_RULE_INDEX;
@@ -139,14 +169,96 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
     private boolean isBorderTile(int xIndex, int yIndex, int ruleIndex) {
         for (int i = -1; i < 2; i++) {
             for (int j = -1; j < 2; j++) {
-                if (i != xIndex && j != yIndex)
-                    if (ruleIndex != getRuleContainerIndex(i, j))
-                        return true;
+                if (ruleIndex != getRuleContainerIndex(xIndex + i, yIndex + j))
+                    return true;
             }
         }
         return false;
     }
 
+    /**
+     * Splits the tiles at a border or with several rules into sub tiles. The polygon checks are done here once and
+     * not for every lookup.
+     */
+    private void createSubTiles() {
+        double subResolution = resolution / SUB_TILES;
+        List<int[]> tiles = new ArrayList<>();
+        for (int x = 0; x < lookupArray.length; x++) {
+            for (int y = 0; y < lookupArray[0].length; y++) {
+                int ruleIndex = getRuleContainerIndex(x, y);
+                if (ruleIndex == EMPTY_RULE_INDEX)
+                    continue;
+                SpatialRuleContainer container = ruleContainers.get(ruleIndex);
+                if (container.size() == 1 && !isBorderTile(x, y, ruleIndex))
+                    continue;
+
+                byte[] subRules = new byte[SUB_TILES * SUB_TILES + 1];
+                for (int subY = 0; subY < SUB_TILES; subY++) {
+                    for (int subX = 0; subX < SUB_TILES; subX++) {
+                        double lat = bounds.minLat + y * resolution + (subY + 0.5) * subResolution;
+                        double lon = bounds.minLon + x * resolution + (subX + 0.5) * subResolution;
+                        subRules[subY * SUB_TILES + subX] = (byte) (int) singleRulesIndices.get(findRule(container, lat, lon));
+                    }
+                }
+                subRules[SUB_TILES * SUB_TILES] = (byte) ruleIndex;
+                subTiles.put(getTileKey(x, y), subRules);
+                tiles.add(new int[]{x, y});
+            }
+        }
+
+        // the border runs through the sub tiles with a different neighbour, these need the polygon check
+        List<boolean[]> bordersList = new ArrayList<>(tiles.size());
+        for (int[] tile : tiles) {
+            boolean[] borders = new boolean[SUB_TILES * SUB_TILES];
+            for (int subY = 0; exact && subY < SUB_TILES; subY++) {
+                for (int subX = 0; subX < SUB_TILES; subX++) {
+                    borders[subY * SUB_TILES + subX] = isBorderSubTile(tile[0] * SUB_TILES + subX, tile[1] * SUB_TILES + subY);
+                }
+            }
+            bordersList.add(borders);
+        }
+
+        for (int i = 0; i < tiles.size(); i++) {
+            int[] tile = tiles.get(i);
+            byte[] subRules = subTiles.get(getTileKey(tile[0], tile[1]));
+            boolean[] borders = bordersList.get(i);
+            for (int j = 0; j < borders.length; j++) {
+                if (borders[j])
+                    subRules[j] = (byte) BORDER_INDEX;
+            }
+            lookupArray[tile[0]][tile[1]] = (byte) SUB_TILES_INDEX;
+        }
+    }
+
+    private boolean isBorderSubTile(int subX, int subY) {
+        int subRuleIndex = getSubRuleIndex(subX, subY);
+        for (int i = -1; i < 2; i++) {
+            for (int j = -1; j < 2; j++) {
+                if (subRuleIndex != getSubRuleIndex(subX + i, subY + j))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the single rule for the specified sub tile, counted from the minimum of the bounds
+     */
+    private int getSubRuleIndex(int subX, int subY) {
+        if (subX < 0 || subY < 0)
+            return EMPTY_RULE_INDEX;
+
+        int x = subX / SUB_TILES, y = subY / SUB_TILES;
+        int ruleIndex = getRuleContainerIndex(x, y);
+        if (ruleIndex == EMPTY_RULE_INDEX)
+            return EMPTY_RULE_INDEX;
+
+        byte[] subRules = subTiles.get(getTileKey(x, y));
+        if (subRules == null)
+            return singleRulesIndices.get(ruleContainers.get(ruleIndex).first());
+        return castByteToInt(subRules[(subY % SUB_TILES) * SUB_TILES + subX % SUB_TILES]);
+    }
+
     @Override
     public SpatialRule lookupRule(GHPoint point) {
         return lookupRule(point.getLat(), point.getLon());
@@ -212,8 +324,9 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
         singleRules.add(rule);
     }
 
-    SpatialRule getSpatialRule(int id) {
-        if (id < 0 || id >= ruleContainers.size())
+    @Override
+    public SpatialRule getSpatialRule(int id) {
+        if (id < 0 || id >= singleRules.size())
             throw new IllegalArgumentException("SpatialRuleId " + id + " is illegal");
 
         SpatialRule rule = singleRules.get(id);
@@ -231,8 +344,9 @@ public class SpatialRuleLookupArray implements SpatialRuleLookup {
             return newIndex;
 
         newIndex = ruleContainers.size();
-        if (newIndex >= 255)
-            throw new IllegalStateException("No more spatial rule container fit into this lookup as 255 combination of ruleContainers reached");
+        if (newIndex >= SUB_TILES_INDEX)
+            throw new IllegalStateException("No more spatial rule container fit into this lookup as " + SUB_TILES_INDEX
+                    + " combination of ruleContainers reached");
 
         this.ruleContainers.add(container);
         return newIndex;
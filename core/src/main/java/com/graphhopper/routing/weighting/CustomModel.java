@@ -0,0 +1,208 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.routing.util.DataFlagEncoder;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.shapes.BBox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * The rules of a CustomWeighting, read from the hints starting with "custom.":
+ * <ul>
+ * <li>custom.highway.&lt;highway&gt;, custom.surface.&lt;surface&gt; and custom.transport_mode.&lt;mode&gt;
+ * multiply the priority of the matching edges with a factor</li>
+ * <li>custom.toll multiplies the priority of toll roads, requires store_toll for the encoder</li>
+ * <li>custom.area as lat1,lon1,lat2,lon2 and custom.area_factor multiply the priority of the edges with a node in
+ * the area</li>
+ * <li>custom.max_speed limits the speed in km/h</li>
+ * </ul>
+ * The rules are compiled into one factor for every combination of highway, surface and transport mode, so that the
+ * weighting needs a single array lookup per edge instead of evaluating the rules. All factors have to be in [0, 1]
+ * and the speed can only be reduced, so that the weight of an edge is never smaller than without rules and the
+ * landmarks prepared for the weighting without rules stay valid lower bounds. A factor of 0 blocks the edges.
+ *
+ * @see CustomWeighting
+ */
+public class CustomModel {
+    public static final String PREFIX = "custom.";
+    public static final String HIGHWAY = PREFIX + "highway.";
+    public static final String SURFACE = PREFIX + "surface.";
+    public static final String TRANSPORT_MODE = PREFIX + "transport_mode.";
+    public static final String TOLL = PREFIX + "toll";
+    public static final String AREA = PREFIX + "area";
+    public static final String AREA_FACTOR = PREFIX + "area_factor";
+    public static final String MAX_SPEED = PREFIX + "max_speed";
+
+    private final String key;
+    private final int surfaces;
+    private final int transportModes;
+    private final double[] factors;
+    private final double tollFactor;
+    private final BBox area;
+    private final double areaFactor;
+    private final double maxSpeed;
+
+    private CustomModel(String key, int surfaces, int transportModes, double[] factors, double tollFactor, BBox area,
+                        double areaFactor, double maxSpeed) {
+        this.key = key;
+        this.surfaces = surfaces;
+        this.transportModes = transportModes;
+        this.factors = factors;
+        this.tollFactor = tollFactor;
+        this.area = area;
+        this.areaFactor = areaFactor;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * @return the rules of the specified hints in a normalized form, equal rules lead to an equal key
+     */
+    public static String createKey(PMap hints) {
+        Map<String, String> rules = new TreeMap<>();
+        for (Entry<String, String> e : hints.toMap().entrySet()) {
+            if (e.getKey().startsWith(PREFIX))
+                rules.put(e.getKey(), e.getValue().trim());
+        }
+        return rules.isEmpty() ? "" : rules.toString();
+    }
+
+    /**
+     * Parses the rules of the specified hints and compiles them for the specified encoder.
+     *
+     * @throws IllegalArgumentException if a rule is unknown or a value is not allowed
+     */
+    public static CustomModel create(DataFlagEncoder encoder, PMap hints) {
+        Map<String, Double> highways = new HashMap<>();
+        Map<String, Double> surfaceMap = new HashMap<>();
+        Map<String, Double> transportModeMap = new HashMap<>();
+        double tollFactor = 1;
+        BBox area = null;
+        double areaFactor = 1;
+        double maxSpeed = Double.POSITIVE_INFINITY;
+        for (Entry<String, String> e : hints.toMap().entrySet()) {
+            String name = e.getKey();
+            if (!name.startsWith(PREFIX))
+                continue;
+
+            String value = e.getValue().trim();
+            if (name.startsWith(HIGHWAY)) {
+                highways.put(name.substring(HIGHWAY.length()), parseFactor(name, value));
+            } else if (name.startsWith(SURFACE)) {
+                surfaceMap.put(name.substring(SURFACE.length()), parseFactor(name, value));
+            } else if (name.startsWith(TRANSPORT_MODE)) {
+                transportModeMap.put(name.substring(TRANSPORT_MODE.length()), parseFactor(name, value));
+            } else if (name.equals(TOLL)) {
+                if (!encoder.isStoreToll())
+                    throw new IllegalArgumentException("Graph not prepared for " + TOLL + ", enable store_toll");
+                tollFactor = parseFactor(name, value);
+            } else if (name.equals(AREA)) {
+                area = BBox.parseTwoPoints(value);
+            } else if (name.equals(AREA_FACTOR)) {
+                areaFactor = parseFactor(name, value);
+            } else if (name.equals(MAX_SPEED)) {
+                maxSpeed = parseDouble(name, value);
+                if (maxSpeed <= 0)
+                    throw new IllegalArgumentException(name + " has to be positive but was " + value);
+            } else {
+                throw new IllegalArgumentException("Unknown rule " + name + " of the custom weighting");
+            }
+        }
+        if (areaFactor != 1 && area == null)
+            throw new IllegalArgumentException(AREA_FACTOR + " requires " + AREA);
+
+        double[] highwayFactors = encoder.getHighwayMap(highways, 1);
+        double[] surfaceFactors = encoder.getSurfaceMap(surfaceMap, 1);
+        double[] transportModeFactors = encoder.getTransportModeMap(transportModeMap, 1);
+        double[] factors = new double[highwayFactors.length * surfaceFactors.length * transportModeFactors.length];
+        int index = 0;
+        for (double highwayFactor : highwayFactors) {
+            for (double surfaceFactor : surfaceFactors) {
+                for (double transportModeFactor : transportModeFactors) {
+                    factors[index++] = highwayFactor * surfaceFactor * transportModeFactor;
+                }
+            }
+        }
+        return new CustomModel(createKey(hints), surfaceFactors.length, transportModeFactors.length, factors, tollFactor,
+                area == null || areaFactor == 1 ? null : area, areaFactor, maxSpeed);
+    }
+
+    private static double parseFactor(String name, String value) {
+        double factor = parseDouble(name, value);
+        if (factor < 0 || factor > 1)
+            throw new IllegalArgumentException(name + " has to be in [0, 1] but was " + value);
+        return factor;
+    }
+
+    private static double parseDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Cannot parse " + name + "=" + value, ex);
+        }
+    }
+
+    /**
+     * @return true if there are no rules and the weighting is equal to the GenericWeighting
+     */
+    public boolean isEmpty() {
+        return key.isEmpty();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the product of the factors for the specified highway, surface and transport mode
+     */
+    public double getFactor(int highway, int surface, int transportMode) {
+        return factors[(highway * surfaces + surface) * transportModes + transportMode];
+    }
+
+    public double getTollFactor() {
+        return tollFactor;
+    }
+
+    /**
+     * @return the area with a factor different from 1 or null
+     */
+    public BBox getArea() {
+        return area;
+    }
+
+    public double getAreaFactor() {
+        return areaFactor;
+    }
+
+    /**
+     * @return the maximum speed in km/h, infinity if not limited
+     */
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.routing.util.DataFlagEncoder;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.shapes.BBox;
+
+/**
+ * The GenericWeighting adjusted by the rules of a CustomModel, which are specified per request. As the rules only
+ * increase the weight, the landmarks of the 'custom' weighting without rules can be used for all requests.
+ *
+ * @see CustomModel
+ */
+public class CustomWeighting extends GenericWeighting {
+    private final CustomModel model;
+    private final NodeAccess nodeAccess;
+    private final double tollFactor;
+    private final BBox area;
+    private final double areaFactor;
+    private final double maxCustomSpeed;
+
+    /**
+     * @param nodeAccess required to find the edges of the area, can be null if the model has no area
+     */
+    public CustomWeighting(DataFlagEncoder encoder, PMap hintsMap, CustomModel model, NodeAccess nodeAccess) {
+        super(encoder, hintsMap);
+        if (model.getArea() != null && nodeAccess == null)
+            throw new IllegalArgumentException("The graph is required for " + CustomModel.AREA);
+
+        this.model = model;
+        this.nodeAccess = nodeAccess;
+        this.tollFactor = model.getTollFactor();
+        this.area = model.getArea();
+        this.areaFactor = model.getAreaFactor();
+        this.maxCustomSpeed = model.getMaxSpeed();
+    }
+
+    public CustomModel getModel() {
+        return model;
+    }
+
+    @Override
+    public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+        double weight = super.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+        if (Double.isInfinite(weight))
+            return weight;
+
+        double factor = model.getFactor(gEncoder.getHighway(edgeState), gEncoder.getSurface(edgeState),
+                gEncoder.getTransportMode(edgeState));
+        if (tollFactor != 1 && gEncoder.isToll(edgeState))
+            factor *= tollFactor;
+        // use both nodes so that the weight does not depend on the direction of the edge state
+        if (area != null && (contains(edgeState.getBaseNode()) || contains(edgeState.getAdjNode())))
+            factor *= areaFactor;
+        if (factor == 0)
+            return Double.POSITIVE_INFINITY;
+        return weight / factor;
+    }
+
+    private boolean contains(int node) {
+        return area.contains(nodeAccess.getLatitude(node), nodeAccess.getLongitude(node));
+    }
+
+    @Override
+    protected double calcSpeed(EdgeIteratorState edgeState, boolean reverse) {
+        return Math.min(super.calcSpeed(edgeState, reverse), maxCustomSpeed);
+    }
+
+    @Override
+    public String getName() {
+        return "custom";
+    }
+}
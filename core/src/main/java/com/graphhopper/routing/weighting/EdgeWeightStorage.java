@@ -0,0 +1,153 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.Storable;
+import com.graphhopper.util.EdgeIterator;
+
+/**
+ * Stores the weight and the time of every edge in both directions for one weighting, so that the routing only
+ * reads a float per edge instead of decoding the flags, see PrecomputedWeighting. The directions are stored
+ * independently of the orientation of the edge: 'up' is the direction from the smaller to the larger node id.
+ * <p>
+ * The values have to be updated if the flags of the edges change, see update.
+ *
+ * @see PrecomputedWeighting
+ */
+public class EdgeWeightStorage implements Storable<EdgeWeightStorage> {
+    private static final int WEIGHT_UP = 0;
+    private static final int WEIGHT_DOWN = 4;
+    private static final int MILLIS_UP = 8;
+    private static final int MILLIS_DOWN = 12;
+    private static final int EDGE_SIZE = 16;
+    private final Graph graph;
+    private final Weighting weighting;
+    private final DataAccess da;
+    private int edges;
+
+    public EdgeWeightStorage(Graph graph, Directory dir, Weighting weighting) {
+        this.graph = graph;
+        this.weighting = weighting;
+        this.da = dir.find("edge_weights_" + AbstractWeighting.weightingToFileName(weighting));
+    }
+
+    public Weighting getWeighting() {
+        return weighting;
+    }
+
+    /**
+     * @return the number of edges with a stored weight, edges with a larger id like virtual edges are not stored
+     */
+    public int getEdges() {
+        return edges;
+    }
+
+    /**
+     * @param up true for the direction from the smaller to the larger node id of the edge
+     */
+    public double getWeight(int edge, boolean up) {
+        return Float.intBitsToFloat(da.getInt((long) edge * EDGE_SIZE + (up ? WEIGHT_UP : WEIGHT_DOWN)));
+    }
+
+    /**
+     * @return the time in milli seconds or -1 if the edge is not accessible in this direction
+     */
+    public long getMillis(int edge, boolean up) {
+        return da.getInt((long) edge * EDGE_SIZE + (up ? MILLIS_UP : MILLIS_DOWN));
+    }
+
+    /**
+     * Calculates the weights and times of all edges again. Has to be called if the flags of edges were changed.
+     */
+    public void update() {
+        edges = graph.getAllEdges().length();
+        da.ensureCapacity((long) edges * EDGE_SIZE);
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            long pointer = (long) iter.getEdge() * EDGE_SIZE;
+            boolean up = iter.getBaseNode() < iter.getAdjNode();
+            double forward = weighting.calcWeight(iter, false, EdgeIterator.NO_EDGE);
+            double backward = weighting.calcWeight(iter, true, EdgeIterator.NO_EDGE);
+            da.setInt(pointer + (up ? WEIGHT_UP : WEIGHT_DOWN), Float.floatToRawIntBits((float) forward));
+            da.setInt(pointer + (up ? WEIGHT_DOWN : WEIGHT_UP), Float.floatToRawIntBits((float) backward));
+            // the time is only defined for accessible directions
+            da.setInt(pointer + (up ? MILLIS_UP : MILLIS_DOWN), calcMillis(iter, false, forward));
+            da.setInt(pointer + (up ? MILLIS_DOWN : MILLIS_UP), calcMillis(iter, true, backward));
+        }
+        da.setHeader(0, edges);
+    }
+
+    private int calcMillis(AllEdgesIterator iter, boolean reverse, double weight) {
+        FlagEncoder encoder = weighting.getFlagEncoder();
+        boolean access = reverse ? encoder.isBackward(iter.getFlags()) : encoder.isForward(iter.getFlags());
+        if (!access || Double.isInfinite(weight))
+            return -1;
+
+        long millis = weighting.calcMillis(iter, reverse, EdgeIterator.NO_EDGE);
+        return millis > Integer.MAX_VALUE ? -1 : (int) millis;
+    }
+
+    @Override
+    public boolean loadExisting() {
+        if (!da.loadExisting())
+            return false;
+
+        edges = da.getHeader(0);
+        if (edges != graph.getAllEdges().length())
+            throw new IllegalStateException("Cannot load edge weights of " + weighting + " as written for " + edges
+                    + " edges, but the graph has " + graph.getAllEdges().length());
+        return true;
+    }
+
+    @Override
+    public EdgeWeightStorage create(long byteCount) {
+        da.create(byteCount);
+        update();
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        da.flush();
+    }
+
+    @Override
+    public void close() {
+        da.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return da.isClosed();
+    }
+
+    @Override
+    public long getCapacity() {
+        return da.getCapacity();
+    }
+
+    @Override
+    public String toString() {
+        return "edge weights of " + weighting + ", edges: " + edges;
+    }
+}
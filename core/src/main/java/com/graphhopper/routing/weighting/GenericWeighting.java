@@ -109,17 +109,10 @@ public class GenericWeighting extends AbstractWeighting {
         // TODO to avoid expensive reverse flags include oneway accessibility
         // but how to include e.g. maxspeed as it depends on direction? Does highway depend on direction?
         // reverse = edge.isReverse()? !reverse : reverse;
-        double speed = weightingConfig.getSpeed(edgeState);
+        double speed = calcSpeed(edgeState, reverse);
         if (speed == 0)
             return Long.MAX_VALUE;
 
-        // TODO inner city guessing -> lit, maxspeed <= 50, residential etc => create new encoder.isInnerCity(edge)
-        // See #472 use edge.getDouble((encoder), K_MAXSPEED_MOTORVEHICLE_FORWARD, _default) or edge.getMaxSpeed(...) instead?
-        // encoder could be made optional via passing to EdgeExplorer
-        double maxspeed = gEncoder.getMaxspeed(edgeState, accessType, reverse);
-        if (maxspeed > 0 && speed > maxspeed)
-            speed = maxspeed;
-
         // TODO test performance difference for rounding
         long timeInMillis = (long) (edgeState.getDistance() / speed * SPEED_CONV);
 
@@ -139,6 +132,23 @@ public class GenericWeighting extends AbstractWeighting {
         return timeInMillis;
     }
 
+    /**
+     * @return the speed in km/h to travel along the specified edge or 0 if the highway is not accessible
+     */
+    protected double calcSpeed(EdgeIteratorState edgeState, boolean reverse) {
+        double speed = weightingConfig.getSpeed(edgeState);
+        if (speed == 0)
+            return 0;
+
+        // TODO inner city guessing -> lit, maxspeed <= 50, residential etc => create new encoder.isInnerCity(edge)
+        // See #472 use edge.getDouble((encoder), K_MAXSPEED_MOTORVEHICLE_FORWARD, _default) or edge.getMaxSpeed(...) instead?
+        // encoder could be made optional via passing to EdgeExplorer
+        double maxspeed = gEncoder.getMaxspeed(edgeState, accessType, reverse);
+        if (maxspeed > 0 && speed > maxspeed)
+            speed = maxspeed;
+        return speed;
+    }
+
     @Override
     public String getName() {
         return "generic";
@@ -0,0 +1,79 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.util.EdgeIteratorState;
+
+/**
+ * Reads the weight and time of an edge from the EdgeWeightStorage instead of calculating it. Virtual edges, e.g.
+ * from a QueryGraph, and loops are calculated by the wrapped weighting, which has to return the same values as the
+ * weighting of the storage.
+ *
+ * @see EdgeWeightStorage
+ */
+public class PrecomputedWeighting extends AbstractAdjustedWeighting {
+    private final EdgeWeightStorage storage;
+    private final int edges;
+
+    public PrecomputedWeighting(Weighting superWeighting, EdgeWeightStorage storage) {
+        super(superWeighting);
+        this.storage = storage;
+        this.edges = storage.getEdges();
+    }
+
+    @Override
+    public double getMinWeight(double distance) {
+        return superWeighting.getMinWeight(distance);
+    }
+
+    @Override
+    public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+        int edge = edgeState.getEdge();
+        int baseNode = edgeState.getBaseNode();
+        int adjNode = edgeState.getAdjNode();
+        if (edge >= edges || baseNode == adjNode)
+            return superWeighting.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+
+        return storage.getWeight(edge, baseNode < adjNode != reverse);
+    }
+
+    @Override
+    public long calcMillis(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+        int edge = edgeState.getEdge();
+        int baseNode = edgeState.getBaseNode();
+        int adjNode = edgeState.getAdjNode();
+        if (edge >= edges || baseNode == adjNode)
+            return superWeighting.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+
+        long millis = storage.getMillis(edge, baseNode < adjNode != reverse);
+        // let the wrapped weighting complain about the inaccessible direction
+        if (millis < 0)
+            return superWeighting.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+        return millis;
+    }
+
+    @Override
+    public String getName() {
+        return superWeighting.getName();
+    }
+
+    @Override
+    public String toString() {
+        return superWeighting.toString();
+    }
+}
@@ -67,7 +67,7 @@ class BaseGraph implements Graph {
     // node memory layout:
     protected int N_EDGE_REF, N_LAT, N_LON, N_ELE, N_ADDITIONAL;
     // edge memory layout not found in EdgeAccess:
-    int E_GEO, E_NAME, E_ADDITIONAL;
+    int E_GEO, E_NAME, E_ADDITIONAL, E_EXTRA;
     /**
      * Specifies how many entries (integers) are used per edge.
      */
@@ -238,6 +238,10 @@ class BaseGraph implements Graph {
             E_ADDITIONAL = nextEdgeEntryIndex(4);
         else
             E_ADDITIONAL = -1;
+        if (encodingManager.getIntsForExtraFlags() > 0)
+            E_EXTRA = nextEdgeEntryIndex(4 * encodingManager.getIntsForExtraFlags());
+        else
+            E_EXTRA = -1;
 
         N_EDGE_REF = nextNodeEntryIndex(4);
         N_LAT = nextNodeEntryIndex(4);
@@ -475,6 +479,9 @@ class BaseGraph implements Graph {
 
         if (E_ADDITIONAL >= 0)
             to.setAdditionalField(from.getAdditionalField());
+        for (int i = 0; i < encodingManager.getIntsForExtraFlags(); i++) {
+            to.setExtraFlags(i, from.getExtraFlags(i));
+        }
         return to;
     }
 
@@ -790,6 +797,13 @@ class BaseGraph implements Graph {
             throw new AssertionError("This graph does not support an additional edge field.");
     }
 
+    long getExtraFlagsPointer(long edgePointer, int index) {
+        if (index < 0 || index >= encodingManager.getIntsForExtraFlags())
+            throw new IllegalArgumentException("Extra flags index " + index + " not in [0, "
+                    + encodingManager.getIntsForExtraFlags() + ")");
+        return edgePointer + E_EXTRA + 4 * index;
+    }
+
     private void setWayGeometry_(PointList pillarNodes, long edgePointer, boolean reverse) {
         if (pillarNodes != null && !pillarNodes.isEmpty()) {
             if (pillarNodes.getDimension() != nodeAccess.getDimension())
@@ -1162,6 +1176,17 @@ class BaseGraph implements Graph {
             return this;
         }
 
+        @Override
+        public int getExtraFlags(int index) {
+            return baseGraph.edges.getInt(baseGraph.getExtraFlagsPointer(edgePointer, index));
+        }
+
+        @Override
+        public EdgeIteratorState setExtraFlags(int index, int value) {
+            baseGraph.edges.setInt(baseGraph.getExtraFlagsPointer(edgePointer, index), value);
+            return this;
+        }
+
         @Override
         public final EdgeIteratorState copyPropertiesTo(EdgeIteratorState edge) {
             return baseGraph.copyProperties(this, edge);
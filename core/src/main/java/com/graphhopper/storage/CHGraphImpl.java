@@ -534,6 +534,18 @@ public class CHGraphImpl implements CHGraph, Storable<CHGraph> {
             return super.setWayGeometry(list);
         }
 
+        @Override
+        public final int getExtraFlags(int index) {
+            checkShortcut(false, "getExtraFlags");
+            return super.getExtraFlags(index);
+        }
+
+        @Override
+        public final EdgeIteratorState setExtraFlags(int index, int value) {
+            checkShortcut(false, "setExtraFlags");
+            return super.setExtraFlags(index, value);
+        }
+
         @Override
         public int getMergeStatus(long flags) {
             return PrepareEncoder.getScMergeStatus(getDirectFlags(), flags);
@@ -637,6 +649,18 @@ public class CHGraphImpl implements CHGraph, Storable<CHGraph> {
             return CHGraphImpl.this.getWeight(this);
         }
 
+        @Override
+        public final int getExtraFlags(int index) {
+            checkShortcut(false, "getExtraFlags");
+            return super.getExtraFlags(index);
+        }
+
+        @Override
+        public final EdgeIteratorState setExtraFlags(int index, int value) {
+            checkShortcut(false, "setExtraFlags");
+            return super.setExtraFlags(index, value);
+        }
+
         @Override
         public int getMergeStatus(long flags) {
             return PrepareEncoder.getScMergeStatus(getDirectFlags(), flags);
@@ -57,13 +57,20 @@ public interface Directory {
      */
     void remove(DataAccess da);
 
+    /**
+     * Closes the specified object and removes it from the directory. In contrast to remove the files are kept,
+     * i.e. the object can be loaded again later.
+     */
+    void close(DataAccess da);
+
     /**
      * @return the default type of a newly created DataAccess object
      */
     DAType getDefaultType();
 
     /**
-     * Removes all contained objects from the directory and releases its resources.
+     * Removes all contained objects from the directory and releases its resources. This includes the files of the
+     * objects which were closed via close(DataAccess).
      */
     void clear();
 
@@ -23,7 +23,9 @@ import java.io.File;
 import java.nio.ByteOrder;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static com.graphhopper.util.Helper.*;
 
@@ -39,6 +41,8 @@ public class GHDirectory implements Directory {
     private final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
     protected Map<String, DataAccess> map = new HashMap<>();
     protected Map<String, DAType> types = new HashMap<>();
+    // the objects which were closed while their files were kept, clear() has to remove them too
+    private final Set<String> closedNames = new HashSet<>();
 
     public GHDirectory(String _location, DAType defaultType) {
         this.defaultType = defaultType;
@@ -119,6 +123,7 @@ public class GHDirectory implements Directory {
             da = new UnsafeDataAccess(name, location, byteOrder);
         }
 
+        closedNames.remove(name);
         map.put(name, da);
         return da;
     }
@@ -139,6 +144,11 @@ public class GHDirectory implements Directory {
         if (mmapDA != null)
             cleanHack();
         map.clear();
+
+        for (String name : closedNames) {
+            removeDir(new File(location + name));
+        }
+        closedNames.clear();
     }
 
     @Override
@@ -147,6 +157,19 @@ public class GHDirectory implements Directory {
         removeDA(da, da.getName(), true);
     }
 
+    @Override
+    public void close(DataAccess da) {
+        removeFromMap(da.getName());
+        // close(false) unmaps the buffers too, it only avoids the expensive System.gc of the clean hack
+        if (da instanceof MMapDataAccess)
+            ((MMapDataAccess) da).close(false);
+        else
+            da.close();
+
+        if (da.getType().isStoring())
+            closedNames.add(da.getName());
+    }
+
     void removeDA(DataAccess da, String name, boolean forceClean) {
         if (da instanceof MMapDataAccess)
             ((MMapDataAccess) da).close(forceClean);
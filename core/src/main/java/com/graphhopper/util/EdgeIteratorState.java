@@ -85,6 +85,17 @@ public interface EdgeIteratorState {
 
     EdgeIteratorState setFlags(long flags);
 
+    /**
+     * @param index the index of the int, smaller than EncodingManager.getIntsForExtraFlags
+     * @return the specified int of the extra flags, which store the IntEncodedValues of the encoders
+     */
+    int getExtraFlags(int index);
+
+    /**
+     * Updates the specified int of the extra flags. Use IntEncodedValue.setInt instead of calling this directly.
+     */
+    EdgeIteratorState setExtraFlags(int index, int value);
+
     /**
      * @return the additional field value for this edge
      */
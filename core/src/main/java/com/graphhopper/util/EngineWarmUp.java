@@ -18,19 +18,54 @@
 package com.graphhopper.util;
 
 import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.ch.CHAlgoFactoryDecorator;
+import com.graphhopper.routing.lm.LMAlgoFactoryDecorator;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.DataAccess;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class provides helper methods to reduce calculation speed difference of the first requests. Necessary
  * to force the JIT kicking in and e.g. for MMAP config to load the necessary data into RAM.
+ * <p>
+ * The warm up reads every page of all DataAccess objects of the storage, including the location index, and then
+ * calculates random routes for every profile: every prepared CH weighting, every LM weighting and without any
+ * preparation the fastest weighting of every vehicle. The work is spread over the specified number of threads.
  */
 public class EngineWarmUp {
     private static Logger LOGGER = LoggerFactory.getLogger(EngineWarmUp.class);
+    private static final int PAGE_SIZE = 4096;
+    private static final int ROUTES_PER_TASK = 10;
+    // limits the routes without CH, they would take too long for random points of a large area
+    private static final int MAX_VISITED_NODES_NON_CH = 200_000;
+
+    private final GraphHopper graphHopper;
+    private int iterations = 100;
+    private int threads = 1;
+    private boolean touchStorage = true;
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AtomicLong touchedBytes = new AtomicLong();
+    private final AtomicLong routes = new AtomicLong();
+    // forces the reads of the storage to happen
+    private final AtomicLong checksum = new AtomicLong();
+    private volatile boolean finished;
+
+    public EngineWarmUp(GraphHopper graphHopper) {
+        this.graphHopper = graphHopper;
+    }
 
     /**
      * Do the 'warm up' for the specified GraphHopper instance.
@@ -38,55 +73,173 @@ public class EngineWarmUp {
      * @param iterations the 'intensity' of the warm up procedure
      */
     public static void warmUp(GraphHopper graphHopper, int iterations) {
-        GraphHopperStorage ghStorage = graphHopper.getGraphHopperStorage();
+        new EngineWarmUp(graphHopper).setIterations(iterations).run();
+    }
+
+    /**
+     * @param iterations the number of routes per profile
+     */
+    public EngineWarmUp setIterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    public EngineWarmUp setThreads(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive but was " + threads);
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Specifies if every page of the storage should be read, which is only useful for memory mapped storages.
+     */
+    public EngineWarmUp setTouchStorage(boolean touchStorage) {
+        this.touchStorage = touchStorage;
+        return this;
+    }
+
+    /**
+     * Adds a task which is executed together with the routes, e.g. to create the caches of other modules.
+     */
+    public EngineWarmUp addTask(Runnable task) {
+        tasks.add(task);
+        return this;
+    }
+
+    /**
+     * @return true if the warm up is done, also if it failed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getTouchedBytes() {
+        return touchedBytes.get();
+    }
+
+    public long getRoutes() {
+        return routes.get();
+    }
+
+    public void run() {
+        final GraphHopperStorage ghStorage = graphHopper.getGraphHopperStorage();
         if (ghStorage == null)
             throw new IllegalArgumentException("The storage of GraphHopper must not be empty");
 
+        StopWatch sw = new StopWatch().start();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         try {
-            if (ghStorage.isCHPossible())
-                warmUpCHSubNetwork(graphHopper, iterations);
-            else
-                warmUpNonCHSubNetwork(graphHopper, iterations);
-        } catch (Exception ex) {
-            LOGGER.warn("Problem while sending warm up queries", ex);
+            List<Callable<Object>> jobs = new ArrayList<>();
+            if (touchStorage) {
+                for (final DataAccess da : ghStorage.getDirectory().getAll()) {
+                    jobs.add(Executors.callable(new Runnable() {
+                        @Override
+                        public void run() {
+                            touch(da);
+                        }
+                    }));
+                }
+            }
+
+            for (Runnable task : tasks) {
+                jobs.add(Executors.callable(task));
+            }
+
+            int seed = 0;
+            for (final HintsMap profile : getProfiles()) {
+                for (int offset = 0; offset < iterations; offset += ROUTES_PER_TASK) {
+                    final int count = Math.min(ROUTES_PER_TASK, iterations - offset);
+                    final Random rand = new Random(seed++);
+                    jobs.add(Executors.callable(new Runnable() {
+                        @Override
+                        public void run() {
+                            route(ghStorage, profile, count, rand);
+                        }
+                    }));
+                }
+            }
+
+            for (Future<Object> future : executor.invokeAll(jobs)) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    LOGGER.warn("Problem while sending warm up queries", ex.getCause());
+                }
+            }
+            LOGGER.info("warm up finished in " + sw.stop().getSeconds() + "s, touched " + touchedBytes.get() / Helper.MB
+                    + "MB, routes: " + routes.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Warm up was interrupted");
+        } finally {
+            executor.shutdownNow();
+            finished = true;
         }
     }
 
-    private static void warmUpCHSubNetwork(GraphHopper graphHopper, int iterations) {
-        GraphHopperStorage ghStorage = graphHopper.getGraphHopperStorage();
-        Random rand = new Random(0);
-
-        for (int i = 0; i < iterations; i++) {
-            int startNode = rand.nextInt(graphHopper.getMaxVisitedNodes() + 1);
-            int endNode = rand.nextInt(graphHopper.getMaxVisitedNodes() + 1);
+    /**
+     * @return the hints of the profiles for which routes should be calculated
+     */
+    List<HintsMap> getProfiles() {
+        List<HintsMap> profiles = new ArrayList<>();
+        CHAlgoFactoryDecorator chFactoryDecorator = graphHopper.getCHFactoryDecorator();
+        LMAlgoFactoryDecorator lmFactoryDecorator = graphHopper.getLMFactoryDecorator();
+        if (chFactoryDecorator.isEnabled()) {
+            for (Weighting weighting : chFactoryDecorator.getWeightings()) {
+                profiles.add(createHints(weighting));
+            }
+        }
 
-            double fromLatitude = ghStorage.getNodeAccess().getLatitude(startNode);
-            double fromLongitude = ghStorage.getNodeAccess().getLongitude(startNode);
-            double toLatitude = ghStorage.getNodeAccess().getLatitude(endNode);
-            double toLongitude = ghStorage.getNodeAccess().getLongitude(endNode);
+        if (lmFactoryDecorator.isEnabled() && (!chFactoryDecorator.isEnabled() || chFactoryDecorator.isDisablingAllowed())) {
+            for (Weighting weighting : lmFactoryDecorator.getWeightings()) {
+                HintsMap hints = createHints(weighting);
+                hints.put(Parameters.CH.DISABLE, true);
+                hints.put(Parameters.Routing.MAX_VISITED_NODES, MAX_VISITED_NODES_NON_CH);
+                profiles.add(hints);
+            }
+        }
 
-            GHRequest request = new GHRequest(fromLatitude, fromLongitude, toLatitude, toLongitude);
-            graphHopper.route(request);
+        if (profiles.isEmpty()) {
+            for (FlagEncoder encoder : graphHopper.getEncodingManager().fetchEdgeEncoders()) {
+                HintsMap hints = new HintsMap().setVehicle(encoder.toString()).setWeighting("fastest");
+                hints.put(Parameters.Routing.MAX_VISITED_NODES, MAX_VISITED_NODES_NON_CH);
+                profiles.add(hints);
+            }
         }
+        return profiles;
     }
 
-    private static void warmUpNonCHSubNetwork(final GraphHopper graphHopper, int iterations) {
-        GraphHopperStorage ghStorage = graphHopper.getGraphHopperStorage();
-        Random rand = new Random(0);
-        EdgeExplorer explorer = ghStorage.getBaseGraph().createEdgeExplorer();
+    private static HintsMap createHints(Weighting weighting) {
+        return new HintsMap().setVehicle(weighting.getFlagEncoder().toString()).setWeighting(weighting.getName());
+    }
 
-        for (int i = 0; i < iterations; i++) {
-            BreadthFirstSearch bfs = new BreadthFirstSearch() {
-                int counter = 0;
+    private void route(GraphHopperStorage ghStorage, HintsMap profile, int count, Random rand) {
+        NodeAccess nodeAccess = ghStorage.getNodeAccess();
+        int nodes = ghStorage.getNodes();
+        for (int i = 0; i < count; i++) {
+            int startNode = rand.nextInt(nodes);
+            int endNode = rand.nextInt(nodes);
+            GHRequest request = new GHRequest(nodeAccess.getLatitude(startNode), nodeAccess.getLongitude(startNode),
+                    nodeAccess.getLatitude(endNode), nodeAccess.getLongitude(endNode));
+            request.getHints().put(profile);
+            // errors like not found connections are expected and do not matter. Unlike route this neither fills
+            // the route cache with random entries nor counts the requests in the routing stats.
+            graphHopper.calcPaths(request, new GHResponse());
+            routes.incrementAndGet();
+        }
+    }
 
-                @Override
-                public boolean goFurther(int nodeId) {
-                    counter++;
-                    return counter < graphHopper.getMaxVisitedNodes();
-                }
-            };
-            int startNode = rand.nextInt(ghStorage.getBaseGraph().getNodes() + 1);
-            bfs.start(explorer, startNode);
+    private void touch(DataAccess da) {
+        if (da.isClosed())
+            return;
+
+        long capacity = da.getCapacity();
+        int sum = 0;
+        for (long pos = 0; pos + 4 <= capacity; pos += PAGE_SIZE) {
+            sum += da.getInt(pos);
         }
+        checksum.addAndGet(sum);
+        touchedBytes.addAndGet(capacity);
     }
 }
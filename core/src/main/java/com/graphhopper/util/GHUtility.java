@@ -475,6 +475,16 @@ public class GHUtility {
             throw new UnsupportedOperationException("Not supported. Edge is empty.");
         }
 
+        @Override
+        public int getExtraFlags(int index) {
+            throw new UnsupportedOperationException("Not supported. Edge is empty.");
+        }
+
+        @Override
+        public EdgeIteratorState setExtraFlags(int index, int value) {
+            throw new UnsupportedOperationException("Not supported. Edge is empty.");
+        }
+
         @Override
         public EdgeIteratorState copyPropertiesTo(EdgeIteratorState edge) {
             throw new UnsupportedOperationException("Not supported. Edge is empty.");
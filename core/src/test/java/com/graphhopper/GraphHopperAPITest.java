@@ -18,13 +18,22 @@
 package com.graphhopper;
 
 import com.graphhopper.json.geo.JsonFeature;
+import com.graphhopper.routing.RouteCache;
+import com.graphhopper.routing.RoutingStats;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.DataFlagEncoder;
 import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.routing.weighting.GenericWeighting;
+import com.graphhopper.routing.weighting.PrecomputedWeighting;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphBuilder;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.NodeAccess;
 import com.graphhopper.storage.change.ChangeGraphHelper;
 import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.util.CmdArgs;
 import com.graphhopper.util.PointList;
 import com.graphhopper.util.shapes.BBox;
 import org.junit.Test;
@@ -189,4 +198,145 @@ public class GraphHopperAPITest {
 
         assertEquals(2, checkPointCounter.get());
     }
+
+    @Test
+    public void testRouteCache() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        initGraph(graph);
+        graph.edge(1, 2, 10, true);
+
+        GraphHopper instance = new GraphHopper().
+                setStoreOnFlush(false).
+                setEncodingManager(encodingManager).setCHEnabled(false).
+                setRouteCache(new RouteCache(10, 0)).
+                loadGraph(graph);
+        GHResponse rsp = instance.route(new GHRequest(42, 10.4, 42, 10));
+        assertFalse(rsp.toString(), rsp.hasErrors());
+        assertEquals(1800, rsp.getBest().getTime());
+        assertEquals(0, instance.getRouteCache().getHits());
+        assertEquals(1, instance.getRouteCache().size());
+
+        GHResponse cachedRsp = instance.route(new GHRequest(42, 10.4, 42, 10));
+        assertFalse(cachedRsp.toString(), cachedRsp.hasErrors());
+        assertSame(rsp.getBest(), cachedRsp.getBest());
+        assertEquals(1, instance.getRouteCache().getHits());
+
+        // other parameters are another entry
+        rsp = instance.route(new GHRequest(42, 10.4, 42, 10).setWeighting("shortest"));
+        assertNotSame(cachedRsp.getBest(), rsp.getBest());
+        assertEquals(2, instance.getRouteCache().size());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("speed", 5);
+        instance.changeGraph(Collections.singletonList(new JsonFeature("1", "bbox",
+                new BBox(10.399, 10.4, 42.0, 42.001), null, properties)));
+        assertEquals(0, instance.getRouteCache().size());
+
+        rsp = instance.route(new GHRequest(42, 10.4, 42, 10));
+        assertFalse(rsp.toString(), rsp.hasErrors());
+        assertEquals(8400, rsp.getBest().getTime());
+        instance.close();
+    }
+
+    @Test
+    public void testEdgeWeights() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        initGraph(graph);
+        graph.edge(1, 2, 10, true);
+
+        GraphHopper instance = new GraphHopper().
+                setStoreOnFlush(false).
+                setEncodingManager(encodingManager).setCHEnabled(false).
+                setEdgeWeightings(Arrays.asList("fastest", "shortest")).
+                loadGraph(graph);
+        assertEquals(2, instance.getEdgeWeightStorages().size());
+        FlagEncoder encoder = encodingManager.getEncoder("car");
+        assertTrue(instance.createWeighting(new HintsMap("fastest"), encoder, graph) instanceof PrecomputedWeighting);
+        assertFalse(instance.createWeighting(new HintsMap("fastest"), encoder, null) instanceof PrecomputedWeighting);
+        assertFalse(instance.createWeighting(new HintsMap("fastest").put(GenericWeighting.HEIGHT_LIMIT, 3), encoder, graph)
+                instanceof PrecomputedWeighting);
+
+        GHResponse rsp = instance.route(new GHRequest(42, 10.4, 42, 10));
+        assertFalse(rsp.toString(), rsp.hasErrors());
+        assertEquals(1800, rsp.getBest().getTime());
+
+        // the stored weights are updated
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("speed", 5);
+        instance.changeGraph(Collections.singletonList(new JsonFeature("1", "bbox",
+                new BBox(10.399, 10.4, 42.0, 42.001), null, properties)));
+        rsp = instance.route(new GHRequest(42, 10.4, 42, 10));
+        assertFalse(rsp.toString(), rsp.hasErrors());
+        assertEquals(8400, rsp.getBest().getTime());
+        instance.close();
+    }
+
+    @Test
+    public void testGenericEdgeWeights() {
+        EncodingManager em = new EncodingManager(Arrays.asList(new DataFlagEncoder(), new CarFlagEncoder()), 8);
+        GraphHopperStorage graph = new GraphBuilder(em).create();
+        initGraph(graph);
+
+        GraphHopper instance = new GraphHopper().
+                setStoreOnFlush(false).
+                setEncodingManager(em).setCHEnabled(false).
+                setEdgeWeightings(Arrays.asList("fastest", "curvature")).
+                loadGraph(graph);
+        // curvature is not supported by car and the generic weighting is stored only once
+        assertEquals(2, instance.getEdgeWeightStorages().size());
+        FlagEncoder encoder = em.getEncoder("generic");
+        assertTrue(instance.createWeighting(new HintsMap("fastest"), encoder, graph) instanceof PrecomputedWeighting);
+        assertFalse(instance.createWeighting(new HintsMap("fastest").put("motorway", 30), encoder, graph)
+                instanceof PrecomputedWeighting);
+        instance.close();
+    }
+
+    @Test
+    public void testUnknownElevationInterpolation() {
+        try {
+            new GraphHopper().init(new CmdArgs().put("graph.location", "target/elevation-interpolate-test").
+                    put("graph.elevation.interpolate", "bicubic"));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("bicubic"));
+        }
+    }
+
+    @Test
+    public void testRoutingStats() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        initGraph(graph);
+        graph.edge(1, 2, 10, true);
+
+        final List<RoutingStats> statsList = new ArrayList<>();
+        GraphHopper instance = new GraphHopper().
+                setStoreOnFlush(false).
+                setEncodingManager(encodingManager).setCHEnabled(false).
+                setRoutingStatsListener(new RoutingStats.Listener() {
+                    @Override
+                    public void onRoute(RoutingStats stats) {
+                        statsList.add(stats);
+                    }
+                }).
+                loadGraph(graph);
+        GHResponse rsp = instance.route(new GHRequest(42, 10.4, 42, 10).setAlgorithm("dijkstrabi"));
+        assertFalse(rsp.toString(), rsp.hasErrors());
+        assertEquals(1, statsList.size());
+        RoutingStats stats = statsList.get(0);
+        assertEquals("dijkstrabi", stats.getAlgorithm());
+        assertEquals("car", stats.getVehicle());
+        assertEquals(rsp.getHints().getLong("visited_nodes.sum", -1), stats.getVisitedNodes());
+        assertTrue(stats.getVisitedNodes() > 0);
+        for (RoutingStats.Stage stage : RoutingStats.Stage.values()) {
+            assertTrue(stage + " " + stats, stats.getNanos(stage) > 0);
+        }
+
+        // no stats for failed routes
+        GHRequest request = new GHRequest(42, 10.4, 42, 10);
+        request.getHints().put("max_visited_nodes", 1);
+        rsp = instance.route(request);
+        assertTrue(rsp.hasErrors());
+        assertEquals(1, statsList.size());
+        instance.close();
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.reader.dem;
+
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.PointList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ElevationLookupTest {
+    private final File cacheDir = new File("./target/tmp-elevation-lookup");
+
+    @Before
+    public void setUp() throws IOException {
+        Helper.removeDir(cacheDir);
+        cacheDir.mkdirs();
+        for (String file : new String[]{"N49E011.hgt.zip", "N55W003.hgt.zip", "S29W072.hgt.zip"}) {
+            Files.copy(new File("./files", file).toPath(), new File(cacheDir, file).toPath());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        Helper.removeDir(cacheDir);
+    }
+
+    @Test
+    public void testFill() {
+        SRTMProvider provider = new SRTMProvider(cacheDir.getPath());
+        provider.setMaxCachedTiles(2);
+        // the points are mixed from three tiles to force closing and loading the tiles again
+        double[][] coordinates = {{49.968651, 11.574869, 466}, {49.958233, 11.558647, 330}, {55.8943144, -3, 161},
+                {-28.88316, -71.070557, 1678}};
+        PointList points = new PointList(10_000, true);
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            double[] coordinate = coordinates[random.nextInt(coordinates.length)];
+            points.add(coordinate[0], coordinate[1], Double.NaN);
+        }
+
+        try (ElevationLookup lookup = new ElevationLookup(provider, 4)) {
+            lookup.fill(points);
+        } finally {
+            provider.release();
+        }
+
+        for (int i = 0; i < points.size(); i++) {
+            double expected = 0;
+            for (double[] coordinate : coordinates) {
+                if (coordinate[0] == points.getLat(i) && coordinate[1] == points.getLon(i))
+                    expected = coordinate[2];
+            }
+            assertEquals("point " + i, expected, points.getEle(i), 1e-1);
+        }
+
+        // release also removes the decoded files of the tiles which were closed in between
+        for (String file : cacheDir.list()) {
+            assertFalse(file, file.startsWith("dem"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequires3D() {
+        try (ElevationLookup lookup = new ElevationLookup(ElevationProvider.NOOP, 1)) {
+            lookup.fill(new PointList(2, false));
+        }
+    }
+}
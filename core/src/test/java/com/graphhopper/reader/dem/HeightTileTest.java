@@ -122,6 +122,33 @@ public class HeightTileTest {
         assertEquals((10 + 2) / 3d, instance.getHeight(-0.5, -0.5), 1e-3);
     }
 
+    @Test
+    public void testInterpolate() {
+        int width = 10;
+        HeightTile instance = new HeightTile(0, 0, width, width, 1e-6, 10, 10).setInterpolate(true);
+        DataAccess heights = new RAMDirectory().find("tmp");
+        heights.create(2 * 10 * 10);
+        instance.setHeights(heights);
+        init(heights, width, width, 1);
+
+        // x,y=1,7 i.e. the center is at lat,lon=2.5,1.5
+        heights.setShort(2 * (7 * width + 1), (short) 70);
+
+        assertEquals(70, instance.getHeight(2.5, 1.5), 1e-3);
+        assertEquals((70 + 1) / 2d, instance.getHeight(2.5, 2), 1e-3);
+        assertEquals((70 + 3) / 4d, instance.getHeight(3, 2), 1e-3);
+        assertEquals(70 * 0.75 + 0.25, instance.getHeight(2.5, 1.75), 1e-3);
+        // the border uses the values of the outermost cells
+        assertEquals(1, instance.getHeight(0, 0), 1e-3);
+        assertEquals(1, instance.getHeight(10, 10), 1e-3);
+
+        // missing values are ignored
+        heights.setShort(2 * (7 * width + 2), Short.MIN_VALUE);
+        assertEquals(70, instance.getHeight(2.5, 2), 1e-3);
+        heights.setShort(2 * (7 * width + 1), Short.MIN_VALUE);
+        assertEquals(Double.NaN, instance.getHeight(2.5, 2), 1e-3);
+    }
+
     private void init(DataAccess da, int width, int height, int i) {
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
@@ -99,6 +99,18 @@ public class SRTMProviderTest {
         assertEquals(161, instance.getEle(55.8943144, -3), 1e-1);
     }
 
+    @Test
+    public void testMaxCachedTiles() {
+        instance = new SRTMProvider("./files/");
+        instance.setMaxCachedTiles(1);
+        assertEquals(466, instance.getEle(49.968651, 11.574869), 1e-1);
+        // closes the first tile
+        assertEquals(161, instance.getEle(55.8943144, -3), 1e-1);
+        // and loads it again
+        assertEquals(466, instance.getEle(49.968651, 11.574869), 1e-1);
+        assertEquals(330, instance.getEle(49.958233, 11.558647), 1e-1);
+    }
+
     @Ignore
     public void testGetEle() {
         instance = new SRTMProvider();
@@ -256,6 +256,41 @@ public class QueryGraphTest {
         assertTrue(vi.next());
     }
 
+    @Test
+    public void testVirtEdgeWithReverseGeometry() {
+        PointList pl = Helper.createPointList(0, 0, 1, 1, 2, 2, 3, 3);
+        VirtualEdgeIteratorState edge = new VirtualEdgeIteratorState(0, 10, 5, 6, 100, 0, "", pl);
+        VirtualEdgeIteratorState reverseEdge = new VirtualEdgeIteratorState(0, 10, 6, 5, 100, 0, "", pl, true);
+        for (int mode = 0; mode < 4; mode++) {
+            PointList expected = edge.fetchWayGeometry(mode == 1 ? 2 : mode == 2 ? 1 : mode).clone(true);
+            assertEquals("mode " + mode, expected, reverseEdge.fetchWayGeometry(mode));
+        }
+        assertEquals(Helper.createPointList(3, 3, 2, 2, 1, 1, 0, 0), reverseEdge.fetchWayGeometry(3));
+        // the shared point list must not change
+        assertEquals(Helper.createPointList(0, 0, 1, 1, 2, 2, 3, 3), pl);
+    }
+
+    @Test
+    public void testExtraFlagsWithoutOriginalEdge() {
+        VirtualEdgeIteratorState edge = new VirtualEdgeIteratorState(0, 10, 5, 6, 100, 0, "", Helper.createPointList(0, 0, 1, 1));
+        // without original edge, like the transit edges of reader-gtfs
+        assertEquals(0, edge.getExtraFlags(0));
+    }
+
+    @Test
+    public void testBaseGraphOnlyCreatedForCH() {
+        initGraph(g);
+        QueryGraph queryGraph = new QueryGraph(g);
+        assertSame(queryGraph, queryGraph.getBaseGraph());
+        queryGraph.setUseEdgeExplorerCache(true);
+
+        FastestWeighting weighting = new FastestWeighting(carEncoder);
+        GraphHopperStorage chStorage = new GraphBuilder(encodingManager).setCHGraph(weighting).create();
+        QueryGraph chQueryGraph = new QueryGraph(chStorage.getGraph(CHGraph.class, weighting));
+        assertNotSame(chQueryGraph, chQueryGraph.getBaseGraph());
+        chStorage.close();
+    }
+
     @Test
     public void testUseMeanElevation() {
         g.close();
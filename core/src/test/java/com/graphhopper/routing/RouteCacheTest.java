@@ -0,0 +1,81 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    private static GHResponse createResponse(double distance) {
+        GHResponse rsp = new GHResponse();
+        rsp.add(new PathWrapper().setDistance(distance));
+        rsp.getHints().put("visited_nodes.sum", 10);
+        return rsp;
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        RouteCache cache = new RouteCache(2, 0);
+        cache.put("a", createResponse(1));
+        cache.put("b", createResponse(2));
+        assertEquals(1, cache.get("a").getBest().getDistance(), 0);
+        cache.put("c", createResponse(3));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a").getBest().getDistance(), 0);
+        assertEquals(3, cache.get("c").getBest().getDistance(), 0);
+        assertEquals("10", cache.get("c").getHints().get("visited_nodes.sum", ""));
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testExpiredEntries() {
+        final long[] time = {1000};
+        RouteCache cache = new RouteCache(10, 100) {
+            @Override
+            long now() {
+                return time[0];
+            }
+        };
+        cache.put("a", createResponse(1));
+        time[0] += 99;
+        assertNotNull(cache.get("a"));
+        time[0] += 1;
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        RouteCache cache = new RouteCache(10, 0);
+        cache.put("a", new GHResponse().addError(new IllegalArgumentException("no route")));
+        assertEquals(0, cache.size());
+    }
+}
@@ -175,6 +175,61 @@ public class LandmarkStorageTest {
         assertEquals("[1, 0]", Arrays.toString(storage.getLandmarks(1)));
     }
 
+    @Test
+    public void testParallelLandmarkWeights() {
+        // grid with some one ways
+        for (int row = 0; row < 20; row++) {
+            for (int col = 0; col < 20; col++) {
+                int node = row * 20 + col;
+                if (col < 19)
+                    ghStorage.edge(node, node + 1, 10 + col, (node % 7) != 0);
+                if (row < 19)
+                    ghStorage.edge(node, node + 20, 10 + row, true);
+            }
+        }
+
+        LandmarkStorage storage = new LandmarkStorage(ghStorage, new RAMDirectory(), new FastestWeighting(encoder), 8);
+        storage.setMinimumNodes(2);
+        storage.createLandmarks();
+
+        LandmarkStorage parallelStorage = new LandmarkStorage(ghStorage, new RAMDirectory(), new FastestWeighting(encoder), 8);
+        parallelStorage.setMinimumNodes(2);
+        parallelStorage.setThreads(4);
+        parallelStorage.createLandmarks();
+
+        assertEquals(2, parallelStorage.getSubnetworksWithLandmarks());
+        assertArrayEquals(storage.getLandmarks(1), parallelStorage.getLandmarks(1));
+        for (int node = 0; node < ghStorage.getNodes(); node++) {
+            for (int lmIdx = 0; lmIdx < 8; lmIdx++) {
+                assertEquals(storage.getFromWeight(lmIdx, node), parallelStorage.getFromWeight(lmIdx, node));
+                assertEquals(storage.getToWeight(lmIdx, node), parallelStorage.getToWeight(lmIdx, node));
+            }
+        }
+    }
+
+    @Test
+    public void testReadWeights() {
+        ghStorage.edge(0, 1, 10, true);
+        ghStorage.edge(1, 2, 20, true);
+        ghStorage.edge(2, 3, 10, false);
+        ghStorage.edge(3, 0, 30, true);
+
+        LandmarkStorage storage = new LandmarkStorage(ghStorage, new RAMDirectory(), new FastestWeighting(encoder), 3);
+        storage.setMinimumNodes(2);
+        storage.createLandmarks();
+
+        int[] landmarkIndices = {2, 0};
+        int[] fromWeights = new int[2];
+        int[] toWeights = new int[2];
+        for (int node = 0; node < ghStorage.getNodes(); node++) {
+            storage.readWeights(node, landmarkIndices, fromWeights, toWeights);
+            for (int i = 0; i < landmarkIndices.length; i++) {
+                assertEquals(storage.getFromWeight(landmarkIndices[i], node), fromWeights[i]);
+                assertEquals(storage.getToWeight(landmarkIndices[i], node), toWeights[i]);
+            }
+        }
+    }
+
     @Test
     public void testWithBorderBlocking() {
         AbstractRoutingAlgorithmTester.initBiGraph(ghStorage);
@@ -212,6 +267,11 @@ public class LandmarkStorageTest {
                 throw new IllegalStateException();
             }
 
+            @Override
+            public SpatialRule getSpatialRule(int spatialId) {
+                throw new IllegalStateException();
+            }
+
             @Override
             public int size() {
                 return 2;
@@ -202,6 +202,33 @@ public class PrepareRoutingSubnetworksTest {
         assertEquals(6, g.getNodes());
     }
 
+    @Test
+    public void testRemoveSubnetworkWhenMultipleVehiclesInParallel() {
+        FlagEncoder carEncoder = new CarFlagEncoder();
+        BikeFlagEncoder bikeEncoder = new BikeFlagEncoder();
+        FootFlagEncoder footEncoder = new FootFlagEncoder();
+        EncodingManager em2 = new EncodingManager(carEncoder, bikeEncoder, footEncoder);
+        GraphHopperStorage g = createSubnetworkTestStorage2(em2);
+        GHUtility.getEdge(g, 3, 4).setFlags(carEncoder.setProperties(10, false, false)
+                | bikeEncoder.setProperties(5, true, true) | footEncoder.setProperties(5, true, true));
+        PrepareRoutingSubnetworks instance = new PrepareRoutingSubnetworks(g, em2.fetchEdgeEncoders());
+        instance.setMinNetworkSize(5);
+        instance.setMinOneWayNetworkSize(2);
+        instance.setThreads(3);
+        instance.doWork();
+        g.optimize();
+        assertEquals(9, g.getNodes());
+
+        // the removal for car must not change the access of the other vehicles
+        EdgeExplorer carExplorer = g.createEdgeExplorer(DefaultEdgeFilter.allEdges(carEncoder));
+        assertEquals(GHUtility.asSet(7, 2, 1), GHUtility.getNeighbors(carExplorer.setBaseNode(3)));
+        assertEquals(GHUtility.asSet(), GHUtility.getNeighbors(carExplorer.setBaseNode(4)));
+        EdgeExplorer bikeExplorer = g.createEdgeExplorer(DefaultEdgeFilter.allEdges(bikeEncoder));
+        assertEquals(GHUtility.asSet(7, 2, 1, 4), GHUtility.getNeighbors(bikeExplorer.setBaseNode(3)));
+        EdgeExplorer footExplorer = g.createEdgeExplorer(DefaultEdgeFilter.allEdges(footEncoder));
+        assertEquals(GHUtility.asSet(7, 2, 1, 4), GHUtility.getNeighbors(footExplorer.setBaseNode(3)));
+    }
+
     GraphHopperStorage createDeadEndUnvisitedNetworkStorage(EncodingManager em) {
         GraphHopperStorage g = createStorage(em);
         // 0 <-> 1 <-> 2 <-> 3 <-> 4 <- 5 <-> 6
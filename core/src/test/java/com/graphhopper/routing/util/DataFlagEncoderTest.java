@@ -363,6 +363,11 @@ public class DataFlagEncoderTest {
                 }
             }
 
+            @Override
+            public SpatialRule getSpatialRule(int spatialId) {
+                return spatialId == 1 ? germany : SpatialRule.EMPTY;
+            }
+
             @Override
             public int size() {
                 return 2;
@@ -418,6 +423,10 @@ public class DataFlagEncoderTest {
 
         assertEquals(5, encoder.getMaxspeed(e3, -1, false), .1);
         assertEquals(-1, encoder.getMaxspeed(e4, -1, false), .1);
+
+        // the rule is available at query time without a lookup
+        assertEquals(germany, encoder.getSpatialRule(e1));
+        assertEquals(SpatialRule.EMPTY, encoder.getSpatialRule(e2));
     }
 
 }
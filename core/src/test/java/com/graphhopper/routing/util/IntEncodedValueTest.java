@@ -0,0 +1,103 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.util;
+
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.util.EdgeIteratorState;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IntEncodedValueTest {
+    private final IntEncodedValue first = new IntEncodedValue("first", 20);
+    private final IntEncodedValue second = new IntEncodedValue("second", 20);
+    private final IntEncodedValue third = new IntEncodedValue("third", 1);
+
+    private EncodingManager createEncodingManager() {
+        return new EncodingManager(new CarFlagEncoder() {
+            @Override
+            protected void createEncodedValues(List<IntEncodedValue> encodedValues) {
+                encodedValues.add(first);
+                encodedValues.add(second);
+                encodedValues.add(third);
+            }
+        });
+    }
+
+    @Test
+    public void testInit() {
+        EncodingManager em = createEncodingManager();
+        assertEquals(2, em.getIntsForExtraFlags());
+        assertEquals(0, first.getIndex());
+        // does not fit into the first int
+        assertEquals(1, second.getIndex());
+        assertEquals(1, third.getIndex());
+        assertSame(third, em.getEncodedValue("third"));
+        assertFalse(em.hasEncodedValue("fourth"));
+
+        assertEquals(0, new EncodingManager("car").getIntsForExtraFlags());
+    }
+
+    @Test
+    public void testSetValue() {
+        Graph graph = new GraphBuilder(createEncodingManager()).create();
+        EdgeIteratorState edge1 = graph.edge(0, 1, 10, true);
+        EdgeIteratorState edge2 = graph.edge(1, 2, 10, true);
+
+        first.setInt(edge1, first.getMaxValue());
+        second.setInt(edge1, 12345);
+        third.setBool(edge1, true);
+        third.setBool(edge2, true);
+        assertEquals(first.getMaxValue(), first.getInt(edge1));
+        assertEquals(12345, second.getInt(edge1));
+        assertTrue(third.getBool(edge1));
+
+        third.setBool(edge1, false);
+        assertEquals(12345, second.getInt(edge1));
+        assertFalse(third.getBool(edge1));
+
+        // does not depend on the direction
+        EdgeIteratorState reverse = graph.getEdgeIteratorState(edge1.getEdge(), 0);
+        assertEquals(12345, second.getInt(reverse));
+
+        assertEquals(0, first.getInt(edge2));
+        assertTrue(third.getBool(edge2));
+
+        edge1.copyPropertiesTo(edge2);
+        assertEquals(12345, second.getInt(edge2));
+        assertFalse(third.getBool(edge2));
+
+        try {
+            first.setInt(edge1, first.getMaxValue() + 1);
+            fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testInvalidBits() {
+        try {
+            new IntEncodedValue("test", 32);
+            fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+}
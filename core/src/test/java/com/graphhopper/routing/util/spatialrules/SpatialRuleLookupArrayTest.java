@@ -127,6 +127,32 @@ public class SpatialRuleLookupArrayTest {
         assertEquals("bottom", spatialRuleLookup.lookupRule(1.6, 1.5).getId());
     }
 
+    @Test
+    public void testSubTiles() {
+        List<SpatialRule> spatialRules = new ArrayList<>();
+        spatialRules.add(getSpatialRule(new Polygon(new double[]{1, 1, 1.7, 1.7}, new double[]{1, 2, 2, 1}), "small"));
+        spatialRules.add(getSpatialRule(new Polygon(new double[]{1, 1, 1.5, 1.5}, new double[]{3, 4, 4, 3}), "top"));
+        spatialRules.add(getSpatialRule(new Polygon(new double[]{1.5, 1.5, 2, 2}, new double[]{3, 4, 4, 3}), "bottom"));
+
+        // without polygon checks the tiles at the border are resolved by their sub tiles
+        SpatialRuleLookup spatialRuleLookup = new SpatialRuleLookupArray(spatialRules, 1, false, new BBox(1, 4, 1, 4));
+        assertEquals("small", spatialRuleLookup.lookupRule(1.2, 1.5).getId());
+        assertEquals(SpatialRule.EMPTY, spatialRuleLookup.lookupRule(1.9, 1.5));
+        assertEquals("top", spatialRuleLookup.lookupRule(1.3, 3.5).getId());
+        assertEquals("bottom", spatialRuleLookup.lookupRule(1.7, 3.5).getId());
+
+        // with polygon checks for the sub tiles at the border only
+        spatialRuleLookup = new SpatialRuleLookupArray(spatialRules, 1, true, new BBox(1, 4, 1, 4));
+        assertEquals("small", spatialRuleLookup.lookupRule(1.69, 1.5).getId());
+        assertEquals(SpatialRule.EMPTY, spatialRuleLookup.lookupRule(1.71, 1.5));
+        assertEquals("top", spatialRuleLookup.lookupRule(1.49, 3.5).getId());
+        assertEquals("bottom", spatialRuleLookup.lookupRule(1.51, 3.5).getId());
+
+        for (int id = 0; id < spatialRuleLookup.size(); id++) {
+            assertEquals(id, spatialRuleLookup.getSpatialId(spatialRuleLookup.getSpatialRule(id)));
+        }
+    }
+
     @Test
     public void testSmallBoundsBigPolygon() {
         List<SpatialRule> spatialRules = new ArrayList<>();
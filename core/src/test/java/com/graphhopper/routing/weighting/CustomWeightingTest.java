@@ -0,0 +1,181 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.routing.AbstractRoutingAlgorithmTester;
+import com.graphhopper.routing.util.DataFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.PMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CustomWeightingTest {
+    private final DataFlagEncoder encoder = new DataFlagEncoder();
+    private final EncodingManager em = new EncodingManager(encoder);
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        graph = new GraphBuilder(em).create();
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 0, 0.00, 0.00);
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 1, 0.01, 0.01);
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 2, 0.02, 0.02);
+
+        ReaderWay way = new ReaderWay(1);
+        way.setTag("highway", "primary");
+        way.setTag("surface", "asphalt");
+        graph.edge(0, 1, 1000, true).setFlags(encoder.handleWayTags(way, 1, 0));
+
+        way = new ReaderWay(2);
+        way.setTag("highway", "residential");
+        way.setTag("surface", "gravel");
+        way.setTag("bridge", "yes");
+        graph.edge(1, 2, 1000, true).setFlags(encoder.handleWayTags(way, 1, 0));
+    }
+
+    private CustomWeighting createWeighting(HintsMap hints) {
+        return new CustomWeighting(encoder, hints, CustomModel.create(encoder, hints), graph.getNodeAccess());
+    }
+
+    private double calcWeight(Weighting weighting, int edge) {
+        return weighting.calcWeight(graph.getEdgeIteratorState(edge, Integer.MIN_VALUE), false, EdgeIterator.NO_EDGE);
+    }
+
+    @Test
+    public void testWithoutRules() {
+        CustomWeighting weighting = createWeighting(new HintsMap());
+        assertTrue(weighting.getModel().isEmpty());
+        GenericWeighting generic = new GenericWeighting(encoder, new HintsMap());
+        assertEquals(calcWeight(generic, 0), calcWeight(weighting, 0), 1e-6);
+        assertEquals(calcWeight(generic, 1), calcWeight(weighting, 1), 1e-6);
+        assertEquals(generic.getMinWeight(1000), weighting.getMinWeight(1000), 1e-6);
+        assertEquals("custom", weighting.getName());
+    }
+
+    @Test
+    public void testFactors() {
+        Weighting generic = new GenericWeighting(encoder, new HintsMap());
+        double primary = calcWeight(generic, 0);
+        double residential = calcWeight(generic, 1);
+
+        Weighting weighting = createWeighting(new HintsMap().put("custom.highway.primary", 0.5));
+        assertEquals(2 * primary, calcWeight(weighting, 0), 1e-6);
+        assertEquals(residential, calcWeight(weighting, 1), 1e-6);
+
+        weighting = createWeighting(new HintsMap().put("custom.surface.gravel", 0.5).
+                put("custom.transport_mode.bridge", 0.2));
+        assertEquals(primary, calcWeight(weighting, 0), 1e-6);
+        assertEquals(10 * residential, calcWeight(weighting, 1), 1e-6);
+
+        weighting = createWeighting(new HintsMap().put("custom.surface.asphalt", 0));
+        assertTrue(Double.isInfinite(calcWeight(weighting, 0)));
+        assertEquals(residential, calcWeight(weighting, 1), 1e-6);
+    }
+
+    @Test
+    public void testToll() {
+        try {
+            CustomModel.create(encoder, new HintsMap().put("custom.toll", 0.5));
+            fail("toll is not stored");
+        } catch (IllegalArgumentException ex) {
+        }
+
+        DataFlagEncoder tollEncoder = new DataFlagEncoder(new PMap().put("store_toll", true));
+        Graph tollGraph = new GraphBuilder(new EncodingManager(tollEncoder)).create();
+        AbstractRoutingAlgorithmTester.updateDistancesFor(tollGraph, 0, 0.00, 0.00);
+        AbstractRoutingAlgorithmTester.updateDistancesFor(tollGraph, 1, 0.01, 0.01);
+        ReaderWay way = new ReaderWay(1);
+        way.setTag("highway", "motorway");
+        way.setTag("toll", "yes");
+        EdgeIteratorState edge = tollGraph.edge(0, 1, 1000, true);
+        edge.setFlags(tollEncoder.handleWayTags(way, 1, 0));
+        tollEncoder.applyWayTags(way, edge);
+
+        HintsMap hints = new HintsMap().put("custom.toll", 0.5);
+        Weighting weighting = new CustomWeighting(tollEncoder, hints, CustomModel.create(tollEncoder, hints), null);
+        Weighting generic = new GenericWeighting(tollEncoder, new HintsMap());
+        assertEquals(2 * generic.calcWeight(edge, false, EdgeIterator.NO_EDGE),
+                weighting.calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-6);
+    }
+
+    @Test
+    public void testArea() {
+        Weighting generic = new GenericWeighting(encoder, new HintsMap());
+        // contains node 2 only
+        Weighting weighting = createWeighting(new HintsMap().put("custom.area", "0.015,0.015,0.025,0.025").
+                put("custom.area_factor", 0.25));
+        assertEquals(calcWeight(generic, 0), calcWeight(weighting, 0), 1e-6);
+        assertEquals(4 * calcWeight(generic, 1), calcWeight(weighting, 1), 1e-6);
+
+        // the direction of the edge state does not matter
+        EdgeIteratorState edge = graph.getEdgeIteratorState(1, 1);
+        assertEquals(weighting.calcWeight(edge, true, EdgeIterator.NO_EDGE),
+                weighting.calcWeight(edge.detach(true), false, EdgeIterator.NO_EDGE), 1e-6);
+
+        try {
+            new CustomWeighting(encoder, new HintsMap(), CustomModel.create(encoder,
+                    new HintsMap().put("custom.area", "0,0,1,1").put("custom.area_factor", 0.5)), null);
+            fail("the node access is required for an area");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testMaxSpeed() {
+        Weighting weighting = createWeighting(new HintsMap().put("custom.max_speed", 20));
+        EdgeIteratorState edge = graph.getEdgeIteratorState(0, 1);
+        // 1000m with 20km/h
+        assertEquals(180_000, weighting.calcMillis(edge, false, EdgeIterator.NO_EDGE));
+        assertEquals(180_000, weighting.calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-6);
+    }
+
+    @Test
+    public void testInvalidRules() {
+        for (HintsMap hints : new HintsMap[]{
+                new HintsMap().put("custom.highway.primary", 1.5),
+                new HintsMap().put("custom.highway.primary", -1),
+                new HintsMap().put("custom.highway.unknown", 0.5),
+                new HintsMap().put("custom.toll", 0.5),
+                new HintsMap().put("custom.area_factor", 0.5),
+                new HintsMap().put("custom.max_speed", "fast")}) {
+            try {
+                CustomModel.create(encoder, hints);
+                fail("rules should be rejected: " + hints);
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+    }
+
+    @Test
+    public void testCreateKey() {
+        HintsMap hints1 = new HintsMap().put("custom.highway.primary", 0.5).put("custom.max_speed", 80).
+                put("weighting", "custom");
+        HintsMap hints2 = new HintsMap().put("custom.max_speed", "80").put("custom.highway.primary", "0.5 ").
+                put("ch.disable", true);
+        assertEquals(CustomModel.createKey(hints1), CustomModel.createKey(hints2));
+        assertEquals("", CustomModel.createKey(new HintsMap().put("weighting", "custom")));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.weighting;
+
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.Helper;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class PrecomputedWeightingTest {
+    private final EncodingManager encodingManager = new EncodingManager("car");
+    private final FlagEncoder encoder = encodingManager.getEncoder("car");
+
+    private GraphHopperStorage createGraph() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        graph.edge(0, 1).setDistance(100).setFlags(encoder.setProperties(60, true, true));
+        // one way in both orientations
+        graph.edge(1, 2).setDistance(200).setFlags(encoder.setProperties(30, true, false));
+        graph.edge(3, 2).setDistance(300).setFlags(encoder.setProperties(50, true, false));
+        graph.edge(2, 0).setDistance(150).setFlags(encoder.setProperties(90, true, true));
+        // loop
+        graph.edge(3, 3).setDistance(10).setFlags(encoder.setProperties(20, true, false));
+        return graph;
+    }
+
+    @Test
+    public void testSameAsWrappedWeighting() {
+        GraphHopperStorage graph = createGraph();
+        Weighting weighting = new FastestWeighting(encoder);
+        EdgeWeightStorage storage = new EdgeWeightStorage(graph, new RAMDirectory(), weighting).create(100);
+        assertEquals(5, storage.getEdges());
+        Weighting precomputed = new PrecomputedWeighting(weighting, storage);
+        assertEquals(weighting.toString(), precomputed.toString());
+
+        EdgeExplorer explorer = graph.createEdgeExplorer(DefaultEdgeFilter.allEdges(encoder));
+        for (int node = 0; node < graph.getNodes(); node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                for (boolean reverse : new boolean[]{false, true}) {
+                    double weight = weighting.calcWeight(iter, reverse, EdgeIterator.NO_EDGE);
+                    assertEquals(iter.toString(), weight, precomputed.calcWeight(iter, reverse, EdgeIterator.NO_EDGE), 1e-4);
+                    if (reverse ? encoder.isBackward(iter.getFlags()) : encoder.isForward(iter.getFlags()))
+                        assertEquals(iter.toString(), weighting.calcMillis(iter, reverse, EdgeIterator.NO_EDGE),
+                                precomputed.calcMillis(iter, reverse, EdgeIterator.NO_EDGE));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUpdate() {
+        GraphHopperStorage graph = createGraph();
+        Weighting weighting = new FastestWeighting(encoder);
+        EdgeWeightStorage storage = new EdgeWeightStorage(graph, new RAMDirectory(), weighting).create(100);
+        Weighting precomputed = new PrecomputedWeighting(weighting, storage);
+
+        EdgeIteratorState edge = graph.getEdgeIteratorState(1, 2);
+        assertEquals(24, precomputed.calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-4);
+        edge.setFlags(encoder.setProperties(60, true, true));
+        assertEquals(24, precomputed.calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-4);
+
+        storage.update();
+        assertEquals(12, precomputed.calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-4);
+        assertEquals(12, precomputed.calcWeight(edge, true, EdgeIterator.NO_EDGE), 1e-4);
+        assertEquals(12_000, precomputed.calcMillis(edge, true, EdgeIterator.NO_EDGE));
+    }
+
+    @Test
+    public void testLoadExisting() {
+        String location = "./target/edge-weights-test";
+        Helper.removeDir(new File(location));
+        GraphHopperStorage graph = createGraph();
+        Weighting weighting = new FastestWeighting(encoder);
+        EdgeWeightStorage storage = new EdgeWeightStorage(graph, new RAMDirectory(location, true).create(), weighting);
+        assertFalse(storage.loadExisting());
+        storage.create(100);
+        storage.flush();
+        storage.close();
+
+        storage = new EdgeWeightStorage(graph, new RAMDirectory(location, true), weighting);
+        assertTrue(storage.loadExisting());
+        assertEquals(5, storage.getEdges());
+        EdgeIteratorState edge = graph.getEdgeIteratorState(0, 1);
+        assertEquals(weighting.calcWeight(edge, false, EdgeIterator.NO_EDGE),
+                new PrecomputedWeighting(weighting, storage).calcWeight(edge, false, EdgeIterator.NO_EDGE), 1e-4);
+        storage.close();
+
+        // written for a different graph
+        graph.edge(4, 5).setDistance(10).setFlags(encoder.setProperties(20, true, true));
+        try {
+            new EdgeWeightStorage(graph, new RAMDirectory(location, true), weighting).loadExisting();
+            fail("the number of edges differs");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("5 edges"));
+        } finally {
+            Helper.removeDir(new File(location));
+        }
+    }
+}
@@ -66,4 +66,17 @@ public abstract class AbstractDirectoryTester {
         da.create(100);
         da.flush();
     }
+
+    @Test
+    public void testClearRemovesClosedObjects() {
+        Directory dir = createDir();
+        DataAccess closed = dir.find("closed");
+        closed.create(100);
+        closed.flush();
+        dir.close(closed);
+        assertTrue(new File(location, "closed").exists());
+
+        dir.clear();
+        assertFalse(new File(location, "closed").exists());
+    }
 }
@@ -6,6 +6,7 @@ import com.graphhopper.routing.AbstractRoutingAlgorithmTester;
 import com.graphhopper.routing.util.DataFlagEncoder;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.PMap;
 import org.junit.After;
@@ -98,4 +99,37 @@ public class GraphHopperStorageForDataFlagEncoderTest {
         assertTrue(dataFlagEncoder.isStoreWeight());
         assertFalse(dataFlagEncoder.isStoreWidth());
     }
+
+    @Test
+    public void testStoreToll() {
+        DataFlagEncoder tollEncoder = new DataFlagEncoder(new PMap().put("store_toll", true));
+        graph = new GraphBuilder(new EncodingManager(tollEncoder)).setStore(true).setLocation(defaultGraphLoc).create();
+
+        ReaderWay way = new ReaderWay(27l);
+        way.setTag("highway", "motorway");
+        way.setTag("toll", "yes");
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 0, 0.00, 0.00);
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 1, 0.01, 0.01);
+        AbstractRoutingAlgorithmTester.updateDistancesFor(graph, 2, 0.02, 0.02);
+        EdgeIteratorState edge = graph.edge(0, 1, 1, true);
+        edge.setFlags(tollEncoder.handleWayTags(way, 1, 0));
+        tollEncoder.applyWayTags(way, edge);
+
+        way.setTag("toll", "no");
+        edge = graph.edge(1, 2, 1, true);
+        edge.setFlags(tollEncoder.handleWayTags(way, 1, 0));
+        tollEncoder.applyWayTags(way, edge);
+        assertTrue(tollEncoder.isToll(graph.getEdgeIteratorState(0, 1)));
+        assertFalse(tollEncoder.isToll(graph.getEdgeIteratorState(1, 2)));
+
+        graph.flush();
+        graph.close();
+
+        GraphHopper hopper = new GraphHopper().setGraphHopperLocation(defaultGraphLoc).setCHEnabled(false).importOrLoad();
+        DataFlagEncoder loadedEncoder = (DataFlagEncoder) hopper.getEncodingManager().getEncoder("generic");
+        assertTrue(loadedEncoder.isStoreToll());
+        assertTrue(loadedEncoder.isToll(hopper.getGraphHopperStorage().getEdgeIteratorState(0, 1)));
+        assertFalse(loadedEncoder.isToll(hopper.getGraphHopperStorage().getEdgeIteratorState(1, 2)));
+        hopper.close();
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.util;
+
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.RouteCache;
+import com.graphhopper.routing.RoutingStats;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EngineWarmUpTest {
+
+    private GraphHopper createGraphHopper(EncodingManager encodingManager) {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        NodeAccess na = graph.getNodeAccess();
+        na.setNode(0, 42, 10);
+        na.setNode(1, 42.1, 10.1);
+        na.setNode(2, 42.1, 10.2);
+        na.setNode(3, 42, 10.4);
+        graph.edge(0, 1, 10, true);
+        graph.edge(1, 2, 10, true);
+        graph.edge(2, 3, 10, true);
+        return new TestGraphHopper(encodingManager, graph);
+    }
+
+    private static class TestGraphHopper extends GraphHopper {
+        TestGraphHopper(EncodingManager encodingManager, GraphHopperStorage graph) {
+            setStoreOnFlush(false);
+            setEncodingManager(encodingManager);
+            setCHEnabled(false);
+            // only accessible for subclasses
+            loadGraph(graph);
+        }
+    }
+
+    @Test
+    public void testWarmUp() {
+        GraphHopper hopper = createGraphHopper(new EncodingManager("car,foot"));
+        hopper.setRouteCache(new RouteCache(100, 0));
+        final AtomicInteger calculated = new AtomicInteger();
+        hopper.setRoutingStatsListener(new RoutingStats.Listener() {
+            @Override
+            public void onRoute(RoutingStats stats) {
+                calculated.incrementAndGet();
+            }
+        });
+
+        EngineWarmUp warmUp = new EngineWarmUp(hopper).setIterations(25).setThreads(3);
+        assertFalse(warmUp.isFinished());
+        warmUp.run();
+        assertTrue(warmUp.isFinished());
+        // 25 routes for each vehicle
+        assertEquals(50, warmUp.getRoutes());
+        // the synthetic requests must neither show up in the statistics nor in the route cache
+        assertEquals(0, calculated.get());
+        assertEquals(0, hopper.getRouteCache().size());
+        assertTrue(warmUp.getTouchedBytes() > 0);
+        hopper.close();
+    }
+
+    @Test
+    public void testProfiles() {
+        GraphHopper hopper = createGraphHopper(new EncodingManager("car"));
+        List<HintsMap> profiles = new EngineWarmUp(hopper).getProfiles();
+        assertEquals(1, profiles.size());
+        assertEquals("car", profiles.get(0).getVehicle());
+        assertEquals("fastest", profiles.get(0).getWeighting());
+        hopper.close();
+    }
+}
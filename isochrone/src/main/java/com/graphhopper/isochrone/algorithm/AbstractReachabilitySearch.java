@@ -0,0 +1,171 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.storage.NodeAccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-node result of a one-to-all search in primitive arrays, which are kept from one search to the next, and
+ * the buckets and coordinates for isochrones calculated from it.
+ */
+public abstract class AbstractReachabilitySearch {
+
+    private final NodeAccess nodeAccess;
+    // per node, time in millis or distance in meter
+    protected final float[] values;
+    // per node, the node it was reached from if that is connected by an original edge, otherwise -1
+    protected final int[] parents;
+    protected final IntArrayList reached = new IntArrayList();
+    protected Isochrone.ExploreType exploreType = Isochrone.ExploreType.TIME;
+    protected double limit = -1;
+    protected double finishLimit = -1;
+    protected int visitedNodes;
+
+    protected AbstractReachabilitySearch(NodeAccess nodeAccess, int nodes) {
+        this.nodeAccess = nodeAccess;
+        this.values = new float[nodes];
+        this.parents = new int[nodes];
+        Arrays.fill(values, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Time limit in seconds
+     */
+    public void setTimeLimit(double limit) {
+        exploreType = Isochrone.ExploreType.TIME;
+        this.limit = limit * 1000;
+        // see Isochrone.setTimeLimit
+        this.finishLimit = this.limit + Math.max(this.limit * 0.14, 200_000);
+    }
+
+    /**
+     * Distance limit in meter
+     */
+    public void setDistanceLimit(double limit) {
+        exploreType = Isochrone.ExploreType.DISTANCE;
+        this.limit = limit;
+        this.finishLimit = limit + Math.max(limit * 0.14, 2_000);
+    }
+
+    protected void checkLimit() {
+        if (limit < 0)
+            throw new IllegalStateException("Set a time or distance limit before searching");
+    }
+
+    /**
+     * @return the nodes which were reached by the last search
+     */
+    public IntArrayList getReachedNodes() {
+        return reached;
+    }
+
+    /**
+     * Splits the reached nodes of the last search into equally sized buckets up to the limit. This is the
+     * same as {@link Isochrone#search(int, int)}.
+     */
+    public IntArrayList[] getBuckets(int bucketCount) {
+        double bucketSize = limit / bucketCount;
+        IntArrayList[] buckets = new IntArrayList[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new IntArrayList();
+        }
+        for (int i = 0; i < reached.size(); i++) {
+            int node = reached.get(i);
+            int bucketIndex = (int) (values[node] / bucketSize);
+            if (bucketIndex == bucketCount)
+                bucketIndex = bucketCount - 1;
+            else if (bucketIndex > bucketCount)
+                continue;
+
+            buckets[bucketIndex].add(node);
+        }
+        return buckets;
+    }
+
+    /**
+     * Splits the reached nodes of the last search by several limits, so one search can serve many of them.
+     *
+     * @param limits ascending, in seconds or meter like the limit of the search. The largest must not exceed it.
+     * @return one bucket per limit with the nodes which are reached below it, but not below the previous one
+     */
+    public IntArrayList[] getBucketsByLimits(double... limits) {
+        double factor = exploreType == Isochrone.ExploreType.TIME ? 1000 : 1;
+        double[] scaledLimits = new double[limits.length];
+        for (int i = 0; i < limits.length; i++) {
+            scaledLimits[i] = limits[i] * factor;
+            if (i > 0 && scaledLimits[i] < scaledLimits[i - 1])
+                throw new IllegalArgumentException("limits have to be ascending " + Arrays.toString(limits));
+            if (scaledLimits[i] > limit)
+                throw new IllegalArgumentException("limit " + limits[i] + " exceeds the limit of the search");
+        }
+        IntArrayList[] buckets = new IntArrayList[limits.length];
+        for (int i = 0; i < limits.length; i++) {
+            buckets[i] = new IntArrayList();
+        }
+        for (int i = 0; i < reached.size(); i++) {
+            int node = reached.get(i);
+            int bucketIndex = Arrays.binarySearch(scaledLimits, values[node]);
+            // a node exactly at a limit belongs to the next bucket, like for equally sized buckets
+            bucketIndex = bucketIndex < 0 ? -bucketIndex - 1 : bucketIndex + 1;
+            if (bucketIndex < limits.length)
+                buckets[bucketIndex].add(node);
+        }
+        return buckets;
+    }
+
+    /**
+     * Coordinates of the reached nodes of the last search, together with the middle of the edge they were reached
+     * by, in bucketCount + 1 lists. This is the same as {@link Isochrone#searchGPS(int, int)}.
+     */
+    public List<List<Double[]>> getBucketCoordinates(int bucketCount) {
+        double bucketSize = limit / bucketCount;
+        List<List<Double[]>> buckets = new ArrayList<>(bucketCount + 1);
+        for (int i = 0; i < bucketCount + 1; i++) {
+            buckets.add(new ArrayList<Double[]>());
+        }
+        NodeAccess na = nodeAccess;
+        for (int i = 0; i < reached.size(); i++) {
+            int node = reached.get(i);
+            int bucketIndex = (int) (values[node] / bucketSize);
+            if (bucketIndex > bucketCount)
+                continue;
+
+            double lat = na.getLatitude(node);
+            double lon = na.getLongitude(node);
+            buckets.get(bucketIndex).add(new Double[]{lon, lat});
+
+            // guess center of road to increase precision a bit for longer roads
+            int parent = parents[node];
+            if (parent >= 0) {
+                double lat2 = na.getLatitude(parent);
+                double lon2 = na.getLongitude(parent);
+                buckets.get(bucketIndex).add(new Double[]{(lon + lon2) / 2, (lat + lat2) / 2});
+            }
+        }
+        return buckets;
+    }
+
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
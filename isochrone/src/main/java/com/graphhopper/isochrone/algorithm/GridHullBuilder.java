@@ -0,0 +1,230 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the same polygons as {@link RasterHullBuilder}, but instead of triangulating the points it draws them
+ * into a grid and traces the isolines with marching squares. Memory and time are bounded by the grid size and
+ * the number of points, so this is much faster for large isochrones, at the price of a precision which is
+ * limited by the size of a grid cell.
+ * <p>
+ * This class is thread safe.
+ */
+public class GridHullBuilder {
+
+    private static final int PADDING = 2;
+
+    private final int resolution;
+    private final int radius;
+
+    public GridHullBuilder() {
+        this(300, 2);
+    }
+
+    /**
+     * @param resolution the maximum number of grid points along the longer side of the bounding box
+     * @param radius     every point marks the grid points within this number of cells as reached, which closes
+     *                   the gaps between the points of roads
+     */
+    public GridHullBuilder(int resolution, int radius) {
+        if (resolution < 2 * (PADDING + radius) + 2)
+            throw new IllegalArgumentException("resolution " + resolution + " is too small for radius " + radius);
+        this.resolution = resolution;
+        this.radius = radius;
+    }
+
+    /**
+     * @return a list of polygons wrapping the specified points, the polygon with index i wraps the points of
+     * the lists 0 to i
+     */
+    public List<List<Double[]>> calcList(List<List<Double[]>> pointsList, int maxIsolines) {
+        if (maxIsolines > pointsList.size()) {
+            throw new IllegalStateException("maxIsolines can only be smaller or equals to pointsList");
+        }
+
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (List<Double[]> level : pointsList) {
+            for (Double[] xy : level) {
+                minLon = Math.min(minLon, xy[0]);
+                maxLon = Math.max(maxLon, xy[0]);
+                minLat = Math.min(minLat, xy[1]);
+                maxLat = Math.max(maxLat, xy[1]);
+            }
+        }
+        if (minLon > maxLon)
+            throw new IllegalArgumentException("no points to build a polygon from");
+
+        // cells are roughly square in meters
+        double lonScale = Math.max(0.01, Math.cos(Math.toRadians((minLat + maxLat) / 2)));
+        int border = PADDING + radius;
+        double cellSize = Math.max((maxLon - minLon) * lonScale, maxLat - minLat) / (resolution - 1 - 2 * border);
+        // all points at one spot, still create a small polygon
+        cellSize = Math.max(cellSize, 1e-6);
+        double cellLon = cellSize / lonScale;
+        double cellLat = cellSize;
+        int cols = (int) Math.ceil((maxLon - minLon) / cellLon) + 1 + 2 * border;
+        int rows = (int) Math.ceil((maxLat - minLat) / cellLat) + 1 + 2 * border;
+        double originLon = minLon - border * cellLon;
+        double originLat = minLat - border * cellLat;
+
+        // per grid point the smallest index of the points lists which reached it, unreached points are outside of every isoline
+        int unreached = pointsList.size();
+        int[] grid = new int[rows * cols];
+        Arrays.fill(grid, unreached);
+        for (int i = 0; i < pointsList.size(); i++) {
+            for (Double[] xy : pointsList.get(i)) {
+                int col = (int) Math.round((xy[0] - originLon) / cellLon);
+                int row = (int) Math.round((xy[1] - originLat) / cellLat);
+                for (int r = row - radius; r <= row + radius; r++) {
+                    for (int c = col - radius; c <= col + radius; c++) {
+                        int dr = r - row, dc = c - col;
+                        if (dr * dr + dc * dc > radius * radius)
+                            continue;
+                        int index = r * cols + c;
+                        if (grid[index] > i)
+                            grid[index] = i;
+                    }
+                }
+            }
+        }
+
+        List<List<Double[]>> polygons = new ArrayList<>(maxIsolines);
+        // per crossing point the crossing point where the contour continues, see crossingId
+        int[] next = new int[2 * rows * cols];
+        for (int i = 0; i < maxIsolines; i++) {
+            double threshold = i + 0.5;
+            Arrays.fill(next, -1);
+            for (int row = 0; row < rows - 1; row++) {
+                for (int col = 0; col < cols - 1; col++) {
+                    addSegments(grid, cols, row, col, threshold, next);
+                }
+            }
+            double[] ring = findExteriorRing(grid, cols, threshold, next);
+            if (ring == null)
+                throw new IllegalStateException("no polygon was found for isoline " + i);
+
+            List<Double[]> coords = new ArrayList<>(ring.length / 2 + 1);
+            for (int j = 0; j < ring.length; j += 2) {
+                // lon, lat
+                coords.add(new Double[]{originLon + ring[j] * cellLon, originLat + ring[j + 1] * cellLat});
+            }
+            coords.add(coords.get(0));
+            polygons.add(coords);
+        }
+        return polygons;
+    }
+
+    /**
+     * The crossing points are on the edges between grid points: the horizontal edge starting at a grid point has
+     * the id 2 * index and the vertical one 2 * index + 1.
+     */
+    private static int crossingId(int cols, int row, int col, boolean vertical) {
+        return 2 * (row * cols + col) + (vertical ? 1 : 0);
+    }
+
+    /**
+     * Adds the contour segments of the cell with the specified lower left grid point. Segments are oriented so
+     * that the inside is on the left, i.e. exterior rings are counter-clockwise and holes clockwise.
+     */
+    private static void addSegments(int[] grid, int cols, int row, int col, double threshold, int[] next) {
+        // the corners and the edges of the cell, counter-clockwise from the lower left corner
+        int index = row * cols + col;
+        boolean bottomLeft = grid[index] < threshold;
+        boolean bottomRight = grid[index + 1] < threshold;
+        boolean topRight = grid[index + cols + 1] < threshold;
+        boolean topLeft = grid[index + cols] < threshold;
+        if (bottomLeft == bottomRight && bottomRight == topRight && topRight == topLeft)
+            return;
+
+        boolean[] inside = {bottomLeft, bottomRight, topRight, topLeft};
+        int[] edges = {
+                crossingId(cols, row, col, false),
+                crossingId(cols, row, col + 1, true),
+                crossingId(cols, row + 1, col, false),
+                crossingId(cols, row, col, true)
+        };
+        // A segment starts where the boundary of the cell leaves the inside and ends where it enters it next.
+        // For the two saddle cases this connects the inside corners.
+        for (int k = 0; k < 4; k++) {
+            if (!inside[k] || inside[(k + 1) % 4])
+                continue;
+            for (int j = 1; j < 4; j++) {
+                int edge = (k + j) % 4;
+                if (!inside[edge] && inside[(edge + 1) % 4]) {
+                    next[edges[k]] = edges[edge];
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Links the segments to rings and returns the counter-clockwise ring with the largest area as x, y pairs in
+     * grid coordinates.
+     */
+    private static double[] findExteriorRing(int[] grid, int cols, double threshold, int[] next) {
+        double[] best = null;
+        double bestArea = 0;
+        double[] ring = new double[64];
+        for (int start = 0; start < next.length; start++) {
+            if (next[start] < 0)
+                continue;
+
+            int size = 0;
+            double area = 0;
+            int crossing = start;
+            while (next[crossing] >= 0) {
+                if (size + 2 > ring.length)
+                    ring = Arrays.copyOf(ring, ring.length * 2);
+                setCrossingPoint(grid, cols, threshold, crossing, ring, size);
+                size += 2;
+                int tmp = next[crossing];
+                next[crossing] = -1;
+                crossing = tmp;
+            }
+            for (int j = 0; j < size; j += 2) {
+                int k = (j + 2) % size;
+                area += ring[j] * ring[k + 1] - ring[k] * ring[j + 1];
+            }
+            if (area > bestArea) {
+                bestArea = area;
+                best = Arrays.copyOf(ring, size);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Interpolates the position of the crossing point between its two grid points linearly.
+     */
+    private static void setCrossingPoint(int[] grid, int cols, double threshold, int crossing, double[] ring, int offset) {
+        int index = crossing / 2;
+        boolean vertical = crossing % 2 == 1;
+        int otherIndex = vertical ? index + cols : index + 1;
+        double t = (threshold - grid[index]) / (grid[otherIndex] - grid[index]);
+        int row = index / cols;
+        int col = index % cols;
+        ring[offset] = vertical ? col : col + t;
+        ring[offset + 1] = vertical ? row + t : row;
+    }
+}
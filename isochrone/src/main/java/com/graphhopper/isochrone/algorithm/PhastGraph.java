@@ -0,0 +1,242 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHGraph;
+import com.graphhopper.util.CHEdgeExplorer;
+import com.graphhopper.util.CHEdgeIterator;
+import com.graphhopper.util.CHEdgeIteratorState;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The edges of a contracted graph rearranged for PHAST, i.e. one-to-all searches which consist of a Dijkstra on
+ * the edges leading upwards in the hierarchy and a linear sweep over all nodes in the order of decreasing level,
+ * which relaxes the edges leading downwards. Both are stored in arrays, together with the weight, time and
+ * distance of every edge, so the sweep does not need to look at the graph or unpack shortcuts.
+ * <p>
+ * An instance is immutable and can be shared by many threads, each of which needs its own {@link PhastSearch}.
+ *
+ * @see "Delling et al., PHAST: Hardware-Accelerated Shortest Path Trees"
+ */
+public class PhastGraph {
+
+    private final CHGraph chGraph;
+    private final Weighting weighting;
+    private final boolean reverseFlow;
+    private final int nodes;
+    // per node in the order of the sweep, i.e. by decreasing level
+    final int[] sweepOrder;
+    // edges from every node to nodes of higher or equal level, indexed by node
+    final int[] upFirst;
+    final int[] upAdj;
+    final double[] upWeights;
+    final int[] upMillis;
+    final float[] upDistances;
+    final boolean[] upShortcuts;
+    // edges to every node from nodes of higher level, indexed by the position of the node in the sweep
+    final int[] downFirst;
+    final int[] downAdj;
+    final double[] downWeights;
+    final int[] downMillis;
+    final float[] downDistances;
+    final boolean[] downShortcuts;
+    private final ConcurrentLinkedQueue<PhastSearch> idleSearches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param weighting   the weighting the graph was contracted with
+     * @param reverseFlow true if the searches should find the time or distance from every node to the sources
+     */
+    public PhastGraph(CHGraph chGraph, Weighting weighting, boolean reverseFlow) {
+        this.chGraph = chGraph;
+        this.weighting = weighting;
+        this.reverseFlow = reverseFlow;
+        this.nodes = chGraph.getNodes();
+
+        int[] levels = new int[nodes];
+        int maxLevel = 0;
+        for (int node = 0; node < nodes; node++) {
+            levels[node] = chGraph.getLevel(node);
+            maxLevel = Math.max(maxLevel, levels[node]);
+        }
+        // counting sort by decreasing level
+        int[] firstOfLevel = new int[maxLevel + 2];
+        for (int node = 0; node < nodes; node++) {
+            firstOfLevel[maxLevel - levels[node] + 1]++;
+        }
+        for (int i = 0; i <= maxLevel; i++) {
+            firstOfLevel[i + 1] += firstOfLevel[i];
+        }
+        sweepOrder = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            sweepOrder[firstOfLevel[maxLevel - levels[node]]++] = node;
+        }
+
+        FlagEncoder encoder = weighting.getFlagEncoder();
+        CHEdgeExplorer explorer = chGraph.createEdgeExplorer();
+        ShortcutMillis shortcutMillis = new ShortcutMillis();
+        upFirst = new int[nodes + 1];
+        downFirst = new int[nodes + 1];
+        int upCount = 0, downCount = 0;
+        for (int i = 0; i < nodes; i++) {
+            int node = sweepOrder[i];
+            CHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (isUp(levels, iter, encoder))
+                    upFirst[node + 1]++;
+                if (isDown(levels, iter, encoder))
+                    downFirst[i + 1]++;
+            }
+        }
+        for (int i = 0; i < nodes; i++) {
+            upFirst[i + 1] += upFirst[i];
+            downFirst[i + 1] += downFirst[i];
+        }
+        upAdj = new int[upFirst[nodes]];
+        upWeights = new double[upAdj.length];
+        upMillis = new int[upAdj.length];
+        upDistances = new float[upAdj.length];
+        upShortcuts = new boolean[upAdj.length];
+        downAdj = new int[downFirst[nodes]];
+        downWeights = new double[downAdj.length];
+        downMillis = new int[downAdj.length];
+        downDistances = new float[downAdj.length];
+        downShortcuts = new boolean[downAdj.length];
+        for (int i = 0; i < nodes; i++) {
+            int node = sweepOrder[i];
+            int up = upFirst[node];
+            int down = downFirst[i];
+            CHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (isUp(levels, iter, encoder)) {
+                    // travelling from node to the higher one, or the other way round for reverse flow
+                    upAdj[up] = iter.getAdjNode();
+                    upWeights[up] = calcWeight(iter, reverseFlow);
+                    upMillis[up] = (int) shortcutMillis.calcMillis(iter, reverseFlow);
+                    upDistances[up] = (float) iter.getDistance();
+                    upShortcuts[up++] = iter.isShortcut();
+                }
+                if (isDown(levels, iter, encoder)) {
+                    // travelling from the higher node to node, or the other way round for reverse flow
+                    downAdj[down] = iter.getAdjNode();
+                    downWeights[down] = calcWeight(iter, !reverseFlow);
+                    downMillis[down] = (int) shortcutMillis.calcMillis(iter, !reverseFlow);
+                    downDistances[down] = (float) iter.getDistance();
+                    downShortcuts[down++] = iter.isShortcut();
+                }
+            }
+        }
+    }
+
+    private boolean isUp(int[] levels, CHEdgeIterator iter, FlagEncoder encoder) {
+        // Nodes of the same level were not contracted, so the upward search has to cover all edges between them.
+        return levels[iter.getAdjNode()] >= levels[iter.getBaseNode()]
+                && (reverseFlow ? iter.isBackward(encoder) : iter.isForward(encoder));
+    }
+
+    private boolean isDown(int[] levels, CHEdgeIterator iter, FlagEncoder encoder) {
+        return levels[iter.getAdjNode()] > levels[iter.getBaseNode()]
+                && (reverseFlow ? iter.isForward(encoder) : iter.isBackward(encoder));
+    }
+
+    private double calcWeight(CHEdgeIteratorState edge, boolean reverse) {
+        if (edge.isShortcut())
+            // if a shortcut is in both directions the weight is identical, see PreparationWeighting
+            return edge.getWeight();
+        return weighting.calcWeight(edge, reverse, EdgeIterator.NO_EDGE);
+    }
+
+    public CHGraph getGraph() {
+        return chGraph;
+    }
+
+    public Weighting getWeighting() {
+        return weighting;
+    }
+
+    public boolean isReverseFlow() {
+        return reverseFlow;
+    }
+
+    int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return a search from the pool of this graph, or a new one. Hand it back with {@link #release(PhastSearch)},
+     * so that concurrent requests share a few sets of the node arrays instead of allocating one each.
+     */
+    public PhastSearch acquire() {
+        PhastSearch search = idleSearches.poll();
+        return search != null ? search : new PhastSearch(this);
+    }
+
+    public void release(PhastSearch search) {
+        if (search.getGraph() != this)
+            throw new IllegalArgumentException("The search belongs to another graph");
+        idleSearches.offer(search);
+    }
+
+    /**
+     * Shortcuts only store their weight and distance. Their time is the sum of the time of the edges they skip,
+     * which is calculated once per shortcut and direction.
+     */
+    private class ShortcutMillis {
+        // index is the edge, for travelling towards the node which is the adjacent node when the edge is fetched
+        // with Integer.MIN_VALUE, or away from it. -1 if not calculated yet.
+        private final long[] towardsAdj;
+        private final long[] awayFromAdj;
+
+        ShortcutMillis() {
+            int edges = chGraph.getAllEdges().length();
+            towardsAdj = new long[edges];
+            awayFromAdj = new long[edges];
+            Arrays.fill(towardsAdj, -1);
+            Arrays.fill(awayFromAdj, -1);
+        }
+
+        long calcMillis(CHEdgeIteratorState edge, boolean reverse) {
+            if (!edge.isShortcut())
+                return weighting.calcMillis(edge, reverse, EdgeIterator.NO_EDGE);
+
+            int to = reverse ? edge.getBaseNode() : edge.getAdjNode();
+            boolean towards = chGraph.getEdgeIteratorState(edge.getEdge(), Integer.MIN_VALUE).getAdjNode() == to;
+            long[] cache = towards ? towardsAdj : awayFromAdj;
+            if (cache[edge.getEdge()] >= 0)
+                return cache[edge.getEdge()];
+
+            // same as Path4CH.expandEdge
+            int from = reverse ? edge.getAdjNode() : edge.getBaseNode();
+            CHEdgeIteratorState first = chGraph.getEdgeIteratorState(edge.getSkippedEdge1(), from);
+            CHEdgeIteratorState second;
+            if (first == null) {
+                first = chGraph.getEdgeIteratorState(edge.getSkippedEdge2(), from);
+                second = chGraph.getEdgeIteratorState(edge.getSkippedEdge1(), to);
+            } else {
+                second = chGraph.getEdgeIteratorState(edge.getSkippedEdge2(), to);
+            }
+            long millis = calcMillis(first, true) + calcMillis(second, false);
+            cache[edge.getEdge()] = millis;
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.ch.CHAlgoFactoryDecorator;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHGraph;
+import com.graphhopper.util.Parameters;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates the {@link PhastGraph} for a contracted graph of a GraphHopper instance when it is first needed and keeps
+ * it for all further requests.
+ */
+public class PhastGraphCache {
+
+    private final GraphHopper hopper;
+    private final ConcurrentMap<String, PhastGraph> graphs = new ConcurrentHashMap<>();
+
+    public PhastGraphCache(GraphHopper hopper) {
+        this.hopper = hopper;
+    }
+
+    /**
+     * @param hints with the vehicle and weighting of the search
+     * @return null if CH is not enabled or disabled by the hints, or if there is no contracted graph for the
+     * vehicle and weighting
+     */
+    public PhastGraph get(HintsMap hints, boolean reverseFlow) {
+        CHAlgoFactoryDecorator chFactoryDecorator = hopper.getCHFactoryDecorator();
+        boolean disableCH = hints.getBool(Parameters.CH.DISABLE, false);
+        if (!chFactoryDecorator.isEnabled() || chFactoryDecorator.isDisablingAllowed() && disableCH)
+            return null;
+
+        HintsMap map = new HintsMap(hints);
+        if (map.getWeighting().isEmpty())
+            map.setWeighting(chFactoryDecorator.getDefaultWeighting());
+        for (PrepareContractionHierarchies preparation : chFactoryDecorator.getPreparations()) {
+            Weighting weighting = preparation.getWeighting();
+            if (!weighting.matches(map))
+                continue;
+
+            String key = weighting + "|" + reverseFlow;
+            PhastGraph graph = graphs.get(key);
+            if (graph == null) {
+                graph = new PhastGraph(hopper.getGraphHopperStorage().getGraph(CHGraph.class, weighting), weighting, reverseFlow);
+                PhastGraph existing = graphs.putIfAbsent(key, graph);
+                if (existing != null)
+                    graph = existing;
+            }
+            return graph;
+        }
+        return null;
+    }
+}
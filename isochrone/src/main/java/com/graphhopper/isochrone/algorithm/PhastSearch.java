@@ -0,0 +1,165 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.apache.commons.collections.IntDoubleBinaryHeap;
+import com.graphhopper.routing.QueryGraph;
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+
+/**
+ * One-to-all search on a {@link PhastGraph}. It returns the same times or distances as {@link ReachabilitySearch},
+ * but the Dijkstra only runs on the edges leading upwards in the contraction hierarchy, which is a small part of the
+ * graph even for large limits. All other nodes are reached by one linear sweep.
+ * <p>
+ * The visited nodes are the ones of the upward search, the sweep always looks at every node of the graph. One
+ * instance is not thread safe, get one per request from {@link PhastGraph#acquire()}.
+ */
+public class PhastSearch extends AbstractReachabilitySearch {
+
+    private final PhastGraph graph;
+    private final IntDoubleBinaryHeap heap = new IntDoubleBinaryHeap(1000);
+    // per node, only the entries of reached nodes are reset before the next search
+    private final double[] weights;
+
+    PhastSearch(PhastGraph graph) {
+        super(graph.getGraph().getNodeAccess(), graph.getNodes());
+        this.graph = graph;
+        this.weights = new double[graph.getNodes()];
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+    }
+
+    PhastGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @see ReachabilitySearch#search(int...)
+     */
+    public float[] search(int... sources) {
+        checkLimit();
+        reset();
+        for (int source : sources) {
+            addSource(source, 0, 0);
+        }
+        return run();
+    }
+
+    /**
+     * Searches from a node of a QueryGraph on the base graph of the contracted graph. Virtual nodes are not part
+     * of the contraction hierarchy, so the search starts at the nodes adjacent to it.
+     */
+    public float[] search(QueryGraph queryGraph, int source) {
+        checkLimit();
+        reset();
+        if (!queryGraph.isVirtualNode(source)) {
+            addSource(source, 0, 0);
+        } else {
+            Weighting weighting = graph.getWeighting();
+            boolean reverseFlow = graph.isReverseFlow();
+            EdgeExplorer explorer = queryGraph.createEdgeExplorer(reverseFlow
+                    ? DefaultEdgeFilter.inEdges(weighting.getFlagEncoder())
+                    : DefaultEdgeFilter.outEdges(weighting.getFlagEncoder()));
+            EdgeIterator iter = explorer.setBaseNode(source);
+            while (iter.next()) {
+                if (queryGraph.isVirtualNode(iter.getAdjNode()))
+                    continue;
+                double weight = weighting.calcWeight(iter, reverseFlow, EdgeIterator.NO_EDGE);
+                if (Double.isInfinite(weight))
+                    continue;
+                float value = exploreType == Isochrone.ExploreType.TIME
+                        ? weighting.calcMillis(iter, reverseFlow, EdgeIterator.NO_EDGE)
+                        : (float) iter.getDistance();
+                addSource(iter.getAdjNode(), weight, value);
+            }
+        }
+        return run();
+    }
+
+    private void addSource(int node, double weight, float value) {
+        if (weight >= weights[node])
+            return;
+        weights[node] = weight;
+        values[node] = value;
+        parents[node] = -1;
+        heap.insert_(weight, node);
+    }
+
+    private float[] run() {
+        boolean time = exploreType == Isochrone.ExploreType.TIME;
+        while (!heap.isEmpty()) {
+            float key = heap.peek_key();
+            int node = heap.poll_element();
+            // the node was inserted again with a smaller weight and already processed
+            if (key > (float) weights[node])
+                continue;
+
+            visitedNodes++;
+            // unlike the Dijkstra on the whole graph the upward search is not ordered by time or distance,
+            // so it cannot stop here, but nothing reached from this node can be within the limit
+            if (values[node] >= finishLimit)
+                continue;
+
+            for (int i = graph.upFirst[node]; i < graph.upFirst[node + 1]; i++) {
+                int adj = graph.upAdj[i];
+                double tmpWeight = weights[node] + graph.upWeights[i];
+                if (tmpWeight >= weights[adj])
+                    continue;
+                weights[adj] = tmpWeight;
+                values[adj] = values[node] + (time ? graph.upMillis[i] : graph.upDistances[i]);
+                parents[adj] = graph.upShortcuts[i] ? -1 : node;
+                heap.insert_(tmpWeight, adj);
+            }
+        }
+
+        int[] sweepOrder = graph.sweepOrder;
+        for (int i = 0; i < sweepOrder.length; i++) {
+            int node = sweepOrder[i];
+            for (int j = graph.downFirst[i]; j < graph.downFirst[i + 1]; j++) {
+                int adj = graph.downAdj[j];
+                // also skips the nodes which were not reached
+                if (values[adj] >= finishLimit)
+                    continue;
+                double tmpWeight = weights[adj] + graph.downWeights[j];
+                if (tmpWeight >= weights[node])
+                    continue;
+                weights[node] = tmpWeight;
+                values[node] = values[adj] + (time ? graph.downMillis[j] : graph.downDistances[j]);
+                parents[node] = graph.downShortcuts[j] ? -1 : adj;
+            }
+            if (weights[node] < Double.POSITIVE_INFINITY)
+                reached.add(node);
+        }
+        return values;
+    }
+
+    private void reset() {
+        for (int i = 0; i < reached.size(); i++) {
+            int node = reached.get(i);
+            weights[node] = Double.POSITIVE_INFINITY;
+            values[node] = Float.POSITIVE_INFINITY;
+        }
+        reached.clear();
+        heap.clear();
+        visitedNodes = 0;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.apache.commons.collections.IntDoubleBinaryHeap;
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+
+/**
+ * Same search as {@link Isochrone}, but with all state in primitive arrays which are kept from one search to
+ * the next. It can start from many nodes at once and the time or distance to every reached node is returned
+ * in a float array, so batch jobs can run a large number of searches on the same graph without allocating
+ * labels, hash maps or boxed node ids.
+ * <p>
+ * One instance is not thread safe and only works on the graph it was created for.
+ */
+public class ReachabilitySearch extends AbstractReachabilitySearch {
+
+    private final Weighting weighting;
+    private final boolean reverseFlow;
+    private final EdgeExplorer explorer;
+    private final IntDoubleBinaryHeap heap;
+    // per node, only the entries of reached nodes are reset before the next search
+    private final double[] weights;
+    private final int[] edges;
+
+    public ReachabilitySearch(Graph graph, Weighting weighting, boolean reverseFlow) {
+        super(graph.getNodeAccess(), graph.getNodes());
+        this.weighting = weighting;
+        this.reverseFlow = reverseFlow;
+        this.explorer = graph.createEdgeExplorer(reverseFlow
+                ? DefaultEdgeFilter.inEdges(weighting.getFlagEncoder())
+                : DefaultEdgeFilter.outEdges(weighting.getFlagEncoder()));
+        int nodes = graph.getNodes();
+        this.heap = new IntDoubleBinaryHeap(1000);
+        this.weights = new double[nodes];
+        this.edges = new int[nodes];
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Searches from all the specified nodes at once, i.e. every node gets the value of the source closest to it.
+     *
+     * @return the time in milliseconds or the distance in meter to every node of the graph, depending on which
+     * limit was set, and Float.POSITIVE_INFINITY for the nodes which were not reached. The array is owned by this
+     * instance and overwritten by the next search.
+     */
+    public float[] search(int... sources) {
+        checkLimit();
+
+        reset();
+        for (int source : sources) {
+            if (weights[source] == 0)
+                continue;
+            weights[source] = 0;
+            values[source] = 0;
+            edges[source] = EdgeIterator.NO_EDGE;
+            parents[source] = -1;
+            reached.add(source);
+            heap.insert_(0, source);
+        }
+
+        while (!heap.isEmpty()) {
+            float key = heap.peek_key();
+            int node = heap.poll_element();
+            // the node was inserted again with a smaller weight and already processed
+            if (key > (float) weights[node])
+                continue;
+
+            visitedNodes++;
+            if (values[node] >= finishLimit)
+                break;
+
+            int prevEdge = edges[node];
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (iter.getEdge() == prevEdge)
+                    continue;
+
+                double tmpWeight = weighting.calcWeight(iter, reverseFlow, prevEdge) + weights[node];
+                if (Double.isInfinite(tmpWeight))
+                    continue;
+
+                int adjNode = iter.getAdjNode();
+                if (tmpWeight >= weights[adjNode])
+                    continue;
+
+                if (weights[adjNode] == Double.POSITIVE_INFINITY)
+                    reached.add(adjNode);
+                weights[adjNode] = tmpWeight;
+                values[adjNode] = exploreType == Isochrone.ExploreType.TIME
+                        ? values[node] + weighting.calcMillis(iter, reverseFlow, prevEdge)
+                        : values[node] + (float) iter.getDistance();
+                edges[adjNode] = iter.getEdge();
+                parents[adjNode] = node;
+                heap.insert_(tmpWeight, adjNode);
+            }
+        }
+        return values;
+    }
+
+    private void reset() {
+        for (int i = 0; i < reached.size(); i++) {
+            int node = reached.get(i);
+            weights[node] = Double.POSITIVE_INFINITY;
+            values[node] = Float.POSITIVE_INFINITY;
+        }
+        reached.clear();
+        heap.clear();
+        visitedNodes = 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.graphhopper.isochrone.algorithm;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GridHullBuilderTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    @Test
+    public void testNestedPolygons() {
+        // lon,lat! three rings of points around (10, 50) with a radius of 0.01, 0.02 and 0.03 degrees
+        List<List<Double[]>> listOfList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            listOfList.add(new ArrayList<Double[]>());
+        }
+        for (double lon = -0.03; lon <= 0.03; lon += 0.0005) {
+            for (double lat = -0.03; lat <= 0.03; lat += 0.0005) {
+                double dist = Math.sqrt(lon * lon + lat * lat);
+                if (dist <= 0.03)
+                    listOfList.get((int) Math.min(2, dist / 0.01)).add(new Double[]{10 + lon, 50 + lat});
+            }
+        }
+
+        List<List<Double[]>> res = new GridHullBuilder().calcList(listOfList, 2);
+        assertEquals(2, res.size());
+        Polygon inner = toPolygon(res.get(0));
+        Polygon outer = toPolygon(res.get(1));
+        assertTrue(inner.isValid());
+        assertTrue(outer.isValid());
+        assertTrue(inner.contains(point(10, 50)));
+        assertTrue(inner.contains(point(10.008, 50)));
+        assertFalse(inner.contains(point(10.012, 50)));
+        assertTrue(outer.contains(point(10.012, 50)));
+        assertTrue(outer.contains(point(10, 49.982)));
+        assertFalse(outer.contains(point(10.022, 50)));
+        assertTrue(outer.contains(inner));
+    }
+
+    @Test
+    public void testSinglePoint() {
+        List<List<Double[]>> listOfList = new ArrayList<>();
+        List<Double[]> list = new ArrayList<>();
+        list.add(new Double[]{10.0, 50.0});
+        listOfList.add(list);
+        List<List<Double[]>> res = new GridHullBuilder().calcList(listOfList, 1);
+        Polygon polygon = toPolygon(res.get(0));
+        assertTrue(polygon.contains(point(10, 50)));
+    }
+
+    private com.vividsolutions.jts.geom.Point point(double lon, double lat) {
+        return geometryFactory.createPoint(new Coordinate(lon, lat));
+    }
+
+    private Polygon toPolygon(List<Double[]> ring) {
+        Coordinate[] coordinates = new Coordinate[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            coordinates[i] = new Coordinate(ring.get(i)[0], ring.get(i)[1]);
+        }
+        return geometryFactory.createPolygon(coordinates);
+    }
+}
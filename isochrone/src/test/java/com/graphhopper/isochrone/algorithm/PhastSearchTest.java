@@ -0,0 +1,100 @@
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PhastSearchTest {
+
+    private final EncodingManager encodingManager = new EncodingManager("car");
+    private final FlagEncoder carEncoder = encodingManager.getEncoder("car");
+    private final Weighting weighting = new FastestWeighting(carEncoder);
+    private GraphHopperStorage graph;
+    private CHGraph chGraph;
+
+    @Before
+    public void setUp() {
+        graph = new GraphBuilder(encodingManager).setCHGraph(weighting).create();
+        chGraph = graph.getGraph(CHGraph.class);
+        // a grid with random speeds, distances and one-ways
+        Random random = new Random(42);
+        int size = 20;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int node = row * size + col;
+                graph.getNodeAccess().setNode(node, 50 + row * 0.001, 10 + col * 0.001);
+                if (col + 1 < size)
+                    addEdge(random, node, node + 1);
+                if (row + 1 < size)
+                    addEdge(random, node, node + size);
+            }
+        }
+        graph.freeze();
+        new PrepareContractionHierarchies(new GHDirectory("", DAType.RAM_INT), graph, chGraph, weighting,
+                TraversalMode.NODE_BASED).doWork();
+    }
+
+    private void addEdge(Random random, int from, int to) {
+        boolean oneWay = random.nextInt(5) == 0;
+        boolean forward = !oneWay || random.nextBoolean();
+        graph.edge(from, to).setDistance(50 + random.nextInt(150))
+                .setFlags(carEncoder.setProperties(10 + 10 * random.nextInt(8), forward, !oneWay || !forward));
+    }
+
+    @After
+    public void tearDown() {
+        graph.close();
+    }
+
+    @Test
+    public void testSameTimesAsDijkstra() {
+        for (boolean reverseFlow : new boolean[]{false, true}) {
+            ReachabilitySearch dijkstra = new ReachabilitySearch(graph, weighting, reverseFlow);
+            PhastSearch phast = new PhastGraph(chGraph, weighting, reverseFlow).acquire();
+            for (int source : new int[]{0, 17, 210, 399}) {
+                dijkstra.setTimeLimit(300);
+                phast.setTimeLimit(300);
+                assertSameValues(dijkstra.search(source), phast.search(source));
+            }
+        }
+    }
+
+    @Test
+    public void testManySources() {
+        ReachabilitySearch dijkstra = new ReachabilitySearch(graph, weighting, false);
+        PhastSearch phast = new PhastGraph(chGraph, weighting, false).acquire();
+        dijkstra.setTimeLimit(300);
+        phast.setTimeLimit(300);
+        assertSameValues(dijkstra.search(3, 250, 321), phast.search(3, 250, 321));
+        // the search is reused
+        assertSameValues(dijkstra.search(99), phast.search(99));
+    }
+
+    @Test
+    public void testPool() {
+        PhastGraph phastGraph = new PhastGraph(chGraph, weighting, false);
+        PhastSearch search = phastGraph.acquire();
+        phastGraph.release(search);
+        assertSame(search, phastGraph.acquire());
+    }
+
+    private void assertSameValues(float[] expected, float[] actual) {
+        // both searches explore a bit beyond the limit, but not exactly the same nodes there
+        for (int node = 0; node < graph.getNodes(); node++) {
+            if (expected[node] <= 300_000 || actual[node] <= 300_000)
+                assertEquals("node " + node, expected[node], actual[node], 1e-3 * expected[node]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.graphhopper.isochrone.algorithm;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.PMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReachabilitySearchTest {
+
+    private final EncodingManager encodingManager = new EncodingManager("car");
+    private final FlagEncoder carEncoder = encodingManager.getEncoder("car");
+    private GraphHopperStorage graph;
+
+    @Before
+    public void setUp() {
+        graph = new GraphHopperStorage(Collections.<Weighting>emptyList(),
+                new RAMDirectory(), encodingManager, false, new GraphExtension.NoOpExtension());
+        graph.create(1000);
+        // same graph as in IsochroneTest
+        graph.edge(0, 1).setDistance(70).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(0, 4).setDistance(50).setFlags(carEncoder.setProperties(20, true, false));
+        graph.edge(1, 4).setDistance(70).setFlags(carEncoder.setProperties(10, true, true));
+        graph.edge(1, 5).setDistance(70).setFlags(carEncoder.setProperties(10, true, true));
+        graph.edge(1, 2).setDistance(200).setFlags(carEncoder.setProperties(10, true, true));
+        graph.edge(5, 2).setDistance(50).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(2, 3).setDistance(50).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(5, 3).setDistance(110).setFlags(carEncoder.setProperties(20, true, false));
+        graph.edge(3, 7).setDistance(70).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(4, 6).setDistance(50).setFlags(carEncoder.setProperties(20, true, false));
+        graph.edge(5, 4).setDistance(70).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(5, 6).setDistance(70).setFlags(carEncoder.setProperties(10, true, false));
+        graph.edge(7, 5).setDistance(50).setFlags(carEncoder.setProperties(20, true, false));
+        graph.edge(6, 7).setDistance(50).setFlags(carEncoder.setProperties(20, true, true));
+    }
+
+    @After
+    public void tearDown() {
+        graph.close();
+    }
+
+    @Test
+    public void testSameBucketsAsIsochrone() {
+        ReachabilitySearch search = new ReachabilitySearch(graph, new FastestWeighting(carEncoder, new PMap()), false);
+        search.setTimeLimit(60);
+        search.search(0);
+        assertEquals("[[0, 4], [6], [1, 7], [5], [2, 3]]", toString(search.getBuckets(5)));
+
+        // the instance is reused, nothing of the previous search must be left
+        search.setTimeLimit(30);
+        search.search(0);
+        assertEquals("[[0], [4], [], [6], [1, 7]]", toString(search.getBuckets(5)));
+    }
+
+    @Test
+    public void testMultipleSources() {
+        ReachabilitySearch search = new ReachabilitySearch(graph, new FastestWeighting(carEncoder, new PMap()), false);
+        search.setTimeLimit(30);
+        float[] fromOne = search.search(0).clone();
+        float[] fromOther = search.search(5).clone();
+        float[] fromBoth = search.search(0, 5);
+        for (int node = 0; node < graph.getNodes(); node++) {
+            assertEquals(Math.min(fromOne[node], fromOther[node]), fromBoth[node], 1);
+        }
+        assertEquals(0, fromBoth[0], 0);
+        assertEquals(0, fromBoth[5], 0);
+
+        // 0 can only be left
+        assertEquals(Float.POSITIVE_INFINITY, search.search(3)[0], 0);
+    }
+
+    @Test
+    public void testBucketsByLimits() {
+        ReachabilitySearch search = new ReachabilitySearch(graph, new FastestWeighting(carEncoder, new PMap()), false);
+        search.setTimeLimit(60);
+        search.search(0);
+        assertEquals("[[0, 4], [6], [1, 7], [5], [2, 3]]", toString(search.getBucketsByLimits(12, 24, 36, 48, 60)));
+        assertEquals("[[0, 4, 6], [1, 5, 7]]", toString(search.getBucketsByLimits(24, 48)));
+    }
+
+    private static String toString(IntArrayList[] buckets) {
+        List<String> result = new ArrayList<>();
+        for (IntArrayList bucket : buckets) {
+            int[] nodes = bucket.toArray();
+            Arrays.sort(nodes);
+            result.add(Arrays.toString(nodes));
+        }
+        return result.toString();
+    }
+}
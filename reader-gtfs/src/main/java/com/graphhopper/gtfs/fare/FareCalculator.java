@@ -0,0 +1,207 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.gtfs.fare;
+
+import com.conveyal.gtfs.model.Fare;
+
+import java.util.*;
+
+/**
+ * Finds the cheapest tickets for a trip by dynamic programming over its segments, instead of enumerating every
+ * assignment of fares to segments. The state after a segment is the set of tickets which can still be used for
+ * transfers, together with the price paid so far. States which are no better than another one in every respect
+ * are dropped, so the work per segment only depends on the number of fares and not on the length of the trip.
+ * <p>
+ * The result is the same as the one of {@link Fares#cheapestFareBruteForce}. Segments have to be added in order of
+ * their start time. The states are immutable, so a search can keep one per label and extend it with every
+ * pt leg, e.g. to bound or compare the fare while routing.
+ */
+public class FareCalculator {
+
+    private final Map<String, Fare> fares;
+    private final FareRuleTable fareRuleTable;
+
+    public FareCalculator(Map<String, Fare> fares) {
+        this.fares = fares;
+        this.fareRuleTable = new FareRuleTable(fares.values());
+    }
+
+    public State start() {
+        return new State(fareRuleTable, Collections.singletonList(new Partial(0.0, new int[0], new long[0], new int[0], null, -1)), Long.MIN_VALUE);
+    }
+
+    public Optional<Amount> cheapestFare(Trip trip) {
+        long previousStartTime = Long.MIN_VALUE;
+        for (Trip.Segment segment : trip.segments) {
+            if (segment.getStartTime() < previousStartTime) {
+                // Not what the router produces, but the ticket rules are defined for any order.
+                return Fares.cheapestFareBruteForce(fares, trip);
+            }
+            previousStartTime = segment.getStartTime();
+        }
+        State state = start();
+        for (Trip.Segment segment : trip.segments) {
+            state = state.next(segment);
+        }
+        return state.getCheapestFare();
+    }
+
+    public static final class State {
+        private final FareRuleTable fareRuleTable;
+        private final List<Partial> partials;
+        private final long startTime;
+
+        private State(FareRuleTable fareRuleTable, List<Partial> partials, long startTime) {
+            this.fareRuleTable = fareRuleTable;
+            this.partials = partials;
+            this.startTime = startTime;
+        }
+
+        /**
+         * @return the state after also riding the segment, which must not start before the previous one
+         */
+        public State next(Trip.Segment segment) {
+            long time = segment.getStartTime();
+            if (time < startTime) {
+                throw new IllegalArgumentException("Segments have to be added in order of their start time, " + time + " < " + startTime);
+            }
+            int[] possibleFares = fareRuleTable.possibleFares(segment);
+            List<Partial> candidates = new ArrayList<>(partials.size() * possibleFares.length);
+            for (Partial partial : partials) {
+                for (int fare : possibleFares) {
+                    candidates.add(partial.ride(fareRuleTable.getFare(fare), fare, time));
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(p -> p.price));
+            List<Partial> next = new ArrayList<>();
+            for (Partial candidate : candidates) {
+                if (next.stream().noneMatch(p -> p.dominates(candidate))) {
+                    next.add(candidate);
+                }
+            }
+            return new State(fareRuleTable, next, time);
+        }
+
+        /**
+         * @return false if there is a segment for which no fare applies
+         */
+        public boolean isFeasible() {
+            return !partials.isEmpty();
+        }
+
+        /**
+         * @return the price of the cheapest tickets so far, or infinity if the state is not feasible
+         */
+        public double getPrice() {
+            return partials.isEmpty() ? Double.POSITIVE_INFINITY : partials.get(0).price;
+        }
+
+        public Optional<Amount> getCheapestFare() {
+            if (partials.isEmpty()) {
+                return Optional.empty();
+            }
+            List<Fare> tickets = new ArrayList<>();
+            for (Partial partial = partials.get(0); partial != null; partial = partial.parent) {
+                if (partial.boughtFare >= 0) {
+                    tickets.add(fareRuleTable.getFare(partial.boughtFare));
+                }
+            }
+            return Fares.total(tickets);
+        }
+    }
+
+    private static final class Partial {
+        final double price;
+        // tickets which still allow a transfer, sorted by fare
+        final int[] ticketFares;
+        final long[] validUntil;
+        final int[] moreTransfers;
+        // for collecting the tickets of the final state
+        final Partial parent;
+        final int boughtFare;
+
+        Partial(double price, int[] ticketFares, long[] validUntil, int[] moreTransfers, Partial parent, int boughtFare) {
+            this.price = price;
+            this.ticketFares = ticketFares;
+            this.validUntil = validUntil;
+            this.moreTransfers = moreTransfers;
+            this.parent = parent;
+            this.boughtFare = boughtFare;
+        }
+
+        /**
+         * Rides a segment with the given fare, using the ticket for it if it is still valid, otherwise buying a
+         * new one. These are the rules of {@link TicketPurchase#getTickets()}.
+         */
+        Partial ride(Fare fare, int fareIndex, long time) {
+            int ticket = Arrays.binarySearch(ticketFares, fareIndex);
+            boolean transfer = ticket >= 0 && time <= validUntil[ticket] && moreTransfers[ticket] > 0;
+            double newPrice = transfer ? price : price + fare.fare_attribute.price;
+            long newValidUntil = transfer ? validUntil[ticket] : time + fare.fare_attribute.transfer_duration;
+            int newMoreTransfers = transfer ? moreTransfers[ticket] - 1 : fare.fare_attribute.transfers;
+
+            // Segments come in order of start time, so expired tickets can't be used anymore and are dropped.
+            int n = 0;
+            int[] newTicketFares = new int[ticketFares.length + 1];
+            long[] newValidUntilArray = new long[ticketFares.length + 1];
+            int[] newMoreTransfersArray = new int[ticketFares.length + 1];
+            boolean added = false;
+            for (int i = 0; i <= ticketFares.length; i++) {
+                if (!added && (i == ticketFares.length || ticketFares[i] >= fareIndex)) {
+                    added = true;
+                    if (newMoreTransfers > 0 && newValidUntil >= time) {
+                        newTicketFares[n] = fareIndex;
+                        newValidUntilArray[n] = newValidUntil;
+                        newMoreTransfersArray[n++] = newMoreTransfers;
+                    }
+                }
+                if (i < ticketFares.length && ticketFares[i] != fareIndex && validUntil[i] >= time) {
+                    newTicketFares[n] = ticketFares[i];
+                    newValidUntilArray[n] = validUntil[i];
+                    newMoreTransfersArray[n++] = moreTransfers[i];
+                }
+            }
+            return new Partial(newPrice, Arrays.copyOf(newTicketFares, n), Arrays.copyOf(newValidUntilArray, n),
+                    Arrays.copyOf(newMoreTransfersArray, n), this, transfer ? -1 : fareIndex);
+        }
+
+        /**
+         * True if this is at most as expensive as the other one, and has a ticket at least as good for every
+         * ticket of the other one. Then this can't become more expensive than the other one later on: it only has
+         * to buy a ticket when the other one also has to, or when it has bought fewer tickets so far.
+         */
+        boolean dominates(Partial other) {
+            if (price > other.price) {
+                return false;
+            }
+            int j = 0;
+            for (int i = 0; i < other.ticketFares.length; i++) {
+                while (j < ticketFares.length && ticketFares[j] < other.ticketFares[i]) {
+                    j++;
+                }
+                if (j == ticketFares.length || ticketFares[j] != other.ticketFares[i]
+                        || validUntil[j] < other.validUntil[i] || moreTransfers[j] < other.moreTransfers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.gtfs.fare;
+
+import com.conveyal.gtfs.model.Fare;
+
+import java.util.*;
+
+/**
+ * The sanitized fare rules of all fares, compiled once into lookup tables. Finding the fares which apply to a
+ * segment is then a few hash lookups instead of sanitizing and testing every rule of every fare again.
+ */
+final class FareRuleTable {
+
+    private final List<Fare> fares;
+    private final BitSet unrestrictedFares = new BitSet();
+    private final Map<String, BitSet> faresByRoute = new HashMap<>();
+    private final Map<String, Map<String, BitSet>> faresByOriginDestination = new HashMap<>();
+    private final List<Set<String>> zoneSets = new ArrayList<>();
+    private final List<Integer> zoneFares = new ArrayList<>();
+
+    FareRuleTable(Collection<Fare> fares) {
+        this.fares = new ArrayList<>(fares);
+        for (int i = 0; i < this.fares.size(); i++) {
+            Fare fare = this.fares.get(i);
+            if (fare.fare_rules.isEmpty()) {
+                unrestrictedFares.set(i);
+            } else {
+                for (SanitizedFareRule rule : Fares.sanitizeFareRules(fare.fare_rules)) {
+                    rule.addTo(this, i);
+                }
+            }
+        }
+    }
+
+    void addRoute(String route_id, int fare) {
+        faresByRoute.computeIfAbsent(route_id, r -> new BitSet()).set(fare);
+    }
+
+    void addOriginDestination(String origin_id, String destination_id, int fare) {
+        faresByOriginDestination.computeIfAbsent(origin_id, o -> new HashMap<>())
+                .computeIfAbsent(destination_id, d -> new BitSet()).set(fare);
+    }
+
+    void addZones(Set<String> zones, int fare) {
+        zoneSets.add(zones);
+        zoneFares.add(fare);
+    }
+
+    int size() {
+        return fares.size();
+    }
+
+    Fare getFare(int fare) {
+        return fares.get(fare);
+    }
+
+    /**
+     * @return the indices of the fares which apply to the segment, same as {@link Fares#possibleFares}
+     */
+    int[] possibleFares(Trip.Segment segment) {
+        BitSet result = (BitSet) unrestrictedFares.clone();
+        BitSet byRoute = faresByRoute.get(segment.getRoute());
+        if (byRoute != null) {
+            result.or(byRoute);
+        }
+        Map<String, BitSet> byOrigin = faresByOriginDestination.get(segment.getOriginId());
+        if (byOrigin != null) {
+            BitSet byOriginDestination = byOrigin.get(segment.getDestinationId());
+            if (byOriginDestination != null) {
+                result.or(byOriginDestination);
+            }
+        }
+        for (int i = 0; i < zoneSets.size(); i++) {
+            if (!result.get(zoneFares.get(i)) && zoneSets.get(i).containsAll(segment.getZones())) {
+                result.set(zoneFares.get(i));
+            }
+        }
+        return result.stream().toArray();
+    }
+
+}
@@ -30,18 +30,25 @@ import static java.util.stream.Collectors.toList;
 
 public class Fares {
     public static Optional<Amount> cheapestFare(Map<String, Fare> fares, Trip trip) {
+        return new FareCalculator(fares).cheapestFare(trip);
+    }
+
+    static Optional<Amount> cheapestFareBruteForce(Map<String, Fare> fares, Trip trip) {
         return ticketsBruteForce(fares, trip)
-                .flatMap(tickets -> tickets.stream()
-                        .map(ticket -> {
-                            Fare fare = fares.get(ticket.getFare().fare_id);
-                            final BigDecimal priceOfOneTicket = BigDecimal.valueOf(fare.fare_attribute.price);
-                            return new Amount(priceOfOneTicket, fare.fare_attribute.currency_type);
-                        })
-                        .collect(Collectors.groupingBy(Amount::getCurrencyType, Collectors.mapping(Amount::getAmount, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))))
-                        .entrySet()
-                        .stream()
-                        .findFirst() // TODO: Tickets in different currencies for one trip
-                        .map(e -> new Amount(e.getValue(), e.getKey())));
+                .flatMap(tickets -> total(tickets.stream().map(ticket -> fares.get(ticket.getFare().fare_id)).collect(toList())));
+    }
+
+    static Optional<Amount> total(List<Fare> tickets) {
+        return tickets.stream()
+                .map(fare -> {
+                    final BigDecimal priceOfOneTicket = BigDecimal.valueOf(fare.fare_attribute.price);
+                    return new Amount(priceOfOneTicket, fare.fare_attribute.currency_type);
+                })
+                .collect(Collectors.groupingBy(Amount::getCurrencyType, Collectors.mapping(Amount::getAmount, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))))
+                .entrySet()
+                .stream()
+                .findFirst() // TODO: Tickets in different currencies for one trip
+                .map(e -> new Amount(e.getValue(), e.getKey()));
     }
 
     private static Optional<List<Ticket>> ticketsBruteForce(Map<String, Fare> fares, Trip trip) {
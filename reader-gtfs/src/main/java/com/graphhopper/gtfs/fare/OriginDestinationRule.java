@@ -31,4 +31,9 @@ final class OriginDestinationRule extends SanitizedFareRule {
     boolean appliesTo(Trip.Segment segment) {
         return origin_id.equals(segment.getOriginId()) && destination_id.equals(segment.getDestinationId());
     }
+
+    @Override
+    void addTo(FareRuleTable table, int fare) {
+        table.addOriginDestination(origin_id, destination_id, fare);
+    }
 }
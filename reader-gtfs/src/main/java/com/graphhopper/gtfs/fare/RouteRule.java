@@ -29,4 +29,9 @@ final class RouteRule extends SanitizedFareRule {
     boolean appliesTo(Trip.Segment segment) {
         return route_id.equals(segment.getRoute());
     }
+
+    @Override
+    void addTo(FareRuleTable table, int fare) {
+        table.addRoute(route_id, fare);
+    }
 }
@@ -22,4 +22,6 @@ abstract class SanitizedFareRule {
 
     abstract boolean appliesTo(Trip.Segment segment);
 
+    abstract void addTo(FareRuleTable table, int fare);
+
 }
@@ -37,4 +37,11 @@ final class ZoneRule extends SanitizedFareRule {
             return zones.containsAll(segment.getZones());
         }
     }
+
+    @Override
+    void addTo(FareRuleTable table, int fare) {
+        if (!zones.isEmpty()) {
+            table.addZones(zones, fare);
+        }
+    }
 }
@@ -18,6 +18,7 @@
 
 package com.graphhopper.reader.gtfs;
 
+import com.carrotsearch.hppc.IntLongHashMap;
 import com.conveyal.gtfs.GTFSFeed;
 import com.conveyal.gtfs.model.Transfer;
 import com.google.transit.realtime.GtfsRealtime;
@@ -44,6 +45,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipFile;
@@ -76,6 +78,21 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
         public GraphHopperGtfs createWithoutRealtimeFeed() {
             return new GraphHopperGtfs(flagEncoder, translationMap, graphHopperStorage, locationIndex, gtfsStorage, RealtimeFeed.empty(gtfsStorage));
         }
+
+        /**
+         * Creates a store to which realtime messages can be applied while routing is going on.
+         * Use it with {@link #createWith(RealtimeFeedStore)}.
+         */
+        public RealtimeFeedStore createRealtimeFeedStore() {
+            return new RealtimeFeedStore(graphHopperStorage, gtfsStorage, flagEncoder);
+        }
+
+        /**
+         * @return an instance which routes every request with the realtime state most recently published by the store
+         */
+        public GraphHopperGtfs createWith(RealtimeFeedStore realtimeFeedStore) {
+            return new GraphHopperGtfs(flagEncoder, translationMap, graphHopperStorage, locationIndex, gtfsStorage, realtimeFeedStore::get);
+        }
     }
 
     public static Factory createFactory(PtFlagEncoder flagEncoder, TranslationMap translationMap, GraphHopperStorage graphHopperStorage, LocationIndex locationIndex, GtfsStorage gtfsStorage) {
@@ -88,8 +105,9 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
     private final GraphHopperStorage graphHopperStorage;
     private final LocationIndex locationIndex;
     private final GtfsStorage gtfsStorage;
-    private final RealtimeFeed realtimeFeed;
-    private final TripFromLabel tripFromLabel;
+    private final Supplier<RealtimeFeed> realtimeFeedSupplier;
+    private int maxDepartures = 120;
+    private long maxTimeLimitSeconds = 4 * 60 * 60;
 
     private class RequestHandler {
         private final int maxVisitedNodesForRequest;
@@ -106,6 +124,9 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
         private final GHPoint enter;
         private final GHPoint exit;
         private final Translation translation;
+        // One snapshot for the whole request, even if a new realtime message is applied in the meantime
+        private final RealtimeFeed realtimeFeed = realtimeFeedSupplier.get();
+        private final TripFromLabel tripFromLabel = new TripFromLabel(gtfsStorage, realtimeFeed);
         private final List<VirtualEdgeIteratorState> extraEdges = new ArrayList<>(realtimeFeed.getAdditionalEdges());
 
         private final GHResponse response = new GHResponse();
@@ -167,18 +188,6 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
             return response;
         }
 
-        private QueryResult findClosest(GHPoint point, int indexForErrorMessage) {
-            final EdgeFilter filter = DefaultEdgeFilter.allEdges(graphHopperStorage.getEncodingManager().getEncoder("foot"));
-            QueryResult source = locationIndex.findClosest(point.lat, point.lon, filter);
-            if (!source.isValid()) {
-                throw new PointNotFoundException("Cannot find point: " + point, indexForErrorMessage);
-            }
-            if (flagEncoder.getEdgeType(source.getClosestEdge().getFlags()) != GtfsStorage.EdgeType.HIGHWAY) {
-                throw new RuntimeException(flagEncoder.getEdgeType(source.getClosestEdge().getFlags()).name());
-            }
-            return source;
-        }
-
         private void parseSolutionsAndAddToResponse(List<List<Label.Transition>> solutions, PointList waypoints) {
             for (List<Label.Transition> solution : solutions) {
                 final List<Trip.Leg> legs = tripFromLabel.getTrip(translation, graphExplorer, accessEgressWeighting, solution);
@@ -211,7 +220,7 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
                 }
             }
             visitedNodes += stationRouter.getVisitedNodes();
-            List<List<Label.Transition>> pathsFromStations = stationLabels.stream().map(l -> new TripFromLabel(gtfsStorage, realtimeFeed).getTransitions(!arriveBy, flagEncoder, accessEgressGraphExplorer, l)).collect(Collectors.toList());
+            List<List<Label.Transition>> pathsFromStations = stationLabels.stream().map(l -> tripFromLabel.getTransitions(!arriveBy, flagEncoder, accessEgressGraphExplorer, l)).collect(Collectors.toList());
 
             Map<Integer, Label> reverseSettledSet = new HashMap<>();
             for (Label stationLabel : stationLabels) {
@@ -224,6 +233,19 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
             MultiCriteriaLabelSetting router = new MultiCriteriaLabelSetting(graphExplorer, flagEncoder, arriveBy, maxWalkDistancePerLeg, true, !ignoreTransfers, profileQuery, maxVisitedNodesForRequest, discoveredSolutions);
             router.setBetaTransfers(betaTransfers);
             router.setBetaWalkTime(betaWalkTime);
+            final StationGraph stationGraph = gtfsStorage.getStationGraph();
+            // The lower bounds only hold for the static timetable and if no criterion can decrease the weight.
+            final boolean pruneWithStationGraph = stationGraph != null && !profileQuery && extraEdges.isEmpty() && betaTransfers >= 0.0 && betaWalkTime >= 1.0;
+            if (pruneWithStationGraph) {
+                IntLongHashMap seeds = new IntLongHashMap();
+                for (Label stationLabel : stationLabels) {
+                    long weight = stationRouter.weight(stationLabel);
+                    if (seeds.getOrDefault(stationLabel.adjNode, Long.MAX_VALUE) > weight) {
+                        seeds.put(stationLabel.adjNode, weight);
+                    }
+                }
+                router.setLowerBound(stationGraph.lowerBounds(seeds, arriveBy));
+            }
             if (!stationLabels.isEmpty()) {
                 smallestStationLabelWeight = stationRouter.weight(stationLabels.get(0));
             } else {
@@ -248,6 +270,9 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
                             discoveredSolutions.add(combinedSolution);
                             originalSolutions.put(combinedSolution, label);
                             highestWeightForDominationTest = discoveredSolutions.stream().filter(s -> ignoreTransfers || s.nTransfers == 0).mapToLong(router::weight).max().orElse(Long.MAX_VALUE);
+                            if (pruneWithStationGraph) {
+                                router.setPruningWeight(highestWeightForDominationTest);
+                            }
                         }
                     }
                 }
@@ -255,7 +280,7 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
 
             List<List<Label.Transition>> pathsToStations = discoveredSolutions.stream()
                     .map(originalSolutions::get)
-                    .map(l -> new TripFromLabel(gtfsStorage, realtimeFeed).getTransitions(arriveBy, flagEncoder, graphExplorer, l)).collect(Collectors.toList());
+                    .map(l -> tripFromLabel.getTransitions(arriveBy, flagEncoder, graphExplorer, l)).collect(Collectors.toList());
 
             List<List<Label.Transition>> paths = pathsToStations.stream().map(p -> {
                 if (arriveBy) {
@@ -286,6 +311,9 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
             }
             response.getHints().put("visited_nodes.sum", visitedNodes);
             response.getHints().put("visited_nodes.average", visitedNodes);
+            if (pruneWithStationGraph) {
+                response.getHints().put("station_graph.pruned_labels", router.getPrunedLabels());
+            }
             if (discoveredSolutions.isEmpty()) {
                 response.addError(new RuntimeException("No route found"));
             }
@@ -294,14 +322,34 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
     }
 
     public GraphHopperGtfs(PtFlagEncoder flagEncoder, TranslationMap translationMap, GraphHopperStorage graphHopperStorage, LocationIndex locationIndex, GtfsStorage gtfsStorage, RealtimeFeed realtimeFeed) {
+        this(flagEncoder, translationMap, graphHopperStorage, locationIndex, gtfsStorage, () -> realtimeFeed);
+    }
+
+    public GraphHopperGtfs(PtFlagEncoder flagEncoder, TranslationMap translationMap, GraphHopperStorage graphHopperStorage, LocationIndex locationIndex, GtfsStorage gtfsStorage, Supplier<RealtimeFeed> realtimeFeedSupplier) {
         this.flagEncoder = flagEncoder;
         this.accessEgressWeighting = new FastestWeighting(graphHopperStorage.getEncodingManager().getEncoder("foot"));
         this.translationMap = translationMap;
         this.graphHopperStorage = graphHopperStorage;
         this.locationIndex = locationIndex;
         this.gtfsStorage = gtfsStorage;
-        this.realtimeFeed = realtimeFeed;
-        this.tripFromLabel = new TripFromLabel(this.gtfsStorage, this.realtimeFeed);
+        this.realtimeFeedSupplier = realtimeFeedSupplier;
+    }
+
+    /**
+     * Limits the number of searches a travel time request can cause, i.e. its departure window divided by its
+     * departure step, plus one.
+     */
+    public GraphHopperGtfs setMaxDepartures(int maxDepartures) {
+        this.maxDepartures = maxDepartures;
+        return this;
+    }
+
+    /**
+     * Limits the {@link Parameters.PT#TIME_LIMIT} a travel time request may ask for, in seconds.
+     */
+    public GraphHopperGtfs setMaxTimeLimit(long maxTimeLimitSeconds) {
+        this.maxTimeLimitSeconds = maxTimeLimitSeconds;
+        return this;
     }
 
     public static GtfsStorage createGtfsStorage() {
@@ -361,12 +409,24 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
                         });
                 gtfsReader.readGraph();
             }
+            gtfsStorage.prepareTripEdgeStorage();
             graphHopperStorage.flush();
             return graphHopperStorage;
         }
     }
 
 
+    /**
+     * Precomputes the station graph which is used to prune station-to-station queries, unless it
+     * already exists for this storage. This is optional and can be done after the import.
+     */
+    public static void prepareStationGraph(GraphHopperStorage graphHopperStorage, PtFlagEncoder ptFlagEncoder) {
+        GtfsStorage gtfsStorage = (GtfsStorage) graphHopperStorage.getExtension();
+        if (gtfsStorage.getStationGraph() == null) {
+            gtfsStorage.prepareStationGraph(graphHopperStorage, ptFlagEncoder);
+        }
+    }
+
     public static LocationIndex createOrLoadIndex(GHDirectory directory, GraphHopperStorage graphHopperStorage) {
         final EdgeFilter filter = DefaultEdgeFilter.allEdges(graphHopperStorage.getEncodingManager().getEncoder("foot"));
         Graph walkNetwork = GraphSupport.filteredView(graphHopperStorage, filter);
@@ -386,6 +446,122 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
         return new RequestHandler(request).route();
     }
 
+    /**
+     * Calculates the earliest arrival at every node which can be reached from the single point of the request
+     * within {@link Parameters.PT#TIME_LIMIT}. With a {@link Parameters.PT#DEPARTURE_WINDOW}, the search is
+     * repeated every {@link Parameters.PT#DEPARTURE_STEP}, so that percentiles over the window can be taken.
+     */
+    public PtTravelTimes calcTravelTimes(GHRequest request) {
+        if (request.getPoints().size() != 1) {
+            throw new IllegalArgumentException("Exactly 1 point has to be specified, but was:" + request.getPoints().size());
+        }
+        return new TravelTimeHandler(request).calcTravelTimes(request.getPoints().get(0), 0);
+    }
+
+    /**
+     * Calculates the travel times from every point of the request to every destination, with one one-to-all
+     * search per origin instead of one search per pair.
+     *
+     * @return the travel times in milliseconds for the given percentile of the departure window, -1 where the
+     * destination cannot be reached within the time limit
+     */
+    public long[][] calcMatrix(GHRequest request, List<GHPoint> destinations, double percentile) {
+        TravelTimeHandler handler = new TravelTimeHandler(request);
+        int[] destinationNodes = new int[destinations.size()];
+        for (int i = 0; i < destinations.size(); i++) {
+            destinationNodes[i] = findClosest(destinations.get(i), request.getPoints().size() + i).getClosestNode();
+        }
+        long[][] matrix = new long[request.getPoints().size()][destinations.size()];
+        for (int i = 0; i < request.getPoints().size(); i++) {
+            PtTravelTimes travelTimes = handler.calcTravelTimes(request.getPoints().get(i), i);
+            for (int j = 0; j < destinationNodes.length; j++) {
+                matrix[i][j] = travelTimes.getTravelTime(destinationNodes[j], percentile);
+            }
+        }
+        return matrix;
+    }
+
+    private class TravelTimeHandler {
+        private final int maxVisitedNodesForRequest;
+        private final Instant initialTime;
+        private final long timeLimitMillis;
+        private final long departureWindowMillis;
+        private final long departureStepMillis;
+        private final int departures;
+        private final double walkSpeedKmH;
+        private final double maxWalkDistancePerLeg;
+        private final int blockedRouteTypes;
+        private final RealtimeFeed realtimeFeed = realtimeFeedSupplier.get();
+        private final List<VirtualEdgeIteratorState> extraEdges = new ArrayList<>(realtimeFeed.getAdditionalEdges());
+
+        TravelTimeHandler(GHRequest request) {
+            maxVisitedNodesForRequest = request.getHints().getInt(Parameters.Routing.MAX_VISITED_NODES, 1_000_000);
+            final String departureTimeString = request.getHints().get(Parameters.PT.EARLIEST_DEPARTURE_TIME, "");
+            try {
+                initialTime = Instant.parse(departureTimeString);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal value for required parameter %s: [%s]", Parameters.PT.EARLIEST_DEPARTURE_TIME, departureTimeString));
+            }
+            timeLimitMillis = request.getHints().getLong(Parameters.PT.TIME_LIMIT, 3600) * 1000;
+            departureWindowMillis = request.getHints().getLong(Parameters.PT.DEPARTURE_WINDOW, 0) * 1000;
+            departureStepMillis = request.getHints().getLong(Parameters.PT.DEPARTURE_STEP, 60) * 1000;
+            if (timeLimitMillis <= 0 || departureWindowMillis < 0 || departureStepMillis <= 0) {
+                throw new IllegalArgumentException("Time limit and departure step have to be positive, the departure window must not be negative");
+            }
+            if (timeLimitMillis > maxTimeLimitSeconds * 1000) {
+                throw new IllegalArgumentException("The time limit must not exceed " + maxTimeLimitSeconds + " seconds");
+            }
+            long departures = departureWindowMillis / departureStepMillis + 1;
+            if (departures > maxDepartures) {
+                throw new IllegalArgumentException("The departure window must not contain more than " + maxDepartures + " departures, but contained " + departures);
+            }
+            this.departures = (int) departures;
+            walkSpeedKmH = request.getHints().getDouble(Parameters.PT.WALK_SPEED, 5.0);
+            blockedRouteTypes = request.getHints().getInt(Parameters.PT.BLOCKED_ROUTE_TYPES, 0);
+            maxWalkDistancePerLeg = request.getHints().getDouble(Parameters.PT.MAX_WALK_DISTANCE_PER_LEG, Integer.MAX_VALUE);
+        }
+
+        PtTravelTimes calcTravelTimes(GHPoint origin, int indexForErrorMessage) {
+            QueryResult source = findClosest(origin, indexForErrorMessage);
+            QueryGraph queryGraph = new QueryGraph(new WrapperGraph(graphHopperStorage, extraEdges));
+            queryGraph.lookup(Collections.singletonList(source)); // modifies queryGraph and source!
+            GraphExplorer graphExplorer = new GraphExplorer(queryGraph, accessEgressWeighting, flagEncoder, gtfsStorage, realtimeFeed, false, extraEdges, false, walkSpeedKmH);
+
+            PtTravelTimes travelTimes = new PtTravelTimes(departures);
+            for (int departure = 0; departure < departures; departure++) {
+                Instant departureTime = initialTime.plusMillis(departure * departureStepMillis);
+                // With transfers not minded, this is an earliest arrival search, so the first label of a node is its best.
+                MultiCriteriaLabelSetting router = new MultiCriteriaLabelSetting(graphExplorer, flagEncoder, false, maxWalkDistancePerLeg, false, false, false, maxVisitedNodesForRequest, new ArrayList<>());
+                Iterator<Label> iterator = router.calcLabels(source.getClosestNode(), -1, departureTime, blockedRouteTypes).iterator();
+                while (iterator.hasNext()) {
+                    Label label = iterator.next();
+                    long travelTime = label.currentTime - departureTime.toEpochMilli();
+                    // Impossible labels come last in the queue
+                    if (label.impossible || travelTime > timeLimitMillis) {
+                        break;
+                    }
+                    if (label.adjNode < graphHopperStorage.getNodes()) {
+                        travelTimes.setTravelTime(label.adjNode, departure, travelTime);
+                    }
+                }
+                travelTimes.addVisitedNodes(router.getVisitedNodes());
+            }
+            return travelTimes;
+        }
+    }
+
+    private QueryResult findClosest(GHPoint point, int indexForErrorMessage) {
+        final EdgeFilter filter = DefaultEdgeFilter.allEdges(graphHopperStorage.getEncodingManager().getEncoder("foot"));
+        QueryResult source = locationIndex.findClosest(point.lat, point.lon, filter);
+        if (!source.isValid()) {
+            throw new PointNotFoundException("Cannot find point: " + point, indexForErrorMessage);
+        }
+        if (flagEncoder.getEdgeType(source.getClosestEdge().getFlags()) != GtfsStorage.EdgeType.HIGHWAY) {
+            throw new RuntimeException(flagEncoder.getEdgeType(source.getClosestEdge().getFlags()).name());
+        }
+        return source;
+    }
+
     private class TransferWithTime {
         public String id;
         Transfer transfer;
@@ -410,7 +586,7 @@ public final class GraphHopperGtfs implements GraphHopperAPI {
 
                     QueryGraph queryGraph = new QueryGraph(graphHopperStorage);
                     queryGraph.lookup(Collections.emptyList());
-                    final GraphExplorer graphExplorer = new GraphExplorer(queryGraph, accessEgressWeighting, flagEncoder, gtfsStorage, realtimeFeed, false, Collections.emptyList(), true, 5.0);
+                    final GraphExplorer graphExplorer = new GraphExplorer(queryGraph, accessEgressWeighting, flagEncoder, gtfsStorage, realtimeFeedSupplier.get(), false, Collections.emptyList(), true, 5.0);
 
                     MultiCriteriaLabelSetting router = new MultiCriteriaLabelSetting(graphExplorer, flagEncoder, false, Double.MAX_VALUE, false, false, false, Integer.MAX_VALUE, new ArrayList<>());
                     final Stream<Label> labels = router.calcLabels(fromnode, tonode, Instant.ofEpochMilli(0), 0);
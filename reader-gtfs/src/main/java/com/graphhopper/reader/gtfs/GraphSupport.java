@@ -161,6 +161,17 @@ class GraphSupport {
                         return this;
                     }
 
+                    @Override
+                    public int getExtraFlags(int index) {
+                        return edge.getExtraFlags(index);
+                    }
+
+                    @Override
+                    public EdgeIteratorState setExtraFlags(int index, int value) {
+                        edge.setExtraFlags(index, value);
+                        return this;
+                    }
+
                     @Override
                     public boolean isForward(FlagEncoder encoder) {
                         return edge.isForward(encoder);
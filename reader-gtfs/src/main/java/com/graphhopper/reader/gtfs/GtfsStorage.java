@@ -21,7 +21,9 @@ package com.graphhopper.reader.gtfs;
 import com.conveyal.gtfs.GTFSFeed;
 import com.conveyal.gtfs.model.Fare;
 import com.conveyal.gtfs.model.FareRule;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.transit.realtime.GtfsRealtime;
+import com.graphhopper.gtfs.fare.FareCalculator;
 import com.graphhopper.gtfs.fare.FixedFareAttributeLoader;
 import com.graphhopper.storage.Directory;
 import com.graphhopper.storage.Graph;
@@ -99,11 +101,15 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 	private Map<Integer, String> routes;
 
 	private Map<String, Fare> fares;
+	private volatile FareCalculator fareCalculator;
 	private Map<String, int[]> boardEdgesForTrip;
 	private Map<String, int[]> leaveEdgesForTrip;
 
 	private Map<String, Integer> stationNodes;
 
+	private StationGraph stationGraph;
+	private TripEdgeStorage tripEdgeStorage;
+
 	enum EdgeType {
 		HIGHWAY, ENTER_TIME_EXPANDED_NETWORK, LEAVE_TIME_EXPANDED_NETWORK, ENTER_PT, EXIT_PT, HOP, DWELL, BOARD, ALIGHT, OVERNIGHT, TRANSFER, WAIT, WAIT_ARRIVAL
     }
@@ -158,6 +164,14 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 				throw new RuntimeException(e);
 			}
 		}
+		TripEdgeStorage tripEdgeStorage = new TripEdgeStorage(dir);
+		if (tripEdgeStorage.loadExisting()) {
+			this.tripEdgeStorage = tripEdgeStorage;
+		}
+		StationGraph stationGraph = new StationGraph(dir);
+		if (stationGraph.loadExisting()) {
+			this.stationGraph = stationGraph;
+		}
 		return true;
 	}
 
@@ -217,8 +231,36 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 		feed.fares.putAll(fares);
 	}
 
+	void prepareStationGraph(Graph graph, PtFlagEncoder encoder) {
+		StationGraph stationGraph = new StationGraph(dir);
+		stationGraph.create(graph, encoder);
+		stationGraph.flush();
+		this.stationGraph = stationGraph;
+	}
+
+	/**
+	 * @return the precomputed station graph, or null if it was not prepared for this storage
+	 */
+	StationGraph getStationGraph() {
+		return stationGraph;
+	}
+
+	/**
+	 * Finishes the import: the trip descriptors and stop sequences are copied from MapDB into the
+	 * edge-indexed storage, which serves the lookups of the routing from now on.
+	 */
+	void prepareTripEdgeStorage() {
+		TripEdgeStorage tripEdgeStorage = new TripEdgeStorage(dir);
+		tripEdgeStorage.create(tripDescriptors, stopSequences);
+		tripEdgeStorage.flush();
+		this.tripEdgeStorage = tripEdgeStorage;
+	}
+
 	@Override
 	public void flush() {
+		if (tripEdgeStorage != null) {
+			tripEdgeStorage.flush();
+		}
 	}
 
 	@Override
@@ -226,6 +268,12 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 		if (!isClosed) {
 			isClosed = true;
 			data.close();
+			if (tripEdgeStorage != null) {
+				tripEdgeStorage.close();
+			}
+			if (stationGraph != null) {
+				stationGraph.close();
+			}
 			for (GTFSFeed feed : gtfsFeeds.values()) {
 				feed.close();
 			}
@@ -266,6 +314,31 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 		return stopSequences;
 	}
 
+	/**
+	 * @return the decoded trip descriptor of a board or alight edge, or null if the edge has none
+	 */
+	GtfsRealtime.TripDescriptor getTripDescriptor(int edge) {
+		if (tripEdgeStorage != null) {
+			return tripEdgeStorage.getTripDescriptor(edge);
+		}
+		byte[] tripDescriptor = tripDescriptors.get(edge);
+		if (tripDescriptor == null) {
+			return null;
+		}
+		try {
+			return GtfsRealtime.TripDescriptor.parseFrom(tripDescriptor);
+		} catch (InvalidProtocolBufferException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the stop sequence of a board, alight or hop edge, or null if the edge has none
+	 */
+	Integer getStopSequence(int edge) {
+		return tripEdgeStorage != null ? tripEdgeStorage.getStopSequence(edge) : stopSequences.get(edge);
+	}
+
 	@Override
 	public Map<String, int[]> getBoardEdgesForTrip() {
 		return boardEdgesForTrip;
@@ -286,6 +359,16 @@ public class GtfsStorage implements GraphExtension, GtfsStorageI {
 		return fares;
 	}
 
+	FareCalculator getFareCalculator() {
+		FareCalculator result = fareCalculator;
+		if (result == null) {
+			// Compiled on first use, when the import has finished. Racing threads build equal ones.
+			result = new FareCalculator(fares);
+			fareCalculator = result;
+		}
+		return result;
+	}
+
 	public Map<String, GTFSFeed> getGtfsFeeds() {
 		return Collections.unmodifiableMap(gtfsFeeds);
 	}
@@ -25,6 +25,7 @@ import com.graphhopper.util.EdgeIteratorState;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -53,9 +54,12 @@ class MultiCriteriaLabelSetting {
     private final boolean mindTransfers;
     private final boolean profileQuery;
     private int visitedNodes;
+    private int prunedLabels;
     private final GraphExplorer explorer;
     private double betaTransfers;
     private double betaWalkTime = 1.0;
+    private IntToLongFunction lowerBound = node -> 0;
+    private long pruningWeight = Long.MAX_VALUE;
 
     MultiCriteriaLabelSetting(GraphExplorer explorer, PtFlagEncoder flagEncoder, boolean reverse, double maxWalkDistancePerLeg, boolean ptOnly, boolean mindTransfers, boolean profileQuery, int maxVisitedNodes, List<Label> solutions) {
         this.flagEncoder = flagEncoder;
@@ -95,6 +99,21 @@ class MultiCriteriaLabelSetting {
         this.betaWalkTime = betaWalkTime;
     }
 
+    /**
+     * Sets a lower bound of the remaining weight from a node to the target. Together with the pruning
+     * weight, labels are dropped as soon as they cannot lead to a solution anymore.
+     */
+    void setLowerBound(IntToLongFunction lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Labels whose weight plus lower bound exceeds this weight are not inserted into the queue.
+     */
+    void setPruningWeight(long pruningWeight) {
+        this.pruningWeight = pruningWeight;
+    }
+
     private class MultiCriteriaLabelSettingSpliterator extends Spliterators.AbstractSpliterator<Label> {
 
         private final int from;
@@ -183,6 +202,10 @@ class MultiCriteriaLabelSetting {
         }
 
         private void insertIfNotDominated(EdgeIteratorState edge, Collection<Label> sptEntries, Label label) {
+            if (pruningWeight != Long.MAX_VALUE && weight(label) + lowerBound.applyAsLong(label.adjNode) > pruningWeight) {
+                prunedLabels++;
+                return;
+            }
             if (isNotDominatedByAnyOf(label, sptEntries)) {
                 if (isNotDominatedByAnyOf(label, targetLabels)) {
                     removeDominated(label, sptEntries);
@@ -276,4 +299,11 @@ class MultiCriteriaLabelSetting {
         return visitedNodes;
     }
 
+    /**
+     * @return the number of labels which were dropped because of the lower bound, see setLowerBound
+     */
+    int getPrunedLabels() {
+        return prunedLabels;
+    }
+
 }
@@ -0,0 +1,93 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Travel times from one origin to every node of the graph which was reached within the time limit, one per
+ * departure time of the departure window.
+ *
+ * @see GraphHopperGtfs#calcTravelTimes(com.graphhopper.GHRequest)
+ */
+public class PtTravelTimes {
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final int departures;
+    private final IntObjectHashMap<int[]> travelTimes = new IntObjectHashMap<>();
+    private int visitedNodes;
+
+    PtTravelTimes(int departures) {
+        this.departures = departures;
+    }
+
+    void setTravelTime(int node, int departure, long travelTimeMillis) {
+        int[] times = travelTimes.get(node);
+        if (times == null) {
+            times = new int[departures];
+            Arrays.fill(times, UNREACHED);
+            travelTimes.put(node, times);
+        }
+        times[departure] = (int) Math.min(times[departure], travelTimeMillis);
+    }
+
+    void addVisitedNodes(int visitedNodes) {
+        this.visitedNodes += visitedNodes;
+    }
+
+    /**
+     * @return the number of departure times which were searched
+     */
+    public int getDepartures() {
+        return departures;
+    }
+
+    /**
+     * @return the nodes which were reached for at least one departure time
+     */
+    public int[] getNodes() {
+        return travelTimes.keys().toArray();
+    }
+
+    /**
+     * @param percentile between 0 and 100. 0 is the best case over the departure window, 100 the worst and 50
+     *                   the median.
+     * @return the travel time in milliseconds which is not exceeded for the given percentile of the departure
+     * times, or -1 if the node was not reached within the time limit often enough.
+     */
+    public long getTravelTime(int node, double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile has to be in the range [0, 100], but was " + percentile);
+
+        int[] times = travelTimes.get(node);
+        if (times == null)
+            return -1;
+        int[] sorted = times.clone();
+        Arrays.sort(sorted);
+        int index = Math.max(0, (int) Math.ceil(percentile / 100 * departures) - 1);
+        return sorted[index] == UNREACHED ? -1 : sorted[index];
+    }
+
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntLongHashMap;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import com.carrotsearch.hppc.cursors.IntLongCursor;
+import com.google.transit.realtime.GtfsRealtime;
+import com.graphhopper.routing.VirtualEdgeIteratorState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The blocked edges, delays, trip updates and overlay edges which realtime messages changed on top of an older
+ * delta. A published {@link RealtimeFeed} only references the newest delta, so publishing the result of a message
+ * copies nothing but the changes of this message. Once published, a delta is never modified again. Instead
+ * {@link #compact()} merges it into new deltas together with older ones which are at most twice as large, so
+ * every delta in the chain is more than twice as large as the next newer one and lookups stay logarithmic.
+ *
+ * @see RealtimeFeedStore
+ */
+final class RealtimeDelta {
+    // a delay an older delta has and this one removes
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final RealtimeDelta previous;
+    private final IntHashSet blockedEdges = new IntHashSet();
+    private final IntHashSet unblockedEdges = new IntHashSet();
+    private final IntLongHashMap delaysForBoardEdges = new IntLongHashMap();
+    private final IntLongHashMap delaysForAlightEdges = new IntLongHashMap();
+    // a null value is a trip update an older delta has and this one removes
+    private final Map<GtfsRealtime.TripDescriptor, GtfsRealtime.TripUpdate> tripUpdates = new HashMap<>();
+    private final List<VirtualEdgeIteratorState> additionalEdges = new ArrayList<>();
+
+    RealtimeDelta(RealtimeDelta previous) {
+        this.previous = previous;
+    }
+
+    void block(int edge) {
+        unblockedEdges.remove(edge);
+        blockedEdges.add(edge);
+    }
+
+    void unblock(int edge) {
+        blockedEdges.remove(edge);
+        if (previous != null)
+            unblockedEdges.add(edge);
+    }
+
+    void putDelayForBoardEdge(int edge, long delay) {
+        delaysForBoardEdges.put(edge, delay);
+    }
+
+    void removeDelayForBoardEdge(int edge) {
+        remove(delaysForBoardEdges, edge);
+    }
+
+    void putDelayForAlightEdge(int edge, long delay) {
+        delaysForAlightEdges.put(edge, delay);
+    }
+
+    void removeDelayForAlightEdge(int edge) {
+        remove(delaysForAlightEdges, edge);
+    }
+
+    private void remove(IntLongHashMap delays, int edge) {
+        if (previous != null)
+            delays.put(edge, REMOVED);
+        else
+            delays.remove(edge);
+    }
+
+    void putTripUpdate(GtfsRealtime.TripDescriptor normalizedTripDescriptor, GtfsRealtime.TripUpdate tripUpdate) {
+        tripUpdates.put(normalizedTripDescriptor, tripUpdate);
+    }
+
+    void removeTripUpdate(GtfsRealtime.TripDescriptor normalizedTripDescriptor) {
+        if (previous != null)
+            tripUpdates.put(normalizedTripDescriptor, null);
+        else
+            tripUpdates.remove(normalizedTripDescriptor);
+    }
+
+    void addEdge(VirtualEdgeIteratorState edge) {
+        additionalEdges.add(edge);
+    }
+
+    boolean isBlocked(int edge) {
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            if (delta.blockedEdges.contains(edge))
+                return true;
+            if (delta.unblockedEdges.contains(edge))
+                return false;
+        }
+        return false;
+    }
+
+    long getDelayForBoardEdge(int edge) {
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            int index = delta.delaysForBoardEdges.indexOf(edge);
+            if (delta.delaysForBoardEdges.indexExists(index))
+                return orZero(delta.delaysForBoardEdges.indexGet(index));
+        }
+        return 0;
+    }
+
+    long getDelayForAlightEdge(int edge) {
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            int index = delta.delaysForAlightEdges.indexOf(edge);
+            if (delta.delaysForAlightEdges.indexExists(index))
+                return orZero(delta.delaysForAlightEdges.indexGet(index));
+        }
+        return 0;
+    }
+
+    private static long orZero(long delay) {
+        return delay == REMOVED ? 0 : delay;
+    }
+
+    /**
+     * @return the trip update for the normalized trip descriptor or null if there is none
+     */
+    GtfsRealtime.TripUpdate getTripUpdate(GtfsRealtime.TripDescriptor normalizedTripDescriptor) {
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            if (delta.tripUpdates.containsKey(normalizedTripDescriptor))
+                return delta.tripUpdates.get(normalizedTripDescriptor);
+        }
+        return null;
+    }
+
+    /**
+     * @return a new list of the overlay edges of all deltas, the most recently added edges first
+     */
+    List<VirtualEdgeIteratorState> getAdditionalEdges() {
+        List<VirtualEdgeIteratorState> edges = new ArrayList<>();
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            for (int i = delta.additionalEdges.size() - 1; i >= 0; i--) {
+                edges.add(delta.additionalEdges.get(i));
+            }
+        }
+        return edges;
+    }
+
+    int getAdditionalEdgeCount() {
+        int count = 0;
+        for (RealtimeDelta delta = this; delta != null; delta = delta.previous) {
+            count += delta.additionalEdges.size();
+        }
+        return count;
+    }
+
+    private int size() {
+        return blockedEdges.size() + unblockedEdges.size() + delaysForBoardEdges.size() + delaysForAlightEdges.size()
+                + tripUpdates.size() + additionalEdges.size();
+    }
+
+    /**
+     * Must be called when all changes of a message were added to this delta.
+     *
+     * @return the delta to publish, which is this one, the previous one if this one is empty, or a merged one
+     */
+    RealtimeDelta compact() {
+        if (previous != null && size() == 0)
+            return previous;
+        RealtimeDelta delta = this;
+        while (delta.previous != null && delta.previous.size() <= 2 * delta.size()) {
+            RealtimeDelta merged = new RealtimeDelta(delta.previous.previous);
+            merged.addAll(delta.previous);
+            merged.addAll(delta);
+            delta = merged;
+        }
+        return delta;
+    }
+
+    private void addAll(RealtimeDelta newer) {
+        for (IntCursor c : newer.blockedEdges)
+            block(c.value);
+        for (IntCursor c : newer.unblockedEdges)
+            unblock(c.value);
+        for (IntLongCursor c : newer.delaysForBoardEdges) {
+            if (c.value == REMOVED)
+                removeDelayForBoardEdge(c.key);
+            else
+                putDelayForBoardEdge(c.key, c.value);
+        }
+        for (IntLongCursor c : newer.delaysForAlightEdges) {
+            if (c.value == REMOVED)
+                removeDelayForAlightEdge(c.key);
+            else
+                putDelayForAlightEdge(c.key, c.value);
+        }
+        newer.tripUpdates.forEach((key, tripUpdate) -> {
+            if (tripUpdate == null)
+                removeTripUpdate(key);
+            else
+                putTripUpdate(key, tripUpdate);
+        });
+        additionalEdges.addAll(newer.additionalEdges);
+    }
+}
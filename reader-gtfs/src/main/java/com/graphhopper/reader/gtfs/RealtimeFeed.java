@@ -18,389 +18,90 @@
 
 package com.graphhopper.reader.gtfs;
 
-import com.carrotsearch.hppc.IntHashSet;
-import com.carrotsearch.hppc.IntIntHashMap;
-import com.carrotsearch.hppc.IntLongHashMap;
 import com.conveyal.gtfs.GTFSFeed;
-import com.conveyal.gtfs.model.Fare;
-import com.conveyal.gtfs.model.Frequency;
 import com.conveyal.gtfs.model.StopTime;
 import com.conveyal.gtfs.model.Trip;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.transit.realtime.GtfsRealtime;
 import com.graphhopper.routing.VirtualEdgeIteratorState;
-import com.graphhopper.routing.util.AllEdgesIterator;
-import com.graphhopper.routing.util.EdgeFilter;
-import com.graphhopper.storage.Graph;
-import com.graphhopper.storage.GraphExtension;
 import com.graphhopper.storage.GraphHopperStorage;
-import com.graphhopper.storage.NodeAccess;
-import com.graphhopper.util.EdgeExplorer;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.PointList;
-import com.graphhopper.util.shapes.BBox;
 import org.mapdb.Fun;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate.ScheduleRelationship.NO_DATA;
 import static com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate.ScheduleRelationship.SKIPPED;
-import static java.time.temporal.ChronoUnit.DAYS;
 
 public class RealtimeFeed {
     private static final Logger logger = LoggerFactory.getLogger(RealtimeFeed.class);
-    private final IntHashSet blockedEdges;
-    private final IntLongHashMap delaysForBoardEdges;
-    private final IntLongHashMap delaysForAlightEdges;
-    private final List<VirtualEdgeIteratorState> additionalEdges;
-    public final Map<String, GtfsRealtime.FeedMessage> feedMessages;
+    private final RealtimeDelta delta;
+    private final Map<String, GtfsRealtime.FeedHeader> feedHeaders;
     private final GtfsStorage staticGtfs;
     private final Map<Integer, byte[]> additionalTripDescriptors;
     private final Map<Integer, Integer> stopSequences;
     private final Map<Integer, GtfsStorage.Validity> validities;
     private final Map<Integer, GtfsStorage.FeedIdWithTimezone> feedIdWithTimezones;
+    private volatile List<VirtualEdgeIteratorState> additionalEdges;
 
-    private RealtimeFeed(GtfsStorage staticGtfs, Map<String, GtfsRealtime.FeedMessage> feedMessages, IntHashSet blockedEdges,
-                         IntLongHashMap delaysForBoardEdges, IntLongHashMap delaysForAlightEdges, List<VirtualEdgeIteratorState> additionalEdges, Map<Integer, byte[]> tripDescriptors, Map<Integer, Integer> stopSequences, Map<GtfsStorage.Validity, Integer> operatingDayPatterns, Map<GtfsStorage.FeedIdWithTimezone, Integer> writableTimeZones) {
+    RealtimeFeed(GtfsStorage staticGtfs, Map<String, GtfsRealtime.FeedHeader> feedHeaders, RealtimeDelta delta,
+                 Map<Integer, byte[]> tripDescriptors, Map<Integer, Integer> stopSequences, Map<Integer, GtfsStorage.Validity> validities, Map<Integer, GtfsStorage.FeedIdWithTimezone> feedIdWithTimezones) {
         this.staticGtfs = staticGtfs;
-        this.feedMessages = feedMessages;
-        this.blockedEdges = blockedEdges;
-        this.delaysForBoardEdges = delaysForBoardEdges;
-        this.delaysForAlightEdges = delaysForAlightEdges;
-        this.additionalEdges = additionalEdges;
+        this.feedHeaders = feedHeaders;
+        this.delta = delta;
         this.additionalTripDescriptors = tripDescriptors;
         this.stopSequences = stopSequences;
-        Map<Integer, GtfsStorage.Validity> reverseOperatingDayPatterns = new HashMap<>();
-        for (Map.Entry<GtfsStorage.Validity, Integer> entry : operatingDayPatterns.entrySet()) {
-            reverseOperatingDayPatterns.put(entry.getValue(), entry.getKey());
-        }
-        this.validities = Collections.unmodifiableMap(reverseOperatingDayPatterns);
-        Map<Integer, GtfsStorage.FeedIdWithTimezone> feedIdWithTimezoneMap = new HashMap<>();
-        for (Map.Entry<GtfsStorage.FeedIdWithTimezone, Integer> entry : writableTimeZones.entrySet()) {
-            feedIdWithTimezoneMap.put(entry.getValue(), entry.getKey());
-        }
-        this.feedIdWithTimezones = Collections.unmodifiableMap(feedIdWithTimezoneMap);
+        this.validities = validities;
+        this.feedIdWithTimezones = feedIdWithTimezones;
     }
 
     public static RealtimeFeed empty(GtfsStorage staticGtfs) {
-        return new RealtimeFeed(staticGtfs, Collections.emptyMap(), new IntHashSet(), new IntLongHashMap(), new IntLongHashMap(), Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap(), staticGtfs.getOperatingDayPatterns(), staticGtfs.getWritableTimeZones());
+        return new RealtimeFeed(staticGtfs, Collections.emptyMap(), new RealtimeDelta(null), Collections.emptyMap(), Collections.emptyMap(),
+                Collections.unmodifiableMap(reverse(staticGtfs.getOperatingDayPatterns())), Collections.unmodifiableMap(reverse(staticGtfs.getWritableTimeZones())));
     }
 
-    public static RealtimeFeed fromProtobuf(GraphHopperStorage graphHopperStorage, GtfsStorage staticGtfs, PtFlagEncoder encoder, Map<String, GtfsRealtime.FeedMessage> feedMessages) {
-        final IntHashSet blockedEdges = new IntHashSet();
-        final IntLongHashMap delaysForBoardEdges = new IntLongHashMap();
-        final IntLongHashMap delaysForAlightEdges = new IntLongHashMap();
-        final LinkedList<VirtualEdgeIteratorState> additionalEdges = new LinkedList<>();
-        final Graph overlayGraph = new Graph() {
-            int nNodes = 0;
-            int firstEdge = graphHopperStorage.getAllEdges().length();
-            final NodeAccess nodeAccess = new NodeAccess() {
-                IntIntHashMap additionalNodeFields = new IntIntHashMap();
-
-                @Override
-                public int getAdditionalNodeField(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public void setAdditionalNodeField(int nodeId, int additionalValue) {
-                    additionalNodeFields.put(nodeId, additionalValue);
-                }
-
-                @Override
-                public boolean is3D() {
-                    return false;
-                }
-
-                @Override
-                public int getDimension() {
-                    return 0;
-                }
-
-                @Override
-                public void ensureNode(int nodeId) {
-
-                }
-
-                @Override
-                public void setNode(int nodeId, double lat, double lon) {
-
-                }
-
-                @Override
-                public void setNode(int nodeId, double lat, double lon, double ele) {
-
-                }
-
-                @Override
-                public double getLatitude(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public double getLat(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public double getLongitude(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public double getLon(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public double getElevation(int nodeId) {
-                    return 0;
-                }
-
-                @Override
-                public double getEle(int nodeId) {
-                    return 0;
-                }
-            };
-            @Override
-            public Graph getBaseGraph() {
-                return graphHopperStorage;
-            }
-
-            @Override
-            public int getNodes() {
-                return graphHopperStorage.getNodes() + nNodes;
-            }
-
-            @Override
-            public NodeAccess getNodeAccess() {
-                return nodeAccess;
-            }
-
-            @Override
-            public BBox getBounds() {
-                return null;
-            }
-
-            @Override
-            public EdgeIteratorState edge(int a, int b) {
-                int edge = firstEdge++;
-                final VirtualEdgeIteratorState newEdge = new VirtualEdgeIteratorState(-1,
-                        edge, a, b, 0.0, 0, "", new PointList());
-                final VirtualEdgeIteratorState reverseNewEdge = new VirtualEdgeIteratorState(-1,
-                        edge, b, a, 0.0, 0, "", new PointList());
-                newEdge.setReverseEdge(reverseNewEdge);
-                reverseNewEdge.setReverseEdge(newEdge);
-                additionalEdges.push(newEdge);
-                return newEdge;
-            }
-
-            @Override
-            public EdgeIteratorState edge(int a, int b, double distance, boolean bothDirections) {
-                return null;
-            }
-
-            @Override
-            public EdgeIteratorState getEdgeIteratorState(int edgeId, int adjNode) {
-                return null;
-            }
-
-            @Override
-            public AllEdgesIterator getAllEdges() {
-                return null;
-            }
-
-            @Override
-            public EdgeExplorer createEdgeExplorer(EdgeFilter filter) {
-                return null;
-            }
-
-            @Override
-            public EdgeExplorer createEdgeExplorer() {
-                return graphHopperStorage.createEdgeExplorer();
-            }
-
-            @Override
-            public Graph copyTo(Graph g) {
-                return null;
-            }
-
-            @Override
-            public GraphExtension getExtension() {
-                throw new RuntimeException();
-            }
-        };
-
-        Map<GtfsStorage.Validity, Integer> operatingDayPatterns = new HashMap<>(staticGtfs.getOperatingDayPatterns());
-        Map<Integer, byte[]> tripDescriptors = new HashMap<>();
-        Map<Integer, Integer> stopSequences = new HashMap<>();
-        Map<String, int[]> boardEdgesForTrip = new HashMap<>();
-        Map<String, int[]> alightEdgesForTrip = new HashMap<>();
-        Map<GtfsStorage.FeedIdWithTimezone, Integer> writableTimeZones = new HashMap<>(staticGtfs.getWritableTimeZones());
-
-
-        feedMessages.forEach((feedKey, feedMessage) -> {
-            GTFSFeed feed = staticGtfs.getGtfsFeeds().get(feedKey);
-            ZoneId timezone = ZoneId.of(feed.agency.values().stream().findFirst().get().agency_timezone);
-            GtfsStorageI gtfsStorage = new GtfsStorageI() {
-                @Override
-                public Map<String, Fare> getFares() {
-                    return null;
-                }
-
-                @Override
-                public Map<GtfsStorage.Validity, Integer> getOperatingDayPatterns() {
-                    return operatingDayPatterns;
-                }
-
-                @Override
-                public Map<GtfsStorage.FeedIdWithTimezone, Integer> getWritableTimeZones() {
-                    return writableTimeZones;
-                }
-
-                @Override
-                public Map<Integer, byte[]> getTripDescriptors() {
-                    return tripDescriptors;
-                }
-
-                @Override
-                public Map<Integer, Integer> getStopSequences() {
-                    return stopSequences;
-                }
-
-                @Override
-                public Map<String, int[]> getBoardEdgesForTrip() {
-                    return boardEdgesForTrip;
-                }
-
-                @Override
-                public Map<String, int[]> getAlightEdgesForTrip() {
-                    return alightEdgesForTrip;
-                }
-
-                @Override
-                public Map<String, GTFSFeed> getGtfsFeeds() {
-                    HashMap<String, GTFSFeed> stringGTFSFeedHashMap = new HashMap<>();
-                    stringGTFSFeedHashMap.put(feedKey, feed);
-                    return stringGTFSFeedHashMap;
-                }
-
-                @Override
-                public Map<String, Transfers> getTransfers() {
-                    return staticGtfs.getTransfers();
-                }
-
-                @Override
-                public Map<String, Integer> getStationNodes() {
-                    return staticGtfs.getStationNodes();
-                }
-
-                @Override
-                public Map<Integer, String> getRoutes() {
-                    return staticGtfs.getRoutes();
-                }
-            };
-            final GtfsReader gtfsReader = new GtfsReader(feedKey, overlayGraph, gtfsStorage, encoder, null);
-            Instant timestamp = Instant.ofEpochSecond(feedMessage.getHeader().getTimestamp());
-            LocalDate dateToChange = timestamp.atZone(timezone).toLocalDate(); //FIXME
-            BitSet validOnDay = new BitSet();
-            LocalDate startDate = feed.calculateStats().getStartDate();
-            validOnDay.set((int) DAYS.between(startDate, dateToChange));
-            feedMessage.getEntityList().stream()
-                    .filter(GtfsRealtime.FeedEntity::hasTripUpdate)
-                    .map(GtfsRealtime.FeedEntity::getTripUpdate)
-                    .filter(tripUpdate -> tripUpdate.getTrip().getScheduleRelationship() == GtfsRealtime.TripDescriptor.ScheduleRelationship.SCHEDULED)
-                    .forEach(tripUpdate -> {
-                        Collection<Frequency> frequencies = feed.getFrequencies(tripUpdate.getTrip().getTripId());
-                        int timeOffset = (tripUpdate.getTrip().hasStartTime() && !frequencies.isEmpty()) ? LocalTime.parse(tripUpdate.getTrip().getStartTime()).toSecondOfDay() : 0;
-                        String key = GtfsStorage.tripKey(tripUpdate.getTrip(), !frequencies.isEmpty());
-                        final int[] boardEdges = staticGtfs.getBoardEdgesForTrip().get(key);
-                        final int[] leaveEdges = staticGtfs.getAlightEdgesForTrip().get(key);
-                        if (boardEdges == null || leaveEdges == null) {
-                            logger.warn("Trip not found: {}", tripUpdate.getTrip());
-                            return;
-                        }
-                        tripUpdate.getStopTimeUpdateList().stream()
-                                .filter(stopTimeUpdate -> stopTimeUpdate.getScheduleRelationship() == SKIPPED)
-                                .mapToInt(GtfsRealtime.TripUpdate.StopTimeUpdate::getStopSequence)
-                                .forEach(skippedStopSequenceNumber -> {
-                                    blockedEdges.add(boardEdges[skippedStopSequenceNumber]);
-                                    blockedEdges.add(leaveEdges[skippedStopSequenceNumber]);
-                                });
-                        GtfsReader.TripWithStopTimes tripWithStopTimes = toTripWithStopTimes(feed, tripUpdate);
-                        tripWithStopTimes.stopTimes.forEach(stopTime -> {
-                            if (stopTime.stop_sequence > leaveEdges.length-1) {
-                                logger.warn("Stop sequence number too high {} vs {}",stopTime.stop_sequence, leaveEdges.length);
-                                return;
-                            }
-                            final StopTime originalStopTime = feed.stop_times.get(new Fun.Tuple2(tripUpdate.getTrip().getTripId(), stopTime.stop_sequence));
-                            int arrivalDelay = stopTime.arrival_time - originalStopTime.arrival_time;
-                            delaysForAlightEdges.put(leaveEdges[stopTime.stop_sequence], arrivalDelay * 1000);
-                            int departureDelay = stopTime.departure_time - originalStopTime.departure_time;
-                            if (departureDelay > 0) {
-                                int boardEdge = boardEdges[stopTime.stop_sequence];
-                                int departureNode = graphHopperStorage.getEdgeIteratorState(boardEdge, Integer.MIN_VALUE).getAdjNode();
-                                int delayedBoardEdge = gtfsReader.addDelayedBoardEdge(timezone, tripUpdate.getTrip(), stopTime.stop_sequence, stopTime.departure_time + timeOffset, departureNode, validOnDay);
-                                delaysForBoardEdges.put(delayedBoardEdge, departureDelay * 1000);
-                            }
-                        });
-                    });
-            feedMessage.getEntityList().stream()
-                    .filter(GtfsRealtime.FeedEntity::hasTripUpdate)
-                    .map(GtfsRealtime.FeedEntity::getTripUpdate)
-                    .filter(tripUpdate -> tripUpdate.getTrip().getScheduleRelationship() == GtfsRealtime.TripDescriptor.ScheduleRelationship.ADDED)
-                    .forEach(tripUpdate -> {
-                        Trip trip = new Trip();
-                        trip.trip_id = tripUpdate.getTrip().getTripId();
-                        trip.route_id = tripUpdate.getTrip().getRouteId();
-                        final List<StopTime> stopTimes = tripUpdate.getStopTimeUpdateList().stream()
-                                .map(stopTimeUpdate -> {
-                                    final StopTime stopTime = new StopTime();
-                                    stopTime.stop_sequence = stopTimeUpdate.getStopSequence();
-                                    stopTime.stop_id = stopTimeUpdate.getStopId();
-                                    stopTime.trip_id = trip.trip_id;
-                                    final ZonedDateTime arrival_time = Instant.ofEpochSecond(stopTimeUpdate.getArrival().getTime()).atZone(timezone);
-                                    stopTime.arrival_time = (int) Duration.between(arrival_time.truncatedTo(ChronoUnit.DAYS), arrival_time).getSeconds();
-                                    final ZonedDateTime departure_time = Instant.ofEpochSecond(stopTimeUpdate.getArrival().getTime()).atZone(timezone);
-                                    stopTime.departure_time = (int) Duration.between(departure_time.truncatedTo(ChronoUnit.DAYS), departure_time).getSeconds();
-                                    return stopTime;
-                                })
-                                .collect(Collectors.toList());
-                        GtfsReader.TripWithStopTimes tripWithStopTimes = new GtfsReader.TripWithStopTimes(trip, stopTimes, validOnDay, Collections.emptySet(), Collections.emptySet());
-                        gtfsReader.addTrip(timezone, 0, new ArrayList<>(), tripWithStopTimes, tripUpdate.getTrip(), false);
-                    });
-            gtfsReader.wireUpAdditionalDepartures(timezone);
-        });
+    static <K> Map<Integer, K> reverse(Map<K, Integer> ids) {
+        Map<Integer, K> reverse = new HashMap<>();
+        for (Map.Entry<K, Integer> entry : ids.entrySet()) {
+            reverse.put(entry.getValue(), entry.getKey());
+        }
+        return reverse;
+    }
 
-        return new RealtimeFeed(staticGtfs, feedMessages, blockedEdges, delaysForBoardEdges, delaysForAlightEdges, additionalEdges, tripDescriptors, stopSequences, operatingDayPatterns, writableTimeZones);
+    public static RealtimeFeed fromProtobuf(GraphHopperStorage graphHopperStorage, GtfsStorage staticGtfs, PtFlagEncoder encoder, Map<String, GtfsRealtime.FeedMessage> feedMessages) {
+        RealtimeFeedStore realtimeFeedStore = new RealtimeFeedStore(graphHopperStorage, staticGtfs, encoder);
+        feedMessages.forEach(realtimeFeedStore::apply);
+        return realtimeFeedStore.get();
     }
 
     boolean isBlocked(int edgeId) {
-        return blockedEdges.contains(edgeId);
+        return delta.isBlocked(edgeId);
     }
 
     List<VirtualEdgeIteratorState> getAdditionalEdges() {
-        return additionalEdges;
+        // Only collected from the deltas when a request asks for them, publishing does not need to copy them.
+        List<VirtualEdgeIteratorState> edges = additionalEdges;
+        if (edges == null) {
+            edges = Collections.unmodifiableList(delta.getAdditionalEdges());
+            additionalEdges = edges;
+        }
+        return edges;
     }
 
     public Optional<GtfsReader.TripWithStopTimes> getTripUpdate(GTFSFeed staticFeed, GtfsRealtime.TripDescriptor tripDescriptor, Label.Transition boardEdge, Instant boardTime) {
@@ -408,17 +109,12 @@ public class RealtimeFeed {
         if (!isThisRealtimeUpdateAboutThisLineRun(boardEdge.edge.edgeIteratorState, boardTime)) {
             return Optional.empty();
         } else {
-            GtfsRealtime.TripDescriptor normalizedTripDescriptor = normalize(tripDescriptor);
-            return feedMessages.values().stream().flatMap(feedMessage -> feedMessage.getEntityList().stream()
-                    .filter(e -> e.hasTripUpdate())
-                    .map(e -> e.getTripUpdate())
-                    .filter(tu -> normalize(tu.getTrip()).equals(normalizedTripDescriptor))
-                    .map(tu -> toTripWithStopTimes(staticFeed, tu)))
-                    .findFirst();
+            return Optional.ofNullable(delta.getTripUpdate(normalize(tripDescriptor)))
+                    .map(tu -> toTripWithStopTimes(staticFeed, tu));
         }
     }
 
-    public GtfsRealtime.TripDescriptor normalize(GtfsRealtime.TripDescriptor tripDescriptor) {
+    public static GtfsRealtime.TripDescriptor normalize(GtfsRealtime.TripDescriptor tripDescriptor) {
         return GtfsRealtime.TripDescriptor.newBuilder(tripDescriptor).clearRouteId().build();
     }
 
@@ -516,7 +212,7 @@ public class RealtimeFeed {
 
     public long getDelayForBoardEdge(EdgeIteratorState edge, Instant now) {
         if (isThisRealtimeUpdateAboutThisLineRun(edge, now)) {
-            return delaysForBoardEdges.getOrDefault(edge.getEdge(), 0);
+            return delta.getDelayForBoardEdge(edge.getEdge());
         } else {
             return 0;
         }
@@ -524,7 +220,7 @@ public class RealtimeFeed {
 
     public long getDelayForAlightEdge(EdgeIteratorState edge, Instant now) {
         if (isThisRealtimeUpdateAboutThisLineRun(edge, now)) {
-            return delaysForAlightEdges.getOrDefault(edge.getEdge(), 0);
+            return delta.getDelayForAlightEdge(edge.getEdge());
         } else {
             return 0;
         }
@@ -539,21 +235,30 @@ public class RealtimeFeed {
     }
 
     private Instant feedTimestampOrNow() {
-        return feedMessages.values().stream().map(feedMessage -> {
-            if (feedMessage.getHeader().hasTimestamp()) {
-                return Instant.ofEpochSecond(feedMessage.getHeader().getTimestamp());
+        return feedHeaders.values().stream().map(feedHeader -> {
+            if (feedHeader.hasTimestamp()) {
+                return Instant.ofEpochSecond(feedHeader.getTimestamp());
             } else {
                 return Instant.now();
             }
         }).findFirst().orElse(Instant.now());
     }
 
-    public byte[] getTripDescriptor(int edge) {
-        return staticGtfs.getTripDescriptors().getOrDefault(edge, additionalTripDescriptors.get(edge));
+    public GtfsRealtime.TripDescriptor getTripDescriptor(int edge) {
+        GtfsRealtime.TripDescriptor tripDescriptor = staticGtfs.getTripDescriptor(edge);
+        if (tripDescriptor != null) {
+            return tripDescriptor;
+        }
+        try {
+            return GtfsRealtime.TripDescriptor.parseFrom(additionalTripDescriptors.get(edge));
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public int getStopSequence(int edge) {
-        return staticGtfs.getStopSequences().getOrDefault(edge, stopSequences.get(edge));
+        Integer stopSequence = staticGtfs.getStopSequence(edge);
+        return stopSequence != null ? stopSequence : stopSequences.get(edge);
     }
 
     public StopTime getStopTime(GTFSFeed staticFeed, GtfsRealtime.TripDescriptor tripDescriptor, Label.Transition t, Instant boardTime, int stopSequence) {
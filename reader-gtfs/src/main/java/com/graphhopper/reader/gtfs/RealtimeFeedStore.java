@@ -0,0 +1,583 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import com.conveyal.gtfs.GTFSFeed;
+import com.conveyal.gtfs.model.Fare;
+import com.conveyal.gtfs.model.Frequency;
+import com.conveyal.gtfs.model.StopTime;
+import com.conveyal.gtfs.model.Trip;
+import com.google.transit.realtime.GtfsRealtime;
+import com.graphhopper.routing.VirtualEdgeIteratorState;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.shapes.BBox;
+import org.mapdb.Fun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate.ScheduleRelationship.SKIPPED;
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Keeps the realtime state of all feeds and applies new GTFS-realtime messages incrementally. Only trip updates
+ * which are new or differ from the previously applied ones are turned into edges, and every call publishes a new
+ * immutable {@link RealtimeFeed}, so requests which are currently running keep the snapshot they started with.
+ * The changes of a message are collected in a {@link RealtimeDelta} on top of the published ones, so publishing
+ * does not copy the state of the previous messages.
+ * <p>
+ * Edges of superseded trip updates cannot be removed from the overlay, they are blocked instead. When too many of
+ * them have piled up, or when the service day of a feed changes, the overlay is rebuilt from the current trip
+ * updates.
+ */
+public class RealtimeFeedStore {
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeFeedStore.class);
+    private static final int MIN_RETIRED_EDGES_FOR_REBUILD = 1000;
+
+    private final GraphHopperStorage graphHopperStorage;
+    private final GtfsStorage staticGtfs;
+    private final PtFlagEncoder encoder;
+    private final Map<String, FeedState> feeds = new LinkedHashMap<>();
+    private OverlayGraph overlayGraph;
+    // the changes of the message which is being applied
+    private RealtimeDelta delta;
+    private RealtimeDelta published;
+    // Only ever appended to, so published snapshots can share them with the store.
+    private Map<Integer, byte[]> tripDescriptors;
+    private Map<Integer, Integer> stopSequences;
+    private Map<GtfsStorage.Validity, Integer> operatingDayPatterns;
+    private Map<GtfsStorage.FeedIdWithTimezone, Integer> writableTimeZones;
+    private Map<Integer, GtfsStorage.Validity> validities;
+    private Map<Integer, GtfsStorage.FeedIdWithTimezone> feedIdWithTimezones;
+    private int retiredEdges;
+    private volatile RealtimeFeed current;
+
+    public RealtimeFeedStore(GraphHopperStorage graphHopperStorage, GtfsStorage staticGtfs, PtFlagEncoder encoder) {
+        this.graphHopperStorage = graphHopperStorage;
+        this.staticGtfs = staticGtfs;
+        this.encoder = encoder;
+        this.current = RealtimeFeed.empty(staticGtfs);
+        clearOverlay();
+        this.published = delta;
+    }
+
+    /**
+     * @return the most recently published realtime state. The returned object never changes.
+     */
+    public RealtimeFeed get() {
+        return current;
+    }
+
+    /**
+     * Applies one message of the realtime feed belonging to the static feed with the given id and publishes the
+     * result. A FULL_DATASET message replaces all trip updates of this feed, a DIFFERENTIAL one only those
+     * it contains.
+     */
+    public synchronized RealtimeFeed apply(String feedKey, GtfsRealtime.FeedMessage feedMessage) {
+        GTFSFeed feed = staticGtfs.getGtfsFeeds().get(feedKey);
+        if (feed == null)
+            throw new IllegalArgumentException("Unknown feed: " + feedKey);
+
+        FeedState feedState = feeds.computeIfAbsent(feedKey, k -> new FeedState(feed));
+        delta = new RealtimeDelta(published);
+        LocalDate serviceDay = Instant.ofEpochSecond(feedMessage.getHeader().getTimestamp()).atZone(feedState.timezone).toLocalDate(); //FIXME
+        boolean serviceDayChanged = feedState.serviceDay != null && !feedState.serviceDay.equals(serviceDay);
+        feedState.header = feedMessage.getHeader();
+        feedState.serviceDay = serviceDay;
+
+        Map<GtfsRealtime.TripDescriptor, GtfsRealtime.TripUpdate> tripUpdates = new LinkedHashMap<>();
+        List<GtfsRealtime.TripDescriptor> deletedTrips = new ArrayList<>();
+        for (GtfsRealtime.FeedEntity entity : feedMessage.getEntityList()) {
+            if (!entity.hasTripUpdate())
+                continue;
+            GtfsRealtime.TripDescriptor key = RealtimeFeed.normalize(entity.getTripUpdate().getTrip());
+            if (entity.getIsDeleted())
+                deletedTrips.add(key);
+            else
+                tripUpdates.put(key, entity.getTripUpdate());
+        }
+
+        if (feedMessage.getHeader().getIncrementality() == GtfsRealtime.FeedHeader.Incrementality.FULL_DATASET) {
+            for (Iterator<Map.Entry<GtfsRealtime.TripDescriptor, TripState>> it = feedState.trips.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<GtfsRealtime.TripDescriptor, TripState> entry = it.next();
+                if (!tripUpdates.containsKey(entry.getKey())) {
+                    retire(entry.getValue());
+                    delta.removeTripUpdate(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        for (GtfsRealtime.TripDescriptor key : deletedTrips) {
+            TripState removed = feedState.trips.remove(key);
+            if (removed != null) {
+                retire(removed);
+                delta.removeTripUpdate(key);
+            }
+        }
+
+        List<TripState> changedTrips = new ArrayList<>();
+        tripUpdates.forEach((key, tripUpdate) -> {
+            TripState previous = feedState.trips.get(key);
+            if (previous != null && withoutTimestamp(previous.tripUpdate).equals(withoutTimestamp(tripUpdate)))
+                return;
+            if (previous != null)
+                retire(previous);
+            TripState tripState = new TripState(tripUpdate);
+            feedState.trips.put(key, tripState);
+            delta.putTripUpdate(key, tripUpdate);
+            changedTrips.add(tripState);
+        });
+
+        if (serviceDayChanged || retiredEdges > Math.max(MIN_RETIRED_EDGES_FOR_REBUILD, delta.getAdditionalEdgeCount() / 2)) {
+            rebuild();
+        } else if (!changedTrips.isEmpty()) {
+            addToOverlay(feedKey, feedState, changedTrips);
+        }
+        logger.debug("Applied realtime feed {}: {} changed trips, {} retired edges", feedKey, changedTrips.size(), retiredEdges);
+        publish();
+        return current;
+    }
+
+    private void clearOverlay() {
+        overlayGraph = new OverlayGraph(graphHopperStorage);
+        delta = new RealtimeDelta(null);
+        tripDescriptors = new ConcurrentHashMap<>();
+        stopSequences = new ConcurrentHashMap<>();
+        validities = new ConcurrentHashMap<>();
+        operatingDayPatterns = withReverse(staticGtfs.getOperatingDayPatterns(), validities);
+        feedIdWithTimezones = new ConcurrentHashMap<>();
+        writableTimeZones = withReverse(staticGtfs.getWritableTimeZones(), feedIdWithTimezones);
+        retiredEdges = 0;
+    }
+
+    private void rebuild() {
+        clearOverlay();
+        feeds.forEach((feedKey, feedState) -> {
+            List<TripState> trips = new ArrayList<>();
+            for (Map.Entry<GtfsRealtime.TripDescriptor, TripState> entry : feedState.trips.entrySet()) {
+                TripState tripState = new TripState(entry.getValue().tripUpdate);
+                entry.setValue(tripState);
+                delta.putTripUpdate(entry.getKey(), tripState.tripUpdate);
+                trips.add(tripState);
+            }
+            if (!trips.isEmpty())
+                addToOverlay(feedKey, feedState, trips);
+        });
+    }
+
+    private void retire(TripState tripState) {
+        for (IntCursor c : tripState.skippedEdges)
+            delta.unblock(c.value);
+        for (IntCursor c : tripState.delayedAlightEdges)
+            delta.removeDelayForAlightEdge(c.value);
+        for (IntCursor c : tripState.boardEdges) {
+            delta.removeDelayForBoardEdge(c.value);
+            delta.block(c.value);
+            retiredEdges++;
+        }
+    }
+
+    private void addToOverlay(String feedKey, FeedState feedState, List<TripState> trips) {
+        GTFSFeed feed = feedState.feed;
+        ZoneId timezone = feedState.timezone;
+        Map<String, int[]> boardEdgesForTrip = new HashMap<>();
+        Map<String, int[]> alightEdgesForTrip = new HashMap<>();
+        GtfsStorageI gtfsStorage = new GtfsStorageI() {
+            @Override
+            public Map<String, Fare> getFares() {
+                return null;
+            }
+
+            @Override
+            public Map<GtfsStorage.Validity, Integer> getOperatingDayPatterns() {
+                return operatingDayPatterns;
+            }
+
+            @Override
+            public Map<GtfsStorage.FeedIdWithTimezone, Integer> getWritableTimeZones() {
+                return writableTimeZones;
+            }
+
+            @Override
+            public Map<Integer, byte[]> getTripDescriptors() {
+                return tripDescriptors;
+            }
+
+            @Override
+            public Map<Integer, Integer> getStopSequences() {
+                return stopSequences;
+            }
+
+            @Override
+            public Map<String, int[]> getBoardEdgesForTrip() {
+                return boardEdgesForTrip;
+            }
+
+            @Override
+            public Map<String, int[]> getAlightEdgesForTrip() {
+                return alightEdgesForTrip;
+            }
+
+            @Override
+            public Map<String, GTFSFeed> getGtfsFeeds() {
+                return Collections.singletonMap(feedKey, feed);
+            }
+
+            @Override
+            public Map<String, Transfers> getTransfers() {
+                return staticGtfs.getTransfers();
+            }
+
+            @Override
+            public Map<String, Integer> getStationNodes() {
+                return staticGtfs.getStationNodes();
+            }
+
+            @Override
+            public Map<Integer, String> getRoutes() {
+                return staticGtfs.getRoutes();
+            }
+        };
+        // A fresh reader per batch: it numbers its nodes starting from the current size of the overlay.
+        final GtfsReader gtfsReader = new GtfsReader(feedKey, overlayGraph, gtfsStorage, encoder, null);
+        BitSet validOnDay = new BitSet();
+        validOnDay.set((int) DAYS.between(feedState.startDate, feedState.serviceDay));
+        trips.stream()
+                .filter(tripState -> tripState.tripUpdate.getTrip().getScheduleRelationship() == GtfsRealtime.TripDescriptor.ScheduleRelationship.SCHEDULED)
+                .forEach(tripState -> {
+                    GtfsRealtime.TripUpdate tripUpdate = tripState.tripUpdate;
+                    Collection<Frequency> frequencies = feed.getFrequencies(tripUpdate.getTrip().getTripId());
+                    int timeOffset = (tripUpdate.getTrip().hasStartTime() && !frequencies.isEmpty()) ? LocalTime.parse(tripUpdate.getTrip().getStartTime()).toSecondOfDay() : 0;
+                    String key = GtfsStorage.tripKey(tripUpdate.getTrip(), !frequencies.isEmpty());
+                    final int[] boardEdges = staticGtfs.getBoardEdgesForTrip().get(key);
+                    final int[] leaveEdges = staticGtfs.getAlightEdgesForTrip().get(key);
+                    if (boardEdges == null || leaveEdges == null) {
+                        logger.warn("Trip not found: {}", tripUpdate.getTrip());
+                        return;
+                    }
+                    tripUpdate.getStopTimeUpdateList().stream()
+                            .filter(stopTimeUpdate -> stopTimeUpdate.getScheduleRelationship() == SKIPPED)
+                            .mapToInt(GtfsRealtime.TripUpdate.StopTimeUpdate::getStopSequence)
+                            .forEach(skippedStopSequenceNumber -> {
+                                tripState.block(delta, boardEdges[skippedStopSequenceNumber]);
+                                tripState.block(delta, leaveEdges[skippedStopSequenceNumber]);
+                            });
+                    GtfsReader.TripWithStopTimes tripWithStopTimes = RealtimeFeed.toTripWithStopTimes(feed, tripUpdate);
+                    tripWithStopTimes.stopTimes.forEach(stopTime -> {
+                        if (stopTime.stop_sequence > leaveEdges.length - 1) {
+                            logger.warn("Stop sequence number too high {} vs {}", stopTime.stop_sequence, leaveEdges.length);
+                            return;
+                        }
+                        final StopTime originalStopTime = feed.stop_times.get(new Fun.Tuple2(tripUpdate.getTrip().getTripId(), stopTime.stop_sequence));
+                        int arrivalDelay = stopTime.arrival_time - originalStopTime.arrival_time;
+                        delta.putDelayForAlightEdge(leaveEdges[stopTime.stop_sequence], arrivalDelay * 1000);
+                        tripState.delayedAlightEdges.add(leaveEdges[stopTime.stop_sequence]);
+                        int departureDelay = stopTime.departure_time - originalStopTime.departure_time;
+                        if (departureDelay > 0) {
+                            int boardEdge = boardEdges[stopTime.stop_sequence];
+                            int departureNode = graphHopperStorage.getEdgeIteratorState(boardEdge, Integer.MIN_VALUE).getAdjNode();
+                            int delayedBoardEdge = gtfsReader.addDelayedBoardEdge(timezone, tripUpdate.getTrip(), stopTime.stop_sequence, stopTime.departure_time + timeOffset, departureNode, validOnDay);
+                            delta.putDelayForBoardEdge(delayedBoardEdge, departureDelay * 1000);
+                            tripState.boardEdges.add(delayedBoardEdge);
+                        }
+                    });
+                });
+        trips.stream()
+                .filter(tripState -> tripState.tripUpdate.getTrip().getScheduleRelationship() == GtfsRealtime.TripDescriptor.ScheduleRelationship.ADDED)
+                .forEach(tripState -> {
+                    GtfsRealtime.TripUpdate tripUpdate = tripState.tripUpdate;
+                    Trip trip = new Trip();
+                    trip.trip_id = tripUpdate.getTrip().getTripId();
+                    trip.route_id = tripUpdate.getTrip().getRouteId();
+                    final List<StopTime> stopTimes = tripUpdate.getStopTimeUpdateList().stream()
+                            .map(stopTimeUpdate -> {
+                                final StopTime stopTime = new StopTime();
+                                stopTime.stop_sequence = stopTimeUpdate.getStopSequence();
+                                stopTime.stop_id = stopTimeUpdate.getStopId();
+                                stopTime.trip_id = trip.trip_id;
+                                final ZonedDateTime arrival_time = Instant.ofEpochSecond(stopTimeUpdate.getArrival().getTime()).atZone(timezone);
+                                stopTime.arrival_time = (int) Duration.between(arrival_time.truncatedTo(ChronoUnit.DAYS), arrival_time).getSeconds();
+                                final ZonedDateTime departure_time = Instant.ofEpochSecond(stopTimeUpdate.getArrival().getTime()).atZone(timezone);
+                                stopTime.departure_time = (int) Duration.between(departure_time.truncatedTo(ChronoUnit.DAYS), departure_time).getSeconds();
+                                return stopTime;
+                            })
+                            .collect(Collectors.toList());
+                    GtfsReader.TripWithStopTimes tripWithStopTimes = new GtfsReader.TripWithStopTimes(trip, stopTimes, validOnDay, Collections.emptySet(), Collections.emptySet());
+                    gtfsReader.addTrip(timezone, 0, new ArrayList<>(), tripWithStopTimes, tripUpdate.getTrip(), false);
+                    // Blocking its board edges is enough to take an added trip out of service again.
+                    int[] addedBoardEdges = boardEdgesForTrip.get(GtfsStorage.tripKey(tripUpdate.getTrip(), false));
+                    if (addedBoardEdges == null) {
+                        logger.warn("No board edges created for added trip: {}", tripUpdate.getTrip());
+                        return;
+                    }
+                    for (int boardEdge : addedBoardEdges) {
+                        if (boardEdge >= 0)
+                            tripState.boardEdges.add(boardEdge);
+                    }
+                });
+        gtfsReader.wireUpAdditionalDepartures(timezone);
+    }
+
+    private void publish() {
+        Map<String, GtfsRealtime.FeedHeader> feedHeaders = new LinkedHashMap<>();
+        feeds.forEach((feedKey, feedState) -> feedHeaders.put(feedKey, feedState.header));
+        published = delta.compact();
+        current = new RealtimeFeed(staticGtfs, Collections.unmodifiableMap(feedHeaders), published, tripDescriptors,
+                stopSequences, Collections.unmodifiableMap(validities), Collections.unmodifiableMap(feedIdWithTimezones));
+    }
+
+    /**
+     * The GtfsReader only adds ids with put, so the map of ids which snapshots look up can be kept up to date with
+     * it instead of being reversed on every publish.
+     */
+    private static <K> Map<K, Integer> withReverse(Map<K, Integer> ids, Map<Integer, K> reverse) {
+        reverse.putAll(RealtimeFeed.reverse(ids));
+        Map<K, Integer> result = new ConcurrentHashMap<K, Integer>() {
+            @Override
+            public Integer put(K key, Integer value) {
+                reverse.put(value, key);
+                return super.put(key, value);
+            }
+        };
+        result.putAll(ids);
+        return result;
+    }
+
+    private static GtfsRealtime.TripUpdate withoutTimestamp(GtfsRealtime.TripUpdate tripUpdate) {
+        return tripUpdate.hasTimestamp() ? tripUpdate.toBuilder().clearTimestamp().build() : tripUpdate;
+    }
+
+    private static class FeedState {
+        final GTFSFeed feed;
+        final ZoneId timezone;
+        final LocalDate startDate;
+        final Map<GtfsRealtime.TripDescriptor, TripState> trips = new LinkedHashMap<>();
+        GtfsRealtime.FeedHeader header;
+        LocalDate serviceDay;
+
+        FeedState(GTFSFeed feed) {
+            this.feed = feed;
+            this.timezone = ZoneId.of(feed.agency.values().stream().findFirst().get().agency_timezone);
+            this.startDate = feed.calculateStats().getStartDate();
+        }
+    }
+
+    /**
+     * What one trip update contributed to the overlay, so it can be taken back when the update is superseded.
+     */
+    private static class TripState {
+        final GtfsRealtime.TripUpdate tripUpdate;
+        // static edges blocked because of skipped stops
+        final IntArrayList skippedEdges = new IntArrayList();
+        // static alight edges with a delay
+        final IntArrayList delayedAlightEdges = new IntArrayList();
+        // board edges created in the overlay
+        final IntArrayList boardEdges = new IntArrayList();
+
+        TripState(GtfsRealtime.TripUpdate tripUpdate) {
+            this.tripUpdate = tripUpdate;
+        }
+
+        void block(RealtimeDelta delta, int edge) {
+            delta.block(edge);
+            skippedEdges.add(edge);
+        }
+    }
+
+    /**
+     * Receives the nodes and edges the GtfsReader creates for realtime updates. Edge ids continue after those of
+     * the base graph and are never reused, so edges from different updates can live side by side.
+     */
+    private class OverlayGraph implements Graph {
+        private final GraphHopperStorage graphHopperStorage;
+        private int nNodes = 0;
+        private int firstEdge;
+        private final NodeAccess nodeAccess = new NodeAccess() {
+            IntIntHashMap additionalNodeFields = new IntIntHashMap();
+
+            @Override
+            public int getAdditionalNodeField(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public void setAdditionalNodeField(int nodeId, int additionalValue) {
+                ensureNode(nodeId);
+                additionalNodeFields.put(nodeId, additionalValue);
+            }
+
+            @Override
+            public boolean is3D() {
+                return false;
+            }
+
+            @Override
+            public int getDimension() {
+                return 0;
+            }
+
+            @Override
+            public void ensureNode(int nodeId) {
+                nNodes = Math.max(nNodes, nodeId + 1 - graphHopperStorage.getNodes());
+            }
+
+            @Override
+            public void setNode(int nodeId, double lat, double lon) {
+                ensureNode(nodeId);
+            }
+
+            @Override
+            public void setNode(int nodeId, double lat, double lon, double ele) {
+                ensureNode(nodeId);
+            }
+
+            @Override
+            public double getLatitude(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public double getLat(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public double getLongitude(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public double getLon(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public double getElevation(int nodeId) {
+                return 0;
+            }
+
+            @Override
+            public double getEle(int nodeId) {
+                return 0;
+            }
+        };
+
+        OverlayGraph(GraphHopperStorage graphHopperStorage) {
+            this.graphHopperStorage = graphHopperStorage;
+            this.firstEdge = graphHopperStorage.getAllEdges().length();
+        }
+
+        @Override
+        public Graph getBaseGraph() {
+            return graphHopperStorage;
+        }
+
+        @Override
+        public int getNodes() {
+            return graphHopperStorage.getNodes() + nNodes;
+        }
+
+        @Override
+        public NodeAccess getNodeAccess() {
+            return nodeAccess;
+        }
+
+        @Override
+        public BBox getBounds() {
+            return null;
+        }
+
+        @Override
+        public EdgeIteratorState edge(int a, int b) {
+            int edge = firstEdge++;
+            final VirtualEdgeIteratorState newEdge = new VirtualEdgeIteratorState(-1,
+                    edge, a, b, 0.0, 0, "", new PointList());
+            final VirtualEdgeIteratorState reverseNewEdge = new VirtualEdgeIteratorState(-1,
+                    edge, b, a, 0.0, 0, "", new PointList());
+            newEdge.setReverseEdge(reverseNewEdge);
+            reverseNewEdge.setReverseEdge(newEdge);
+            delta.addEdge(newEdge);
+            return newEdge;
+        }
+
+        @Override
+        public EdgeIteratorState edge(int a, int b, double distance, boolean bothDirections) {
+            return null;
+        }
+
+        @Override
+        public EdgeIteratorState getEdgeIteratorState(int edgeId, int adjNode) {
+            return null;
+        }
+
+        @Override
+        public AllEdgesIterator getAllEdges() {
+            return null;
+        }
+
+        @Override
+        public EdgeExplorer createEdgeExplorer(EdgeFilter filter) {
+            return null;
+        }
+
+        @Override
+        public EdgeExplorer createEdgeExplorer() {
+            return graphHopperStorage.createEdgeExplorer();
+        }
+
+        @Override
+        public Graph copyTo(Graph g) {
+            return null;
+        }
+
+        @Override
+        public GraphExtension getExtension() {
+            throw new RuntimeException();
+        }
+    }
+}
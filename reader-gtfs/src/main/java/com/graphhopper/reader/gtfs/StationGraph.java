@@ -0,0 +1,292 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.carrotsearch.hppc.IntLongHashMap;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.cursors.IntLongCursor;
+import com.carrotsearch.hppc.cursors.LongIntCursor;
+import com.graphhopper.apache.commons.collections.IntDoubleBinaryHeap;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Time-independent summary of the time-expanded network, precomputed after import and stored next to the
+ * GtfsStorage. All pt nodes which are connected by edges that never leave a stop (board, alight, dwell, wait,
+ * entering and leaving the time-expanded network) are collapsed into one station. Hop and transfer edges
+ * become arcs between stations, weighted by the smallest time any of them takes.
+ * <p>
+ * Shortest paths in this small graph are lower bounds of the travel time in the time-expanded graph, so a
+ * station-to-station query can skip every label which cannot beat the best solution found so far.
+ */
+class StationGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StationGraph.class);
+    private static final int NO_STATION = -1;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final DataAccess stationOfNode;
+    private final DataAccess arcs;
+    private int nodes;
+    private int stations;
+    // adjacency in both directions, built from the arcs when loading
+    private int[] outFirst, outStation, outMillis;
+    private int[] inFirst, inStation, inMillis;
+
+    StationGraph(Directory dir) {
+        DAType type = dir.getDefaultType();
+        DAType daType = type.isMMap() ? DAType.MMAP : (type.isStoring() ? DAType.RAM_STORE : DAType.RAM);
+        this.stationOfNode = dir.find("pt_station_of_node", daType);
+        this.arcs = dir.find("pt_station_arcs", daType);
+    }
+
+    void create(Graph graph, PtFlagEncoder encoder) {
+        nodes = graph.getNodes();
+        int[] parent = new int[nodes];
+        Arrays.fill(parent, NO_STATION);
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            switch (encoder.getEdgeType(iter.getFlags())) {
+                case ENTER_TIME_EXPANDED_NETWORK:
+                case LEAVE_TIME_EXPANDED_NETWORK:
+                case WAIT:
+                case WAIT_ARRIVAL:
+                case OVERNIGHT:
+                case BOARD:
+                case ALIGHT:
+                case DWELL:
+                    union(parent, iter.getBaseNode(), iter.getAdjNode());
+                    break;
+                case ENTER_PT:
+                    makeSet(parent, iter.getAdjNode());
+                    break;
+                case EXIT_PT:
+                    makeSet(parent, iter.getBaseNode());
+                    break;
+                case HOP:
+                case TRANSFER:
+                    makeSet(parent, iter.getBaseNode());
+                    makeSet(parent, iter.getAdjNode());
+                    break;
+                default:
+                    // street edges stay outside of the station graph
+            }
+        }
+
+        stationOfNode.create(2000);
+        stationOfNode.ensureCapacity(4L * nodes);
+        int[] stationOfRoot = new int[nodes];
+        Arrays.fill(stationOfRoot, NO_STATION);
+        stations = 0;
+        for (int node = 0; node < nodes; node++) {
+            int station = NO_STATION;
+            if (parent[node] != NO_STATION) {
+                int root = find(parent, node);
+                if (stationOfRoot[root] == NO_STATION)
+                    stationOfRoot[root] = stations++;
+                station = stationOfRoot[root];
+            }
+            stationOfNode.setInt(4L * node, station);
+        }
+
+        LongIntHashMap minMillis = new LongIntHashMap();
+        iter = graph.getAllEdges();
+        while (iter.next()) {
+            GtfsStorage.EdgeType edgeType = encoder.getEdgeType(iter.getFlags());
+            if (edgeType != GtfsStorage.EdgeType.HOP && edgeType != GtfsStorage.EdgeType.TRANSFER)
+                continue;
+
+            int millis = (int) Math.min(INFINITY - 1, encoder.getTime(iter.getFlags()) * 1000L);
+            int baseStation = stationOfNode.getInt(4L * iter.getBaseNode());
+            int adjStation = stationOfNode.getInt(4L * iter.getAdjNode());
+            if (baseStation == adjStation)
+                continue;
+            if (encoder.isForward(iter.getFlags()))
+                putMin(minMillis, baseStation, adjStation, millis);
+            if (encoder.isBackward(iter.getFlags()))
+                putMin(minMillis, adjStation, baseStation, millis);
+        }
+
+        arcs.create(2000);
+        arcs.ensureCapacity(12L * minMillis.size());
+        long pointer = 0;
+        for (LongIntCursor c : minMillis) {
+            arcs.setInt(pointer, (int) (c.key >>> 32));
+            arcs.setInt(pointer + 4, (int) c.key);
+            arcs.setInt(pointer + 8, c.value);
+            pointer += 12;
+        }
+        stationOfNode.setHeader(0, nodes);
+        stationOfNode.setHeader(4, stations);
+        arcs.setHeader(0, minMillis.size());
+        buildAdjacency();
+        LOGGER.info("Created station graph with " + stations + " stations and " + minMillis.size() + " arcs");
+    }
+
+    boolean loadExisting() {
+        if (!stationOfNode.loadExisting())
+            return false;
+        if (!arcs.loadExisting())
+            throw new IllegalStateException("station graph arcs are missing, although stations exist");
+
+        nodes = stationOfNode.getHeader(0);
+        stations = stationOfNode.getHeader(4);
+        buildAdjacency();
+        return true;
+    }
+
+    void flush() {
+        stationOfNode.flush();
+        arcs.flush();
+    }
+
+    void close() {
+        stationOfNode.close();
+        arcs.close();
+    }
+
+    int getStations() {
+        return stations;
+    }
+
+    int getStation(int node) {
+        if (node >= nodes)
+            return NO_STATION;
+        return stationOfNode.getInt(4L * node);
+    }
+
+    /**
+     * Calculates, for every station, a lower bound of the weight between that station and the closest seed.
+     * The seeds are the pt nodes where the other half of the query was settled, together with their weight.
+     *
+     * @param reverse true if the search which uses the lower bounds runs backwards in time, i.e. the
+     *                bounds are needed from the seeds to every station instead of the other way round.
+     * @return the lower bound for every node of the graph. Nodes outside of the station graph (the street
+     * network, query nodes and realtime nodes) get 0, stations from which no seed is reachable get
+     * Integer.MAX_VALUE.
+     */
+    IntToLongFunction lowerBounds(IntLongHashMap seeds, boolean reverse) {
+        final int[] weights = new int[stations];
+        Arrays.fill(weights, INFINITY);
+        IntDoubleBinaryHeap heap = new IntDoubleBinaryHeap(Math.max(16, seeds.size()));
+        for (IntLongCursor seed : seeds) {
+            int station = getStation(seed.key);
+            if (station == NO_STATION || seed.value >= weights[station])
+                continue;
+            weights[station] = (int) Math.min(INFINITY - 1, seed.value);
+            heap.insert_(weights[station], station);
+        }
+
+        // Forward searches need the weight to the seeds, so the arcs are followed against their direction.
+        int[] first = reverse ? outFirst : inFirst;
+        int[] adjStation = reverse ? outStation : inStation;
+        int[] millis = reverse ? outMillis : inMillis;
+        while (!heap.isEmpty()) {
+            // The heap keys are floats and therefore not exact. Stations are simply relaxed again
+            // whenever their weight improves, so the result does not depend on the heap order.
+            int station = heap.poll_element();
+            int weight = weights[station];
+            for (int i = first[station]; i < first[station + 1]; i++) {
+                int adj = adjStation[i];
+                // sum as long, the arcs can be long enough to overflow an int
+                long tmpWeight = (long) weight + millis[i];
+                if (tmpWeight < weights[adj]) {
+                    weights[adj] = (int) tmpWeight;
+                    heap.insert_(tmpWeight, adj);
+                }
+            }
+        }
+
+        return node -> {
+            int station = getStation(node);
+            return station == NO_STATION ? 0 : weights[station];
+        };
+    }
+
+    private void buildAdjacency() {
+        int arcCount = arcs.getHeader(0);
+        outFirst = new int[stations + 1];
+        inFirst = new int[stations + 1];
+        for (long pointer = 0; pointer < 12L * arcCount; pointer += 12) {
+            outFirst[arcs.getInt(pointer) + 1]++;
+            inFirst[arcs.getInt(pointer + 4) + 1]++;
+        }
+        for (int i = 0; i < stations; i++) {
+            outFirst[i + 1] += outFirst[i];
+            inFirst[i + 1] += inFirst[i];
+        }
+        outStation = new int[arcCount];
+        outMillis = new int[arcCount];
+        inStation = new int[arcCount];
+        inMillis = new int[arcCount];
+        int[] outNext = Arrays.copyOf(outFirst, stations);
+        int[] inNext = Arrays.copyOf(inFirst, stations);
+        for (long pointer = 0; pointer < 12L * arcCount; pointer += 12) {
+            int from = arcs.getInt(pointer);
+            int to = arcs.getInt(pointer + 4);
+            int m = arcs.getInt(pointer + 8);
+            outStation[outNext[from]] = to;
+            outMillis[outNext[from]++] = m;
+            inStation[inNext[to]] = from;
+            inMillis[inNext[to]++] = m;
+        }
+    }
+
+    private static void putMin(LongIntHashMap minMillis, int from, int to, int millis) {
+        long key = ((long) from << 32) | (to & 0xFFFFFFFFL);
+        int index = minMillis.indexOf(key);
+        if (index < 0 || minMillis.indexGet(index) > millis)
+            minMillis.put(key, millis);
+    }
+
+    private static void makeSet(int[] parent, int node) {
+        if (parent[node] == NO_STATION)
+            parent[node] = node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        makeSet(parent, a);
+        makeSet(parent, b);
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB)
+            parent[rootB] = rootA;
+    }
+
+    private static int find(int[] parent, int node) {
+        int root = node;
+        while (parent[root] != root)
+            root = parent[root];
+        // path compression
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+}
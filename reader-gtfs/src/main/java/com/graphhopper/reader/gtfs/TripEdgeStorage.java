@@ -0,0 +1,172 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.transit.realtime.GtfsRealtime;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only, edge-indexed copy of the trip descriptors and stop sequences of the board, alight and hop edges.
+ * It is written from the import-time MapDB maps at the end of the import and serves the lookups when routing,
+ * because a lookup here is an array access instead of a deserialized hash map entry.
+ * <p>
+ * Every distinct trip descriptor is stored once. It is parsed on first use and kept, so the
+ * per-request cost of building a trip is no longer dominated by protobuf decoding.
+ */
+class TripEdgeStorage {
+
+    private static final int NO_TRIP = -1;
+    private static final int NO_STOP_SEQUENCE = Integer.MIN_VALUE;
+
+    // per edge: index of the trip descriptor and the stop sequence
+    private final DataAccess edges;
+    // per trip descriptor: offset into the bytes, with one additional entry for the end of the last one
+    private final DataAccess tripOffsets;
+    private final DataAccess tripBytes;
+    private int edgeCount;
+    private AtomicReferenceArray<GtfsRealtime.TripDescriptor> decodedTrips;
+
+    TripEdgeStorage(Directory dir) {
+        DAType type = dir.getDefaultType();
+        DAType daType = type.isMMap() ? DAType.MMAP : (type.isStoring() ? DAType.RAM_STORE : DAType.RAM);
+        this.edges = dir.find("pt_edge_trips", daType);
+        this.tripOffsets = dir.find("pt_trip_offsets", daType);
+        this.tripBytes = dir.find("pt_trip_descriptors", daType);
+    }
+
+    void create(Map<Integer, byte[]> tripDescriptors, Map<Integer, Integer> stopSequences) {
+        edgeCount = 0;
+        for (Integer edge : tripDescriptors.keySet())
+            edgeCount = Math.max(edgeCount, edge + 1);
+        for (Integer edge : stopSequences.keySet())
+            edgeCount = Math.max(edgeCount, edge + 1);
+
+        edges.create(2000);
+        edges.ensureCapacity(8L * edgeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            edges.setInt(8L * edge, NO_TRIP);
+            edges.setInt(8L * edge + 4, NO_STOP_SEQUENCE);
+        }
+
+        tripOffsets.create(2000);
+        tripBytes.create(2000);
+        Map<ByteBuffer, Integer> tripIndices = new HashMap<>();
+        long offset = 0;
+        for (Map.Entry<Integer, byte[]> entry : tripDescriptors.entrySet()) {
+            ByteBuffer key = ByteBuffer.wrap(entry.getValue());
+            Integer tripIndex = tripIndices.get(key);
+            if (tripIndex == null) {
+                tripIndex = tripIndices.size();
+                tripIndices.put(key, tripIndex);
+                byte[] bytes = entry.getValue();
+                tripOffsets.ensureCapacity(4L * (tripIndex + 1));
+                tripOffsets.setInt(4L * tripIndex, (int) offset);
+                tripBytes.ensureCapacity(offset + bytes.length);
+                tripBytes.setBytes(offset, bytes, bytes.length);
+                offset += bytes.length;
+            }
+            edges.setInt(8L * entry.getKey(), tripIndex);
+        }
+        int tripCount = tripIndices.size();
+        tripOffsets.ensureCapacity(4L * (tripCount + 1));
+        tripOffsets.setInt(4L * tripCount, (int) offset);
+        for (Map.Entry<Integer, Integer> entry : stopSequences.entrySet()) {
+            edges.setInt(8L * entry.getKey() + 4, entry.getValue());
+        }
+
+        edges.setHeader(0, edgeCount);
+        tripOffsets.setHeader(0, tripCount);
+        decodedTrips = new AtomicReferenceArray<>(tripCount);
+    }
+
+    boolean loadExisting() {
+        if (!edges.loadExisting())
+            return false;
+        if (!tripOffsets.loadExisting() || !tripBytes.loadExisting())
+            throw new IllegalStateException("trip descriptors are missing, although the edge table exists");
+
+        edgeCount = edges.getHeader(0);
+        decodedTrips = new AtomicReferenceArray<>(tripOffsets.getHeader(0));
+        return true;
+    }
+
+    void flush() {
+        edges.flush();
+        tripOffsets.flush();
+        tripBytes.flush();
+    }
+
+    void close() {
+        edges.close();
+        tripOffsets.close();
+        tripBytes.close();
+    }
+
+    /**
+     * @return the trip descriptor of a board or alight edge, or null if the edge has none
+     */
+    GtfsRealtime.TripDescriptor getTripDescriptor(int edge) {
+        int tripIndex = getTripIndex(edge);
+        if (tripIndex == NO_TRIP)
+            return null;
+        GtfsRealtime.TripDescriptor tripDescriptor = decodedTrips.get(tripIndex);
+        if (tripDescriptor == null) {
+            try {
+                tripDescriptor = GtfsRealtime.TripDescriptor.parseFrom(getTripBytes(tripIndex));
+            } catch (InvalidProtocolBufferException e) {
+                throw new RuntimeException(e);
+            }
+            // Racing threads decode the same bytes, so it doesn't matter who wins.
+            decodedTrips.lazySet(tripIndex, tripDescriptor);
+        }
+        return tripDescriptor;
+    }
+
+    /**
+     * @return the stop sequence of a board, alight or hop edge, or null if the edge has none
+     */
+    Integer getStopSequence(int edge) {
+        if (edge < 0 || edge >= edgeCount)
+            return null;
+        int stopSequence = edges.getInt(8L * edge + 4);
+        return stopSequence == NO_STOP_SEQUENCE ? null : stopSequence;
+    }
+
+    private int getTripIndex(int edge) {
+        if (edge < 0 || edge >= edgeCount)
+            return NO_TRIP;
+        return edges.getInt(8L * edge);
+    }
+
+    private byte[] getTripBytes(int tripIndex) {
+        int from = tripOffsets.getInt(4L * tripIndex);
+        int to = tripOffsets.getInt(4L * (tripIndex + 1));
+        byte[] bytes = new byte[to - from];
+        tripBytes.getBytes(from, bytes, bytes.length);
+        return bytes;
+    }
+}
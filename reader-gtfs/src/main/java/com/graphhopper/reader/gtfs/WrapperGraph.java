@@ -152,6 +152,16 @@ public class WrapperGraph implements Graph {
                 throw new UnsupportedOperationException();
             }
 
+            @Override
+            public int getExtraFlags(int index) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public EdgeIteratorState setExtraFlags(int index, int value) {
+                throw new UnsupportedOperationException();
+            }
+
             @Override
             public boolean isForward(FlagEncoder encoder) {
                 throw new UnsupportedOperationException();
@@ -30,6 +30,7 @@ import com.graphhopper.storage.index.LocationIndex;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.Instruction;
 import com.graphhopper.util.Parameters;
+import com.graphhopper.util.shapes.GHPoint;
 import org.junit.AfterClass;
 import org.junit.Assume;
 import org.junit.BeforeClass;
@@ -115,6 +116,40 @@ public class GraphHopperGtfsIT {
         assertEquals("Expected travel time == scheduled arrival time", time(0, 25), route.getBest().getTime(), 0.1);
     }
 
+    @Test
+    public void testMatrix() {
+        GHRequest ghRequest = new GHRequest(Collections.singletonList(new GHPoint(36.914893, -116.76821))); // NADAV stop
+        ghRequest.getHints().put(Parameters.PT.EARLIEST_DEPARTURE_TIME, LocalDateTime.of(2007,1,1,6,54).atZone(zoneId).toInstant());
+        List<GHPoint> destinations = Collections.singletonList(new GHPoint(36.914944, -116.761472)); // NANAA stop
+        long[][] matrix = graphHopper.calcMatrix(ghRequest, destinations, 50);
+        assertEquals("Same as routing from one to the other", time(0, 25), matrix[0][0]);
+
+        ghRequest.getHints().put(Parameters.PT.TIME_LIMIT, 20 * 60);
+        assertEquals("Not reachable within 20 minutes", -1, graphHopper.calcMatrix(ghRequest, destinations, 50)[0][0]);
+
+        ghRequest.getHints().put(Parameters.PT.DEPARTURE_WINDOW, 20 * 60);
+        assertEquals("Departing at 7:14, the last minute of the window, it is a 5 minute ride", time(0, 5), graphHopper.calcMatrix(ghRequest, destinations, 0)[0][0]);
+        assertEquals("Departing at 6:54, it is not reachable", -1, graphHopper.calcMatrix(ghRequest, destinations, 100)[0][0]);
+        assertEquals("Median over the 21 departures from 6:54 to 7:14", time(0, 15), graphHopper.calcMatrix(ghRequest, destinations, 50)[0][0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMatrixRejectsTooManyDepartures() {
+        GHRequest ghRequest = new GHRequest(Collections.singletonList(new GHPoint(36.914893, -116.76821))); // NADAV stop
+        ghRequest.getHints().put(Parameters.PT.EARLIEST_DEPARTURE_TIME, LocalDateTime.of(2007,1,1,6,54).atZone(zoneId).toInstant());
+        ghRequest.getHints().put(Parameters.PT.DEPARTURE_WINDOW, 24 * 60 * 60);
+        ghRequest.getHints().put(Parameters.PT.DEPARTURE_STEP, 1);
+        graphHopper.calcMatrix(ghRequest, Collections.singletonList(new GHPoint(36.914944, -116.761472)), 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTravelTimesRejectTooLargeTimeLimit() {
+        GHRequest ghRequest = new GHRequest(Collections.singletonList(new GHPoint(36.914893, -116.76821))); // NADAV stop
+        ghRequest.getHints().put(Parameters.PT.EARLIEST_DEPARTURE_TIME, LocalDateTime.of(2007,1,1,6,54).atZone(zoneId).toInstant());
+        ghRequest.getHints().put(Parameters.PT.TIME_LIMIT, 7 * 24 * 60 * 60);
+        graphHopper.calcTravelTimes(ghRequest);
+    }
+
     @Test
     public void testRoute1GoesAt744() {
         final double FROM_LAT = 36.914893, FROM_LON = -116.76821; // NADAV stop
@@ -22,6 +22,7 @@ import com.google.transit.realtime.GtfsRealtime;
 import com.graphhopper.reader.gtfs.GraphHopperGtfs;
 import com.graphhopper.reader.gtfs.GtfsStorage;
 import com.graphhopper.reader.gtfs.PtFlagEncoder;
+import com.graphhopper.reader.gtfs.RealtimeFeedStore;
 import com.graphhopper.routing.util.CarFlagEncoder;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FootFlagEncoder;
@@ -199,6 +200,45 @@ public class RealtimeIT {
         assertEquals("I am two minutes late for my bus, but the bus is two minutes late, too, so I catch it!", time(0, 5), response.getBest().getTime(), 0.1);
     }
 
+    @Test
+    public void testApplyFeedMessagesToRunningInstance() {
+        final double FROM_LAT = 36.914893, FROM_LON = -116.76821; // NADAV stop
+        final double TO_LAT = 36.914944, TO_LON = -116.761472; // NANAA stop
+        GHRequest ghRequest = new GHRequest(
+                FROM_LAT, FROM_LON,
+                TO_LAT, TO_LON
+        );
+        ghRequest.getHints().put(Parameters.PT.EARLIEST_DEPARTURE_TIME, LocalDateTime.of(2007,1,1,6,46).atZone(zoneId).toInstant());
+        ghRequest.getHints().put(Parameters.PT.MAX_WALK_DISTANCE_PER_LEG, 30);
+
+        RealtimeFeedStore realtimeFeedStore = graphHopperFactory.createRealtimeFeedStore();
+        GraphHopperGtfs graphHopper = graphHopperFactory.createWith(realtimeFeedStore);
+
+        final GtfsRealtime.FeedMessage.Builder feedMessageBuilder = GtfsRealtime.FeedMessage.newBuilder();
+        feedMessageBuilder.setHeader(GtfsRealtime.FeedHeader.newBuilder()
+                .setGtfsRealtimeVersion("1")
+                .setTimestamp(ZonedDateTime.of(LocalDate.of(2007,1,1), LocalTime.of(0,0), zoneId).toEpochSecond()));
+        feedMessageBuilder.addEntityBuilder()
+                .setId("1")
+                .getTripUpdateBuilder()
+                .setTrip(GtfsRealtime.TripDescriptor.newBuilder().setTripId("CITY2").setStartTime("06:00:00"))
+                .addStopTimeUpdateBuilder()
+                .setScheduleRelationship(SCHEDULED)
+                .setStopSequence(3)
+                .setArrival(GtfsRealtime.TripUpdate.StopTimeEvent.newBuilder().setDelay(120).build());
+        realtimeFeedStore.apply("gtfs_0", feedMessageBuilder.build());
+        assertEquals("The bus is two minutes late, so I catch it", time(0, 5), graphHopper.route(ghRequest).getBest().getTime(), 0.1);
+
+        // Applying the same message again doesn't change anything
+        realtimeFeedStore.apply("gtfs_0", feedMessageBuilder.build());
+        assertEquals(time(0, 5), graphHopper.route(ghRequest).getBest().getTime(), 0.1);
+
+        // The next full dataset doesn't contain the delay any more
+        feedMessageBuilder.clearEntity();
+        realtimeFeedStore.apply("gtfs_0", feedMessageBuilder.build());
+        assertEquals("The bus is on time again, so I miss it", time(0, 33), graphHopper.route(ghRequest).getBest().getTime(), 0.1);
+    }
+
     @Test
     public void testSkipArrivalStop() {
         final double FROM_LAT = 36.914893, FROM_LON = -116.76821; // NADAV stop
@@ -0,0 +1,115 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper;
+
+import com.graphhopper.reader.gtfs.GraphHopperGtfs;
+import com.graphhopper.reader.gtfs.GtfsStorage;
+import com.graphhopper.reader.gtfs.PtFlagEncoder;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FootFlagEncoder;
+import com.graphhopper.storage.GHDirectory;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.Parameters;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.graphhopper.reader.gtfs.GtfsHelper.time;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StationGraphIT {
+
+    private static final String GRAPH_LOC = "target/StationGraphIT";
+    private static final ZoneId zoneId = ZoneId.of("America/Los_Angeles");
+    private static GraphHopperGtfs graphHopper;
+    private static GraphHopperStorage graphHopperStorage;
+    private static LocationIndex locationIndex;
+
+    @BeforeClass
+    public static void init() {
+        Helper.removeDir(new File(GRAPH_LOC));
+        final PtFlagEncoder ptFlagEncoder = new PtFlagEncoder();
+        EncodingManager encodingManager = new EncodingManager(Arrays.asList(new CarFlagEncoder(), new FootFlagEncoder(), ptFlagEncoder), 8);
+        GHDirectory directory = GraphHopperGtfs.createGHDirectory(GRAPH_LOC);
+        GtfsStorage gtfsStorage = GraphHopperGtfs.createGtfsStorage();
+        graphHopperStorage = GraphHopperGtfs.createOrLoad(directory, encodingManager, ptFlagEncoder, gtfsStorage, Collections.singleton("files/sample-feed.zip"), Collections.emptyList());
+        GraphHopperGtfs.prepareStationGraph(graphHopperStorage, ptFlagEncoder);
+        locationIndex = GraphHopperGtfs.createOrLoadIndex(directory, graphHopperStorage);
+        graphHopper = GraphHopperGtfs.createFactory(ptFlagEncoder, GraphHopperGtfs.createTranslationMap(), graphHopperStorage, locationIndex, gtfsStorage)
+                .createWithoutRealtimeFeed();
+    }
+
+    @AfterClass
+    public static void close() {
+        graphHopperStorage.close();
+        locationIndex.close();
+    }
+
+    @Test
+    public void testPruningKeepsOptimalSolution() {
+        // Same expectation as without the station graph, see GraphHopperGtfsIT
+        assertTravelTimeIs(route(36.914893, -116.76821, 36.914944, -116.761472, LocalDateTime.of(2007, 1, 1, 0, 0), false), time(6, 49));
+        assertTravelTimeIs(route(36.915682, -116.751677, 36.88108, -116.81797, LocalDateTime.of(2007, 1, 1, 0, 0), false), time(8, 10));
+        assertTravelTimeIs(route(36.915682, -116.751677, 36.914894, -116.76821, LocalDateTime.of(2007, 1, 1, 0, 0), false), time(6, 12));
+    }
+
+    @Test
+    public void testPruningDropsLabels() {
+        // without any pruned label the station graph would be a silent no-op
+        long prunedLabels = 0;
+        for (GHResponse response : Arrays.asList(
+                route(36.914893, -116.76821, 36.914944, -116.761472, LocalDateTime.of(2007, 1, 1, 0, 0), false),
+                route(36.915682, -116.751677, 36.88108, -116.81797, LocalDateTime.of(2007, 1, 1, 0, 0), false),
+                route(36.915682, -116.751677, 36.914894, -116.76821, LocalDateTime.of(2007, 1, 1, 0, 0), false))) {
+            assertFalse(response.hasErrors());
+            prunedLabels += response.getHints().getLong("station_graph.pruned_labels", -1);
+        }
+        assertTrue("labels should be pruned, but were: " + prunedLabels, prunedLabels > 0);
+    }
+
+    @Test
+    public void testPruningKeepsOptimalSolutionArriveBy() {
+        assertTravelTimeIs(route(36.914893, -116.76821, 36.914944, -116.761472, LocalDateTime.of(2007, 1, 1, 6, 49), true), time(0, 5));
+    }
+
+    private GHResponse route(double fromLat, double fromLon, double toLat, double toLon, LocalDateTime time, boolean arriveBy) {
+        GHRequest ghRequest = new GHRequest(fromLat, fromLon, toLat, toLon);
+        ghRequest.getHints().put(Parameters.PT.EARLIEST_DEPARTURE_TIME, time.atZone(zoneId).toInstant());
+        ghRequest.getHints().put(Parameters.PT.ARRIVE_BY, arriveBy);
+        ghRequest.getHints().put(Parameters.PT.IGNORE_TRANSFERS, true);
+        return graphHopper.route(ghRequest);
+    }
+
+    private void assertTravelTimeIs(GHResponse response, int expectedTime) {
+        assertFalse(response.hasErrors());
+        assertEquals(expectedTime, response.getBest().getTime(), 0.1);
+    }
+
+}
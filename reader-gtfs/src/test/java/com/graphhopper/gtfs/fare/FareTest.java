@@ -170,6 +170,12 @@ public class FareTest {
                 });
     }
 
+    @Theory
+    public void sameFareAsWhenEnumeratingAllShoppingCarts(Map<String, Fare> fares, Trip trip) {
+        assertThat(Fares.cheapestFare(fares, trip).map(amount -> amount.getAmount().doubleValue()),
+                equalTo(Fares.cheapestFareBruteForce(fares, trip).map(amount -> amount.getAmount().doubleValue())));
+    }
+
     private static Map<String, Fare> parseFares(String fareAttributes, String fareRules) {
         GTFSFeed feed = new GTFSFeed();
         HashMap<String, Fare> fares = new HashMap<>();
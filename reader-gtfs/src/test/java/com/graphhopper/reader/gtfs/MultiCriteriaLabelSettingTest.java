@@ -0,0 +1,126 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FootFlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.Helper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiCriteriaLabelSettingTest {
+
+    private static final String GRAPH_LOC = "target/MultiCriteriaLabelSettingTest";
+    private PtFlagEncoder ptFlagEncoder;
+    private FootFlagEncoder footEncoder;
+    private GtfsStorage gtfsStorage;
+    private GraphHopperStorage graph;
+
+    @Before
+    public void setUp() {
+        Helper.removeDir(new File(GRAPH_LOC));
+        ptFlagEncoder = new PtFlagEncoder();
+        footEncoder = new FootFlagEncoder();
+        EncodingManager encodingManager = new EncodingManager(Arrays.asList(footEncoder, ptFlagEncoder), 8);
+        gtfsStorage = GraphHopperGtfs.createGtfsStorage();
+        graph = new GraphHopperStorage(GraphHopperGtfs.createGHDirectory(GRAPH_LOC), encodingManager, false, gtfsStorage).create(1000);
+        //  3 - 0 - 1 - 2
+        graph.getNodeAccess().setNode(0, 0, 0.001);
+        graph.getNodeAccess().setNode(1, 0, 0.002);
+        graph.getNodeAccess().setNode(2, 0, 0.003);
+        graph.getNodeAccess().setNode(3, 0, 0);
+        // the pt bits of the flags are 0, i.e. these are walking edges
+        graph.edge(0, 1).setDistance(100).setFlags(footEncoder.setProperties(5, true, true));
+        graph.edge(1, 2).setDistance(100).setFlags(footEncoder.setProperties(5, true, true));
+        graph.edge(0, 3).setDistance(100).setFlags(footEncoder.setProperties(5, true, true));
+    }
+
+    @After
+    public void tearDown() {
+        graph.close();
+        Helper.removeDir(new File(GRAPH_LOC));
+    }
+
+    @Test
+    public void testLowerBoundPrunesLabels() {
+        MultiCriteriaLabelSetting router = createRouter();
+        List<Label> labels = route(router);
+        assertEquals(0, router.getPrunedLabels());
+        assertTrue(reached(labels, 3));
+        long weightToTarget = router.weight(labelAt(labels, 2));
+
+        router = createRouter();
+        // exact for the nodes on the way to 2, too far away for the dead end
+        router.setLowerBound(node -> node == 3 ? 10 * weightToTarget : 0);
+        router.setPruningWeight(weightToTarget);
+        labels = route(router);
+        assertEquals(1, router.getPrunedLabels());
+        assertFalse(reached(labels, 3));
+        assertEquals(weightToTarget, router.weight(labelAt(labels, 2)));
+    }
+
+    @Test
+    public void testPruningWeightWithoutLowerBound() {
+        MultiCriteriaLabelSetting router = createRouter();
+        long weightToTarget = router.weight(labelAt(route(router), 2));
+
+        router = createRouter();
+        // the labels at 1 and 3 are within the pruning weight, only the one at 2 is dropped
+        router.setPruningWeight(weightToTarget - 1);
+        List<Label> labels = route(router);
+        assertEquals(1, router.getPrunedLabels());
+        assertTrue(reached(labels, 1));
+        assertTrue(reached(labels, 3));
+        assertFalse(reached(labels, 2));
+    }
+
+    private MultiCriteriaLabelSetting createRouter() {
+        GraphExplorer explorer = new GraphExplorer(graph, new FastestWeighting(footEncoder), ptFlagEncoder, gtfsStorage,
+                RealtimeFeed.empty(gtfsStorage), false, Collections.emptyList(), false, 5.0);
+        return new MultiCriteriaLabelSetting(explorer, ptFlagEncoder, false, Double.MAX_VALUE, false, false, false,
+                Integer.MAX_VALUE, new ArrayList<>());
+    }
+
+    private List<Label> route(MultiCriteriaLabelSetting router) {
+        return router.calcLabels(0, 2, Instant.ofEpochMilli(0), 0).collect(Collectors.toList());
+    }
+
+    private static boolean reached(List<Label> labels, int node) {
+        return labels.stream().anyMatch(label -> label.adjNode == node);
+    }
+
+    private static Label labelAt(List<Label> labels, int node) {
+        return labels.stream().filter(label -> label.adjNode == node).findFirst().get();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.graphhopper.reader.gtfs;
+
+import com.google.transit.realtime.GtfsRealtime;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.GHDirectory;
+import com.graphhopper.util.Helper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TripEdgeStorageTest {
+
+    private static final String LOCATION = "target/TripEdgeStorageTest";
+    private final Map<Integer, byte[]> tripDescriptors = new HashMap<>();
+    private final Map<Integer, Integer> stopSequences = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        Helper.removeDir(new File(LOCATION));
+        // edges 1 and 3 board the same trip, 6 is a hop edge without trip descriptor
+        tripDescriptors.put(1, trip("a"));
+        tripDescriptors.put(3, trip("a"));
+        tripDescriptors.put(4, trip("b"));
+        stopSequences.put(1, 5);
+        stopSequences.put(3, 6);
+        stopSequences.put(4, 7);
+        stopSequences.put(6, 0);
+    }
+
+    @After
+    public void tearDown() {
+        Helper.removeDir(new File(LOCATION));
+    }
+
+    @Test
+    public void testCreate() {
+        TripEdgeStorage storage = new TripEdgeStorage(createDirectory());
+        storage.create(tripDescriptors, stopSequences);
+        assertContent(storage);
+        storage.close();
+    }
+
+    @Test
+    public void testLoadExisting() {
+        TripEdgeStorage storage = new TripEdgeStorage(createDirectory());
+        assertFalse(storage.loadExisting());
+        storage.create(tripDescriptors, stopSequences);
+        storage.flush();
+        storage.close();
+
+        storage = new TripEdgeStorage(createDirectory());
+        assertTrue(storage.loadExisting());
+        assertContent(storage);
+        storage.close();
+    }
+
+    @Test
+    public void testEmpty() {
+        TripEdgeStorage storage = new TripEdgeStorage(createDirectory());
+        storage.create(new HashMap<>(), new HashMap<>());
+        assertNull(storage.getTripDescriptor(0));
+        assertNull(storage.getStopSequence(0));
+        storage.close();
+    }
+
+    private void assertContent(TripEdgeStorage storage) {
+        assertEquals("a", storage.getTripDescriptor(1).getTripId());
+        assertEquals("b", storage.getTripDescriptor(4).getTripId());
+        // equal descriptors are stored and decoded once
+        assertSame(storage.getTripDescriptor(1), storage.getTripDescriptor(3));
+
+        assertEquals(5, (int) storage.getStopSequence(1));
+        assertEquals(7, (int) storage.getStopSequence(4));
+        assertEquals(0, (int) storage.getStopSequence(6));
+
+        // edges in between, after the last one and negative ones have neither
+        for (int edge : new int[]{-1, 0, 2, 5, 6, 7, 100}) {
+            assertNull("edge " + edge, storage.getTripDescriptor(edge));
+        }
+        for (int edge : new int[]{-1, 0, 2, 5, 7, 100}) {
+            assertNull("edge " + edge, storage.getStopSequence(edge));
+        }
+    }
+
+    private static GHDirectory createDirectory() {
+        return new GHDirectory(LOCATION, DAType.RAM_STORE);
+    }
+
+    private static byte[] trip(String tripId) {
+        return GtfsRealtime.TripDescriptor.newBuilder().setTripId(tripId).build().toByteArray();
+    }
+}
@@ -47,7 +47,7 @@ public class GraphHopperOSM extends GraphHopper {
 
     @Override
     protected DataReader createReader(GraphHopperStorage ghStorage) {
-        return initDataReader(new OSMReader(ghStorage));
+        return initDataReader(new OSMReader(ghStorage).setElevationThreads(getElevationThreads()));
     }
 
     public String getOSMFile() {
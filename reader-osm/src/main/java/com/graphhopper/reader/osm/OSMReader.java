@@ -21,6 +21,7 @@ import com.carrotsearch.hppc.*;
 import com.graphhopper.coll.*;
 import com.graphhopper.coll.LongIntMap;
 import com.graphhopper.reader.*;
+import com.graphhopper.reader.dem.ElevationLookup;
 import com.graphhopper.reader.dem.ElevationProvider;
 import com.graphhopper.reader.dem.GraphElevationSmoothing;
 import com.graphhopper.reader.osm.OSMTurnRelation.TurnCostTableEntry;
@@ -89,6 +90,10 @@ public class OSMReader implements DataReader {
     private long skippedLocations;
     private final EncodingManager encodingManager;
     private int workerThreads = 2;
+    private int elevationThreads = 1;
+    // if the elevation is fetched with several threads the nodes are collected and processed in batches
+    private static final int NODE_BATCH_SIZE = 50_000;
+    private final List<ReaderNode> nodeBatch = new ArrayList<>();
     // Using the correct Map<Long, Integer> is hard. We need a memory efficient and fast solution for big data sets!
     //
     // very slow: new SparseLongLongArray
@@ -251,15 +256,29 @@ public class OSMReader implements DataReader {
         long wayStart = -1;
         long relationStart = -1;
         long counter = 1;
+        ElevationLookup elevationLookup = elevationThreads > 1 && eleProvider != ElevationProvider.NOOP
+                ? new ElevationLookup(eleProvider, elevationThreads) : null;
         try (OSMInput in = openOsmInputFile(osmFile)) {
             LongIntMap nodeFilter = getNodeMap();
 
             ReaderElement item;
             while ((item = in.getNext()) != null) {
+                // the nodes have to be processed before the ways which use them
+                if (!nodeBatch.isEmpty() && item.getType() != ReaderElement.NODE)
+                    processNodeBatch(elevationLookup);
+
                 switch (item.getType()) {
                     case ReaderElement.NODE:
                         if (nodeFilter.get(item.getId()) != EMPTY_NODE) {
-                            processNode((ReaderNode) item);
+                            if (elevationLookup == null) {
+                                processNode((ReaderNode) item);
+                            } else if (isInBounds((ReaderNode) item)) {
+                                nodeBatch.add((ReaderNode) item);
+                                if (nodeBatch.size() >= NODE_BATCH_SIZE)
+                                    processNodeBatch(elevationLookup);
+                            } else {
+                                skippedLocations++;
+                            }
                         }
                         break;
 
@@ -287,12 +306,18 @@ public class OSMReader implements DataReader {
                 }
             }
 
+            if (!nodeBatch.isEmpty())
+                processNodeBatch(elevationLookup);
+
             if (in.getUnprocessedElements() > 0)
                 throw new IllegalStateException("Still unprocessed elements in reader queue " + in.getUnprocessedElements());
 
             // logger.info("storage nodes:" + storage.nodes() + " vs. graph nodes:" + storage.getGraph().nodes());
         } catch (Exception ex) {
             throw new RuntimeException("Couldn't process file " + osmFile + ", error: " + ex.getMessage(), ex);
+        } finally {
+            if (elevationLookup != null)
+                elevationLookup.close();
         }
 
         finishedReading();
@@ -515,28 +540,54 @@ public class OSMReader implements DataReader {
     private void processNode(ReaderNode node) {
         if (isInBounds(node)) {
             addNode(node);
-
-            // analyze node tags for barriers
-            if (node.hasTags()) {
-                long nodeFlags = encodingManager.handleNodeTags(node);
-                if (nodeFlags != 0)
-                    getNodeFlagsMap().put(node.getId(), nodeFlags);
-            }
-
-            locations++;
+            processNodeTags(node);
         } else {
             skippedLocations++;
         }
     }
 
+    /**
+     * Fetches the elevation of the collected nodes in parallel and processes them in the original order.
+     */
+    private void processNodeBatch(ElevationLookup elevationLookup) {
+        PointList points = new PointList(nodeBatch.size(), true);
+        for (ReaderNode node : nodeBatch) {
+            points.add(node.getLat(), node.getLon(), Double.NaN);
+        }
+        elevationLookup.fill(points);
+        for (int i = 0; i < nodeBatch.size(); i++) {
+            ReaderNode node = nodeBatch.get(i);
+            int nodeType = getNodeMap().get(node.getId());
+            if (nodeType != EMPTY_NODE)
+                addNode(node, nodeType, points.getEle(i));
+            processNodeTags(node);
+        }
+        nodeBatch.clear();
+    }
+
+    private void processNodeTags(ReaderNode node) {
+        // analyze node tags for barriers
+        if (node.hasTags()) {
+            long nodeFlags = encodingManager.handleNodeTags(node);
+            if (nodeFlags != 0)
+                getNodeFlagsMap().put(node.getId(), nodeFlags);
+        }
+
+        locations++;
+    }
+
     boolean addNode(ReaderNode node) {
         int nodeType = getNodeMap().get(node.getId());
         if (nodeType == EMPTY_NODE)
             return false;
 
+        addNode(node, nodeType, getElevation(node));
+        return true;
+    }
+
+    private void addNode(ReaderNode node, int nodeType, double ele) {
         double lat = node.getLat();
         double lon = node.getLon();
-        double ele = getElevation(node);
         if (nodeType == TOWER_NODE) {
             addTowerNode(node.getId(), lat, lon, ele);
         } else if (nodeType == PILLAR_NODE) {
@@ -544,9 +595,13 @@ public class OSMReader implements DataReader {
             getNodeMap().put(node.getId(), nextPillarId + 3);
             nextPillarId++;
         }
-        return true;
     }
 
+    /**
+     * Not used if the elevation is fetched with several threads, then the ElevationProvider is called directly.
+     *
+     * @see #setElevationThreads(int)
+     */
     protected double getElevation(ReaderNode node) {
         return eleProvider.getEle(node.getLat(), node.getLon());
     }
@@ -893,6 +948,17 @@ public class OSMReader implements DataReader {
         return this;
     }
 
+    /**
+     * Sets the number of threads which fetch the elevation of the nodes, default is 1. More threads help if the
+     * elevation provider spends its time decoding or reading tiles, the ElevationProvider has to be thread safe.
+     */
+    public OSMReader setElevationThreads(int elevationThreads) {
+        if (elevationThreads < 1)
+            throw new IllegalArgumentException("At least one thread is necessary to fetch the elevation but was " + elevationThreads);
+        this.elevationThreads = elevationThreads;
+        return this;
+    }
+
     @Override
     public OSMReader setElevationProvider(ElevationProvider eleProvider) {
         if (eleProvider == null)
@@ -0,0 +1,404 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.util.*;
+import com.graphhopper.util.details.PathDetail;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Compact binary alternative to the JSON route response for clients which request many routes. It contains the
+ * same paths, instructions, path details and timings, but the numbers are written as variable length integers
+ * and the points as deltas with the precision of the encoded polyline, so the client parses no text at all.
+ * The public transit legs are not included.
+ * <p>
+ * All numbers are big-endian, strings are written with DataOutput.writeUTF. The response starts with the magic
+ * bytes 'G' 'H' 'B' and the version of the format, see write for the layout.
+ */
+public class BinaryRouteFormat {
+
+    public static final String MEDIA_TYPE = "application/vnd.graphhopper.route+binary";
+    private static final byte[] MAGIC = {'G', 'H', 'B'};
+    private static final int VERSION = 1;
+
+    private static final int FLAG_POINTS = 1;
+    private static final int FLAG_ELEVATION = 2;
+    private static final int FLAG_INSTRUCTIONS = 4;
+    private static final int FLAG_FARE = 8;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_DOUBLE = 2;
+    private static final int TYPE_BOOLEAN = 3;
+    private static final int TYPE_STRING = 4;
+
+    private static final double PRECISION = 1e5;
+    private static final double ELEVATION_PRECISION = 1e2;
+
+    public static void write(OutputStream outputStream, GHResponse ghRsp, boolean enableInstructions, boolean calcPoints,
+                             boolean enableElevation, float took) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 8 * 1024));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, Math.round(took * 1000));
+        Map<String, String> hints = ghRsp.getHints().toMap();
+        writeVarLong(out, hints.size());
+        for (Map.Entry<String, String> entry : hints.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+
+        List<PathWrapper> paths = ghRsp.getAll();
+        writeVarLong(out, paths.size());
+        for (PathWrapper path : paths) {
+            int flags = (calcPoints ? FLAG_POINTS : 0)
+                    | (enableElevation ? FLAG_ELEVATION : 0)
+                    | (calcPoints && enableInstructions ? FLAG_INSTRUCTIONS : 0)
+                    | (path.getFare() != null ? FLAG_FARE : 0);
+            out.writeByte(flags);
+            out.writeDouble(path.getDistance());
+            out.writeDouble(path.getRouteWeight());
+            writeVarLong(out, path.getTime());
+            writeVarLong(out, path.getNumChanges());
+            out.writeDouble(path.getAscend());
+            out.writeDouble(path.getDescend());
+            writeVarLong(out, path.getDescription().size());
+            for (String description : path.getDescription()) {
+                out.writeUTF(description);
+            }
+            writePoints(out, path.getWaypoints(), enableElevation);
+            if (calcPoints) {
+                writePoints(out, path.getPoints(), enableElevation);
+                if (enableInstructions)
+                    writeInstructions(out, path.getInstructions());
+                writeDetails(out, path.getPathDetails());
+            }
+            if (path.getFare() != null)
+                out.writeUTF(path.getFare().toPlainString());
+        }
+        out.flush();
+    }
+
+    private static void writePoints(DataOutputStream out, PointList points, boolean includeElevation) throws IOException {
+        writeVarLong(out, points.getSize());
+        long prevLat = 0, prevLon = 0, prevEle = 0;
+        for (int i = 0; i < points.getSize(); i++) {
+            long lat = Math.round(points.getLatitude(i) * PRECISION);
+            long lon = Math.round(points.getLongitude(i) * PRECISION);
+            writeVarLong(out, zigZag(lat - prevLat));
+            writeVarLong(out, zigZag(lon - prevLon));
+            prevLat = lat;
+            prevLon = lon;
+            if (includeElevation) {
+                long ele = Math.round(points.getElevation(i) * ELEVATION_PRECISION);
+                writeVarLong(out, zigZag(ele - prevEle));
+                prevEle = ele;
+            }
+        }
+    }
+
+    private static void writeInstructions(DataOutputStream out, InstructionList instructions) throws IOException {
+        writeVarLong(out, instructions.size());
+        int pointsIndex = 0;
+        for (Instruction instruction : instructions) {
+            InstructionAnnotation ia = instruction.getAnnotation();
+            String text = instruction.getTurnDescription(instructions.getTr());
+            if (Helper.isEmpty(text))
+                text = ia.getMessage();
+            writeVarLong(out, zigZag(instruction.getSign()));
+            writeString(out, Helper.firstBig(text));
+            writeString(out, instruction.getName());
+            out.writeDouble(instruction.getDistance());
+            writeVarLong(out, instruction.getTime());
+            out.writeBoolean(!ia.isEmpty());
+            if (!ia.isEmpty()) {
+                writeVarLong(out, zigZag(ia.getImportance()));
+                writeString(out, ia.getMessage());
+            }
+            int tmpIndex = pointsIndex + instruction.getLength();
+            writeVarLong(out, pointsIndex);
+            writeVarLong(out, tmpIndex);
+            pointsIndex = tmpIndex;
+
+            Map<String, Object> extraInfo = instruction.getExtraInfoJSON();
+            writeVarLong(out, extraInfo.size());
+            for (Map.Entry<String, Object> entry : extraInfo.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+
+    private static void writeDetails(DataOutputStream out, Map<String, List<PathDetail>> details) throws IOException {
+        writeVarLong(out, details.size());
+        for (Map.Entry<String, List<PathDetail>> entry : details.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeVarLong(out, entry.getValue().size());
+            for (PathDetail detail : entry.getValue()) {
+                writeVarLong(out, detail.getFirst());
+                writeVarLong(out, detail.getLast());
+                writeValue(out, detail.getValue());
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_LONG);
+            writeVarLong(out, zigZag(((Number) value).longValue()));
+        } else if (value instanceof Number) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeUTF(str == null ? "" : str);
+    }
+
+    /**
+     * Reads a response written by write. The paths are created in the same way as GraphHopperWeb creates them
+     * from the JSON response.
+     *
+     * @param turnDescription if true the instructions use the translated text from the server as name, otherwise
+     *                        the street name
+     */
+    public static GHResponse read(InputStream inputStream, boolean turnDescription) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 8 * 1024));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic))
+            throw new IOException("Not a binary route response");
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version + " of the binary route response, expected " + VERSION);
+
+        GHResponse ghRsp = new GHResponse();
+        ghRsp.getHints().put("took", readVarLong(in));
+        int hints = (int) readVarLong(in);
+        for (int i = 0; i < hints; i++) {
+            ghRsp.getHints().put(in.readUTF(), in.readUTF());
+        }
+
+        int paths = (int) readVarLong(in);
+        for (int i = 0; i < paths; i++) {
+            ghRsp.add(readPath(in, turnDescription));
+        }
+        return ghRsp;
+    }
+
+    private static PathWrapper readPath(DataInputStream in, boolean turnDescription) throws IOException {
+        PathWrapper path = new PathWrapper();
+        int flags = in.readUnsignedByte();
+        boolean elevation = (flags & FLAG_ELEVATION) != 0;
+        path.setDistance(in.readDouble());
+        path.setRouteWeight(in.readDouble());
+        path.setTime(readVarLong(in));
+        path.setNumChanges((int) readVarLong(in));
+        path.setAscend(in.readDouble());
+        path.setDescend(in.readDouble());
+        int descriptions = (int) readVarLong(in);
+        List<String> description = new ArrayList<>(descriptions);
+        for (int i = 0; i < descriptions; i++) {
+            description.add(in.readUTF());
+        }
+        path.setDescription(description);
+        path.setWaypoints(readPoints(in, elevation));
+        if ((flags & FLAG_POINTS) != 0) {
+            PointList points = readPoints(in, elevation);
+            path.setPoints(points);
+            if ((flags & FLAG_INSTRUCTIONS) != 0)
+                path.setInstructions(readInstructions(in, points, elevation, turnDescription));
+            path.addPathDetails(readDetails(in));
+        }
+        if ((flags & FLAG_FARE) != 0)
+            path.setFare(new BigDecimal(in.readUTF()));
+        return path;
+    }
+
+    private static PointList readPoints(DataInputStream in, boolean elevation) throws IOException {
+        int size = (int) readVarLong(in);
+        PointList points = new PointList(size, elevation);
+        long lat = 0, lon = 0, ele = 0;
+        for (int i = 0; i < size; i++) {
+            lat += unZigZag(readVarLong(in));
+            lon += unZigZag(readVarLong(in));
+            if (elevation) {
+                ele += unZigZag(readVarLong(in));
+                points.add(lat / PRECISION, lon / PRECISION, ele / ELEVATION_PRECISION);
+            } else {
+                points.add(lat / PRECISION, lon / PRECISION);
+            }
+        }
+        return points;
+    }
+
+    private static InstructionList readInstructions(DataInputStream in, PointList points, boolean elevation,
+                                                    boolean turnDescription) throws IOException {
+        int size = (int) readVarLong(in);
+        InstructionList il = new InstructionList(size, null);
+        int viaCount = 1;
+        for (int i = 0; i < size; i++) {
+            int sign = (int) unZigZag(readVarLong(in));
+            String text = in.readUTF();
+            String streetName = in.readUTF();
+            double distance = in.readDouble();
+            long time = readVarLong(in);
+            InstructionAnnotation ia = InstructionAnnotation.EMPTY;
+            if (in.readBoolean())
+                ia = new InstructionAnnotation((int) unZigZag(readVarLong(in)), in.readUTF());
+            int from = (int) readVarLong(in);
+            int to = (int) readVarLong(in);
+            PointList instPL = new PointList(to - from + 1, elevation);
+            for (int j = from; j <= to; j++) {
+                instPL.add(points, j);
+            }
+            int extras = (int) readVarLong(in);
+            Map<String, Object> extraInfo = new HashMap<>(extras);
+            for (int j = 0; j < extras; j++) {
+                extraInfo.put(in.readUTF(), readValue(in));
+            }
+
+            String name = turnDescription ? text : streetName;
+            Instruction instr;
+            if (sign == Instruction.USE_ROUNDABOUT || sign == Instruction.LEAVE_ROUNDABOUT) {
+                RoundaboutInstruction ri = new RoundaboutInstruction(sign, name, ia, instPL);
+                if (extraInfo.get("exit_number") instanceof Number)
+                    ri.setExitNumber(((Number) extraInfo.get("exit_number")).intValue());
+                if (Boolean.TRUE.equals(extraInfo.get("exited")))
+                    ri.setExited();
+                if (extraInfo.get("turn_angle") instanceof Number) {
+                    double angle = ((Number) extraInfo.get("turn_angle")).doubleValue();
+                    ri.setDirOfRotation(angle);
+                    ri.setRadian((angle < 0 ? -Math.PI : Math.PI) - angle);
+                }
+                instr = ri;
+            } else if (sign == Instruction.REACHED_VIA) {
+                ViaInstruction tmpInstr = new ViaInstruction(name, ia, instPL);
+                tmpInstr.setViaCount(viaCount);
+                viaCount++;
+                instr = tmpInstr;
+            } else if (sign == Instruction.FINISH) {
+                instr = new FinishInstruction(name, instPL, 0);
+            } else {
+                instr = new Instruction(sign, name, ia, instPL);
+                if (sign == Instruction.CONTINUE_ON_STREET && extraInfo.get("heading") instanceof Number)
+                    instr.setExtraInfo("heading", ((Number) extraInfo.get("heading")).doubleValue());
+            }
+
+            // see GraphHopperWeb: the server already translated the text
+            if (turnDescription)
+                instr.setUseRawName();
+            instr.setDistance(distance).setTime(time);
+            il.add(instr);
+        }
+        return il;
+    }
+
+    private static Map<String, List<PathDetail>> readDetails(DataInputStream in) throws IOException {
+        int size = (int) readVarLong(in);
+        Map<String, List<PathDetail>> details = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            int count = (int) readVarLong(in);
+            List<PathDetail> list = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                int first = (int) readVarLong(in);
+                int last = (int) readVarLong(in);
+                Object value = readValue(in);
+                PathDetail pd;
+                if (value instanceof Long)
+                    pd = new PathDetail((Long) value);
+                else if (value instanceof Double)
+                    pd = new PathDetail((Double) value);
+                else if (value instanceof Boolean)
+                    pd = new PathDetail((Boolean) value);
+                else if (value instanceof String)
+                    pd = new PathDetail((String) value);
+                else
+                    throw new IOException("Unsupported value of path detail " + key + ": " + value);
+                pd.setFirst(first);
+                pd.setLast(last);
+                list.add(pd);
+            }
+            details.put(key, list);
+        }
+        return details;
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_LONG:
+                return unZigZag(readVarLong(in));
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a non-negative number with 7 bits per byte, the highest bit marks that another byte follows
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable length number");
+    }
+}
@@ -17,6 +17,10 @@
  */
 package com.graphhopper.http;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -25,6 +29,8 @@ import com.graphhopper.PathWrapper;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.PointList;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.text.NumberFormat;
@@ -107,38 +113,89 @@ public class WebHelper {
 
     public static String encodePolyline(PointList poly, boolean includeElevation, double precision) {
         StringBuilder sb = new StringBuilder();
-        int size = poly.getSize();
-        int prevLat = 0;
-        int prevLon = 0;
-        int prevEle = 0;
-        for (int i = 0; i < size; i++) {
-            int num = (int) Math.floor(poly.getLatitude(i) * precision);
-            encodeNumber(sb, num - prevLat);
+        PolylineReader reader = new PolylineReader(poly, includeElevation, precision);
+        char[] buffer = new char[256];
+        int count;
+        while ((count = reader.read(buffer, 0, buffer.length)) > 0) {
+            sb.append(buffer, 0, count);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Encodes the points on the fly while they are read, so a long polyline can be written without creating the
+     * String first, e.g. via JsonGenerator.writeString(Reader, int)
+     */
+    static class PolylineReader extends Reader {
+        private final PointList poly;
+        private final boolean includeElevation;
+        private final double precision;
+        // the encoded characters of the current point, an int needs at most 7 characters
+        private final char[] pending = new char[3 * 7];
+        private int pendingStart;
+        private int pendingEnd;
+        private int index;
+        private int prevLat;
+        private int prevLon;
+        private int prevEle;
+
+        PolylineReader(PointList poly, boolean includeElevation, double precision) {
+            this.poly = poly;
+            this.includeElevation = includeElevation;
+            this.precision = precision;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            int count = 0;
+            while (count < len) {
+                if (pendingStart == pendingEnd) {
+                    if (index >= poly.getSize())
+                        break;
+                    encodeNextPoint();
+                }
+                int n = Math.min(len - count, pendingEnd - pendingStart);
+                System.arraycopy(pending, pendingStart, cbuf, off + count, n);
+                pendingStart += n;
+                count += n;
+            }
+            return count == 0 && len > 0 ? -1 : count;
+        }
+
+        private void encodeNextPoint() {
+            pendingStart = 0;
+            pendingEnd = 0;
+            int num = (int) Math.floor(poly.getLatitude(index) * precision);
+            encodeNumber(num - prevLat);
             prevLat = num;
-            num = (int) Math.floor(poly.getLongitude(i) * precision);
-            encodeNumber(sb, num - prevLon);
+            num = (int) Math.floor(poly.getLongitude(index) * precision);
+            encodeNumber(num - prevLon);
             prevLon = num;
             if (includeElevation) {
-                num = (int) Math.floor(poly.getElevation(i) * 100);
-                encodeNumber(sb, num - prevEle);
+                num = (int) Math.floor(poly.getElevation(index) * 100);
+                encodeNumber(num - prevEle);
                 prevEle = num;
             }
+            index++;
         }
-        return sb.toString();
-    }
 
-    private static void encodeNumber(StringBuilder sb, int num) {
-        num = num << 1;
-        if (num < 0) {
-            num = ~num;
+        private void encodeNumber(int num) {
+            num = num << 1;
+            if (num < 0) {
+                num = ~num;
+            }
+            while (num >= 0x20) {
+                int nextValue = (0x20 | (num & 0x1f)) + 63;
+                pending[pendingEnd++] = (char) (nextValue);
+                num >>= 5;
+            }
+            num += 63;
+            pending[pendingEnd++] = (char) (num);
         }
-        while (num >= 0x20) {
-            int nextValue = (0x20 | (num & 0x1f)) + 63;
-            sb.append((char) (nextValue));
-            num >>= 5;
+
+        @Override
+        public void close() {
         }
-        num += 63;
-        sb.append((char) (num));
     }
 
 
@@ -184,4 +241,98 @@ public class WebHelper {
         return json;
     }
 
+    /**
+     * Same content as {@link #jsonObject}, but nothing is built in memory: the returned object writes the
+     * response directly to the JsonGenerator when it is serialized, e.g. by the message body writer of the
+     * resource.
+     */
+    public static JsonSerializable jsonStream(final GHResponse ghRsp, final boolean enableInstructions, final boolean calcPoints,
+                                              final boolean enableElevation, final boolean pointsEncoded, final float took) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                writeJson(gen, ghRsp, enableInstructions, calcPoints, enableElevation, pointsEncoded, took);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+                serialize(gen, serializers);
+            }
+        };
+    }
+
+    public static void writeJson(JsonGenerator json, GHResponse ghRsp, boolean enableInstructions, boolean calcPoints, boolean enableElevation, boolean pointsEncoded, float took) throws IOException {
+        json.writeStartObject();
+        json.writeObjectField("hints", ghRsp.getHints().toMap());
+        // If you replace GraphHopper with your own brand name, this is fine.
+        // Still it would be highly appreciated if you mention us in your about page!
+        json.writeObjectFieldStart("info");
+        json.writeArrayFieldStart("copyrights");
+        json.writeString("GraphHopper");
+        json.writeString("OpenStreetMap contributors");
+        json.writeEndArray();
+        json.writeNumberField("took", Math.round(took * 1000));
+        json.writeEndObject();
+        json.writeArrayFieldStart("paths");
+        for (PathWrapper ar : ghRsp.getAll()) {
+            json.writeStartObject();
+            json.writeNumberField("distance", Helper.round(ar.getDistance(), 3));
+            json.writeNumberField("weight", Helper.round6(ar.getRouteWeight()));
+            json.writeNumberField("time", ar.getTime());
+            json.writeNumberField("transfers", ar.getNumChanges());
+            if (!ar.getDescription().isEmpty()) {
+                json.writeObjectField("description", ar.getDescription());
+            }
+            if (calcPoints) {
+                json.writeBooleanField("points_encoded", pointsEncoded);
+                if (ar.getPoints().getSize() >= 2) {
+                    json.writeObjectField("bbox", ar.calcBBox2D());
+                }
+                json.writeFieldName("points");
+                writePoints(json, ar.getPoints(), enableElevation, pointsEncoded);
+                if (enableInstructions) {
+                    json.writeObjectField("instructions", ar.getInstructions());
+                }
+                json.writeObjectField("legs", ar.getLegs());
+                json.writeObjectField("details", ar.getPathDetails());
+                json.writeNumberField("ascend", ar.getAscend());
+                json.writeNumberField("descend", ar.getDescend());
+            }
+            json.writeFieldName("snapped_waypoints");
+            writePoints(json, ar.getWaypoints(), enableElevation, pointsEncoded);
+            if (ar.getFare() != null) {
+                json.writeStringField("fare", NumberFormat.getCurrencyInstance(Locale.ROOT).format(ar.getFare()));
+            }
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes the points either as encoded polyline or as the same GeoJSON LineString as PointList.toLineString
+     */
+    private static void writePoints(JsonGenerator json, PointList points, boolean includeElevation, boolean pointsEncoded) throws IOException {
+        if (pointsEncoded) {
+            json.writeString(new PolylineReader(points, includeElevation, 1e5), -1);
+            return;
+        }
+
+        json.writeStartObject();
+        json.writeStringField("type", "LineString");
+        json.writeArrayFieldStart("coordinates");
+        // special case as just 1 point is not supported in the specification #1412
+        int size = points.getSize() == 1 ? 2 : points.getSize();
+        for (int i = 0; i < size; i++) {
+            int index = Math.min(i, points.getSize() - 1);
+            json.writeStartArray();
+            json.writeNumber(PointList.round6(points.getLongitude(index)));
+            json.writeNumber(PointList.round6(points.getLatitude(index)));
+            if (includeElevation)
+                json.writeNumber(PointList.round2(points.getElevation(index)));
+            json.writeEndArray();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
 }
@@ -3,13 +3,48 @@ package com.graphhopper.jackson;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.Instruction;
+import com.graphhopper.util.InstructionAnnotation;
 import com.graphhopper.util.InstructionList;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class InstructionListSerializer extends JsonSerializer<InstructionList> {
     @Override
     public void serialize(InstructionList instructions, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-        jsonGenerator.writeObject(instructions.createJson());
+        // same content as InstructionList.createJson, but written directly instead of creating a map per instruction
+        jsonGenerator.writeStartArray();
+        int pointsIndex = 0;
+        for (Instruction instruction : instructions) {
+            jsonGenerator.writeStartObject();
+            InstructionAnnotation ia = instruction.getAnnotation();
+            String text = instruction.getTurnDescription(instructions.getTr());
+            if (Helper.isEmpty(text))
+                text = ia.getMessage();
+            jsonGenerator.writeStringField("text", Helper.firstBig(text));
+            if (!ia.isEmpty()) {
+                jsonGenerator.writeStringField("annotation_text", ia.getMessage());
+                jsonGenerator.writeNumberField("annotation_importance", ia.getImportance());
+            }
+
+            jsonGenerator.writeStringField("street_name", instruction.getName());
+            jsonGenerator.writeNumberField("time", instruction.getTime());
+            jsonGenerator.writeNumberField("distance", Helper.round(instruction.getDistance(), 3));
+            jsonGenerator.writeNumberField("sign", instruction.getSign());
+            for (Map.Entry<String, Object> entry : instruction.getExtraInfoJSON().entrySet()) {
+                jsonGenerator.writeObjectField(entry.getKey(), entry.getValue());
+            }
+
+            int tmpIndex = pointsIndex + instruction.getLength();
+            jsonGenerator.writeArrayFieldStart("interval");
+            jsonGenerator.writeNumber(pointsIndex);
+            jsonGenerator.writeNumber(tmpIndex);
+            jsonGenerator.writeEndArray();
+            pointsIndex = tmpIndex;
+            jsonGenerator.writeEndObject();
+        }
+        jsonGenerator.writeEndArray();
     }
 }
@@ -0,0 +1,89 @@
+package com.graphhopper.http;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.util.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class BinaryRouteFormatTest {
+
+    private GHResponse writeAndRead(GHResponse response, boolean instructions, boolean calcPoints, boolean elevation) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryRouteFormat.write(out, response, instructions, calcPoints, elevation, 0.123f);
+        return BinaryRouteFormat.read(new ByteArrayInputStream(out.toByteArray()), true);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        GHResponse response = RouteResponseFixture.createResponse();
+        PathWrapper expected = response.getBest();
+        GHResponse result = writeAndRead(response, true, true, true);
+        assertEquals("42", result.getHints().get("visited_nodes.sum", ""));
+        assertEquals(123, result.getHints().getLong("took", -1));
+        assertEquals(1, result.getAll().size());
+
+        PathWrapper path = result.getBest();
+        assertEquals(expected.getDistance(), path.getDistance(), 0);
+        assertEquals(expected.getRouteWeight(), path.getRouteWeight(), 0);
+        assertEquals(expected.getTime(), path.getTime());
+        assertEquals(expected.getAscend(), path.getAscend(), 0);
+        assertEquals(expected.getDescend(), path.getDescend(), 0);
+        assertEquals(expected.getDescription(), path.getDescription());
+        assertEquals(expected.getFare(), path.getFare());
+        assertPoints(expected.getPoints(), path.getPoints());
+        assertPoints(expected.getWaypoints(), path.getWaypoints());
+        for (String key : expected.getPathDetails().keySet()) {
+            assertEquals(expected.getPathDetails().get(key).toString(), path.getPathDetails().get(key).toString());
+            assertEquals(expected.getPathDetails().get(key).get(0).getValue(), path.getPathDetails().get(key).get(0).getValue());
+        }
+
+        InstructionList instructions = path.getInstructions();
+        assertEquals(3, instructions.size());
+        assertEquals(expected.getInstructions().createJson().get(0).get("text"), instructions.get(0).getTurnDescription(null));
+        assertEquals("toll", instructions.get(0).getAnnotation().getMessage());
+        assertEquals(50, instructions.get(0).getDistance(), 0);
+        assertEquals(6000, instructions.get(0).getTime());
+        assertEquals(2, instructions.get(0).getPoints().size());
+        RoundaboutInstruction roundabout = (RoundaboutInstruction) instructions.get(1);
+        assertEquals(2, roundabout.getExitNumber());
+        assertEquals(expected.getInstructions().get(1).getExtraInfoJSON(), roundabout.getExtraInfoJSON());
+        assertEquals(Instruction.FINISH, instructions.get(2).getSign());
+        assertEquals(52.5141234, instructions.get(2).getPoints().getLat(0), 1e-5);
+    }
+
+    private static void assertPoints(PointList expected, PointList actual) {
+        assertEquals(expected.size(), actual.size());
+        assertTrue(actual.is3D());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getLat(i), actual.getLat(i), 1e-5);
+            assertEquals(expected.getLon(i), actual.getLon(i), 1e-5);
+            assertEquals(expected.getEle(i), actual.getEle(i), 1e-2);
+        }
+    }
+
+    @Test
+    public void testWithoutPoints() throws IOException {
+        GHResponse result = writeAndRead(RouteResponseFixture.createResponse(), false, false, false);
+        PathWrapper path = result.getBest();
+        assertEquals(123.4567, path.getDistance(), 0);
+        assertFalse(path.getWaypoints().is3D());
+        assertEquals(2, path.getWaypoints().size());
+        assertTrue(path.getPathDetails().isEmpty());
+    }
+
+    @Test
+    public void testRejectOtherContent() {
+        try {
+            BinaryRouteFormat.read(new ByteArrayInputStream("{\"message\":\"x\"}".getBytes()), true);
+            fail();
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("Not a binary route response"));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.util.*;
+import com.graphhopper.util.details.PathDetail;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * A short route with every part of a response, i.e. 3D points, instructions with a roundabout, path details of
+ * all value types, a description and a fare, for the tests of the response formats.
+ */
+class RouteResponseFixture {
+
+    static final Translation TRANSLATION = new Translation() {
+        @Override
+        public String tr(String key, Object... params) {
+            return key + Arrays.toString(params);
+        }
+
+        @Override
+        public Map<String, String> asMap() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.ROOT;
+        }
+
+        @Override
+        public String getLanguage() {
+            return "en";
+        }
+    };
+
+    static GHResponse createResponse() {
+        PointList points = Helper.createPointList3D(52.514, 13.349, 10, 52.5135, 13.35, 12.5, 52.514, 13.351, 11,
+                52.5141234, 13.3512345, -3.2);
+        InstructionList instructions = new InstructionList(TRANSLATION);
+        instructions.add(new Instruction(Instruction.CONTINUE_ON_STREET, "main street", new InstructionAnnotation(1, "toll"),
+                points.copy(0, 1)).setDistance(50).setTime(6000));
+        instructions.add(new RoundaboutInstruction(Instruction.USE_ROUNDABOUT, "ring", InstructionAnnotation.EMPTY,
+                points.copy(1, 3)).setDirOfRotation(-0.1).setRadian(-Math.PI + 1).setExitNumber(2).setExited()
+                .setDistance(70.5).setTime(9000));
+        instructions.add(new FinishInstruction(52.5141234, 13.3512345, -3.2));
+        Map<String, List<PathDetail>> details = new HashMap<>();
+        details.put("max_speed", Arrays.asList(detail(new PathDetail(30.0), 0, 2), detail(new PathDetail(50.0), 2, 3)));
+        details.put("street_name", Collections.singletonList(detail(new PathDetail("main street"), 0, 3)));
+        details.put("edge_id", Collections.singletonList(detail(new PathDetail(1234567890123L), 0, 3)));
+        details.put("toll", Collections.singletonList(detail(new PathDetail(true), 0, 3)));
+
+        PathWrapper path = new PathWrapper();
+        path.setPoints(points);
+        path.setWaypoints(Helper.createPointList3D(52.514, 13.349, 10, 52.5141234, 13.3512345, -3.2));
+        path.setInstructions(instructions);
+        path.addPathDetails(details);
+        path.setDescription(Arrays.asList("a", "b"));
+        path.setDistance(123.4567).setTime(12000).setRouteWeight(150.1234567).setAscend(2.5).setDescend(1.5);
+        path.setFare(new BigDecimal("2.80"));
+        GHResponse response = new GHResponse();
+        response.add(path);
+        response.getHints().put("visited_nodes.sum", 42);
+        return response;
+    }
+
+    private static PathDetail detail(PathDetail detail, int first, int last) {
+        detail.setFirst(first);
+        detail.setLast(last);
+        return detail;
+    }
+}
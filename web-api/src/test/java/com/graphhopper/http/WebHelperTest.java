@@ -17,8 +17,10 @@
  */
 package com.graphhopper.http;
 
-import com.graphhopper.util.Helper;
-import com.graphhopper.util.PointList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphhopper.GHResponse;
+import com.graphhopper.jackson.Jackson;
+import com.graphhopper.util.*;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -79,4 +81,31 @@ public class WebHelperTest {
     public void testEncode1e6() throws Exception {
         assertEquals("ohdfzAgt}bVoEL", WebHelper.encodePolyline(Helper.createPointList(47.827608, 12.123476, 47.827712, 12.123469), false, 1e6));
     }
+
+    @Test
+    public void testJsonStreamSameAsJsonObject() throws Exception {
+        GHResponse response = RouteResponseFixture.createResponse();
+        ObjectMapper objectMapper = Jackson.newObjectMapper();
+        for (boolean pointsEncoded : new boolean[]{true, false}) {
+            for (boolean elevation : new boolean[]{true, false}) {
+                String expected = objectMapper.writeValueAsString(WebHelper.jsonObject(response, true, true, elevation, pointsEncoded, 0.1f));
+                String actual = objectMapper.writeValueAsString(WebHelper.jsonStream(response, true, true, elevation, pointsEncoded, 0.1f));
+                assertEquals(objectMapper.readTree(expected), objectMapper.readTree(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeLongPolyline() {
+        PointList list = new PointList(1000, false);
+        for (int i = 0; i < 1000; i++) {
+            list.add(50 + i * 0.0123, 10 - i * 0.0456);
+        }
+        PointList decoded = WebHelper.decodePolyline(WebHelper.encodePolyline(list), list.getSize(), false);
+        assertEquals(list.getSize(), decoded.getSize());
+        for (int i = 0; i < list.getSize(); i++) {
+            assertEquals(list.getLat(i), decoded.getLat(i), 1e-5);
+            assertEquals(list.getLon(i), decoded.getLon(i), 1e-5);
+        }
+    }
 }
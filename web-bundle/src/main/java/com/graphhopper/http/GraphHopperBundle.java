@@ -19,9 +19,12 @@
 package com.graphhopper.http;
 
 import com.bedatadriven.jackson.datatype.jts.JtsModule;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -32,6 +35,8 @@ import com.graphhopper.GraphHopper;
 import com.graphhopper.GraphHopperAPI;
 import com.graphhopper.http.health.GraphHopperHealthCheck;
 import com.graphhopper.http.health.GraphHopperStorageHealthCheck;
+import com.graphhopper.isochrone.algorithm.GridHullBuilder;
+import com.graphhopper.isochrone.algorithm.PhastGraphCache;
 import com.graphhopper.isochrone.algorithm.RasterHullBuilder;
 import com.graphhopper.jackson.GraphHopperModule;
 import com.graphhopper.reader.gtfs.GraphHopperGtfs;
@@ -39,13 +44,17 @@ import com.graphhopper.reader.gtfs.GtfsStorage;
 import com.graphhopper.reader.gtfs.PtFlagEncoder;
 import com.graphhopper.reader.gtfs.RealtimeFeed;
 import com.graphhopper.resources.*;
+import com.graphhopper.routing.RouteCache;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
 import com.graphhopper.routing.util.CarFlagEncoder;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FootFlagEncoder;
+import com.graphhopper.routing.util.HintsMap;
 import com.graphhopper.storage.GHDirectory;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.index.LocationIndex;
 import com.graphhopper.util.CmdArgs;
+import com.graphhopper.util.EngineWarmUp;
 import com.graphhopper.util.TranslationMap;
 import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.lifecycle.Managed;
@@ -62,6 +71,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConfiguration> {
@@ -205,9 +217,31 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
             runPtGraphHopper(configuration.getGraphHopperConfiguration(), environment);
         } else {
             runRegularGraphHopper(configuration.getGraphHopperConfiguration(), environment);
+            // the routes of a batch are admitted with the costs of road routing
+            registerRouteBatch(configuration.getGraphHopperConfiguration(), environment);
         }
     }
 
+    private void registerRouteBatch(CmdArgs configuration, Environment environment) {
+        int threads = configuration.getInt("web.batch.threads", Runtime.getRuntime().availableProcessors());
+        // When the queue is full the request thread calculates the route itself. This slows down the client
+        // which sends the batch, instead of rejecting its routes.
+        final ExecutorService routeBatchExecutor = environment.lifecycle().executorService("route-batch-%d").
+                minThreads(threads).
+                maxThreads(threads).
+                workQueue(new ArrayBlockingQueue<>(configuration.getInt("web.batch.queue_size", 4 * threads))).
+                rejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy()).
+                build();
+        environment.jersey().register(new AbstractBinder() {
+            @Override
+            protected void configure() {
+                bind(routeBatchExecutor).to(ExecutorService.class).named("routeBatch");
+                bind(environment.getObjectMapper()).to(ObjectMapper.class);
+            }
+        });
+        environment.jersey().register(RouteBatchResource.class);
+    }
+
     private void runPtGraphHopper(CmdArgs configuration, Environment environment) {
         final PtFlagEncoder ptFlagEncoder = new PtFlagEncoder();
         final GHDirectory ghDirectory = GraphHopperGtfs.createGHDirectory(configuration.get("graph.location", "target/tmp"));
@@ -216,25 +250,35 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
         final GraphHopperStorage graphHopperStorage = GraphHopperGtfs.createOrLoad(ghDirectory, encodingManager, ptFlagEncoder, gtfsStorage,
                 configuration.has("gtfs.file") ? Arrays.asList(configuration.get("gtfs.file", "").split(",")) : Collections.emptyList(),
                 configuration.has("datareader.file") ? Arrays.asList(configuration.get("datareader.file", "").split(",")) : Collections.emptyList());
+        if (configuration.getBool("gtfs.prepare_station_graph", false)) {
+            GraphHopperGtfs.prepareStationGraph(graphHopperStorage, ptFlagEncoder);
+        }
         final TranslationMap translationMap = GraphHopperGtfs.createTranslationMap();
         final LocationIndex locationIndex = GraphHopperGtfs.createOrLoadIndex(ghDirectory, graphHopperStorage);
-        final GraphHopperAPI graphHopper = new GraphHopperGtfs(ptFlagEncoder, translationMap, graphHopperStorage, locationIndex, gtfsStorage, RealtimeFeed.empty(gtfsStorage));
+        final GraphHopperGtfs graphHopper = new GraphHopperGtfs(ptFlagEncoder, translationMap, graphHopperStorage, locationIndex, gtfsStorage, RealtimeFeed.empty(gtfsStorage))
+                .setMaxDepartures(configuration.getInt("gtfs.max_departures", 120))
+                .setMaxTimeLimit(configuration.getLong("gtfs.max_time_limit", 4 * 60 * 60));
         environment.jersey().register(new AbstractBinder() {
             @Override
             protected void configure() {
                 bind(configuration).to(CmdArgs.class);
                 bind(graphHopper).to(GraphHopperAPI.class);
+                bind(graphHopper).to(GraphHopperGtfs.class);
+                bind(new RouteAdmission(null, configuration)).to(RouteAdmission.class);
                 bind(false).to(Boolean.class).named("hasElevation");
                 bind(locationIndex).to(LocationIndex.class);
                 bind(translationMap).to(TranslationMap.class);
                 bind(encodingManager).to(EncodingManager.class);
                 bind(graphHopperStorage).to(GraphHopperStorage.class);
                 bindFactory(RasterHullBuilderFactory.class).to(RasterHullBuilder.class);
+                bind(new GridHullBuilder()).to(GridHullBuilder.class);
             }
         });
         environment.jersey().register(NearestResource.class);
         environment.jersey().register(RouteResource.class);
         environment.jersey().register(IsochroneResource.class);
+        environment.jersey().register(PtIsochroneResource.class);
+        environment.jersey().register(PtMatrixResource.class);
         environment.jersey().register(I18NResource.class);
         environment.jersey().register(InfoResource.class);
         // Say we only support pt, even though we now have several flag encoders. Yes, I know, we're almost there.
@@ -265,6 +309,9 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
     private void runRegularGraphHopper(CmdArgs configuration, Environment environment) {
         final GraphHopperManaged graphHopperManaged = new GraphHopperManaged(configuration, environment.getObjectMapper());
         environment.lifecycle().manage(graphHopperManaged);
+        final RouteAdmission routeAdmission = new RouteAdmission(new RouteCostEstimator(graphHopperManaged.getGraphHopper()), configuration);
+        final PhastGraphCache phastGraphCache = new PhastGraphCache(graphHopperManaged.getGraphHopper());
+        final EngineWarmUp warmUp = registerWarmUp(configuration, graphHopperManaged.getGraphHopper(), phastGraphCache, environment);
         environment.jersey().register(new AbstractBinder() {
             @Override
             protected void configure() {
@@ -272,6 +319,7 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
                 bind(graphHopperManaged).to(GraphHopperManaged.class);
                 bind(graphHopperManaged.getGraphHopper()).to(GraphHopper.class);
                 bind(graphHopperManaged.getGraphHopper()).to(GraphHopperAPI.class);
+                bind(routeAdmission).to(RouteAdmission.class);
 
                 bindFactory(HasElevation.class).to(Boolean.class).named("hasElevation");
                 bindFactory(LocationIndexFactory.class).to(LocationIndex.class);
@@ -279,6 +327,8 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
                 bindFactory(EncodingManagerFactory.class).to(EncodingManager.class);
                 bindFactory(GraphHopperStorageFactory.class).to(GraphHopperStorage.class);
                 bindFactory(RasterHullBuilderFactory.class).to(RasterHullBuilder.class);
+                bind(new GridHullBuilder()).to(GridHullBuilder.class);
+                bind(phastGraphCache).to(PhastGraphCache.class);
             }
         });
 
@@ -290,7 +340,77 @@ public class GraphHopperBundle implements ConfiguredBundle<GraphHopperBundleConf
         environment.jersey().register(IsochroneResource.class);
         environment.jersey().register(I18NResource.class);
         environment.jersey().register(InfoResource.class);
-        environment.healthChecks().register("graphhopper", new GraphHopperHealthCheck(graphHopperManaged.getGraphHopper()));
+        environment.healthChecks().register("graphhopper", new GraphHopperHealthCheck(graphHopperManaged.getGraphHopper(), warmUp));
+        registerRouteCacheMetrics(graphHopperManaged.getGraphHopper().getRouteCache(), environment.metrics());
+        graphHopperManaged.getGraphHopper().setRoutingStatsListener(new RoutingMetrics(environment.metrics()));
+        environment.jersey().register(new RouteSerializationTimer(environment.metrics()));
+        registerRouteAdmissionMetrics(routeAdmission, environment.metrics());
+    }
+
+    private void registerRouteAdmissionMetrics(RouteAdmission routeAdmission, MetricRegistry metrics) {
+        if (!routeAdmission.isEnabled())
+            return;
+
+        for (RouteAdmission.Lane lane : Arrays.asList(routeAdmission.getCheapLane(), routeAdmission.getExpensiveLane())) {
+            String prefix = MetricRegistry.name("graphhopper.admission", lane.getName());
+            metrics.register(MetricRegistry.name(prefix, "running"), (Gauge<Integer>) lane::getRunning);
+            metrics.register(MetricRegistry.name(prefix, "waiting"), (Gauge<Integer>) lane::getWaiting);
+            metrics.register(MetricRegistry.name(prefix, "rejected"), (Gauge<Long>) lane::getRejected);
+        }
+    }
+
+    /**
+     * Warms up the routing after the graph was loaded. This runs in the background, so the server starts at once
+     * but is only healthy when the warm up finished.
+     *
+     * @return null if the warm up is disabled
+     */
+    private EngineWarmUp registerWarmUp(CmdArgs configuration, GraphHopper graphHopper, PhastGraphCache phastGraphCache, Environment environment) {
+        if (!configuration.getBool("web.warm_up.enabled", false))
+            return null;
+
+        final EngineWarmUp warmUp = new EngineWarmUp(graphHopper).
+                setIterations(configuration.getInt("web.warm_up.iterations", 100)).
+                setThreads(configuration.getInt("web.warm_up.threads", Runtime.getRuntime().availableProcessors())).
+                setTouchStorage(configuration.getBool("web.warm_up.touch_storage", true));
+        final boolean isochrone = configuration.getBool("web.warm_up.isochrone", false);
+        environment.lifecycle().manage(new Managed() {
+            private Thread thread;
+
+            @Override
+            public void start() {
+                // the preparations are only known after the graph was loaded by GraphHopperManaged.start
+                if (isochrone) {
+                    for (PrepareContractionHierarchies preparation : graphHopper.getCHFactoryDecorator().getPreparations()) {
+                        HintsMap hints = new HintsMap(preparation.getWeighting().getName()).
+                                setVehicle(preparation.getWeighting().getFlagEncoder().toString());
+                        warmUp.addTask(() -> {
+                            phastGraphCache.get(hints, false);
+                            phastGraphCache.get(hints, true);
+                        });
+                    }
+                }
+                thread = new Thread(warmUp::run, "warm-up");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            @Override
+            public void stop() {
+                thread.interrupt();
+            }
+        });
+        return warmUp;
+    }
+
+    private void registerRouteCacheMetrics(RouteCache routeCache, MetricRegistry metrics) {
+        if (routeCache == null)
+            return;
+
+        metrics.register("graphhopper.route_cache.hits", (Gauge<Long>) routeCache::getHits);
+        metrics.register("graphhopper.route_cache.misses", (Gauge<Long>) routeCache::getMisses);
+        metrics.register("graphhopper.route_cache.evictions", (Gauge<Long>) routeCache::getEvictions);
+        metrics.register("graphhopper.route_cache.size", (Gauge<Integer>) routeCache::size);
     }
 
 }
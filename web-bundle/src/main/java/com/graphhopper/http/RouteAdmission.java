@@ -0,0 +1,174 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.GraphHopperAPI;
+import com.graphhopper.MultiException;
+import com.graphhopper.util.CmdArgs;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent route calculations separately for cheap and expensive requests, so that a
+ * burst of expensive requests, e.g. long flexible or alternative routes, cannot block the cheap ones. The costs
+ * are estimated with the {@link RouteCostEstimator}. Every lane has a maximum number of running and of waiting
+ * requests, requests which would exceed the waiting limit or which wait too long are rejected with status 503.
+ */
+public class RouteAdmission {
+
+    public static class Lane {
+        private final String name;
+        private final Semaphore permits;
+        private final int maxConcurrent;
+        private final int maxWaiting;
+        private final long maxWaitMillis;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Lane(String name, int maxConcurrent, int maxWaiting, long maxWaitMillis) {
+            if (maxConcurrent <= 0)
+                throw new IllegalArgumentException("The maximum concurrent " + name + " requests have to be positive but was " + maxConcurrent);
+            this.name = name;
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaiting = maxWaiting;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        void acquire() {
+            try {
+                // in contrast to tryAcquire() this does not overtake the waiting requests
+                if (permits.tryAcquire(0, TimeUnit.MILLISECONDS))
+                    return;
+
+                try {
+                    if (waiting.incrementAndGet() > maxWaiting)
+                        throw reject("Too many " + name + " requests are waiting");
+                    if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS))
+                        throw reject("Timeout while waiting for the calculation of the " + name + " request");
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw reject("Interrupted while waiting for the calculation of the " + name + " request");
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        private ServiceUnavailableException reject(String message) {
+            rejected.incrementAndGet();
+            return new ServiceUnavailableException(Response.status(Response.Status.SERVICE_UNAVAILABLE).
+                    header("Retry-After", 1).
+                    type(MediaType.APPLICATION_JSON).
+                    entity(new MultiException(new IllegalStateException(message + ", please try again later"))).
+                    build());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRunning() {
+            return maxConcurrent - permits.availablePermits();
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public int getWaiting() {
+            return waiting.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+    }
+
+    private final RouteCostEstimator estimator;
+    private final boolean enabled;
+    private final double expensiveCost;
+    private final Lane cheap;
+    private final Lane expensive;
+
+    /**
+     * @param estimator if null all requests are cheap
+     */
+    public RouteAdmission(RouteCostEstimator estimator, CmdArgs configuration) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.estimator = estimator;
+        this.enabled = configuration.getBool("web.admission.enabled", false);
+        this.expensiveCost = configuration.getDouble("web.admission.expensive_cost", 5000);
+        this.cheap = new Lane("cheap",
+                configuration.getInt("web.admission.cheap.max_concurrent", 2 * processors),
+                configuration.getInt("web.admission.cheap.max_waiting", 200),
+                configuration.getLong("web.admission.cheap.max_wait_ms", 2000));
+        this.expensive = new Lane("expensive",
+                configuration.getInt("web.admission.expensive.max_concurrent", Math.max(1, processors / 2)),
+                configuration.getInt("web.admission.expensive.max_waiting", 10),
+                configuration.getLong("web.admission.expensive.max_wait_ms", 1000));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calculates the route as soon as the lane of the request has capacity.
+     *
+     * @throws ServiceUnavailableException if the request was rejected
+     */
+    public GHResponse route(GraphHopperAPI graphHopper, GHRequest request) {
+        if (!enabled)
+            return graphHopper.route(request);
+
+        Lane lane = getLane(request);
+        lane.acquire();
+        try {
+            return graphHopper.route(request);
+        } finally {
+            lane.release();
+        }
+    }
+
+    Lane getLane(GHRequest request) {
+        if (estimator == null)
+            return cheap;
+        return estimator.estimate(request) >= expensiveCost ? expensive : cheap;
+    }
+
+    public Lane getCheapLane() {
+        return cheap;
+    }
+
+    public Lane getExpensiveLane() {
+        return expensive;
+    }
+}
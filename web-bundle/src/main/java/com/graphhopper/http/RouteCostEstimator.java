@@ -0,0 +1,116 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.util.DistanceCalc;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.Parameters.CH;
+import com.graphhopper.util.Parameters.Landmark;
+import com.graphhopper.util.shapes.GHPoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.graphhopper.util.Parameters.Algorithms.*;
+
+/**
+ * Estimates the effort of a route request before it is calculated. The cost is roughly proportional to the
+ * number of nodes the search visits: a search without speed-up explores a disk around the start, i.e. its cost
+ * grows quadratically with the beeline distance of every leg, while the search space of the speed mode (CH)
+ * hardly depends on the distance at all.
+ */
+public class RouteCostEstimator {
+
+    // the fraction of the disk which is explored by the flexible algorithms
+    private static final double DIJKSTRA_FACTOR = 1;
+    private static final double DIJKSTRA_BI_FACTOR = 0.5;
+    private static final double ASTAR_FACTOR = 0.3;
+    private static final double ASTAR_BI_FACTOR = 0.2;
+    private static final double LM_FACTOR = 0.05;
+    private static final double CH_FACTOR = 0.01;
+
+    private final GraphHopper graphHopper;
+    private final DistanceCalc distCalc = Helper.DIST_PLANE;
+
+    public RouteCostEstimator(GraphHopper graphHopper) {
+        this.graphHopper = graphHopper;
+    }
+
+    /**
+     * @return the estimated cost of the request, a flexible bidirectional A* search over 100km costs 2000
+     */
+    public double estimate(GHRequest request) {
+        HintsMap hints = request.getHints();
+        String algo = Helper.toLowerCase(request.getAlgorithm());
+        List<GHPoint> points = request.getPoints();
+
+        double[] legKm;
+        if (ROUND_TRIP.equals(algo)) {
+            // a round trip consists of several legs which cover the requested distance together
+            int legs = hints.getInt(RoundTrip.POINTS, 2) + 1;
+            legKm = new double[legs];
+            Arrays.fill(legKm, hints.getDouble(RoundTrip.DISTANCE, 10000) / 1000 / legs);
+        } else {
+            legKm = new double[Math.max(0, points.size() - 1)];
+            for (int i = 1; i < points.size(); i++) {
+                GHPoint from = points.get(i - 1), to = points.get(i);
+                legKm[i - 1] = distCalc.calcDist(from.lat, from.lon, to.lat, to.lon) / 1000;
+            }
+        }
+
+        boolean useCH = graphHopper.getCHFactoryDecorator().isEnabled() && !hints.getBool(CH.DISABLE, false);
+        double cost = 0;
+        if (useCH) {
+            for (double km : legKm) {
+                cost += CH_FACTOR * km;
+            }
+            return cost;
+        }
+
+        double factor = getFlexibleFactor(algo, hints);
+        for (double km : legKm) {
+            cost += factor * km * km;
+        }
+        // the alternative route search explores the graph further than the best path
+        if (ALT_ROUTE.equals(algo))
+            cost *= 1 + hints.getInt(AltRoute.MAX_PATHS, 2);
+        return cost;
+    }
+
+    private double getFlexibleFactor(String algo, HintsMap hints) {
+        if (isLMApplicable(hints) && !DIJKSTRA.equals(algo) && !DIJKSTRA_BI.equals(algo))
+            return LM_FACTOR;
+        if (DIJKSTRA.equals(algo))
+            return DIJKSTRA_FACTOR;
+        if (DIJKSTRA_BI.equals(algo))
+            return DIJKSTRA_BI_FACTOR;
+        if (ASTAR.equals(algo))
+            return ASTAR_FACTOR;
+        return ASTAR_BI_FACTOR;
+    }
+
+    private boolean isLMApplicable(HintsMap hints) {
+        if (!graphHopper.getLMFactoryDecorator().isEnabled() || hints.getBool(Landmark.DISABLE, false))
+            return false;
+        String weighting = hints.getWeighting().isEmpty() ? "fastest" : Helper.toLowerCase(hints.getWeighting());
+        return graphHopper.getLMFactoryDecorator().getWeightingsAsStrings().contains(weighting);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.graphhopper.resources.RouteResource;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Measures the time to write the responses of RouteResource, which are streamed after the resource method
+ * returned, as the last stage of the routing metrics.
+ */
+public class RouteSerializationTimer implements WriterInterceptor {
+
+    private final Timer timer;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public RouteSerializationTimer(MetricRegistry metrics) {
+        this.timer = metrics.timer(MetricRegistry.name(RoutingMetrics.PREFIX, "serialization"));
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        if (resourceInfo == null || !RouteResource.class.equals(resourceInfo.getResourceClass())) {
+            context.proceed();
+            return;
+        }
+
+        final Timer.Context ctx = timer.time();
+        try {
+            context.proceed();
+        } finally {
+            ctx.stop();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.graphhopper.routing.RoutingStats;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the statistics of the route calculations as metrics: a timer per stage, see RoutingStats.Stage, and
+ * a histogram of the visited nodes per algorithm and vehicle.
+ */
+public class RoutingMetrics implements RoutingStats.Listener {
+
+    static final String PREFIX = "graphhopper.routing";
+
+    private final MetricRegistry metrics;
+    private final Timer[] stageTimers;
+
+    public RoutingMetrics(MetricRegistry metrics) {
+        this.metrics = metrics;
+        RoutingStats.Stage[] stages = RoutingStats.Stage.values();
+        stageTimers = new Timer[stages.length];
+        for (RoutingStats.Stage stage : stages) {
+            stageTimers[stage.ordinal()] = metrics.timer(MetricRegistry.name(PREFIX, stage.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    @Override
+    public void onRoute(RoutingStats stats) {
+        for (RoutingStats.Stage stage : RoutingStats.Stage.values()) {
+            stageTimers[stage.ordinal()].update(stats.getNanos(stage), TimeUnit.NANOSECONDS);
+        }
+        // The request keeps the names as sent, e.g. "astarbi" or "AStarBi", so they are normalized to one
+        // histogram per algorithm and vehicle. Unknown names fail the route before, so their number is bounded.
+        String algorithm = stats.getAlgorithm().toLowerCase(Locale.ROOT);
+        String vehicle = stats.getVehicle().toLowerCase(Locale.ROOT);
+        metrics.histogram(MetricRegistry.name(PREFIX, "visited_nodes", algorithm, vehicle)).
+                update(stats.getVisitedNodes());
+    }
+}
@@ -21,17 +21,31 @@ package com.graphhopper.http.health;
 import com.codahale.metrics.health.HealthCheck;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.EngineWarmUp;
 
 public class GraphHopperHealthCheck extends HealthCheck {
 
     private final GraphHopper graphHopper;
+    private final EngineWarmUp warmUp;
 
     public GraphHopperHealthCheck(GraphHopper graphHopper) {
+        this(graphHopper, null);
+    }
+
+    /**
+     * @param warmUp if not null the instance is only healthy after the warm up finished, so that it does not get
+     *               traffic while the first requests are still slow
+     */
+    public GraphHopperHealthCheck(GraphHopper graphHopper, EngineWarmUp warmUp) {
         this.graphHopper = graphHopper;
+        this.warmUp = warmUp;
     }
 
     @Override
     protected Result check() {
+        if (warmUp != null && !warmUp.isFinished())
+            return Result.unhealthy("Warm up is not finished yet");
+
         boolean valid = graphHopper.getGraphHopperStorage().getBounds().isValid();
         if (valid) {
             return Result.healthy();
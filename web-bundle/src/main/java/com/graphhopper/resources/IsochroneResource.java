@@ -3,7 +3,11 @@ package com.graphhopper.resources;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.graphhopper.GraphHopper;
+import com.graphhopper.isochrone.algorithm.GridHullBuilder;
 import com.graphhopper.isochrone.algorithm.Isochrone;
+import com.graphhopper.isochrone.algorithm.PhastGraph;
+import com.graphhopper.isochrone.algorithm.PhastGraphCache;
+import com.graphhopper.isochrone.algorithm.PhastSearch;
 import com.graphhopper.isochrone.algorithm.RasterHullBuilder;
 import com.graphhopper.routing.QueryGraph;
 import com.graphhopper.routing.util.*;
@@ -36,12 +40,17 @@ public class IsochroneResource {
     private final GraphHopper graphHopper;
     private final EncodingManager encodingManager;
     private final RasterHullBuilder rasterHullBuilder;
+    private final GridHullBuilder gridHullBuilder;
+    private final PhastGraphCache phastGraphCache;
 
     @Inject
-    public IsochroneResource(GraphHopper graphHopper, EncodingManager encodingManager, RasterHullBuilder rasterHullBuilder) {
+    public IsochroneResource(GraphHopper graphHopper, EncodingManager encodingManager, RasterHullBuilder rasterHullBuilder,
+                              GridHullBuilder gridHullBuilder, PhastGraphCache phastGraphCache) {
         this.graphHopper = graphHopper;
         this.encodingManager = encodingManager;
         this.rasterHullBuilder = rasterHullBuilder;
+        this.gridHullBuilder = gridHullBuilder;
+        this.phastGraphCache = phastGraphCache;
     }
 
     @GET
@@ -54,6 +63,7 @@ public class IsochroneResource {
             @QueryParam("reverse_flow") @DefaultValue("false") boolean reverseFlow,
             @QueryParam("point") GHPoint point,
             @QueryParam("result") @DefaultValue("polygon") String resultStr,
+            @QueryParam("hull") @DefaultValue("triangulation") String hullStr,
             @QueryParam("time_limit") @DefaultValue("600") long timeLimitInSeconds,
             @QueryParam("distance_limit") @DefaultValue("-1") double distanceInMeter) {
 
@@ -63,6 +73,9 @@ public class IsochroneResource {
         if (point == null)
             throw new IllegalArgumentException("point parameter cannot be null");
 
+        if (!"triangulation".equalsIgnoreCase(hullStr) && !"grid".equalsIgnoreCase(hullStr))
+            throw new IllegalArgumentException("hull not supported:" + hullStr);
+
         StopWatch sw = new StopWatch().start();
 
         if (!encodingManager.supports(vehicle))
@@ -81,9 +94,7 @@ public class IsochroneResource {
 
         HintsMap hintsMap = new HintsMap();
         RouteResource.initHints(hintsMap, uriInfo.getQueryParameters());
-
-        Weighting weighting = graphHopper.createWeighting(hintsMap, encoder, graph);
-        Isochrone isochrone = new Isochrone(queryGraph, weighting, reverseFlow);
+        hintsMap.setVehicle(vehicle);
 
         if (distanceInMeter > 0) {
             double maxMeter = 50 * 1000;
@@ -91,22 +102,43 @@ public class IsochroneResource {
                 throw new IllegalArgumentException("Specify a limit of less than " + maxMeter / 1000f + "km");
             if (buckets > (distanceInMeter / 500))
                 throw new IllegalArgumentException("Specify buckets less than the number of explored kilometers");
-
-            isochrone.setDistanceLimit(distanceInMeter);
         } else {
-
             long maxSeconds = 80 * 60;
             if (timeLimitInSeconds > maxSeconds)
                 throw new IllegalArgumentException("Specify a limit of less than " + maxSeconds + " seconds");
             if (buckets > (timeLimitInSeconds / 60))
                 throw new IllegalArgumentException("Specify buckets less than the number of explored minutes");
-
-            isochrone.setTimeLimit(timeLimitInSeconds);
         }
 
-        List<List<Double[]>> list = isochrone.searchGPS(qr.getClosestNode(), buckets);
-        if (isochrone.getVisitedNodes() > graphHopper.getMaxVisitedNodes() / 5) {
-            throw new IllegalArgumentException("Server side reset: too many junction nodes would have to explored (" + isochrone.getVisitedNodes() + "). Let us know if you need this increased.");
+        List<List<Double[]>> list;
+        int visitedNodes;
+        // With a contracted graph, a PHAST search explores much fewer nodes than a Dijkstra for large limits
+        PhastGraph phastGraph = phastGraphCache.get(hintsMap, reverseFlow);
+        if (phastGraph != null) {
+            PhastSearch search = phastGraph.acquire();
+            try {
+                if (distanceInMeter > 0)
+                    search.setDistanceLimit(distanceInMeter);
+                else
+                    search.setTimeLimit(timeLimitInSeconds);
+                search.search(queryGraph, qr.getClosestNode());
+                list = search.getBucketCoordinates(buckets);
+                visitedNodes = search.getVisitedNodes();
+            } finally {
+                phastGraph.release(search);
+            }
+        } else {
+            Weighting weighting = graphHopper.createWeighting(hintsMap, encoder, graph);
+            Isochrone isochrone = new Isochrone(queryGraph, weighting, reverseFlow);
+            if (distanceInMeter > 0)
+                isochrone.setDistanceLimit(distanceInMeter);
+            else
+                isochrone.setTimeLimit(timeLimitInSeconds);
+            list = isochrone.searchGPS(qr.getClosestNode(), buckets);
+            visitedNodes = isochrone.getVisitedNodes();
+        }
+        if (visitedNodes > graphHopper.getMaxVisitedNodes() / 5) {
+            throw new IllegalArgumentException("Server side reset: too many junction nodes would have to explored (" + visitedNodes + "). Let us know if you need this increased.");
         }
 
         int counter = 0;
@@ -124,37 +156,48 @@ public class IsochroneResource {
             calcRes = list;
 
         } else if ("polygon".equalsIgnoreCase(resultStr)) {
-            list = rasterHullBuilder.calcList(list, list.size() - 1);
-
-            ArrayList polyList = new ArrayList();
-            int index = 0;
-            for (List<Double[]> polygon : list) {
-                HashMap<String, Object> geoJsonMap = new HashMap<>();
-                HashMap<String, Object> propMap = new HashMap<>();
-                HashMap<String, Object> geometryMap = new HashMap<>();
-                polyList.add(geoJsonMap);
-                geoJsonMap.put("type", "Feature");
-                geoJsonMap.put("properties", propMap);
-                geoJsonMap.put("geometry", geometryMap);
-
-                propMap.put("bucket", index);
-                geometryMap.put("type", "Polygon");
-                // we have no holes => embed in yet another list
-                geometryMap.put("coordinates", Collections.singletonList(polygon));
-                index++;
-            }
-            calcRes = polyList;
+            // the grid is much faster for large isochrones, but only as precise as its cells
+            if ("grid".equalsIgnoreCase(hullStr))
+                list = gridHullBuilder.calcList(list, list.size() - 1);
+            else
+                list = rasterHullBuilder.calcList(list, list.size() - 1);
+
+            calcRes = toGeoJsonFeatures(list);
         } else {
             throw new IllegalArgumentException("type not supported:" + resultStr);
         }
 
-        logger.info("took: " + sw.getSeconds() + ", visited nodes:" + isochrone.getVisitedNodes() + ", " + uriInfo.getQueryParameters());
+        logger.info("took: " + sw.getSeconds() + ", visited nodes:" + visitedNodes + ", " + uriInfo.getQueryParameters());
         return Response.fromResponse(jsonSuccessResponse(calcRes, sw.stop().getSeconds()))
                 .header("X-GH-Took", "" + sw.stop().getSeconds() * 1000)
                 .build();
     }
 
-    private Response jsonSuccessResponse(Object result, float took) {
+    /**
+     * Converts the hull of every bucket into a GeoJSON feature with the bucket index as property.
+     */
+    static List<Object> toGeoJsonFeatures(List<List<Double[]>> polygons) {
+        List<Object> features = new ArrayList<>(polygons.size());
+        int index = 0;
+        for (List<Double[]> polygon : polygons) {
+            HashMap<String, Object> geoJsonMap = new HashMap<>();
+            HashMap<String, Object> propMap = new HashMap<>();
+            HashMap<String, Object> geometryMap = new HashMap<>();
+            features.add(geoJsonMap);
+            geoJsonMap.put("type", "Feature");
+            geoJsonMap.put("properties", propMap);
+            geoJsonMap.put("geometry", geometryMap);
+
+            propMap.put("bucket", index);
+            geometryMap.put("type", "Polygon");
+            // we have no holes => embed in yet another list
+            geometryMap.put("coordinates", Collections.singletonList(polygon));
+            index++;
+        }
+        return features;
+    }
+
+    static Response jsonSuccessResponse(Object result, float took) {
         ObjectNode json = JsonNodeFactory.instance.objectNode();
         json.putPOJO("polygons", result);
         // If you replace GraphHopper with your own brand name, this is fine.
@@ -0,0 +1,128 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.resources;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.isochrone.algorithm.RasterHullBuilder;
+import com.graphhopper.reader.gtfs.GraphHopperGtfs;
+import com.graphhopper.reader.gtfs.PtTravelTimes;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.Parameters;
+import com.graphhopper.util.StopWatch;
+import com.graphhopper.util.shapes.GHPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Isochrones for public transit, built on the one-to-all search of GraphHopperGtfs. With a departure window,
+ * the travel time of every node is the given percentile over all departures in the window.
+ */
+@Path("isochrone-pt")
+public class PtIsochroneResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(PtIsochroneResource.class);
+
+    private final GraphHopperGtfs graphHopper;
+    private final GraphHopperStorage graphHopperStorage;
+    private final RasterHullBuilder rasterHullBuilder;
+
+    @Inject
+    public PtIsochroneResource(GraphHopperGtfs graphHopper, GraphHopperStorage graphHopperStorage, RasterHullBuilder rasterHullBuilder) {
+        this.graphHopper = graphHopper;
+        this.graphHopperStorage = graphHopperStorage;
+        this.rasterHullBuilder = rasterHullBuilder;
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response doGet(
+            @Context UriInfo uriInfo,
+            @QueryParam("point") GHPoint point,
+            @QueryParam("buckets") @DefaultValue("1") int buckets,
+            @QueryParam("result") @DefaultValue("polygon") String resultStr,
+            @QueryParam("time_limit") @DefaultValue("600") long timeLimitInSeconds,
+            @QueryParam("percentile") @DefaultValue("50") double percentile) {
+
+        if (buckets > 20 || buckets < 1)
+            throw new IllegalArgumentException("Number of buckets has to be in the range [1, 20]");
+
+        if (point == null)
+            throw new IllegalArgumentException("point parameter cannot be null");
+
+        if (buckets > (timeLimitInSeconds / 60))
+            throw new IllegalArgumentException("Specify buckets less than the number of explored minutes");
+
+        StopWatch sw = new StopWatch().start();
+        GHRequest request = new GHRequest(Collections.singletonList(point));
+        RouteResource.initHints(request.getHints(), uriInfo.getQueryParameters());
+        request.getHints().put(Parameters.PT.TIME_LIMIT, timeLimitInSeconds);
+        PtTravelTimes travelTimes = graphHopper.calcTravelTimes(request);
+
+        final double bucketSize = timeLimitInSeconds * 1000.0 / buckets;
+        List<List<Double[]>> list = new ArrayList<>(buckets + 1);
+        for (int i = 0; i < buckets + 1; i++) {
+            list.add(new ArrayList<>());
+        }
+        NodeAccess na = graphHopperStorage.getNodeAccess();
+        for (int node : travelTimes.getNodes()) {
+            long travelTime = travelTimes.getTravelTime(node, percentile);
+            if (travelTime < 0)
+                continue;
+            int bucketIndex = (int) (travelTime / bucketSize);
+            if (bucketIndex > buckets)
+                continue;
+            list.get(bucketIndex).add(new Double[]{na.getLongitude(node), na.getLatitude(node)});
+        }
+
+        Object calcRes;
+        if ("pointlist".equalsIgnoreCase(resultStr)) {
+            calcRes = list;
+        } else if ("polygon".equalsIgnoreCase(resultStr)) {
+            int counter = 0;
+            for (List<Double[]> tmp : list.subList(0, buckets)) {
+                if (tmp.size() < 2) {
+                    throw new IllegalArgumentException("Too few points found for bucket " + counter + ". "
+                            + "Please try a different 'point', a smaller 'buckets' count or a larger 'time_limit'.");
+                }
+                counter++;
+            }
+            list = rasterHullBuilder.calcList(list, list.size() - 1);
+
+            calcRes = IsochroneResource.toGeoJsonFeatures(list);
+        } else {
+            throw new IllegalArgumentException("type not supported:" + resultStr);
+        }
+
+        float took = sw.stop().getSeconds();
+        logger.info("took: " + took + ", visited nodes:" + travelTimes.getVisitedNodes() + ", " + uriInfo.getQueryParameters());
+        return Response.fromResponse(IsochroneResource.jsonSuccessResponse(calcRes, took))
+                .header("X-GH-Took", "" + took * 1000)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.resources;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.graphhopper.GHRequest;
+import com.graphhopper.reader.gtfs.GraphHopperGtfs;
+import com.graphhopper.util.StopWatch;
+import com.graphhopper.util.shapes.GHPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.util.List;
+
+/**
+ * Public transit travel times between all pairs of origins and destinations. Times are in seconds, -1 means
+ * that the destination cannot be reached within pt.time_limit.
+ */
+@Path("matrix-pt")
+public class PtMatrixResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(PtMatrixResource.class);
+    private static final int MAX_CELLS = 10_000;
+
+    private final GraphHopperGtfs graphHopper;
+
+    @Inject
+    public PtMatrixResource(GraphHopperGtfs graphHopper) {
+        this.graphHopper = graphHopper;
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response doGet(
+            @Context UriInfo uriInfo,
+            @QueryParam("from_point") List<GHPoint> fromPoints,
+            @QueryParam("to_point") List<GHPoint> toPoints,
+            @QueryParam("percentile") @DefaultValue("50") double percentile) {
+        if (fromPoints.isEmpty() || toPoints.isEmpty())
+            throw new IllegalArgumentException("You have to pass at least one from_point and one to_point");
+        if ((long) fromPoints.size() * toPoints.size() > MAX_CELLS)
+            throw new IllegalArgumentException("At most " + MAX_CELLS + " origin-destination pairs are allowed");
+
+        StopWatch sw = new StopWatch().start();
+        GHRequest request = new GHRequest(fromPoints);
+        RouteResource.initHints(request.getHints(), uriInfo.getQueryParameters());
+        long[][] matrix = graphHopper.calcMatrix(request, toPoints, percentile);
+
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        ArrayNode times = json.putArray("times");
+        for (long[] row : matrix) {
+            ArrayNode timesRow = times.addArray();
+            for (long millis : row) {
+                timesRow.add(millis < 0 ? -1 : Math.round(millis / 1000.0));
+            }
+        }
+        float took = sw.stop().getSeconds();
+        logger.info("took: " + took + ", " + fromPoints.size() + "x" + toPoints.size() + ", " + uriInfo.getQueryParameters());
+        final ObjectNode info = json.putObject("info");
+        info.putArray("copyrights")
+                .add("GraphHopper")
+                .add("OpenStreetMap contributors");
+        info.put("took", Math.round(took * 1000));
+        return Response.ok(json)
+                .header("X-GH-Took", "" + took * 1000)
+                .build();
+    }
+}
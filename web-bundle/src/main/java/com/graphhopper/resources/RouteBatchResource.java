@@ -0,0 +1,239 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.GraphHopperAPI;
+import com.graphhopper.MultiException;
+import com.graphhopper.http.RouteAdmission;
+import com.graphhopper.http.WebHelper;
+import com.graphhopper.util.CmdArgs;
+import com.graphhopper.util.StopWatch;
+import com.graphhopper.util.shapes.GHPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.graphhopper.util.Parameters.Routing.*;
+
+/**
+ * Calculates many independent routes with one request. The routes are calculated in parallel on a bounded
+ * executor, which is shared by all batch requests, and written in the order of the requests as soon as they are
+ * available. A route which fails does not fail the batch, instead its entry contains the same error object as a
+ * failed request to /route. Every route goes through the {@link RouteAdmission} like a single request, so a batch
+ * cannot bypass its limits, and a rejected route is such a failed entry.
+ * <p>
+ * The body is an object with the array "requests", every request has "points" as [longitude, latitude] arrays and
+ * optionally "vehicle", "weighting", "algorithm", "locale", "headings", "point_hints", "details" and further
+ * "hints". The output options "instructions", "calc_points", "elevation" and "points_encoded" apply to all
+ * requests and are set in the body itself.
+ */
+@Path("route/batch")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class RouteBatchResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteBatchResource.class);
+
+    private final GraphHopperAPI graphHopper;
+    private final RouteAdmission routeAdmission;
+    private final Boolean hasElevation;
+    private final ExecutorService executorService;
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+
+    @Inject
+    public RouteBatchResource(GraphHopperAPI graphHopper, RouteAdmission routeAdmission,
+                              @Named("hasElevation") Boolean hasElevation,
+                              @Named("routeBatch") ExecutorService executorService, ObjectMapper objectMapper,
+                              CmdArgs configuration) {
+        this.graphHopper = graphHopper;
+        this.routeAdmission = routeAdmission;
+        this.hasElevation = hasElevation;
+        this.executorService = executorService;
+        this.objectMapper = objectMapper;
+        this.maxRequests = configuration.getInt("web.batch.max_requests", 1000);
+    }
+
+    @POST
+    public Response doPost(JsonNode body) {
+        if (body == null)
+            throw new IllegalArgumentException("Empty request");
+        JsonNode requests = body.get("requests");
+        if (requests == null || !requests.isArray() || requests.size() == 0)
+            throw new IllegalArgumentException("You have to pass at least one request in 'requests'");
+        if (requests.size() > maxRequests)
+            throw new IllegalArgumentException("Too many requests " + requests.size() + ", the maximum is " + maxRequests);
+
+        final boolean instructions = body.path(INSTRUCTIONS).asBoolean(true);
+        final boolean calcPoints = body.path(CALC_POINTS).asBoolean(true);
+        final boolean enableElevation = body.path("elevation").asBoolean(false);
+        final boolean pointsEncoded = body.path("points_encoded").asBoolean(true);
+        if (enableElevation && !hasElevation)
+            throw new IllegalArgumentException("Elevation not supported!");
+        if (instructions && !calcPoints)
+            throw new IllegalArgumentException("Cannot calculate instructions without points, set " + INSTRUCTIONS + " to false");
+
+        final StopWatch sw = new StopWatch().start();
+        final List<Future<Result>> futures = new ArrayList<>(requests.size());
+        for (final JsonNode item : requests) {
+            futures.add(executorService.submit(() -> {
+                StopWatch routeSW = new StopWatch().start();
+                GHResponse ghResponse = routeAdmission.route(graphHopper, createRequest(item, instructions, calcPoints));
+                return new Result(ghResponse, routeSW.stop().getSeconds());
+            }));
+        }
+
+        StreamingOutput output = outputStream -> {
+            int errors = 0;
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("responses");
+                for (Future<Result> future : futures) {
+                    Result result = getResult(future);
+                    if (result.ghResponse.hasErrors()) {
+                        errors++;
+                        json.writeObject(new MultiException(result.ghResponse.getErrors()));
+                    } else {
+                        WebHelper.writeJson(json, result.ghResponse, instructions, calcPoints, enableElevation, pointsEncoded, result.took);
+                    }
+                    // the client gets every route as soon as it and all routes before it are available
+                    json.flush();
+                }
+                json.writeEndArray();
+                json.writeObjectFieldStart("info");
+                json.writeArrayFieldStart("copyrights");
+                json.writeString("GraphHopper");
+                json.writeString("OpenStreetMap contributors");
+                json.writeEndArray();
+                json.writeNumberField("took", Math.round(sw.stop().getSeconds() * 1000));
+                json.writeEndObject();
+                json.writeEndObject();
+            } finally {
+                // nothing left to do if the client went away
+                for (Future<Result> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            logger.info("batch of " + futures.size() + " requests, errors: " + errors + ", took: " + sw.getSeconds());
+        };
+        return Response.ok(output).build();
+    }
+
+    private static Result getResult(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            // a route rejected by the admission carries its error as entity
+            if (ex.getCause() instanceof WebApplicationException) {
+                Object entity = ((WebApplicationException) ex.getCause()).getResponse().getEntity();
+                if (entity instanceof MultiException)
+                    return new Result(new GHResponse().addErrors(((MultiException) entity).getErrors()), 0);
+            }
+            return new Result(new GHResponse().addError(ex.getCause()), 0);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new Result(new GHResponse().addError(ex), 0);
+        }
+    }
+
+    static GHRequest createRequest(JsonNode item, boolean instructions, boolean calcPoints) {
+        JsonNode points = item.get("points");
+        if (points == null || !points.isArray() || points.size() == 0)
+            throw new IllegalArgumentException("You have to pass at least one point");
+        JsonNode headings = item.get("headings");
+        if (headings != null && headings.size() > 1 && headings.size() != points.size())
+            throw new IllegalArgumentException("The number of 'headings' must be <= 1 "
+                    + "or equal to the number of points (" + points.size() + ")");
+
+        GHRequest request = new GHRequest(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            JsonNode point = points.get(i);
+            if (!point.isArray() || point.size() < 2)
+                throw new IllegalArgumentException("Every point has to be an array [longitude, latitude] but was " + point);
+            // if only one favored heading is specified take as start heading
+            double heading = headings != null && i < headings.size() ? headings.get(i).asDouble() : Double.NaN;
+            request.addPoint(new GHPoint(point.get(1).asDouble(), point.get(0).asDouble()), heading);
+        }
+
+        List<String> pointHints = toStringList(item.get("point_hints"));
+        if (pointHints.size() > 0 && pointHints.size() != points.size())
+            throw new IllegalArgumentException("If you pass " + POINT_HINT + ", you need to pass a hint for every point, empty hints will be ignored");
+
+        JsonNode hints = item.get("hints");
+        if (hints != null) {
+            Iterator<Map.Entry<String, JsonNode>> iter = hints.fields();
+            while (iter.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iter.next();
+                request.getHints().put(entry.getKey(), entry.getValue().asText());
+            }
+        }
+        request.setVehicle(item.path("vehicle").asText("car")).
+                setWeighting(item.path("weighting").asText("fastest")).
+                setAlgorithm(item.path("algorithm").asText("")).
+                setLocale(item.path("locale").asText("en")).
+                setPointHints(pointHints).
+                setPathDetails(toStringList(item.get("details"))).
+                getHints().
+                put(CALC_POINTS, calcPoints).
+                put(INSTRUCTIONS, instructions).
+                put(WAY_POINT_MAX_DISTANCE, item.path(WAY_POINT_MAX_DISTANCE).asDouble(1));
+        return request;
+    }
+
+    private static List<String> toStringList(JsonNode array) {
+        List<String> list = new ArrayList<>();
+        if (array != null) {
+            for (JsonNode node : array) {
+                list.add(node.asText());
+            }
+        }
+        return list;
+    }
+
+    private static class Result {
+        final GHResponse ghResponse;
+        final float took;
+
+        Result(GHResponse ghResponse, float took) {
+            this.ghResponse = ghResponse;
+            this.took = took;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.GraphHopperAPI;
+import com.graphhopper.util.CmdArgs;
+import org.junit.Test;
+
+import javax.ws.rs.ServiceUnavailableException;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class RouteAdmissionTest {
+
+    @Test
+    public void testEstimate() {
+        GraphHopper hopper = new GraphHopper().setCHEnabled(false);
+        RouteCostEstimator estimator = new RouteCostEstimator(hopper);
+        double shortRoute = estimator.estimate(new GHRequest(52.5, 13.3, 52.51, 13.31));
+        double longRoute = estimator.estimate(new GHRequest(52.5, 13.3, 53.5, 10));
+        assertTrue(shortRoute < 10);
+        assertTrue(longRoute > 5000);
+        assertTrue(estimator.estimate(new GHRequest(52.5, 13.3, 52.51, 13.31).setAlgorithm("dijkstra")) > shortRoute);
+        assertTrue(estimator.estimate(new GHRequest(52.5, 13.3, 52.51, 13.31).setAlgorithm("alternative_route")) > shortRoute);
+
+        hopper.setCHEnabled(true);
+        assertTrue(estimator.estimate(new GHRequest(52.5, 13.3, 53.5, 10)) < 10);
+    }
+
+    @Test
+    public void testRejectWhenOverloaded() throws Exception {
+        CmdArgs args = new CmdArgs().put("web.admission.enabled", true).
+                put("web.admission.cheap.max_concurrent", 1).
+                put("web.admission.cheap.max_waiting", 0);
+        final RouteAdmission admission = new RouteAdmission(null, args);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final GraphHopperAPI slowHopper = new GraphHopperAPI() {
+            @Override
+            public boolean load(String urlOrFile) {
+                return true;
+            }
+
+            @Override
+            public GHResponse route(GHRequest request) {
+                started.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                return new GHResponse();
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<GHResponse> future = executor.submit(() -> admission.route(slowHopper, new GHRequest(52.5, 13.3, 52.51, 13.31)));
+        started.await();
+        assertEquals(1, admission.getCheapLane().getRunning());
+        try {
+            admission.route(slowHopper, new GHRequest(52.5, 13.3, 52.51, 13.31));
+            fail("the second request has to be rejected");
+        } catch (ServiceUnavailableException ex) {
+            assertEquals(503, ex.getResponse().getStatus());
+        }
+        assertEquals(1, admission.getCheapLane().getRejected());
+
+        finish.countDown();
+        assertFalse(future.get().hasErrors());
+        assertEquals(0, admission.getCheapLane().getRunning());
+        executor.shutdown();
+    }
+}
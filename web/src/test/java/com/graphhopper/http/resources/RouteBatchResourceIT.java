@@ -0,0 +1,100 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.http.resources;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.graphhopper.http.GraphHopperApplication;
+import com.graphhopper.http.GraphHopperServerConfiguration;
+import com.graphhopper.util.CmdArgs;
+import com.graphhopper.util.Helper;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class RouteBatchResourceIT {
+    private static final String DIR = "./target/andorra-batch-gh/";
+
+    private static final GraphHopperServerConfiguration config = new GraphHopperServerConfiguration();
+
+    static {
+        config.getGraphHopperConfiguration().merge(new CmdArgs().
+                put("graph.flag_encoders", "car").
+                put("prepare.ch.weightings", "fastest").
+                put("prepare.min_network_size", "0").
+                put("prepare.min_one_way_network_size", "0").
+                put("web.batch.threads", "2").
+                put("datareader.file", "../core/files/andorra.osm.pbf").
+                put("graph.location", DIR));
+    }
+
+    @ClassRule
+    public static final DropwizardAppRule<GraphHopperServerConfiguration> app = new DropwizardAppRule(
+            GraphHopperApplication.class, config);
+
+    @AfterClass
+    public static void cleanUp() {
+        Helper.removeDir(new File(DIR));
+    }
+
+    @Test
+    public void testBatchInOrderWithErrors() {
+        String body = "{\"instructions\": false, \"requests\": ["
+                + "{\"points\": [[1.536198, 42.554851], [1.548128, 42.510071]]},"
+                + "{\"points\": [[1.536198, 42.554851], [-15.0, 38.0]]},"
+                + "{\"points\": []},"
+                + "{\"points\": [[1.548128, 42.510071], [1.536198, 42.554851]], \"details\": [\"average_speed\"]}"
+                + "]}";
+        final Response response = app.client().target("http://localhost:8080/route/batch").request().post(Entity.json(body));
+        assertEquals(200, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        JsonNode responses = json.get("responses");
+        assertEquals(4, responses.size());
+
+        double distance = responses.get(0).get("paths").get(0).get("distance").asDouble();
+        assertTrue("distance wasn't correct:" + distance, distance > 9000);
+        assertTrue("distance wasn't correct:" + distance, distance < 9500);
+        assertFalse(responses.get(0).get("paths").get(0).has("instructions"));
+
+        assertTrue(responses.get(1).get("message").asText().contains("Point 1 is out of bounds"));
+        assertTrue(responses.get(2).get("message").asText().contains("at least one point"));
+
+        JsonNode path = responses.get(3).get("paths").get(0);
+        assertTrue(path.get("details").has("average_speed"));
+        assertTrue(json.get("info").has("took"));
+    }
+
+    @Test
+    public void testTooManyRequests() {
+        StringBuilder body = new StringBuilder("{\"requests\": [");
+        for (int i = 0; i < 1001; i++) {
+            body.append(i > 0 ? "," : "").append("{\"points\": [[1.536198, 42.554851], [1.548128, 42.510071]]}");
+        }
+        body.append("]}");
+        final Response response = app.client().target("http://localhost:8080/route/batch").request().post(Entity.json(body.toString()));
+        assertEquals(400, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        assertTrue(json.get("message").asText().contains("Too many requests"));
+    }
+}